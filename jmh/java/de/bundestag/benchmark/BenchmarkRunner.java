@@ -0,0 +1,34 @@
+package de.bundestag.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * startet die benchmarks aus jmh/java und schreibt die ergebnisse als json nach data/jmh,
+ * damit läufe vor und nach einer änderung verglichen werden können.
+ * muss aus der projektwurzel gestartet werden, weil die benchmarks die protokolle unter
+ * main/resources/xml_files lesen.
+ *
+ * aufruf: java de.bundestag.benchmark.BenchmarkRunner [regex der benchmarks]
+ */
+public class BenchmarkRunner {
+
+    private static final String ERGEBNIS_DATEI = "data/jmh/ergebnis.json";
+
+    public static void main(String[] args) throws RunnerException {
+        String auswahl = args.length > 0 ? args[0] : "de\\.bundestag\\..*Benchmark";
+
+        new File(ERGEBNIS_DATEI).getParentFile().mkdirs();
+        Options options = new OptionsBuilder()
+                .include(auswahl)
+                .resultFormat(ResultFormatType.JSON)
+                .result(ERGEBNIS_DATEI)
+                .build();
+        new Runner(options).run();
+    }
+}
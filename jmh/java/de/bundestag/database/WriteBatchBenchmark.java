@@ -0,0 +1,75 @@
+package de.bundestag.database;
+
+import de.bundestag.model.Abgeordneter;
+import de.bundestag.model.CypherQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+//misst executeWriteBatch gegen eine temporäre embedded datenbank bei verschiedenen batch größen
+//jeder aufruf schreibt einen batch neuer abgeordneten knoten (MERGE auf eindeutige ids)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 30)
+@Fork(value = 1, jvmArgsAppend = "-Dfile.encoding=UTF-8")
+public class WriteBatchBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    public int batchGroesse;
+
+    private Path verzeichnis;
+    private Neo4jConnection connection;
+    private List<CypherQuery> batch;
+    private long naechsteId;
+
+    @Setup(Level.Trial)
+    public void starteDatenbank() throws IOException {
+        verzeichnis = Files.createTempDirectory("reden-portal-jmh");
+        connection = new Neo4jConnection(verzeichnis.resolve("db"), false);
+        connection.starte();
+    }
+
+    //ids werden pro aufruf neu vergeben, damit MERGE immer anlegt statt nur zu matchen
+    @Setup(Level.Invocation)
+    public void baueBatch() {
+        batch = new ArrayList<>(batchGroesse);
+        for (int i = 0; i < batchGroesse; i++) {
+            String id = "B" + (naechsteId++);
+            batch.add(new Abgeordneter(id, "Vorname", "Nachname " + id, null, "", "").toParameterizedNode());
+        }
+    }
+
+    @Benchmark
+    public void executeWriteBatch() {
+        connection.executeWriteBatch(batch);
+    }
+
+    @TearDown(Level.Trial)
+    public void stoppeDatenbank() throws IOException {
+        connection.shutdown();
+        try (Stream<Path> pfade = Files.walk(verzeichnis)) {
+            pfade.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package de.bundestag.factory;
+
+import de.bundestag.model.Abgeordneter;
+import de.bundestag.model.Fraktion;
+import de.bundestag.model.Rede;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//misst die create methoden der factory, wenn mehrere threads gleichzeitig in dieselbe factory schreiben
+//"neu" legt immer eine neue entität an, "vorhanden" trifft auf eine kleine menge bestehender ids
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Dfile.encoding=UTF-8")
+@Threads(4)
+public class PortalFactoryBenchmark {
+
+    private static final int VORHANDENE_IDS = 64;
+    private static final String TEXT = "Sehr geehrte Frau Präsidentin! Liebe Kolleginnen und Kollegen! ".repeat(40);
+
+    private PortalFactory factory;
+    private Abgeordneter abgeordneter;
+    private final AtomicLong naechsteId = new AtomicLong();
+
+    //neue factory pro iteration, damit die maps nicht über die messung hinweg unbegrenzt wachsen
+    @Setup(Level.Iteration)
+    public void neueFactory() {
+        factory = PortalFactory.createStandalone();
+        Fraktion fraktion = factory.createFraktion("SPD", "SPD", "");
+        abgeordneter = factory.createAbgeordneter("11000001", "Erika", "Mustermann", null, "", "");
+        factory.associateAbgeordneterToFraktion(abgeordneter, fraktion);
+        for (int i = 0; i < VORHANDENE_IDS; i++) {
+            factory.createAbgeordneter("A" + i, "Vorname", "Nachname" + i, null, "", "");
+        }
+        naechsteId.set(0);
+    }
+
+    @Benchmark
+    public Rede createRedeNeu() {
+        String id = "ID" + naechsteId.incrementAndGet();
+        return factory.createRede(id, LocalDate.of(2023, 1, 1), "Thema", abgeordneter, TEXT);
+    }
+
+    @Benchmark
+    public Object createKommentarNeu() {
+        long n = naechsteId.incrementAndGet();
+        return factory.createKommentar("K" + n, "unbekannt", "(Beifall bei der SPD)", LocalDate.of(2023, 1, 1), null);
+    }
+
+    @Benchmark
+    public Abgeordneter createAbgeordneterVorhanden() {
+        int i = (int) (naechsteId.incrementAndGet() % VORHANDENE_IDS);
+        return factory.createAbgeordneter("A" + i, "Vorname", "Nachname" + i, null, "", "");
+    }
+
+    @Benchmark
+    public Fraktion createFraktionNeu() {
+        String id = "F" + naechsteId.incrementAndGet();
+        return factory.createFraktion(id, id, "");
+    }
+}
@@ -0,0 +1,98 @@
+package de.bundestag.model;
+
+import de.bundestag.factory.PortalFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//misst toParameterizedNode pro entitätstyp, die entitäten stammen aus einem echten protokoll
+//ein aufruf kodiert jeweils eine entität, die benchmarks laufen reihum über alle entitäten des typs
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Dfile.encoding=UTF-8")
+public class EntityEncoderBenchmark {
+
+    @Param({"main/resources/xml_files/136.xml"})
+    public String datei;
+
+    private List<Fraktion> fraktionen;
+    private List<Abgeordneter> abgeordnete;
+    private List<Sitzung> sitzungen;
+    private List<Rede> reden;
+    private List<Kommentar> kommentare;
+    private Plenarprotokoll protokoll;
+    private int position;
+
+    @Setup(Level.Trial)
+    public void ladeEntitaeten() {
+        PortalFactory factory = PortalFactory.createStandalone();
+        factory.getXMLProcessor().parseXMLFile(new File(datei));
+
+        fraktionen = new ArrayList<>(factory.getAllFraktionen());
+        abgeordnete = new ArrayList<>(factory.getAllAbgeordnete());
+        sitzungen = new ArrayList<>(factory.getAllSitzungen());
+        reden = new ArrayList<>(factory.getAllReden());
+        kommentare = new ArrayList<>(factory.getAllKommentare());
+        if (reden.isEmpty() || kommentare.isEmpty() || sitzungen.isEmpty()) {
+            throw new IllegalStateException("Protokoll enthält keine Reden/Kommentare: " + datei);
+        }
+
+        Sitzung sitzung = sitzungen.get(0);
+        protokoll = new Plenarprotokoll(20, 1, sitzung.getDatum(), LocalTime.of(9, 0), LocalTime.of(23, 0),
+                sitzung, reden);
+    }
+
+    private <T> T naechste(List<T> liste) {
+        position++;
+        return liste.get(position % liste.size());
+    }
+
+    @Benchmark
+    public void fraktion(Blackhole bh) {
+        bh.consume(naechste(fraktionen).toParameterizedNode());
+    }
+
+    @Benchmark
+    public void abgeordneter(Blackhole bh) {
+        bh.consume(naechste(abgeordnete).toParameterizedNode());
+    }
+
+    @Benchmark
+    public void sitzung(Blackhole bh) {
+        bh.consume(naechste(sitzungen).toParameterizedNode());
+    }
+
+    @Benchmark
+    public void rede(Blackhole bh) {
+        bh.consume(naechste(reden).toParameterizedNode());
+    }
+
+    @Benchmark
+    public void kommentar(Blackhole bh) {
+        bh.consume(naechste(kommentare).toParameterizedNode());
+    }
+
+    @Benchmark
+    public void plenarprotokoll(Blackhole bh) {
+        bh.consume(protokoll.toParameterizedNode());
+    }
+}
@@ -0,0 +1,78 @@
+package de.bundestag.service;
+
+import de.bundestag.factory.PortalFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+//misst das parsen eines protokolls in eine leere factory ohne datenbank
+//136.xml liegt mit ~850 kb und 137 reden im median der mitgelieferten protokolle
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Dfile.encoding=UTF-8")
+public class XMLProcessorBenchmark {
+
+    @Param({"main/resources/xml_files/136.xml"})
+    public String datei;
+
+    private File xmlFile;
+    private PortalFactory factory;
+    private XMLProcessor processor;
+
+    @Setup(Level.Trial)
+    public void pruefeDatei() {
+        xmlFile = new File(datei);
+        if (!xmlFile.isFile()) {
+            throw new IllegalStateException("Protokoll nicht gefunden (Arbeitsverzeichnis muss die Projektwurzel sein): " + datei);
+        }
+    }
+
+    //jede messung startet mit einer leeren factory, sonst wäre ab dem zweiten aufruf alles schon vorhanden
+    @Setup(Level.Invocation)
+    public void neueFactory() {
+        factory = PortalFactory.createStandalone();
+        processor = factory.getXMLProcessor();
+    }
+
+    @Benchmark
+    public int parseProtokoll() {
+        processor.parseXMLFile(xmlFile);
+        return factory.getAllReden().size();
+    }
+
+    @State(Scope.Thread)
+    public static class FraktionNamen {
+        //typische schreibweisen aus den protokollen, inklusive fallback pfaden
+        @Param({"SPD", "CDU/CSU", "BÜNDNIS 90/DIE GRÜNEN", "DIE LINKE", "fraktionslos", "Bündnis 90/Die Grünen (Abgeordneter)"})
+        public String name;
+
+        XMLProcessor processor;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            processor = PortalFactory.createStandalone().getXMLProcessor();
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void normalizeFraktion(FraktionNamen state, Blackhole bh) {
+        bh.consume(state.processor.normalizeFraktion(state.name));
+    }
+}
@@ -1,30 +1,156 @@
 package app;
 
+import de.bundestag.export.KorpusExport;
 import de.bundestag.factory.PortalFactory;
+import de.bundestag.graph.GraphAnalyse;
+import de.bundestag.metrics.JfrAufzeichnung;
+import de.bundestag.metrics.MetricsRegistry;
+import de.bundestag.model.Kommentar;
+import de.bundestag.model.Rede;
+import de.bundestag.server.AbfrageServer;
 import de.bundestag.service.XMLProcessor;
 import de.bundestag.service.DatabaseService;
+import de.bundestag.service.EinPassStatistik;
+import de.bundestag.service.GraphStatistik;
+import de.bundestag.service.ModellStatistik;
+import de.bundestag.service.OnlineStatistik;
+import de.bundestag.service.SegmentStatistik;
 import de.bundestag.service.Statistik;
+import de.bundestag.service.StatistikVergleich;
+import de.bundestag.service.TagesordnungsStatistik;
+import de.bundestag.service.VerteilungsStatistik;
+import de.bundestag.service.ZeitWuerfel;
+import de.bundestag.text.DuplikatSuche;
+import de.bundestag.text.KommentarAnalyse;
+import de.bundestag.text.TermStatistik;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class MainApp {
+
+    //zielverzeichnis für metrics.prom und metrics.json
+    private static final Path METRICS_DIR = Paths.get("data/metrics");
+
     public static void main(String[] args) {
         if (args.length < 1) {
             System.err.println("Fehler: XML-Dateipfad fehlt als Argument.");
-            System.err.println("Verwendung: java MainApp <pfad-zu-xml-dateien>");
+            System.err.println("Verwendung: java MainApp <pfad-zu-xml-dateien> [--bulk-load] [--in-memory] [--nur-parsen] [--modell-statistik] [--statistik-vergleich] [--jfr <datei.jfr>] [--export <verzeichnis> [--export-json] [--export-gzip] [--export-text]] [--server <port> [--server-adresse <adresse>]] [--woerter] [--duplikate [--duplikate-speichern]] [--reaktionen] [--graph [--graph-speichern]] [--tagesordnung [<suchbegriff>]]");
             return;
         }
 
-        PortalFactory factory = PortalFactory.getInstance();
-        XMLProcessor processor = factory.getXMLProcessor();
+        //--bulk-load: initiales laden mit ladeoptimierten db einstellungen, constraints am ende
+        List<String> optionen = Arrays.asList(args);
+        boolean bulkLoad = optionen.contains("--bulk-load");
+        //--in-memory: graph im arbeitsspeicher statt neo4j, z.b. für schnelle probeläufe
+        boolean inMemory = optionen.contains("--in-memory");
+        //--nur-parsen: liest und prüft nur die xml dateien und gibt die zählungen aus, ohne datenbank, speichern und statistik
+        boolean nurParsen = optionen.contains("--nur-parsen");
+        //--modell-statistik: statistik aus den beim parsen mitgezählten werten, ohne datenbank und ohne speichern
+        boolean modellStatistik = nurParsen || optionen.contains("--modell-statistik");
+        //--statistik-vergleich: prüft die mitgezählten werte und die datenbank gegen eine neue auswertung des modells
+        boolean statistikVergleich = optionen.contains("--statistik-vergleich");
+        //--woerter: worthäufigkeiten und typische wörter pro fraktion, wird gespeichert und nur bei änderungen neu gezählt
+        boolean woerter = optionen.contains("--woerter");
+        //--duplikate: fast gleiche reden und kommentare (minhash/lsh), --duplikate-speichern legt AEHNLICH_ZU beziehungen an
+        boolean duplikateSpeichern = optionen.contains("--duplikate-speichern");
+        boolean duplikate = duplikateSpeichern || optionen.contains("--duplikate");
+        //--reaktionen: beifall, zwischenrufe usw. aus den kommentaren, wer reagiert auf wen
+        boolean reaktionen = optionen.contains("--reaktionen");
+        //--graph: pagerank, komponenten und jaccard auf der csr projektion, --graph-speichern schreibt die werte an die knoten
+        boolean graphSpeichern = optionen.contains("--graph-speichern");
+        boolean graph = graphSpeichern || optionen.contains("--graph");
+        //--tagesordnung [suchbegriff]: längste debatten pro tagesordnungspunkt, mit begriff die reden der fraktionen zu passenden titeln
+        int tagesordnungIndex = optionen.indexOf("--tagesordnung");
+        boolean tagesordnung = tagesordnungIndex >= 0;
+        String tagesordnungAnfrage = (tagesordnung && tagesordnungIndex + 1 < args.length && !args[tagesordnungIndex + 1].startsWith("--"))
+                ? args[tagesordnungIndex + 1] : null;
 
-        //initialisiere Service-Objekte
+        //--jfr <datei>: flight recorder aufzeichnung mit den eigenen parse/schreib/abfrage ereignissen
+        JfrAufzeichnung jfr = null;
+        int jfrIndex = optionen.indexOf("--jfr");
+        if (jfrIndex >= 0) {
+            if (jfrIndex + 1 >= args.length) {
+                System.err.println("Fehler: --jfr erwartet einen Dateipfad.");
+                return;
+            }
+            jfr = JfrAufzeichnung.starte(Paths.get(args[jfrIndex + 1]));
+        }
+
+        //--export <verzeichnis>: korpus als json, eine datei pro typ, parallel geschrieben
+        //standard ndjson, --export-json für json arrays, --export-gzip komprimiert, --export-text mit redetexten
+        Path exportVerzeichnis = null;
+        int exportIndex = optionen.indexOf("--export");
+        if (exportIndex >= 0) {
+            if (exportIndex + 1 >= args.length) {
+                System.err.println("Fehler: --export erwartet ein Verzeichnis.");
+                return;
+            }
+            exportVerzeichnis = Paths.get(args[exportIndex + 1]);
+        }
+
+        //--server <port>: nach dem lauf bleibt ein http server mit json abfragen offen, beenden mit strg+c
+        int serverPort = -1;
+        int serverIndex = optionen.indexOf("--server");
+        if (serverIndex >= 0) {
+            try {
+                serverPort = Integer.parseInt(args[serverIndex + 1]);
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                System.err.println("Fehler: --server erwartet eine Portnummer.");
+                return;
+            }
+        }
+        //--server-adresse <adresse>: der server hat keine anmeldung und hört deshalb nur auf localhost,
+        //z.b. 0.0.0.0 macht ihn ausdrücklich im netz erreichbar
+        InetAddress serverAdresse = InetAddress.getLoopbackAddress();
+        int adresseIndex = optionen.indexOf("--server-adresse");
+        if (adresseIndex >= 0) {
+            try {
+                serverAdresse = InetAddress.getByName(args[adresseIndex + 1]);
+            } catch (ArrayIndexOutOfBoundsException | UnknownHostException e) {
+                System.err.println("Fehler: --server-adresse erwartet eine gültige Adresse.");
+                return;
+            }
+        }
 
-        DatabaseService dbService = new DatabaseService(factory);
-        Statistik statistik = new Statistik(factory);
+        //metriken werden auch bei einem abbruch beim beenden geschrieben
+        MetricsRegistry.getInstance().exportAtExit(METRICS_DIR);
+
+        PortalFactory factory;
+        if (modellStatistik) {
+            factory = PortalFactory.createStandalone();
+        } else if (inMemory) {
+            factory = PortalFactory.createInMemory();
+        } else {
+            factory = PortalFactory.getInstance(bulkLoad);
+        }
+        XMLProcessor processor = factory.getXMLProcessor();
+        //zählt schon während des parsens mit, der bericht aus dem speicher ist danach sofort fertig
+        OnlineStatistik online = OnlineStatistik.anmelden(factory);
+        ZeitWuerfel wuerfel = ZeitWuerfel.anmelden(factory);
+
+        //der service der factory, die datenbank startet erst beim speichern
+        DatabaseService dbService = factory.getDatabaseService();
+        //der vollständige bericht liest die reden nur einmal und gruppiert alles aus diesem durchlauf
+        Statistik statistik = modellStatistik
+                ? new Statistik(online)
+                : new Statistik(new EinPassStatistik(factory.getGraphStore()));
 
         String directoryPathString = args[0];
 
+        //ein einziger weg zum beenden: bei strg+c über den shutdown hook, sonst im finally. erst der server,
+        //damit laufende anfragen noch antworten, dann die speicher und die aufzeichnung
+        AtomicReference<AbfrageServer> laufenderServer = new AtomicReference<>();
+        Runnable beenden = einmal(beende(laufenderServer, factory, jfr));
+        Thread beendenHook = new Thread(beenden, "portal-beenden");
+        Runtime.getRuntime().addShutdownHook(beendenHook);
+
         try {
             // XMLVerarbeitung
             System.out.println("\n STARTE PARSING Aufgabe 2");
@@ -39,10 +165,28 @@ public class MainApp {
             System.out.println("Prüfung: Reden in Factory: " + factory.getAllReden().size());
             System.out.println("Prüfung: Sitzungen in Factory: " + factory.getAllSitzungen().size());
             System.out.println("Prüfung: Kommentare in Factory: " + factory.getAllKommentare().size());
+            System.out.println("Prüfung: Tagesordnungspunkte in Factory: " + factory.getAllTagesordnungspunkte().size());
+
+            if (nurParsen) {
+                long fehler = MetricsRegistry.getInstance()
+                        .counter("xml_files_failed_total", "Anzahl XML Dateien mit Fehler beim Parsen").get();
+                System.out.println("Prüfung: Dateien mit Fehlern: " + fehler);
+                MetricsRegistry.getInstance().export(METRICS_DIR);
+                return;
+            }
 
             //Speicherung in Datenbank Aufgabe 3b
-            dbService.saveAllEntitiesToDatabase();
-            System.out.println(" Alle Daten in Neo4j gespeichert.");
+            if (!modellStatistik) {
+                dbService.saveAllEntitiesToDatabase();
+                System.out.println(" Alle Daten in Neo4j gespeichert.");
+            }
+
+            if (exportVerzeichnis != null) {
+                System.out.println("\n EXPORTIERE KORPUS nach " + exportVerzeichnis);
+                KorpusExport.Format format = optionen.contains("--export-json") ? KorpusExport.Format.ARRAY : KorpusExport.Format.NDJSON;
+                new KorpusExport(factory, format, optionen.contains("--export-gzip"), optionen.contains("--export-text"))
+                        .exportiere(exportVerzeichnis, true);
+            }
 
             //statistik Aufgabe 4
             System.out.println("\n STARTE STATISTIKEN Aufgabe 4");
@@ -73,17 +217,108 @@ public class MainApp {
             statistik.redeLaengeProFraktionInLaengsterSitzungNachLaenge();
             statistik.kommentarHaeufigkeitProFraktionInLaengsterSitzungNachLaenge();
 
+            //verteilungen (quantile) statt nur durchschnitten, teilergebnisse pro sitzung werden wiederverwendet
+            VerteilungsStatistik.berechne(factory).printBericht();
+
+            //eigener text und unterbrechungen aus der beim einlesen gespeicherten gliederung der reden
+            new SegmentStatistik(factory).printBericht();
+
+            //zeitreihen aus dem beim einlesen gefüllten würfel
+            wuerfel.printTrends(factory);
+
+            if (woerter) {
+                TermStatistik.berechne(factory).printFraktionen(factory);
+            }
+
+            if (reaktionen) {
+                KommentarAnalyse.fuer(factory).printReaktionen(factory);
+            }
+
+            if (graph) {
+                GraphAnalyse analyse = GraphAnalyse.berechne(factory);
+                analyse.printBericht(factory);
+                if (graphSpeichern && factory.getGraphStore() != null) {
+                    System.out.println(" " + analyse.speichere(factory.getGraphStore()) + " Knoten mit grad, pagerank und komponente gespeichert.");
+                }
+            }
+
+            if (tagesordnung) {
+                new TagesordnungsStatistik(factory).printBericht(tagesordnungAnfrage);
+            }
+
+            if (duplikate) {
+                DuplikatSuche.Ergebnis<Rede> reden = DuplikatSuche.reden(factory.getAllReden(), DuplikatSuche.STANDARD_SCHWELLE);
+                reden.print("fast gleiche reden", r -> r.getId() + " " + r.getRednername() + ", " + r.getDatum() + ": " + r.getUeberschrift(), 10);
+                DuplikatSuche.kommentare(factory.getAllKommentare(), DuplikatSuche.STANDARD_SCHWELLE)
+                        .print("fast gleiche kommentare", Kommentar::getText, 5);
+                if (duplikateSpeichern && factory.getGraphStore() != null) {
+                    int anzahl = DuplikatSuche.speichereBeziehungen(factory.getGraphStore(), reden);
+                    System.out.println(" " + anzahl + " AEHNLICH_ZU Beziehungen gespeichert.");
+                }
+            }
 
             System.out.println("\n STATISTIKEN ABGESCHLOSSEN ");
 
+            if (statistikVergleich) {
+                ModellStatistik modell = new ModellStatistik(factory);
+                StatistikVergleich.pruefeUndMelde(modell, online);
+                if (!modellStatistik) {
+                    StatistikVergleich.pruefeUndMelde(new GraphStatistik(factory.getGraphStore()), modell);
+                    StatistikVergleich.pruefeUndMelde(new EinPassStatistik(factory.getGraphStore()), modell);
+                }
+            }
+
+            //momentaufnahme nach dem vollständigen lauf
+            MetricsRegistry.getInstance().export(METRICS_DIR);
+
+            //der server nutzt die offene datenbank und den schon gefüllten abfrage cache
+            if (serverPort >= 0) {
+                AbfrageServer server = new AbfrageServer(factory, serverPort, serverAdresse);
+                laufenderServer.set(server);
+                server.start();
+                server.laufeBisBeendet();
+            }
+
         } catch (Exception e) {
             System.err.println("Ein Fehler ist da: " + e.getMessage());
             e.printStackTrace();
         } finally {
             //Sicherstellen dass die Datenbankverbindung geschlossen wird
-            if (factory.getDbConnection() != null) {
-                factory.getDbConnection().shutdown();
+            beenden.run();
+            try {
+                Runtime.getRuntime().removeShutdownHook(beendenHook);
+            } catch (IllegalStateException e) {
+                //die jvm wird schon beendet, der hook läuft oder ist gelaufen
             }
         }
     }
-}
\ No newline at end of file
+
+    private static Runnable beende(AtomicReference<AbfrageServer> server, PortalFactory factory, JfrAufzeichnung jfr) {
+        return () -> {
+            if (server.get() != null) {
+                server.get().close();
+            }
+            if (factory.getGraphStore() != null) {
+                factory.getGraphStore().shutdown();
+            }
+            if (factory.getTextStore() != null) {
+                factory.getTextStore().close();
+            }
+            if (jfr != null) {
+                jfr.close();
+            }
+        };
+    }
+
+    //führt die aufgabe nur beim ersten aufruf aus, ein gleichzeitiger zweiter aufruf wartet bis sie fertig ist
+    private static Runnable einmal(Runnable aufgabe) {
+        AtomicBoolean gelaufen = new AtomicBoolean();
+        return () -> {
+            synchronized (gelaufen) {
+                if (gelaufen.compareAndSet(false, true)) {
+                    aufgabe.run();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,358 @@
+package de.bundestag.database;
+
+import de.bundestag.metrics.MetricsRegistry;
+import de.bundestag.model.CypherQuery;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * ergebnis cache vor einem graph speicher. lesende operationen werden über einen normalisierten
+ * schlüssel (operation, label, eigenschaften, wert) und die korpus version zwischengespeichert,
+ * die version steigt mit jedem erfolgreichen schreib batch. dadurch liefern wiederholte
+ * statistiken über einen unveränderten bestand sofort ergebnisse.
+ *
+ * der cache ist nach anzahl der einträge und nach der summe der zeilen aller einträge begrenzt (lru),
+ * einige große ergebnisse verdrängen also viele kleine. optional wird er beim beenden in eine
+ * datei geschrieben und beim nächsten start geladen. vor dem ersten schreiben eines laufs wird die
+ * datei gelöscht, damit nach einem abbruch keine veralteten ergebnisse geladen werden. die korpus
+ * version zählt nur die schreib batches des laufenden prozesses und wird deshalb nicht mitgespeichert.
+ */
+public class CachingGraphStore implements GraphStore {
+
+    private static final int DATEI_FORMAT = 2; // 2: ohne korpus version, nur einfache klassen
+    public static final int STANDARD_MAX_EINTRAEGE = 512;
+    //summe der zeilen aller einträge, eine zahl (count) zählt als eine zeile
+    public static final long STANDARD_MAX_ZEILEN = 1_000_000;
+    //sehr große ergebnisse (z.b. fingerprints aller kommentare) würden den cache nur verdrängen
+    private static final int MAX_ZEILEN_PRO_EINTRAG = 200_000;
+
+    //beim laden sind nur die klassen erlaubt, die speichern() schreibt
+    private static final ObjectInputFilter LADE_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=5;java.lang.String;java.lang.Number;java.lang.Long;java.lang.Integer;java.lang.Double;"
+                    + "java.lang.Boolean;java.util.ArrayList;java.util.HashMap;java.util.LinkedHashMap;"
+                    //ArrayList und HashMap prüfen beim lesen ihre internen Object[] und Map.Entry[] arrays
+                    + "java.lang.Object;java.util.Map$Entry;!*");
+
+    private final GraphStore delegate;
+    private final Path datei; // null: keine persistenz
+    private final int maxEintraege;
+    private final long maxZeilen;
+    private final Map<String, Object> eintraege;
+    private long zeilenGesamt; // gewicht aller einträge
+    private long korpusVersion;
+    private boolean dateiGeloescht = false;
+    private boolean geschlossen = false;
+
+    /**
+     * @param delegate der eigentliche speicher
+     * @param datei datei für die persistenz des caches oder null
+     */
+    public CachingGraphStore(GraphStore delegate, Path datei) {
+        this(delegate, datei, STANDARD_MAX_EINTRAEGE, STANDARD_MAX_ZEILEN);
+    }
+
+    public CachingGraphStore(GraphStore delegate, Path datei, int maxEintraege, long maxZeilen) {
+        this.delegate = delegate;
+        this.datei = datei;
+        this.maxEintraege = maxEintraege;
+        this.maxZeilen = maxZeilen;
+        //access order: der am längsten nicht gelesene eintrag fliegt zuerst raus
+        this.eintraege = new LinkedHashMap<>(64, 0.75f, true);
+        laden();
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.gauge("graph_cache_entries", "Einträge im Abfrage Cache", () -> groesse());
+        metrics.gauge("graph_cache_rows", "Zeilen aller Einträge im Abfrage Cache", () -> getZeilen());
+        metrics.gauge("graph_cache_corpus_version", "Korpus Version des Abfrage Caches", () -> getKorpusVersion());
+    }
+
+    public synchronized long getKorpusVersion() {
+        return korpusVersion;
+    }
+
+    public synchronized int groesse() {
+        return eintraege.size();
+    }
+
+    public synchronized long getZeilen() {
+        return zeilenGesamt;
+    }
+
+    @Override
+    public void executeWriteBatch(List<CypherQuery> queries) {
+        synchronized (this) {
+            dateiLoeschen();
+        }
+        delegate.executeWriteBatch(queries);
+        //nur nach erfolgreichem schreiben, ein fehlgeschlagener batch ändert den bestand nicht
+        synchronized (this) {
+            korpusVersion++;
+            eintraege.clear();
+            zeilenGesamt = 0;
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> scanNodes(String label, String... eigenschaften) {
+        return zeilen(gecacht(schluessel("scan", label, null, null, eigenschaften),
+                () -> delegate.scanNodes(label, eigenschaften)));
+    }
+
+    @Override
+    public List<Map<String, Object>> findNodes(String label, String eigenschaft, Object wert, String... eigenschaften) {
+        return zeilen(gecacht(schluessel("find", label, eigenschaft, wert, eigenschaften),
+                () -> delegate.findNodes(label, eigenschaft, wert, eigenschaften)));
+    }
+
+    @Override
+    public List<Map<String, Object>> findNodesNach(String label, String eigenschaft, Object wert, String nachId, int limit,
+                                                   String... eigenschaften) {
+        //die seite gehört mit in den schlüssel, der wert bleibt im schlüssel typisiert
+        String seite = "nach:" + (nachId == null ? "" : nachId) + ":" + limit;
+        return zeilen(gecacht(schluessel("findNach", label, eigenschaft, wert, eigenschaften) + "|" + seite,
+                () -> delegate.findNodesNach(label, eigenschaft, wert, nachId, limit, eigenschaften)));
+    }
+
+    @Override
+    public List<Map<String, Object>> findNodesEnthaelt(String label, String eigenschaft, String teil, int limit,
+                                                       String... eigenschaften) {
+        return zeilen(gecacht(schluessel("contains", label, eigenschaft, teil, eigenschaften) + "|limit:" + limit,
+                () -> delegate.findNodesEnthaelt(label, eigenschaft, teil, limit, eigenschaften)));
+    }
+
+    @Override
+    public long countNodes(String label) {
+        return (Long) gecacht(schluessel("countNodes", label, null, null), () -> delegate.countNodes(label));
+    }
+
+    @Override
+    public long countRelationships(String typ) {
+        return (Long) gecacht(schluessel("countRelationships", typ, null, null), () -> delegate.countRelationships(typ));
+    }
+
+    @Override
+    public boolean isBulkLoadModus() {
+        return delegate.isBulkLoadModus();
+    }
+
+    @Override
+    public boolean isGeoeffnet() {
+        return delegate.isGeoeffnet();
+    }
+
+    @Override
+    public void finishBulkLoad() {
+        delegate.finishBulkLoad();
+    }
+
+    @Override
+    public void shutdown() {
+        synchronized (this) {
+            if (geschlossen) {
+                return;
+            }
+            geschlossen = true;
+        }
+        speichern();
+        delegate.shutdown();
+    }
+
+    //liefert den eintrag zum schlüssel oder berechnet ihn, fehler des speichers werden nicht gecacht
+    private Object gecacht(String abfrage, Supplier<Object> berechnung) {
+        String schluessel;
+        synchronized (this) {
+            schluessel = korpusVersion + "|" + abfrage;
+            Object treffer = eintraege.get(schluessel);
+            if (treffer != null) {
+                anfrageZaehler("hit");
+                return treffer;
+            }
+        }
+        anfrageZaehler("miss");
+        Object ergebnis = kopie(berechnung.get());
+        synchronized (this) {
+            //ein schreiben während der berechnung hat die version erhöht, der schlüssel ist dann veraltet
+            if (schluessel.startsWith(korpusVersion + "|") && cachebar(ergebnis)) {
+                einfuegen(schluessel, ergebnis);
+            }
+        }
+        return ergebnis;
+    }
+
+    //fügt ein und verdrängt die am längsten nicht gelesenen einträge, bis anzahl und zeilen passen
+    private void einfuegen(String schluessel, Object eintrag) {
+        Object alt = eintraege.put(schluessel, eintrag);
+        if (alt != null) {
+            zeilenGesamt -= gewicht(alt);
+        }
+        zeilenGesamt += gewicht(eintrag);
+        Iterator<Object> aelteste = eintraege.values().iterator();
+        while ((eintraege.size() > maxEintraege || zeilenGesamt > maxZeilen) && aelteste.hasNext()) {
+            zeilenGesamt -= gewicht(aelteste.next());
+            aelteste.remove();
+        }
+    }
+
+    private static long gewicht(Object eintrag) {
+        return eintrag instanceof List ? Math.max(1, ((List<?>) eintrag).size()) : 1;
+    }
+
+    //operation|label|eigenschaft|typ:wert|sortierte eigenschaften, die reihenfolge der projektion ist egal
+    private static String schluessel(String operation, String label, String eigenschaft, Object wert, String... eigenschaften) {
+        String[] sortiert = eigenschaften == null ? new String[0] : eigenschaften.clone();
+        Arrays.sort(sortiert);
+        String wertTeil = wert == null ? "" : wert.getClass().getSimpleName() + ":" + wert;
+        return operation + "|" + label + "|" + (eigenschaft == null ? "" : eigenschaft) + "|" + wertTeil
+                + "|" + String.join(",", sortiert);
+    }
+
+    //unveränderliche kopie, damit aufrufer den cache eintrag nicht verändern können
+    @SuppressWarnings("unchecked")
+    private static Object kopie(Object ergebnis) {
+        if (!(ergebnis instanceof List)) {
+            return ergebnis;
+        }
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        for (Map<String, Object> zeile : (List<Map<String, Object>>) ergebnis) {
+            zeilen.add(Collections.unmodifiableMap(new LinkedHashMap<>(zeile)));
+        }
+        return Collections.unmodifiableList(zeilen);
+    }
+
+    private boolean cachebar(Object ergebnis) {
+        return !(ergebnis instanceof List) || ((List<?>) ergebnis).size() <= Math.min(MAX_ZEILEN_PRO_EINTRAG, maxZeilen);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> zeilen(Object eintrag) {
+        return (List<Map<String, Object>>) eintrag;
+    }
+
+    private static void anfrageZaehler(String ergebnis) {
+        MetricsRegistry.getInstance()
+                .counter("graph_cache_requests_total", "Leseanfragen an den Abfrage Cache", "ergebnis", ergebnis)
+                .inc();
+    }
+
+    // --- persistenz ---
+
+    private void dateiLoeschen() {
+        if (datei == null || dateiGeloescht) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(datei);
+            dateiGeloescht = true;
+        } catch (IOException e) {
+            System.err.println("Abfrage Cache Datei konnte nicht gelöscht werden: " + e.getMessage());
+        }
+    }
+
+    private void laden() {
+        if (datei == null || !Files.exists(datei)) {
+            return;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(datei)))) {
+            in.setObjectInputFilter(LADE_FILTER);
+            if (in.readInt() != DATEI_FORMAT) {
+                return;
+            }
+            //die schlüssel stehen ohne version in der datei und gelten für die version dieses laufs
+            int anzahl = in.readInt();
+            for (int i = 0; i < anzahl; i++) {
+                String abfrage = in.readUTF();
+                Object eintrag = kopie(in.readObject());
+                if (cachebar(eintrag)) {
+                    einfuegen(korpusVersion + "|" + abfrage, eintrag);
+                }
+            }
+            System.out.println(" Abfrage Cache geladen: " + eintraege.size() + " Einträge");
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            //ein defekter oder vom filter abgelehnter cache ist kein fehler, er wird einfach neu aufgebaut
+            System.err.println("Abfrage Cache konnte nicht geladen werden: " + e.getMessage());
+            eintraege.clear();
+            zeilenGesamt = 0;
+        }
+    }
+
+    //schreibt alle einträge deren werte serialisierbar sind (zahlen, texte, wahrheitswerte).
+    //wurde der speicher in diesem lauf nie geöffnet (z.b. --nur-parsen) oder gibt es nichts zu speichern,
+    //wird weder das verzeichnis angelegt noch die datei geschrieben. eine vorhandene datei bleibt dann
+    //gültig, denn jedes schreiben löscht sie vorher
+    private synchronized void speichern() {
+        if (datei == null || !delegate.isGeoeffnet()) {
+            return;
+        }
+        List<Map.Entry<String, Object>> speicherbar = new ArrayList<>();
+        for (Map.Entry<String, Object> eintrag : eintraege.entrySet()) {
+            if (speicherbar(eintrag.getValue())) {
+                speicherbar.add(eintrag);
+            }
+        }
+        if (speicherbar.isEmpty()) {
+            return;
+        }
+        try {
+            Files.createDirectories(datei.toAbsolutePath().getParent());
+            Path temp = datei.resolveSibling(datei.getFileName() + ".tmp");
+            int geschrieben = 0;
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(DATEI_FORMAT);
+                out.writeInt(speicherbar.size());
+                String version = korpusVersion + "|";
+                for (Map.Entry<String, Object> eintrag : speicherbar) {
+                    out.writeUTF(eintrag.getKey().substring(version.length()));
+                    out.writeObject(schreibbar(eintrag.getValue()));
+                    geschrieben++;
+                }
+            }
+            Files.move(temp, datei, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            System.out.println(" Abfrage Cache gespeichert: " + geschrieben + " Einträge");
+        } catch (IOException e) {
+            System.err.println("Abfrage Cache konnte nicht gespeichert werden: " + e.getMessage());
+        }
+    }
+
+    private static boolean speicherbar(Object eintrag) {
+        if (!(eintrag instanceof List)) {
+            return eintrag instanceof Long;
+        }
+        for (Object zeile : (List<?>) eintrag) {
+            for (Object wert : ((Map<?, ?>) zeile).values()) {
+                if (wert != null && !(wert instanceof String || wert instanceof Long || wert instanceof Integer
+                        || wert instanceof Double || wert instanceof Boolean)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    //die unveränderlichen hüllen aus kopie() sind keine erlaubten klassen für den LADE_FILTER
+    private static Object schreibbar(Object eintrag) {
+        if (!(eintrag instanceof List)) {
+            return eintrag;
+        }
+        ArrayList<LinkedHashMap<String, Object>> kopien = new ArrayList<>();
+        for (Map<String, Object> zeile : zeilen(eintrag)) {
+            kopien.add(new LinkedHashMap<>(zeile));
+        }
+        return kopien;
+    }
+}
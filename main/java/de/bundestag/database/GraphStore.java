@@ -0,0 +1,77 @@
+package de.bundestag.database;
+
+import de.bundestag.model.CypherQuery;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * schnittstelle für den speicher des graphen. DatabaseService und Statistik arbeiten nur über
+ * diese operationen, dadurch kann statt der embedded Neo4j datenbank auch ein reiner
+ * speicher im arbeitsspeicher verwendet werden (tests, benchmarks, kleine auswertungen).
+ *
+ * geschrieben wird mit den CypherQuery objekten der entitäten, gelesen werden knoten
+ * eines labels mit einer auswahl ihrer eigenschaften. aggregationen macht der aufrufer.
+ * lesefehler werden als RuntimeException weitergegeben und nicht als leeres ergebnis geliefert.
+ */
+public interface GraphStore extends AutoCloseable {
+
+    /**
+     * schreibt alle queries in einer transaktion, bei einem fehler wird nichts geschrieben.
+     * @throws RuntimeException wenn der batch nicht geschrieben werden konnte
+     */
+    void executeWriteBatch(List<CypherQuery> queries);
+
+    /**
+     * liest alle knoten eines labels.
+     * @param label knoten label, z.b. "Abgeordneter"
+     * @param eigenschaften die zu lesenden eigenschaften, fehlende werte sind null
+     * @return eine map pro knoten mit eigenschaft -> wert
+     */
+    List<Map<String, Object>> scanNodes(String label, String... eigenschaften);
+
+    /**
+     * liest alle knoten eines labels, deren eigenschaft gleich dem wert ist.
+     */
+    List<Map<String, Object>> findNodes(String label, String eigenschaft, Object wert, String... eigenschaften);
+
+    /**
+     * eine seite der knoten eines labels, deren eigenschaft gleich dem wert ist (keyset pagination).
+     * geliefert werden höchstens limit knoten mit einer id größer als nachId, aufsteigend nach id sortiert.
+     * @param nachId id des letzten knotens der vorherigen seite, null oder leer für die erste seite
+     */
+    List<Map<String, Object>> findNodesNach(String label, String eigenschaft, Object wert, String nachId, int limit,
+                                            String... eigenschaften);
+
+    /**
+     * höchstens limit knoten eines labels, deren text eigenschaft den teil enthält (groß/klein wie CONTAINS),
+     * aufsteigend nach id sortiert.
+     */
+    List<Map<String, Object>> findNodesEnthaelt(String label, String eigenschaft, String teil, int limit,
+                                                String... eigenschaften);
+
+    long countNodes(String label);
+
+    long countRelationships(String typ);
+
+    //true solange der speicher mit ladeoptimierten einstellungen läuft
+    default boolean isBulkLoadModus() {
+        return false;
+    }
+
+    //schließt den bulk load ab, speicher ohne bulk load modus tun nichts
+    default void finishBulkLoad() {
+    }
+
+    //false solange ein lazy geöffneter speicher noch nicht gestartet wurde
+    default boolean isGeoeffnet() {
+        return true;
+    }
+
+    void shutdown();
+
+    @Override
+    default void close() {
+        shutdown();
+    }
+}
@@ -0,0 +1,269 @@
+package de.bundestag.database;
+
+import de.bundestag.metrics.MetricsRegistry;
+import de.bundestag.model.CypherQuery;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * graph speicher im arbeitsspeicher ohne datenbank start.
+ * wendet die strukturierte beschreibung der CypherQuery objekte an (label, eigenschaften, relationen)
+ * und verhält sich dabei wie die MERGE/SET queries: knoten werden über die id zusammengeführt,
+ * relationen nur angelegt wenn der zielknoten existiert und nicht doppelt. queries mit nurMatch()
+ * schreiben nichts, wenn der knoten fehlt.
+ */
+public class InMemoryGraphStore implements GraphStore {
+
+    // label -> id -> eigenschaften (inklusive id), nach id sortiert für die seiten von findNodesNach
+    private final Map<String, NavigableMap<String, Map<String, Object>>> knoten = new HashMap<>();
+    // relationstyp -> "zielLabel:zielId" -> "startLabel:startId" -> eigenschaften der relation,
+    // nach dem ziel gruppiert, damit die eingehenden relationen eines knotens ohne suche entfernt werden können
+    private final Map<String, Map<String, Map<String, Map<String, Object>>>> relationen = new HashMap<>();
+    //ein schreib batch ist für leser atomar
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public void executeWriteBatch(List<CypherQuery> queries) {
+        if (queries == null || queries.isEmpty()) {
+            return;
+        }
+        //erst alles prüfen, damit ein fehlerhafter batch nichts schreibt (wie ein rollback)
+        for (CypherQuery query : queries) {
+            if (query.getLabel() == null || query.parameters.get("id") == null) {
+                throw new RuntimeException("Fehler beim Ausführen eines Schreib Batches. Ursache: Query ohne Knotenbeschreibung: "
+                        + query.cypher);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (CypherQuery query : queries) {
+                schreibe(query);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        MetricsRegistry.getInstance()
+                .counter("graph_queries_executed_total", "Anzahl ausgeführter Lese- und Schreibabfragen",
+                        "store", "memory", "art", "write")
+                .add(queries.size());
+    }
+
+    private void schreibe(CypherQuery query) {
+        String id = query.parameters.get("id").toString();
+        NavigableMap<String, Map<String, Object>> alle = knoten.computeIfAbsent(query.getLabel(), k -> new TreeMap<>());
+        if (query.isNurMatch() && !alle.containsKey(id)) {
+            return; // MATCH findet den knoten nicht, die query schreibt nichts
+        }
+        Map<String, Object> eigenschaften = alle.computeIfAbsent(id, k -> new HashMap<>());
+        eigenschaften.put("id", id);
+        setze(eigenschaften, query.getEigenschaften(), query.parameters);
+
+        //DELETE der eingehenden relationen kommt im cypher vor dem MERGE der neuen
+        for (String typ : query.getEntfernteEingehende()) {
+            Map<String, Map<String, Map<String, Object>>> kanten = relationen.get(typ);
+            if (kanten != null) {
+                kanten.remove(schluessel(query.getLabel(), id));
+            }
+        }
+        for (String typ : query.getEntfernteAusgehende()) {
+            Map<String, Map<String, Map<String, Object>>> kanten = relationen.get(typ);
+            if (kanten != null) {
+                //die kanten sind nach dem ziel gruppiert, ausgehende stehen in jeder gruppe
+                String start = schluessel(query.getLabel(), id);
+                kanten.values().removeIf(eingehend -> eingehend.remove(start) != null && eingehend.isEmpty());
+            }
+        }
+
+        for (CypherQuery.Relation relation : query.getRelationen()) {
+            Object zielId = query.parameters.get(relation.zielIdParameter);
+            Map<String, Map<String, Object>> ziele = knoten.get(relation.zielLabel);
+            if (zielId == null || ziele == null || !ziele.containsKey(zielId.toString())) {
+                continue; // MATCH findet den zielknoten nicht, also keine relation
+            }
+            Map<String, Object> kante = relationen.computeIfAbsent(relation.typ, k -> new HashMap<>())
+                    .computeIfAbsent(schluessel(relation.zielLabel, zielId.toString()), k -> new HashMap<>())
+                    .computeIfAbsent(schluessel(query.getLabel(), id), k -> new HashMap<>());
+            setze(kante, relation.getEigenschaften(), query.parameters);
+        }
+    }
+
+    private static void setze(Map<String, Object> ziel, Map<String, String> zuordnung, Map<String, Object> parameter) {
+        for (Map.Entry<String, String> eigenschaft : zuordnung.entrySet()) {
+            Object wert = normalisiere(parameter.get(eigenschaft.getValue()));
+            if (wert == null) {
+                ziel.remove(eigenschaft.getKey()); // SET n.x = null entfernt die eigenschaft
+            } else {
+                ziel.put(eigenschaft.getKey(), wert);
+            }
+        }
+    }
+
+    private static String schluessel(String label, String id) {
+        return label + ":" + id;
+    }
+
+    //zahlen wie Neo4j ablegen (ganze zahlen als long, kommazahlen als double)
+    private static Object normalisiere(Object wert) {
+        if (wert instanceof Integer || wert instanceof Short || wert instanceof Byte) {
+            return ((Number) wert).longValue();
+        }
+        if (wert instanceof Float) {
+            return ((Float) wert).doubleValue();
+        }
+        return wert;
+    }
+
+    @Override
+    public List<Map<String, Object>> scanNodes(String label, String... eigenschaften) {
+        return findNodes(label, null, null, eigenschaften);
+    }
+
+    @Override
+    public List<Map<String, Object>> findNodes(String label, String eigenschaft, Object wert, String... eigenschaften) {
+        List<Map<String, Object>> ergebnis = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Map<String, Map<String, Object>> alle = knoten.get(label);
+            if (alle != null) {
+                Object gesucht = normalisiere(wert);
+                for (Map<String, Object> k : alle.values()) {
+                    if (eigenschaft != null && !Objects.equals(k.get(eigenschaft), gesucht)) {
+                        continue;
+                    }
+                    Map<String, Object> zeile = new LinkedHashMap<>();
+                    for (String e : eigenschaften) {
+                        zeile.put(e, k.get(e));
+                    }
+                    ergebnis.add(zeile);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        MetricsRegistry.getInstance()
+                .counter("graph_queries_executed_total", "Anzahl ausgeführter Lese- und Schreibabfragen",
+                        "store", "memory", "art", "read")
+                .inc();
+        return ergebnis;
+    }
+
+    @Override
+    public List<Map<String, Object>> findNodesNach(String label, String eigenschaft, Object wert, String nachId, int limit,
+                                                   String... eigenschaften) {
+        List<Map<String, Object>> ergebnis = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            NavigableMap<String, Map<String, Object>> alle = knoten.get(label);
+            if (alle != null) {
+                Object gesucht = normalisiere(wert);
+                //die ids sind sortiert, die seite beginnt direkt hinter nachId
+                Map<String, Map<String, Object>> rest = (nachId == null || nachId.isEmpty()) ? alle : alle.tailMap(nachId, false);
+                for (Map<String, Object> k : rest.values()) {
+                    if (ergebnis.size() >= limit) {
+                        break;
+                    }
+                    if (!Objects.equals(k.get(eigenschaft), gesucht)) {
+                        continue;
+                    }
+                    Map<String, Object> zeile = new LinkedHashMap<>();
+                    for (String e : eigenschaften) {
+                        zeile.put(e, k.get(e));
+                    }
+                    ergebnis.add(zeile);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        MetricsRegistry.getInstance()
+                .counter("graph_queries_executed_total", "Anzahl ausgeführter Lese- und Schreibabfragen",
+                        "store", "memory", "art", "read")
+                .inc();
+        return ergebnis;
+    }
+
+    @Override
+    public List<Map<String, Object>> findNodesEnthaelt(String label, String eigenschaft, String teil, int limit,
+                                                       String... eigenschaften) {
+        List<Map<String, Object>> ergebnis = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Map<String, Map<String, Object>> alle = knoten.get(label);
+            if (alle != null) {
+                for (Map<String, Object> k : alle.values()) {
+                    if (ergebnis.size() >= limit) {
+                        break;
+                    }
+                    Object wert = k.get(eigenschaft);
+                    if (!(wert instanceof String) || !((String) wert).contains(teil)) {
+                        continue;
+                    }
+                    Map<String, Object> zeile = new LinkedHashMap<>();
+                    for (String e : eigenschaften) {
+                        zeile.put(e, k.get(e));
+                    }
+                    ergebnis.add(zeile);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        MetricsRegistry.getInstance()
+                .counter("graph_queries_executed_total", "Anzahl ausgeführter Lese- und Schreibabfragen",
+                        "store", "memory", "art", "read")
+                .inc();
+        return ergebnis;
+    }
+
+    @Override
+    public long countNodes(String label) {
+        lock.readLock().lock();
+        try {
+            Map<String, Map<String, Object>> alle = knoten.get(label);
+            return alle == null ? 0 : alle.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long countRelationships(String typ) {
+        lock.readLock().lock();
+        try {
+            Map<String, Map<String, Map<String, Object>>> kanten = relationen.get(typ);
+            return kanten == null ? 0 : kanten.values().stream().mapToLong(Map::size).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * eigenschaften einer relation, z.b. anzahl bei BEIFALL oder aehnlichkeit bei AEHNLICH_ZU.
+     * @return kopie der eigenschaften oder null, wenn es die relation nicht gibt
+     */
+    public Map<String, Object> getRelation(String typ, String startLabel, String startId, String zielLabel, String zielId) {
+        lock.readLock().lock();
+        try {
+            Map<String, Map<String, Map<String, Object>>> kanten = relationen.get(typ);
+            Map<String, Map<String, Object>> eingehend = kanten == null ? null : kanten.get(schluessel(zielLabel, zielId));
+            Map<String, Object> kante = eingehend == null ? null : eingehend.get(schluessel(startLabel, startId));
+            return kante == null ? null : new HashMap<>(kante);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        //nichts zu schließen, der inhalt geht mit dem prozess verloren
+    }
+}
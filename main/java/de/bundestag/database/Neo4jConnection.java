@@ -6,84 +6,307 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.Transaction;
 
+import de.bundestag.metrics.Counter;
+import de.bundestag.metrics.MetricsRegistry;
+import de.bundestag.metrics.QueryEvent;
+import de.bundestag.metrics.WriteBatchEvent;
 import de.bundestag.model.CypherQuery; // 💡 NEU: Import für Batch-Verarbeitung
 
 import java.io.File;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 /**
  * stellt die Verbindung zu einer embedded Neo4j datenbank her
  * und ermöglicht  Ausführen von cypher Abfragen.
  */
-public class Neo4jConnection {
+public class Neo4jConnection implements GraphStore {
 
-    private final DatabaseManagementService managementService;
-    private final GraphDatabaseService graphDb;
+    private DatabaseManagementService managementService;
+    private GraphDatabaseService graphDb;
     private static final String DB_PATH = "data/neo4j-db";
 
+    //labels deren id eindeutig ist, reihenfolge wie bei den constraints
+    private static final String[] ID_LABELS = {"Kommentar", "Rede", "Abgeordneter", "Fraktion", "Sitzung", "Tagesordnungspunkt", "Protokoll"};
+
+    private static final String[] SEKUNDAER_INDIZES = {
+            "CREATE INDEX rede_sitzung_redner IF NOT EXISTS FOR (r:Rede) ON (r.sitzungId, r.rednerId)",
+            "CREATE INDEX rede_sitzung_fraktion IF NOT EXISTS FOR (r:Rede) ON (r.sitzungId, r.fraktionId)",
+            "CREATE INDEX rede_redner IF NOT EXISTS FOR (r:Rede) ON (r.rednerId)",
+            "CREATE INDEX rede_fraktion IF NOT EXISTS FOR (r:Rede) ON (r.fraktionId)",
+            "CREATE INDEX rede_tagesordnungspunkt IF NOT EXISTS FOR (r:Rede) ON (r.tagesordnungspunktId)",
+            //titelsuche mit CONTAINS (findNodesEnthaelt, GET /tagesordnungspunkte?titel=) über einen text index statt über alle tagesordnungspunkte
+            "CREATE TEXT INDEX tagesordnungspunkt_titel IF NOT EXISTS FOR (t:Tagesordnungspunkt) ON (t.titel)"
+    };
+
+    //knoten mit der version des angelegten schemas, ein hash über alle constraint und index anweisungen.
+    //kommt eine anweisung dazu, wird das schema beim nächsten start einmal neu angelegt
+    private static final String SCHEMA_LABEL = "Schema";
+    private static final String SCHEMA_VERSION = schemaVersion();
+
+    private static String schemaVersion() {
+        StringBuilder anweisungen = new StringBuilder();
+        for (String label : ID_LABELS) anweisungen.append(uniqueConstraint(label)).append('\n');
+        for (String index : SEKUNDAER_INDIZES) anweisungen.append(index).append('\n');
+        return CypherQuery.hashHex("SHA-1", anweisungen.toString());
+    }
+
+    //einstellungen für den bulk load: großer page cache, nur das letzte tx log behalten,
+    //checkpoints nur selten damit das laden nicht ständig auf die platte flusht
+    private static final Map<String, String> BULK_LOAD_SETTINGS = Map.of(
+            "server.memory.pagecache.size", "2g",
+            "db.tx_log.rotation.retention_policy", "false",
+            "db.tx_log.rotation.size", "1g",
+            "db.checkpoint.interval.time", "1h",
+            "db.checkpoint.interval.tx", "10000000"
+    );
+
+    //labels, typen und eigenschaften werden in die cypher abfrage eingesetzt und deshalb geprüft
+    private static final Pattern BEZEICHNER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    private final Path databasePath;
+    // true solange die datenbank mit den bulk load einstellungen läuft
+    private boolean bulkLoadModus;
+    // nach shutdown() wird die datenbank nicht wieder gestartet
+    private boolean geschlossen;
+
     public Neo4jConnection() {
-        File databaseDir = new File(DB_PATH);
+        this(false);
+    }
+
+    /**
+     * @param bulkLoadModus startet die datenbank mit ladeoptimierten einstellungen,
+     *                      constraints werden erst in finishBulkLoad() erstellt
+     */
+    public Neo4jConnection(boolean bulkLoadModus) {
+        this(Paths.get(DB_PATH), bulkLoadModus);
+    }
+
+    /**
+     * @param databasePath verzeichnis der embedded datenbank, z.b. ein temporäres verzeichnis für benchmarks
+     * @param bulkLoadModus siehe {@link #Neo4jConnection(boolean)}
+     */
+    public Neo4jConnection(Path databasePath, boolean bulkLoadModus) {
+        //die datenbank startet erst beim ersten zugriff, siehe db()
+        this.databasePath = databasePath;
+        this.bulkLoadModus = bulkLoadModus;
+    }
+
+    //startet die datenbank sofort statt beim ersten zugriff, z.b. damit der start nicht in eine messung fällt
+    public void starte() {
+        db();
+    }
+
+    /**
+     * startet die embedded datenbank beim ersten zugriff. läufe, die nur parsen oder aus dem speicher
+     * auswerten, öffnen sie so nie. das schema wird nur angelegt, wenn die gespeicherte version nicht passt.
+     */
+    private synchronized GraphDatabaseService db() {
+        if (geschlossen) {
+            throw new IllegalStateException("Die Datenbank wurde bereits geschlossen: " + databasePath);
+        }
+        if (graphDb != null) {
+            return graphDb;
+        }
+        long startZeit = System.nanoTime();
+        File databaseDir = databasePath.toFile();
         if (!databaseDir.exists()) {
             boolean created = databaseDir.mkdirs();
             if (created) {
-                System.out.println(" Db Verzeichnis erstellt: " + DB_PATH);
+                System.out.println(" Db Verzeichnis erstellt: " + databasePath);
             }
         }
 
-        Path databasePath = databaseDir.toPath();
-
         // Initialisierung der embedded datenbank
-        this.managementService = new DatabaseManagementServiceBuilder(databasePath)
-                .build();
+        start(bulkLoadModus);
+        System.out.println(" embedded Neo4j datenbank initialisiert: " + databasePath);
+
+        if (bulkLoadModus) {
+            //im bulk load nur die id lookup indizes damit MERGE/MATCH keine label scans machen,
+            //die unique constraints kommen gesammelt am ende
+            createLookupIndexes();
+        } else {
+            //unique constraints hier erstellt für schnelle merge operationen
+            richteSchemaEin();
+        }
+        MetricsRegistry.getInstance()
+                .histogram("neo4j_start_seconds", "Dauer des Datenbankstarts beim ersten Zugriff")
+                .observeSince(startZeit);
+        return graphDb;
+    }
+
+    // startet das dbms, im bulk load modus mit den BULK_LOAD_SETTINGS
+    private void start(boolean bulkLoad) {
+        DatabaseManagementServiceBuilder builder = new DatabaseManagementServiceBuilder(databasePath);
+        if (bulkLoad) {
+            builder.setConfigRaw(new HashMap<>(BULK_LOAD_SETTINGS));
+        }
+        this.managementService = builder.build();
 
         // startet die Datenbank
         this.graphDb = managementService.database("neo4j");
+        this.bulkLoadModus = bulkLoad;
+    }
 
-        registerShutdownHook();
-        System.out.println(" embedded Neo4j datenbank initialisiert: " + DB_PATH);
+    /**
+     * legt constraints und indizes an, wenn die am schema knoten gespeicherte version nicht passt.
+     * bei passender version kostet der start nur diese eine leseabfrage, die auch die verbindung prüft.
+     */
+    private void richteSchemaEin() {
+        if (SCHEMA_VERSION.equals(gespeicherteSchemaVersion())) {
+            System.out.println(" [Index] Schema Version aktuell, constraints und indizes übersprungen.");
+            return;
+        }
+        if (createUniqueConstraints() && createSecondaryIndexes()) {
+            speichereSchemaVersion();
+        }
+    }
 
-        testConnection();
-        //unique constraints hier erstellt für schnelle merge operationen
-        createUniqueConstraints();
+    private String gespeicherteSchemaVersion() {
+        try (Transaction tx = graphDb.beginTx()) {
+            Result result = tx.execute("MATCH (s:" + SCHEMA_LABEL + " {id: 'schema'}) RETURN s.version AS version");
+            Object version = result.hasNext() ? result.next().get("version") : null;
+            tx.commit();
+            return (version != null) ? version.toString() : null;
+        } catch (Exception e) {
+            System.err.println(" Fehler beim Lesen der Schema Version: " + e.getMessage());
+            return null;
+        }
     }
 
-    private void registerShutdownHook() {
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            shutdown();
-        }));
+    private void speichereSchemaVersion() {
+        try (Transaction tx = graphDb.beginTx()) {
+            tx.execute("MERGE (s:" + SCHEMA_LABEL + " {id: 'schema'}) SET s.version = $version", Map.of("version", SCHEMA_VERSION));
+            tx.commit();
+        } catch (Exception e) {
+            System.err.println(" Fehler beim Speichern der Schema Version: " + e.getMessage());
+        }
     }
 
     /**
      * erstellt  unique constraints für schnelle mergeoperationen
      */
-    private void createUniqueConstraints() {
+    private boolean createUniqueConstraints() {
         try (Transaction tx = graphDb.beginTx()) {
-            tx.execute("CREATE CONSTRAINT IF NOT EXISTS FOR (k:Kommentar) REQUIRE k.id IS UNIQUE");
-            tx.execute("CREATE CONSTRAINT IF NOT EXISTS FOR (r:Rede) REQUIRE r.id IS UNIQUE");
-            tx.execute("CREATE CONSTRAINT IF NOT EXISTS FOR (a:Abgeordneter) REQUIRE a.id IS UNIQUE");
-            tx.execute("CREATE CONSTRAINT IF NOT EXISTS FOR (f:Fraktion) REQUIRE f.id IS UNIQUE");
-            tx.execute("CREATE CONSTRAINT IF NOT EXISTS FOR (s:Sitzung) REQUIRE s.id IS UNIQUE");
-            tx.execute("CREATE CONSTRAINT IF NOT EXISTS FOR (p:Protokoll) REQUIRE p.id IS UNIQUE");
+            for (String label : ID_LABELS) {
+                tx.execute(uniqueConstraint(label));
+            }
             tx.commit();
             System.out.println(" [Index] unique Constraints erstellt.");
+            return true;
         } catch (Exception e) {
             System.err.println(" Fehler beim Erstellung der Constraints: " + e.getMessage());
+            return false;
         }
     }
 
+    private static String uniqueConstraint(String label) {
+        return "CREATE CONSTRAINT IF NOT EXISTS FOR (n:" + label + ") REQUIRE n.id IS UNIQUE";
+    }
+
+    /**
+     * erstellt die indizes auf den denormalisierten schlüsseln der reden,
+     * damit gruppierungen pro sitzung, redner und fraktion reine index scans sind
+     */
+    private boolean createSecondaryIndexes() {
+        try (Transaction tx = graphDb.beginTx()) {
+            for (String index : SEKUNDAER_INDIZES) {
+                tx.execute(index);
+            }
+            tx.commit();
+            System.out.println(" [Index] Rede Schlüssel Indizes erstellt.");
+            return true;
+        } catch (Exception e) {
+            System.err.println(" Fehler beim Erstellung der Indizes: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * erstellt einfache range indizes auf id für den bulk load.
+     * existiert schon ein constraint (datenbank nicht leer), wird nichts angelegt.
+     */
+    private void createLookupIndexes() {
+        try (Transaction tx = graphDb.beginTx()) {
+            for (String label : ID_LABELS) {
+                tx.execute("CREATE INDEX bulk_" + label.toLowerCase() + "_id IF NOT EXISTS FOR (n:" + label + ") ON (n.id)");
+            }
+            tx.commit();
+            System.out.println(" [Index] bulk load lookup indizes erstellt, constraints werden verschoben.");
+        } catch (Exception e) {
+            // passiert wenn schon ein unique constraint auf dem property liegt, dann reicht der
+            System.out.println(" [Index] lookup indizes übersprungen: " + e.getMessage());
+        }
+    }
+
+    /**
+     * beendet den bulk load: ersetzt die lookup indizes in einem durchgang durch die
+     * unique constraints, wartet bis alle indizes online sind und startet die datenbank
+     * danach mit den normalen einstellungen neu.
+     */
+    @Override
+    public void finishBulkLoad() {
+        if (!bulkLoadModus) {
+            return;
+        }
+        System.out.println(" [BulkLoad] erstelle constraints und indizes...");
+        try (Transaction tx = db().beginTx()) {
+            for (String label : ID_LABELS) {
+                tx.execute("DROP INDEX bulk_" + label.toLowerCase() + "_id IF EXISTS");
+            }
+            tx.commit();
+        } catch (Exception e) {
+            System.err.println(" Fehler beim Entfernen der Bulk Indizes: " + e.getMessage());
+        }
+        if (createUniqueConstraints() && createSecondaryIndexes()) {
+            speichereSchemaVersion();
+        }
+        awaitIndexes();
+
+        // shutdown erzwingt den checkpoint, danach normaler betrieb
+        managementService.shutdown();
+        start(false);
+        System.out.println(" [BulkLoad] abgeschlossen, datenbank im normalen modus neu gestartet.");
+    }
+
+    //wartet bis die index population im hintergrund fertig ist
+    private void awaitIndexes() {
+        try (Transaction tx = graphDb.beginTx()) {
+            tx.execute("CALL db.awaitIndexes(600)");
+            tx.commit();
+        } catch (Exception e) {
+            System.err.println(" Fehler beim Warten auf Indizes: " + e.getMessage());
+        }
+    }
+
+    //zählt ausgeführte cypher abfragen getrennt nach lesen und schreiben
+    private static Counter queryZaehler(String art) {
+        return MetricsRegistry.getInstance()
+                .counter("graph_queries_executed_total", "Anzahl ausgeführter Lese- und Schreibabfragen",
+                        "store", "neo4j", "art", art);
+    }
+
+    @Override
+    public boolean isBulkLoadModus() {
+        return bulkLoadModus;
+    }
+
 
     /**
      * methode für Abfragen wobei jeder Aufruf eine eigene Transaktion startet.
      * sollte in der Regel durch executeWriteBatch ersetzt werden.
      */
     public void executeWriteQuery(String cypherQuery, Map<String, Object> parameters) {
-        try (Transaction tx = graphDb.beginTx()) {
+        try (Transaction tx = db().beginTx()) {
             // WICHTIG: Die .execute() Methode akzeptiert den Cypher-String und die Parameter-Map
             tx.execute(cypherQuery, parameters);
             tx.commit();
+            queryZaehler("write").inc();
         } catch (Exception e) {
             System.err.println("Fehler bei Schreibabfrage für Cypher: " + cypherQuery);
             System.err.println("   Mit Parametern: " + parameters);
@@ -96,46 +319,175 @@ public class Neo4jConnection {
      * einzigenn transaktion aus Batchmodus.
      * @param queries Die Liste der CypherQuery Objekte (Query-String und Parameter-Map).
      */
+    @Override
     public void executeWriteBatch(List<CypherQuery> queries) {
         if (queries == null || queries.isEmpty()) {
             return;
         }
 
+        WriteBatchEvent event = new WriteBatchEvent();
+        event.begin();
         // die transaktion wird nur einmal für den gesamten Batch geöffnet
-        try (Transaction tx = graphDb.beginTx()) {
+        try (Transaction tx = db().beginTx()) {
             for (CypherQuery query : queries) {
                 // führt jeden Query mit seinen spezifischen Parameter aus
                 tx.execute(query.cypher, query.parameters);
             }
             tx.commit(); // Alle änderungen werden gleichzeitig gespeichert
+            queryZaehler("write").add(queries.size());
+            event.erfolgreich = true;
         } catch (Exception e) {
             // fehlerhafte transaktion wird automatisch zurückgerollt sozusagen
             // wir werfen die ausnahme erneut damit der Databaseservice den Fehler melden kann
             throw new RuntimeException("Fehler beim Ausführen eines Schreib Batches. Ursache: " + e.getMessage(), e);
+        } finally {
+            event.batchGroesse = queries.size();
+            event.commit();
         }
     }
 
 
     // methode für lesende Abfragen
     public List<Map<String, Object>> executeReadQuery(String cypherQuery) {
+        return executeReadQuery(cypherQuery, Map.of());
+    }
+
+    // methode für lesende Abfragen mit $Parametern
+    public List<Map<String, Object>> executeReadQuery(String cypherQuery, Map<String, Object> parameters) {
+        return executeReadQuery("unbenannt", cypherQuery, parameters);
+    }
+
+    /**
+     * lesende abfrage mit einem namen, der im jfr ereignis die abfrage identifiziert.
+     * @param name kurzer name der abfrage, z.b. die statistik zu der sie gehört
+     */
+    public List<Map<String, Object>> executeReadQuery(String name, String cypherQuery, Map<String, Object> parameters) {
+        try {
+            return lese(name, cypherQuery, parameters);
+        } catch (RuntimeException e) {
+            System.err.println("Fehler bei Leseabfrage: " + e.getMessage());
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    //lesende abfrage ohne fehlerbehandlung, für die GraphStore methoden: ein fehler darf nicht
+    //wie ein leeres ergebnis aussehen, sonst landet er z.b. im abfrage cache
+    private List<Map<String, Object>> lese(String name, String cypherQuery, Map<String, Object> parameters) {
         List<Map<String, Object>> records = new ArrayList<>();
+        QueryEvent event = new QueryEvent();
+        event.begin();
 
-        try (Transaction tx = graphDb.beginTx()) {
-            Result result = tx.execute(cypherQuery);
+        try (Transaction tx = db().beginTx()) {
+            Result result = tx.execute(cypherQuery, parameters);
+            queryZaehler("read").inc();
 
             while (result.hasNext()) {
                 records.add(result.next());
             }
             return records;
 
-        } catch (Exception e) {
-            System.err.println("Fehler bei Leseabfrage: " + e.getMessage());
-            e.printStackTrace();
-            return records;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.name = name;
+                event.cypher = cypherQuery;
+                event.zeilen = records.size();
+                event.commit();
+            }
         }
     }
 
-    public void shutdown() {
+    @Override
+    public List<Map<String, Object>> scanNodes(String label, String... eigenschaften) {
+        String cypher = "MATCH (n:" + bezeichner(label) + ") RETURN " + projektion(eigenschaften);
+        return lese("scan_" + label, cypher, Map.of());
+    }
+
+    @Override
+    public List<Map<String, Object>> findNodes(String label, String eigenschaft, Object wert, String... eigenschaften) {
+        String cypher = "MATCH (n:" + bezeichner(label) + ") WHERE n." + bezeichner(eigenschaft) + " = $wert RETURN "
+                + projektion(eigenschaften);
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("wert", wert);
+        return lese("find_" + label + "_" + eigenschaft, cypher, parameter);
+    }
+
+    @Override
+    public List<Map<String, Object>> findNodesNach(String label, String eigenschaft, Object wert, String nachId, int limit,
+                                                   String... eigenschaften) {
+        String cypher = "MATCH (n:" + bezeichner(label) + ") WHERE n." + bezeichner(eigenschaft) + " = $wert AND n.id > $nach "
+                + "RETURN " + projektion(eigenschaften) + " ORDER BY n.id LIMIT $limit";
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("wert", wert);
+        parameter.put("nach", nachId == null ? "" : nachId);
+        parameter.put("limit", limit);
+        return lese("find_nach_" + label + "_" + eigenschaft, cypher, parameter);
+    }
+
+    //nutzt den text index, z.b. tagesordnungspunkt_titel
+    @Override
+    public List<Map<String, Object>> findNodesEnthaelt(String label, String eigenschaft, String teil, int limit,
+                                                       String... eigenschaften) {
+        String cypher = "MATCH (n:" + bezeichner(label) + ") WHERE n." + bezeichner(eigenschaft) + " CONTAINS $teil "
+                + "RETURN " + projektion(eigenschaften) + " ORDER BY n.id LIMIT $limit";
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("teil", teil);
+        parameter.put("limit", limit);
+        return lese("contains_" + label + "_" + eigenschaft, cypher, parameter);
+    }
+
+    @Override
+    public long countNodes(String label) {
+        List<Map<String, Object>> result = lese("count_" + label,
+                "MATCH (n:" + bezeichner(label) + ") RETURN count(n) AS anzahl", Map.of());
+        return result.isEmpty() ? 0 : ((Number) result.get(0).get("anzahl")).longValue();
+    }
+
+    @Override
+    public long countRelationships(String typ) {
+        List<Map<String, Object>> result = lese("count_" + typ,
+                "MATCH ()-[r:" + bezeichner(typ) + "]->() RETURN count(r) AS anzahl", Map.of());
+        return result.isEmpty() ? 0 : ((Number) result.get(0).get("anzahl")).longValue();
+    }
+
+    //n.a AS a, n.b AS b ...
+    private static String projektion(String... eigenschaften) {
+        if (eigenschaften.length == 0) {
+            throw new IllegalArgumentException("Mindestens eine Eigenschaft muss gelesen werden");
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String eigenschaft : eigenschaften) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append("n.").append(bezeichner(eigenschaft)).append(" AS ").append(eigenschaft);
+        }
+        return sb.toString();
+    }
+
+    private static String bezeichner(String name) {
+        if (name == null || !BEZEICHNER.matcher(name).matches()) {
+            throw new IllegalArgumentException("Ungültiger Bezeichner: " + name);
+        }
+        return name;
+    }
+
+    public Path getDatabasePath() {
+        return databasePath;
+    }
+
+    @Override
+    public synchronized boolean isGeoeffnet() {
+        return graphDb != null && !geschlossen;
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        //einen eigenen shutdown hook gibt es nicht mehr, beendet wird nur über den aufrufer (MainApp),
+        //ein zweiter aufruf tut nichts
+        if (geschlossen) {
+            return;
+        }
+        geschlossen = true;
         if (managementService != null) {
             managementService.shutdown();
             System.out.println("Neo4j datenbank gestürzt");
@@ -146,7 +498,7 @@ public class Neo4jConnection {
      * testet die Datenbankverbindung
      */
     public void testConnection() {
-        try (Transaction tx = graphDb.beginTx()) {
+        try (Transaction tx = db().beginTx()) {
             Result result = tx.execute("RETURN 'Datenbank bereit' AS status");
             if (result.hasNext()) {
                 Map<String, Object> row = result.next();
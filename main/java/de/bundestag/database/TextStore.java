@@ -0,0 +1,265 @@
+package de.bundestag.database;
+
+import de.bundestag.model.CypherQuery;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * inhaltsadressierter speicher für die redetexte.
+ * die texte liegen komprimiert (deflate) in einer append-only datei, schlüssel ist der
+ * SHA-256 hash des textes. im graph bleibt an der rede nur noch der hash.
+ *
+ * aufbau eines eintrags: [32 byte hash][int rohlänge][int komprimierte länge][daten]
+ * der index hash -> offset wird beim öffnen durch einmaliges lesen der header aufgebaut.
+ */
+public class TextStore implements AutoCloseable {
+
+    private static final String STORE_PATH = "data/text-store/reden.blob";
+    private static final String HASH_ALGORITHMUS = "SHA-256";
+    private static final int HASH_BYTES = 32;
+    private static final int HEADER_BYTES = HASH_BYTES + 4 + 4;
+
+    private final Path datei;
+    private final FileChannel channel;
+    // hash (hex) -> offset des eintrags in der datei
+    private final Map<String, Long> index = new ConcurrentHashMap<>();
+
+    public TextStore() {
+        this(Paths.get(STORE_PATH));
+    }
+
+    /**
+     * textspeicher in einer temporären datei, die beim beenden gelöscht wird (z.b. zum InMemoryGraphStore).
+     */
+    public static TextStore temporaer() {
+        try {
+            Path datei = Files.createTempFile("reden-text-store", ".blob");
+            datei.toFile().deleteOnExit();
+            return new TextStore(datei);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Temporärer Textspeicher konnte nicht angelegt werden", e);
+        }
+    }
+
+    public TextStore(Path datei) {
+        this.datei = datei;
+        try {
+            if (datei.getParent() != null) {
+                Files.createDirectories(datei.getParent());
+            }
+            this.channel = FileChannel.open(datei,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ladeIndex();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Textspeicher konnte nicht geöffnet werden: " + datei, e);
+        }
+        System.out.println(" Textspeicher geöffnet: " + datei + " (" + index.size() + " Texte)");
+    }
+
+    /**
+     * berechnet den schlüssel unter dem ein text abgelegt wird.
+     * @param text der redetext
+     * @return SHA-256 des textes als hex string
+     */
+    public static String hash(String text) {
+        return CypherQuery.hashHex(HASH_ALGORITHMUS, text != null ? text : "");
+    }
+
+    /**
+     * legt einen text ab, falls er noch nicht vorhanden ist.
+     * @param text der redetext
+     * @return der hash unter dem der text abgelegt ist
+     */
+    public String put(String text) {
+        String inhalt = (text != null) ? text : "";
+        String hash = hash(inhalt);
+        if (index.containsKey(hash)) {
+            return hash; // gleicher inhalt ist schon gespeichert
+        }
+
+        //komprimieren außerhalb der sperre, nur das anhängen ist synchronisiert
+        byte[] roh = inhalt.getBytes(StandardCharsets.UTF_8);
+        byte[] komprimiert = deflate(roh);
+
+        synchronized (this) {
+            if (index.containsKey(hash)) {
+                return hash;
+            }
+            try {
+                long offset = channel.size();
+                ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + komprimiert.length);
+                buffer.put(hexToBytes(hash));
+                buffer.putInt(roh.length);
+                buffer.putInt(komprimiert.length);
+                buffer.put(komprimiert);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer, offset + buffer.position());
+                }
+                index.put(hash, offset);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Fehler beim Schreiben in den Textspeicher", e);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * liest einen text anhand seines hashes.
+     * @param hash der SHA-256 hash (hex)
+     * @return der text oder null, wenn der hash unbekannt ist
+     */
+    public String get(String hash) {
+        Long offset = (hash != null) ? index.get(hash) : null;
+        if (offset == null) {
+            return null;
+        }
+        try {
+            ByteBuffer header = leseVoll(offset, HEADER_BYTES);
+            header.position(HASH_BYTES);
+            int rohLaenge = header.getInt();
+            int komprimiertLaenge = header.getInt();
+
+            ByteBuffer daten = leseVoll(offset + HEADER_BYTES, komprimiertLaenge);
+            return new String(inflate(daten.array(), rohLaenge), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Fehler beim Lesen aus dem Textspeicher", e);
+        }
+    }
+
+    public boolean contains(String hash) {
+        return hash != null && index.containsKey(hash);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * schreibt alle angehängten einträge auf die platte.
+     */
+    public void flush() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            System.err.println("Fehler beim Flush des Textspeichers: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (channel.isOpen()) {
+                channel.force(false);
+                channel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Fehler beim Schließen des Textspeichers: " + e.getMessage());
+        }
+    }
+
+    //liest alle header einmal durch und baut den index auf,
+    //ein abgeschnittener letzter eintrag (abbruch beim schreiben) wird entfernt
+    private void ladeIndex() throws IOException {
+        long groesse = channel.size();
+        long offset = 0;
+        while (offset + HEADER_BYTES <= groesse) {
+            ByteBuffer header = leseVoll(offset, HEADER_BYTES);
+            byte[] hashBytes = new byte[HASH_BYTES];
+            header.get(hashBytes);
+            header.getInt(); // rohlänge wird erst beim lesen gebraucht
+            int komprimiertLaenge = header.getInt();
+
+            long ende = offset + HEADER_BYTES + komprimiertLaenge;
+            if (komprimiertLaenge < 0 || ende > groesse) {
+                break;
+            }
+            index.put(bytesToHex(hashBytes), offset);
+            offset = ende;
+        }
+        if (offset < groesse) {
+            System.err.println(" Textspeicher: unvollständiger Eintrag am Ende von " + datei + " wird verworfen.");
+            channel.truncate(offset);
+        }
+    }
+
+    private ByteBuffer leseVoll(long position, int laenge) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(laenge);
+        while (buffer.hasRemaining()) {
+            int gelesen = channel.read(buffer, position + buffer.position());
+            if (gelesen < 0) {
+                throw new IOException("Unerwartetes Dateiende im Textspeicher");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static byte[] deflate(byte[] roh) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(roh);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, roh.length / 2));
+            byte[] puffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(puffer);
+                out.write(puffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] komprimiert, int rohLaenge) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(komprimiert);
+            byte[] roh = new byte[rohLaenge];
+            int gelesen = 0;
+            while (gelesen < rohLaenge && !inflater.finished()) {
+                int n = inflater.inflate(roh, gelesen, rohLaenge - gelesen);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Unvollständiger Eintrag im Textspeicher");
+                }
+                gelesen += n;
+            }
+            return roh;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Beschädigter Eintrag im Textspeicher", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] hexToBytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    private static String bytesToHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
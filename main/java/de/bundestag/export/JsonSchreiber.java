@@ -0,0 +1,103 @@
+package de.bundestag.export;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * schreibt json direkt in einen writer, ohne JSONObject dazwischen. es gibt nur flache objekte
+ * (ein objekt pro entität), mehr braucht der export nicht. strings werden wie bei org.json maskiert.
+ */
+public class JsonSchreiber {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+    private boolean erstesFeld;
+
+    public JsonSchreiber(Writer out) {
+        this.out = out;
+    }
+
+    public JsonSchreiber beginObjekt() throws IOException {
+        out.write('{');
+        erstesFeld = true;
+        return this;
+    }
+
+    public JsonSchreiber endeObjekt() throws IOException {
+        out.write('}');
+        return this;
+    }
+
+    public JsonSchreiber feld(String name, String wert) throws IOException {
+        name(name);
+        if (wert == null) {
+            out.write("null");
+        } else {
+            string(wert);
+        }
+        return this;
+    }
+
+    public JsonSchreiber feld(String name, long wert) throws IOException {
+        name(name);
+        out.write(Long.toString(wert));
+        return this;
+    }
+
+    //wie JSONObject.put mit null: das feld fehlt
+    public JsonSchreiber feldWennVorhanden(String name, String wert) throws IOException {
+        if (wert != null) {
+            feld(name, wert);
+        }
+        return this;
+    }
+
+    //rohes zeichen zwischen den objekten, z.b. zeilenumbruch oder komma
+    public JsonSchreiber roh(String text) throws IOException {
+        out.write(text);
+        return this;
+    }
+
+    private void name(String name) throws IOException {
+        if (!erstesFeld) {
+            out.write(',');
+        }
+        erstesFeld = false;
+        string(name);
+        out.write(':');
+    }
+
+    //maskiert anführungszeichen, backslash, steuerzeichen und "</" wie org.json
+    private void string(String s) throws IOException {
+        out.write('"');
+        int start = 0;
+        char vorher = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            String ersatz = null;
+            switch (c) {
+                case '"': ersatz = "\\\""; break;
+                case '\\': ersatz = "\\\\"; break;
+                case '\n': ersatz = "\\n"; break;
+                case '\r': ersatz = "\\r"; break;
+                case '\t': ersatz = "\\t"; break;
+                case '\b': ersatz = "\\b"; break;
+                case '\f': ersatz = "\\f"; break;
+                case '/': if (vorher == '<') ersatz = "\\/"; break;
+                default:
+                    if (c < 0x20 || (c >= 0x80 && c < 0xa0) || (c >= 0x2000 && c < 0x2100)) {
+                        ersatz = "\\u" + HEX[c >> 12 & 0xf] + HEX[c >> 8 & 0xf] + HEX[c >> 4 & 0xf] + HEX[c & 0xf];
+                    }
+            }
+            if (ersatz != null) {
+                out.write(s, start, i - start);
+                out.write(ersatz);
+                start = i + 1;
+            }
+            vorher = c;
+        }
+        out.write(s, start, s.length() - start);
+        out.write('"');
+    }
+}
@@ -0,0 +1,231 @@
+package de.bundestag.export;
+
+import de.bundestag.factory.PortalFactory;
+import de.bundestag.metrics.MetricsRegistry;
+import de.bundestag.model.Abgeordneter;
+import de.bundestag.model.Fraktion;
+import de.bundestag.model.Kommentar;
+import de.bundestag.model.Rede;
+import de.bundestag.model.Sitzung;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * exportiert den ganzen korpus als json, eine datei pro typ (fraktionen, abgeordnete, sitzungen,
+ * reden, kommentare). jede entität wird direkt in einen gepufferten writer geschrieben, es entsteht
+ * weder ein JSONArray über alle entitäten noch ein JSONObject pro entität. der speicherbedarf hängt
+ * damit nicht von der korpusgröße ab.
+ *
+ * die felder entsprechen toJSON() der jeweiligen klasse, reden bekommen auf wunsch den volltext.
+ */
+public class KorpusExport {
+
+    public enum Format {
+        NDJSON(".ndjson"),  // ein objekt pro zeile
+        ARRAY(".json");     // ein json array pro datei
+
+        private final String endung;
+
+        Format(String endung) {
+            this.endung = endung;
+        }
+    }
+
+    private static final int PUFFER = 1 << 16;
+
+    private final PortalFactory factory;
+    private final Format format;
+    private final boolean gzip;
+    private final boolean mitText;
+
+    public KorpusExport(PortalFactory factory, Format format, boolean gzip, boolean mitText) {
+        this.factory = factory;
+        this.format = format;
+        this.gzip = gzip;
+        this.mitText = mitText;
+    }
+
+    /**
+     * schreibt alle typen in das verzeichnis.
+     * @param parallel jede datei in einem eigenen thread schreiben
+     * @return anzahl der geschriebenen entitäten pro datei
+     */
+    public Map<String, Long> exportiere(Path verzeichnis, boolean parallel) throws IOException {
+        Files.createDirectories(verzeichnis);
+        List<Teil<?>> teile = List.of(
+                new Teil<>("fraktionen", factory::getAllFraktionen, KorpusExport::schreibeFraktion),
+                new Teil<>("abgeordnete", factory::getAllAbgeordnete, KorpusExport::schreibeAbgeordneter),
+                new Teil<>("sitzungen", factory::getAllSitzungen, KorpusExport::schreibeSitzung),
+                new Teil<>("reden", factory::getAllReden, this::schreibeRede),
+                new Teil<>("kommentare", factory::getAllKommentare, KorpusExport::schreibeKommentar));
+
+        Map<String, Long> anzahl = new LinkedHashMap<>();
+        if (!parallel) {
+            for (Teil<?> teil : teile) {
+                anzahl.put(teil.name, teil.schreibe(verzeichnis));
+            }
+            return anzahl;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(teile.size());
+        try {
+            List<Future<Long>> ergebnisse = new ArrayList<>();
+            for (Teil<?> teil : teile) {
+                ergebnisse.add(pool.submit(() -> teil.schreibe(verzeichnis)));
+            }
+            for (int i = 0; i < teile.size(); i++) {
+                anzahl.put(teile.get(i).name, ergebnisse.get(i).get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export unterbrochen", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException("Export fehlgeschlagen", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return anzahl;
+    }
+
+    // --- felder wie in toJSON() ---
+
+    private static void schreibeFraktion(JsonSchreiber json, Fraktion f) throws IOException {
+        json.feld("id", f.getId())
+                .feldWennVorhanden("name", f.getName())
+                .feldWennVorhanden("herkunftspartei", f.getHerkunftspartei())
+                .feld("mitglieder_anzahl", f.getMitgliederanzahl());
+    }
+
+    private static void schreibeAbgeordneter(JsonSchreiber json, Abgeordneter a) throws IOException {
+        json.feld("id", a.getId())
+                .feld("name", a.getName())
+                .feld("geburtsdatum", a.getGeburtsdatum() != null ? a.getGeburtsdatum().toString() : "NULL")
+                .feldWennVorhanden("beruf", a.getBeruf())
+                .feldWennVorhanden("funktion", a.getFunktion());
+        if (a.getFraktion() != null) {
+            json.feld("fraktion_id", a.getFraktion().getId());
+        }
+    }
+
+    private static void schreibeSitzung(JsonSchreiber json, Sitzung s) throws IOException {
+        json.feld("id", s.getId())
+                .feld("datum", s.getDatum() != null ? s.getDatum().toString() : "NULL")
+                .feld("zeit", s.getZeit() != null ? s.getZeit().toString() : "NULL")
+                .feldWennVorhanden("raumnummer", s.getRaumnummer())
+                .feldWennVorhanden("zugang", s.getZugang());
+    }
+
+    private void schreibeRede(JsonSchreiber json, Rede r) throws IOException {
+        json.feld("id_nummer", r.getId())
+                .feldWennVorhanden("datum_tag", r.getDatum() != null ? r.getDatum().toString() : null)
+                .feldWennVorhanden("titel_text", r.getUeberschrift())
+                .feld("text_zeichen_anzahl", r.getTextLength())
+                .feld("kommentare_anzahl", r.getKommentare().size());
+        if (r.getRednerPerson() != null) {
+            json.feld("redner_person_id", r.getRednerPerson().getId());
+        }
+        if (mitText) {
+            json.feldWennVorhanden("text", r.getText());
+        }
+    }
+
+    private static void schreibeKommentar(JsonSchreiber json, Kommentar k) throws IOException {
+        json.feld("id", k.getId())
+                .feldWennVorhanden("AutorName", k.getAutor())
+                .feldWennVorhanden("Inhalt", k.getText())
+                .feldWennVorhanden("Tag", k.getDatum() != null ? k.getDatum().toString() : null);
+        if (k.getRede() != null) {
+            json.feld("RedeIDNummer", k.getRede().getId());
+        }
+    }
+
+    //schreibt die felder einer entität, beginObjekt/endeObjekt macht der aufrufer
+    private interface Felder<T> {
+        void schreibe(JsonSchreiber json, T entitaet) throws IOException;
+    }
+
+    //eine ausgabedatei mit ihrer quelle
+    private final class Teil<T> {
+        final String name;
+        final Supplier<Collection<T>> quelle;
+        final Felder<T> felder;
+
+        Teil(String name, Supplier<Collection<T>> quelle, Felder<T> felder) {
+            this.name = name;
+            this.quelle = quelle;
+            this.felder = felder;
+        }
+
+        long schreibe(Path verzeichnis) throws IOException {
+            long start = System.nanoTime();
+            String dateiname = name + format.endung + (gzip ? ".gz" : "");
+            Path ziel = verzeichnis.resolve(dateiname);
+            Path temp = verzeichnis.resolve(dateiname + ".tmp");
+            long anzahl = 0;
+
+            try (Writer writer = oeffne(temp)) {
+                JsonSchreiber json = new JsonSchreiber(writer);
+                if (format == Format.ARRAY) {
+                    json.roh("[\n");
+                }
+                for (T entitaet : quelle.get()) {
+                    if (anzahl > 0) {
+                        json.roh(format == Format.ARRAY ? ",\n" : "\n");
+                    }
+                    json.beginObjekt();
+                    felder.schreibe(json, entitaet);
+                    json.endeObjekt();
+                    anzahl++;
+                }
+                json.roh(format == Format.ARRAY ? "\n]\n" : (anzahl > 0 ? "\n" : ""));
+            }
+            Files.move(temp, ziel, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            MetricsRegistry metrics = MetricsRegistry.getInstance();
+            metrics.counter("export_entities_total", "Exportierte Entitäten", "typ", name).add(anzahl);
+            metrics.histogram("export_seconds", "Dauer des Exports einer Datei", "typ", name).observeSince(start);
+            System.out.printf("export %-12s: %8d in %d ms -> %s\n", name, anzahl, (System.nanoTime() - start) / 1_000_000, ziel);
+            return anzahl;
+        }
+
+        private Writer oeffne(Path datei) throws IOException {
+            OutputStream out = Files.newOutputStream(datei);
+            if (gzip) {
+                //der konstruktor schreibt schon den gzip kopf, schlägt das fehl, bleibt sonst die datei offen
+                try {
+                    out = new GZIPOutputStream(out, PUFFER);
+                } catch (IOException | RuntimeException e) {
+                    try {
+                        out.close();
+                    } catch (IOException schliessen) {
+                        e.addSuppressed(schliessen);
+                    }
+                    throw e;
+                }
+            }
+            return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), PUFFER);
+        }
+    }
+}
@@ -1,18 +1,27 @@
 package de.bundestag.factory;
 
+import de.bundestag.database.CachingGraphStore;
+import de.bundestag.database.GraphStore;
+import de.bundestag.database.InMemoryGraphStore;
 import de.bundestag.database.Neo4jConnection;
+import de.bundestag.database.TextStore;
+import de.bundestag.metrics.MetricsRegistry;
 
 import de.bundestag.service.DatabaseService;
 import de.bundestag.service.XMLProcessor;
+import de.bundestag.text.TitelIndex;
 import de.bundestag.model.*;
 
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class PortalFactory {
 
@@ -20,7 +29,8 @@ public class PortalFactory {
     private static PortalFactory instance;
 
     // zentrale Instanzen/Services
-    private final Neo4jConnection dbConnection;
+    private final GraphStore graphStore;
+    private final TextStore textStore;
     private final XMLProcessor xmlProcessor;
     private final DatabaseService databaseService;
 
@@ -32,8 +42,25 @@ public class PortalFactory {
     protected Map<String, Kommentar> kommentarMap;
     protected Map<String, Plenarprotokoll> protokollMap;
     protected Map<String, Redner> rednerMap;
+    protected Map<String, Tagesordnungspunkt> tagesordnungspunktMap;
 
-    private PortalFactory() {
+    //wortindex über die titel der tagesordnungspunkte
+    private final TitelIndex tagesordnungsIndex = new TitelIndex();
+
+    //werden über neu erstellte reden und kommentare benachrichtigt
+    private final List<PortalFactoryListener> listeners = new CopyOnWriteArrayList<>();
+
+    private PortalFactory(boolean bulkLoad) {
+        this(mitCache(new Neo4jConnection(bulkLoad)), new TextStore());
+    }
+
+    //lesende abfragen gehen über den ergebnis cache, der mit der datenbank im selben verzeichnis liegt
+    //und deshalb mit ihr gelöscht wird
+    private static GraphStore mitCache(Neo4jConnection dbConnection) {
+        return new CachingGraphStore(dbConnection, dbConnection.getDatabasePath().resolve("abfrage-cache.bin"));
+    }
+
+    private PortalFactory(GraphStore graphStore, TextStore textStore) {
         System.out.println("PortalFactory wird initialisiert...");
 
         // Initialisierung von allen Collections
@@ -44,9 +71,12 @@ public class PortalFactory {
         this.kommentarMap = new ConcurrentHashMap<>();
         this.protokollMap = new ConcurrentHashMap<>();
         this.rednerMap = new ConcurrentHashMap<>();
+        this.tagesordnungspunktMap = new ConcurrentHashMap<>();
 
-        // Datenbankverbindung initialisieren
-        this.dbConnection = new Neo4jConnection();
+        // Graph speicher (Neo4j oder im arbeitsspeicher), null wenn die factory ohne speicher läuft
+        this.graphStore = graphStore;
+        // Redetexte liegen außerhalb des Graphen im Textspeicher
+        this.textStore = textStore;
 
         // Services initialisieren
         this.xmlProcessor = new XMLProcessor(this);
@@ -56,16 +86,46 @@ public class PortalFactory {
     }
 
     public static PortalFactory getInstance() {
+        return getInstance(false);
+    }
+
+    //bulkLoad wirkt nur beim ersten aufruf, danach existiert die instanz schon
+    public static PortalFactory getInstance(boolean bulkLoad) {
         if (instance == null) {
-            instance = new PortalFactory();
+            instance = new PortalFactory(bulkLoad);
         }
         return instance;
     }
 
+    /**
+     * erzeugt eine eigenständige factory ohne datenbank und textspeicher, unabhängig vom singleton.
+     * gedacht für reines parsen im speicher, z.b. in benchmarks.
+     */
+    public static PortalFactory createStandalone() {
+        return new PortalFactory(null, null);
+    }
+
+    /**
+     * erzeugt eine eigenständige factory mit einem graph speicher im arbeitsspeicher,
+     * ohne start der embedded datenbank. für tests und kleine auswertungen.
+     */
+    public static PortalFactory createInMemory() {
+        return new PortalFactory(new CachingGraphStore(new InMemoryGraphStore(), null), TextStore.temporaer());
+    }
+
+    public void addListener(PortalFactoryListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(PortalFactoryListener listener) {
+        listeners.remove(listener);
+    }
+
     // Getter für services
     public XMLProcessor getXMLProcessor() { return xmlProcessor; }
     public DatabaseService getDatabaseService() { return databaseService; }
-    public Neo4jConnection getDbConnection() { return dbConnection; }
+    public GraphStore getGraphStore() { return graphStore; }
+    public TextStore getTextStore() { return textStore; }
 
 
     //Die Signatur ist korrekt und passt zum 4 Argumenten Aufruf in XMLprocessor.parseFraktionen(..., 0)
@@ -76,6 +136,7 @@ public class PortalFactory {
         Fraktion f = new Fraktion(id, name, herkunftspartei);
 
         fraktionMap.put(id, f);
+        entityErstellt("Fraktion");
         return f;
     }
 
@@ -85,6 +146,7 @@ public class PortalFactory {
         }
         Abgeordneter a = new Abgeordneter(id, vorname, nachname, geburtsdatum, beruf, funktion);
         abgeordneterMap.put(id, a);
+        entityErstellt("Abgeordneter");
         return a;
     }
 
@@ -95,6 +157,7 @@ public class PortalFactory {
         if (rednerMap.containsKey(id)) return rednerMap.get(id);
 
         rednerMap.put(id, r);
+        entityErstellt("Redner");
         return r;
     }
 
@@ -104,16 +167,40 @@ public class PortalFactory {
         Sitzung s = new Sitzung(id, datum, zeit, raum, zugang);
 
         sitzungMap.put(id, s);
+        entityErstellt("Sitzung");
         return s;
     }
 
+    public Tagesordnungspunkt createTagesordnungspunkt(String id, String bezeichnung, String titel, List<String> drucksachen, Sitzung sitzung) {
+        if (tagesordnungspunktMap.containsKey(id)) return tagesordnungspunktMap.get(id);
+
+        Tagesordnungspunkt t = new Tagesordnungspunkt(id, bezeichnung, titel, drucksachen, sitzung);
+
+        tagesordnungspunktMap.put(id, t);
+        tagesordnungsIndex.add(id, titel);
+        entityErstellt("Tagesordnungspunkt");
+        return t;
+    }
+
     //Die übergebene ID wird verwendet
     public Rede createRede(String id, LocalDate datum, String titel, Abgeordneter abgeordneter, String text) {
+        return createRede(id, datum, titel, abgeordneter, text, null);
+    }
+
+    //wie oben, die sitzung wird vor der benachrichtigung der listener gesetzt
+    public Rede createRede(String id, LocalDate datum, String titel, Abgeordneter abgeordneter, String text, Sitzung sitzung) {
         if (redeMap.containsKey(id)) { return redeMap.get(id); }
 
         //Die ID wird direkt verwendet da die Logik in XMLprocessor die Eindeutigkeit sichern muss
         Rede r = new Rede(id, datum, titel, abgeordneter, text);
+        if (sitzung != null) {
+            r.setSitzung(sitzung);
+        }
         redeMap.put(id, r);
+        entityErstellt("Rede");
+        for (PortalFactoryListener listener : listeners) {
+            listener.redeErstellt(r);
+        }
         return r;
     }
 
@@ -123,10 +210,21 @@ public class PortalFactory {
         Kommentar k = new Kommentar(id, autor, text, datum, rede);
 
         kommentarMap.put(id, k);
+        entityErstellt("Kommentar");
+        for (PortalFactoryListener listener : listeners) {
+            listener.kommentarErstellt(k);
+        }
         return k;
     }
 
 
+    //zählt neu angelegte entitäten pro typ, bereits vorhandene zählen nicht mit
+    private static void entityErstellt(String typ) {
+        MetricsRegistry.getInstance()
+                .counter("entities_created_total", "Anzahl neu erstellter Entitäten pro Typ", "typ", typ)
+                .inc();
+    }
+
      //speichert alle geladenen Daten persistent in Datenbank.
 
     public void saveAllData() {
@@ -138,8 +236,8 @@ public class PortalFactory {
     public void associateAbgeordneterToFraktion(Abgeordneter abgeordneter, Fraktion fraktion) {
         if (abgeordneter != null && fraktion != null) {
             abgeordneter.setFraktion(fraktion);
-            //annahme ist Fraktion hat addMitglied()
-            //fraktion.addMitglied(abgeordneter);
+            //hält mitgliederanzahl der fraktion aktuell
+            fraktion.addMitglied(abgeordneter);
         }
     }
 
@@ -148,6 +246,17 @@ public class PortalFactory {
     public Fraktion getFraktionById(String id) { return fraktionMap.get(id); }
     public Sitzung getSitzungById(String id) { return sitzungMap.get(id); }
     public Kommentar getKommentarById(String id) { return kommentarMap.get(id); }
+    public Tagesordnungspunkt getTagesordnungspunktById(String id) { return tagesordnungspunktMap.get(id); }
+
+    //tagesordnungspunkte, deren titel alle wörter der anfrage (auch als präfix) enthalten
+    public List<Tagesordnungspunkt> sucheTagesordnungspunkte(String anfrage) {
+        List<Tagesordnungspunkt> ergebnis = new ArrayList<>();
+        for (String id : tagesordnungsIndex.suche(anfrage)) {
+            Tagesordnungspunkt t = tagesordnungspunktMap.get(id);
+            if (t != null) ergebnis.add(t);
+        }
+        return ergebnis;
+    }
 
 
     public Collection<Fraktion> getAllFraktionen() {
@@ -165,10 +274,14 @@ public class PortalFactory {
     public Collection<Kommentar> getAllKommentare() {
         return Collections.unmodifiableCollection(kommentarMap.values());
     }
+    public Collection<Tagesordnungspunkt> getAllTagesordnungspunkte() {
+        return Collections.unmodifiableCollection(tagesordnungspunktMap.values());
+    }
 
     public Map<String, Fraktion> getFraktionMap() { return fraktionMap; }
     public Map<String, Abgeordneter> getAbgeordneterMap() { return abgeordneterMap; }
     public Map<String, Rede> getRedeMap() { return redeMap; }
     public Map<String, Sitzung> getSitzungMap() { return sitzungMap; }
     public Map<String, Kommentar> getKommentarMap() { return kommentarMap; }
+    public Map<String, Tagesordnungspunkt> getTagesordnungspunktMap() { return tagesordnungspunktMap; }
 }
\ No newline at end of file
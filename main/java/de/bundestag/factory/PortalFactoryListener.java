@@ -0,0 +1,19 @@
+package de.bundestag.factory;
+
+import de.bundestag.model.Kommentar;
+import de.bundestag.model.Rede;
+
+/**
+ * wird von der PortalFactory über neu erstellte entitäten benachrichtigt, z.b. für kennzahlen
+ * die während des einlesens fortgeschrieben werden. bereits vorhandene entitäten lösen kein
+ * ereignis aus. die aufrufe kommen aus den parse threads und müssen schnell und threadsicher sein.
+ */
+public interface PortalFactoryListener {
+
+    //die rede ist mit redner, fraktion zum zeitpunkt der rede und (falls bekannt) sitzung verknüpft
+    default void redeErstellt(Rede rede) {
+    }
+
+    default void kommentarErstellt(Kommentar kommentar) {
+    }
+}
@@ -0,0 +1,46 @@
+package de.bundestag.generator;
+
+import java.util.Arrays;
+import java.util.Random;
+
+//empirische verteilung ganzzahliger beobachtungen, gezogen wird ein zufälliger beobachteter wert
+//dadurch bleiben schiefe und ausreißer des echten korpus erhalten
+public class EmpirischeVerteilung {
+
+    private int[] werte = new int[64];
+    private int anzahl = 0;
+
+    public void beobachte(int wert) {
+        if (anzahl == werte.length) {
+            werte = Arrays.copyOf(werte, anzahl * 2);
+        }
+        werte[anzahl++] = wert;
+    }
+
+    public int ziehe(Random random) {
+        if (anzahl == 0) {
+            throw new IllegalStateException("Verteilung ohne Beobachtungen");
+        }
+        return werte[random.nextInt(anzahl)];
+    }
+
+    public int getAnzahl() {
+        return anzahl;
+    }
+
+    public double getMittelwert() {
+        long summe = 0;
+        for (int i = 0; i < anzahl; i++) {
+            summe += werte[i];
+        }
+        return anzahl == 0 ? 0 : (double) summe / anzahl;
+    }
+
+    public int getMaximum() {
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < anzahl; i++) {
+            max = Math.max(max, werte[i]);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,335 @@
+package de.bundestag.generator;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * verteilungen die aus den echten protokollen gelernt werden: redner mit fraktion und redehäufigkeit,
+ * reden pro sitzung und tagesordnungspunkt, absätze pro rede, wörter pro absatz, kommentare pro rede,
+ * sitzungsdauer und abstände zwischen sitzungstagen. dazu stichproben der wörter und kommentartexte.
+ * das lernen ist deterministisch (dateien sortiert, stichproben mit festem seed).
+ */
+public class KorpusProfil {
+
+    private static final int MAX_WOERTER = 200_000; // stichprobe aller wörter, häufigkeitsgetreu
+    private static final int MAX_KOMMENTARE = 20_000; // stichprobe echter kommentartexte
+    private static final long LERN_SEED = 20L;
+    private static final DateTimeFormatter DATUM = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    /**
+     * ein redner aus dem korpus mit der anzahl seiner reden als gewicht.
+     */
+    public static class Sprecher {
+        public final String id;
+        public final String vorname;
+        public final String nachname;
+        public final String fraktion; // leer bei regierungsmitgliedern ohne fraktion
+        public final String rolle; // z.b. "Bundeskanzler", sonst leer
+        int reden;
+
+        Sprecher(String id, String vorname, String nachname, String fraktion, String rolle) {
+            this.id = id;
+            this.vorname = vorname;
+            this.nachname = nachname;
+            this.fraktion = fraktion;
+            this.rolle = rolle;
+        }
+
+        public int getReden() {
+            return reden;
+        }
+    }
+
+    private final Map<String, Sprecher> sprecher = new LinkedHashMap<>();
+    private final EmpirischeVerteilung redenProSitzung = new EmpirischeVerteilung();
+    private final EmpirischeVerteilung redenProTagesordnungspunkt = new EmpirischeVerteilung();
+    private final EmpirischeVerteilung absaetzeProRede = new EmpirischeVerteilung();
+    private final EmpirischeVerteilung woerterProAbsatz = new EmpirischeVerteilung();
+    private final EmpirischeVerteilung kommentareProRede = new EmpirischeVerteilung();
+    private final EmpirischeVerteilung sitzungsDauerMinuten = new EmpirischeVerteilung();
+    private final EmpirischeVerteilung tageZwischenSitzungen = new EmpirischeVerteilung();
+    private final List<String> startUhrzeiten = new ArrayList<>();
+
+    private final Random stichprobe = new Random(LERN_SEED);
+    private final List<String> woerter = new ArrayList<>();
+    private long woerterGesehen = 0;
+    private final List<String> kommentare = new ArrayList<>();
+    private long kommentareGesehen = 0;
+
+    // sitzungsnummer -> datum, für die abstände zwischen den sitzungstagen
+    private final TreeMap<Integer, LocalDate> sitzungsDaten = new TreeMap<>();
+    private int anzahlProtokolle = 0;
+
+    private KorpusProfil() {
+    }
+
+    /**
+     * lernt das profil aus allen xml dateien eines verzeichnisses.
+     * @param verzeichnis verzeichnis mit dbtplenarprotokoll dateien, z.b. main/resources/xml_files
+     */
+    public static KorpusProfil lerne(Path verzeichnis) {
+        File[] dateien = verzeichnis.toFile().listFiles((d, name) -> name.toLowerCase().endsWith(".xml"));
+        if (dateien == null || dateien.length == 0) {
+            throw new IllegalArgumentException("Keine XML Dateien gefunden in " + verzeichnis);
+        }
+        Arrays.sort(dateien); // feste reihenfolge, damit die stichproben reproduzierbar sind
+
+        KorpusProfil profil = new KorpusProfil();
+        XMLInputFactory xmlFactory = XMLInputFactory.newInstance();
+        xmlFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+
+        for (File datei : dateien) {
+            try (InputStream in = Files.newInputStream(datei.toPath())) {
+                XMLStreamReader reader = xmlFactory.createXMLStreamReader(in, "UTF-8");
+                try {
+                    profil.lerneDatei(reader);
+                } finally {
+                    reader.close();
+                }
+            } catch (IOException | XMLStreamException e) {
+                System.err.println("Profil: Datei " + datei.getName() + " übersprungen: " + e.getMessage());
+            }
+        }
+        profil.berechneAbstaende();
+        System.out.println(" Korpusprofil gelernt: " + profil.anzahlProtokolle + " Protokolle, "
+                + profil.sprecher.size() + " Redner, " + profil.absaetzeProRede.getAnzahl() + " Reden");
+        return profil;
+    }
+
+    //ein durchlauf pro datei, zustand nur für die aktuelle rede bzw. den aktuellen absatz
+    private void lerneDatei(XMLStreamReader reader) throws XMLStreamException {
+        boolean imVerlauf = false;
+        boolean inRede = false;
+        boolean inRednerAbsatz = false;
+        boolean inTextAbsatz = false;
+        boolean inKommentar = false;
+        int tiefeInRede = 0;
+
+        int reden = 0;
+        int redenImTop = 0;
+        int absaetze = 0;
+        int kommentareInRede = 0;
+        String sprecherId = null;
+        Map<String, String> name = new LinkedHashMap<>();
+        String aktuellesNamensfeld = null;
+        StringBuilder text = new StringBuilder();
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String tag = reader.getLocalName();
+                if (inRede) tiefeInRede++;
+
+                switch (tag) {
+                    case "dbtplenarprotokoll" -> lerneKopf(reader);
+                    case "sitzungsverlauf" -> imVerlauf = true;
+                    case "tagesordnungspunkt" -> redenImTop = 0;
+                    case "rede" -> {
+                        if (imVerlauf) {
+                            inRede = true;
+                            tiefeInRede = 0;
+                            absaetze = 0;
+                            kommentareInRede = 0;
+                            sprecherId = null;
+                            name.clear();
+                        }
+                    }
+                    case "p" -> {
+                        if (inRede && tiefeInRede == 1) {
+                            if ("redner".equals(reader.getAttributeValue(null, "klasse"))) {
+                                inRednerAbsatz = true;
+                            } else {
+                                inTextAbsatz = true;
+                                text.setLength(0);
+                            }
+                        }
+                    }
+                    case "redner" -> {
+                        if (inRednerAbsatz && sprecherId == null) {
+                            sprecherId = reader.getAttributeValue(null, "id");
+                        }
+                    }
+                    case "vorname", "nachname", "fraktion", "rolle_lang" -> {
+                        if (inRednerAbsatz) {
+                            aktuellesNamensfeld = tag;
+                            text.setLength(0);
+                        }
+                    }
+                    case "kommentar" -> {
+                        if (inRede && tiefeInRede == 1) {
+                            inKommentar = true;
+                            text.setLength(0);
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            } else if (event == XMLStreamConstants.CHARACTERS) {
+                if (inTextAbsatz || inKommentar || aktuellesNamensfeld != null) {
+                    text.append(reader.getText());
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                String tag = reader.getLocalName();
+                if (aktuellesNamensfeld != null && tag.equals(aktuellesNamensfeld)) {
+                    name.putIfAbsent(tag, text.toString().trim());
+                    aktuellesNamensfeld = null;
+                } else if (inTextAbsatz && tag.equals("p") && tiefeInRede == 1) {
+                    inTextAbsatz = false;
+                    lerneAbsatz(text.toString());
+                    absaetze++;
+                } else if (inRednerAbsatz && tag.equals("p") && tiefeInRede == 1) {
+                    inRednerAbsatz = false;
+                } else if (inKommentar && tag.equals("kommentar") && tiefeInRede == 1) {
+                    inKommentar = false;
+                    lerneKommentar(text.toString().trim());
+                    kommentareInRede++;
+                } else if (inRede && tag.equals("rede") && tiefeInRede == 0) {
+                    inRede = false;
+                    if (sprecherId != null) {
+                        lerneRede(sprecherId, name, absaetze, kommentareInRede);
+                        reden++;
+                        redenImTop++;
+                    }
+                } else if (tag.equals("tagesordnungspunkt") && redenImTop > 0) {
+                    redenProTagesordnungspunkt.beobachte(redenImTop);
+                } else if (tag.equals("sitzungsverlauf")) {
+                    imVerlauf = false;
+                }
+                if (inRede) tiefeInRede--;
+            }
+        }
+        if (reden > 0) {
+            redenProSitzung.beobachte(reden);
+        }
+    }
+
+    private void lerneKopf(XMLStreamReader reader) {
+        anzahlProtokolle++;
+        String nr = reader.getAttributeValue(null, "sitzung-nr");
+        String datum = reader.getAttributeValue(null, "sitzung-datum");
+        String start = reader.getAttributeValue(null, "sitzung-start-uhrzeit");
+        String ende = reader.getAttributeValue(null, "sitzung-ende-uhrzeit");
+        try {
+            if (nr != null && datum != null) {
+                sitzungsDaten.put(Integer.parseInt(nr.trim()), LocalDate.parse(datum.trim(), DATUM));
+            }
+            if (start != null && ende != null) {
+                LocalTime s = parseUhrzeit(start);
+                LocalTime e = parseUhrzeit(ende);
+                long minuten = ChronoUnit.MINUTES.between(s, e);
+                if (minuten <= 0) minuten += 24 * 60; // sitzung geht über mitternacht
+                sitzungsDauerMinuten.beobachte((int) minuten);
+                startUhrzeiten.add(s.format(DateTimeFormatter.ofPattern("H:mm")));
+            }
+        } catch (RuntimeException e) {
+            // kopfdaten mit unbekanntem format fließen nicht in die verteilungen ein
+        }
+    }
+
+    private static LocalTime parseUhrzeit(String wert) {
+        String[] teile = wert.trim().replace('.', ':').split(":");
+        return LocalTime.of(Integer.parseInt(teile[0]) % 24, teile.length > 1 ? Integer.parseInt(teile[1]) : 0);
+    }
+
+    private void lerneAbsatz(String absatz) {
+        String[] tokens = absatz.trim().split("\\s+");
+        if (tokens.length == 0 || tokens[0].isEmpty()) {
+            return;
+        }
+        woerterProAbsatz.beobachte(tokens.length);
+        for (String token : tokens) {
+            woerterGesehen++;
+            //reservoir stichprobe: jedes wort landet mit gleicher wahrscheinlichkeit in der liste
+            if (woerter.size() < MAX_WOERTER) {
+                woerter.add(token);
+            } else {
+                long j = (long) (stichprobe.nextDouble() * woerterGesehen);
+                if (j < MAX_WOERTER) woerter.set((int) j, token);
+            }
+        }
+    }
+
+    private void lerneKommentar(String kommentar) {
+        if (kommentar.isEmpty()) {
+            return;
+        }
+        kommentareGesehen++;
+        if (kommentare.size() < MAX_KOMMENTARE) {
+            kommentare.add(kommentar);
+        } else {
+            long j = (long) (stichprobe.nextDouble() * kommentareGesehen);
+            if (j < MAX_KOMMENTARE) kommentare.set((int) j, kommentar);
+        }
+    }
+
+    private void lerneRede(String id, Map<String, String> name, int absaetze, int kommentareInRede) {
+        Sprecher s = sprecher.computeIfAbsent(id, k -> new Sprecher(k,
+                name.getOrDefault("vorname", ""),
+                name.getOrDefault("nachname", ""),
+                name.getOrDefault("fraktion", ""),
+                name.getOrDefault("rolle_lang", "")));
+        s.reden++;
+        absaetzeProRede.beobachte(absaetze);
+        kommentareProRede.beobachte(kommentareInRede);
+    }
+
+    private void berechneAbstaende() {
+        LocalDate vorher = null;
+        for (LocalDate datum : sitzungsDaten.values()) {
+            if (vorher != null) {
+                long tage = ChronoUnit.DAYS.between(vorher, datum);
+                if (tage > 0) tageZwischenSitzungen.beobachte((int) tage);
+            }
+            vorher = datum;
+        }
+        if (tageZwischenSitzungen.getAnzahl() == 0) {
+            tageZwischenSitzungen.beobachte(1);
+        }
+        if (sitzungsDauerMinuten.getAnzahl() == 0) {
+            sitzungsDauerMinuten.beobachte(8 * 60);
+            startUhrzeiten.add("9:00");
+        }
+    }
+
+    public int getAnzahlProtokolle() { return anzahlProtokolle; }
+    public List<Sprecher> getSprecher() { return Collections.unmodifiableList(new ArrayList<>(sprecher.values())); }
+    public EmpirischeVerteilung getRedenProSitzung() { return redenProSitzung; }
+    public EmpirischeVerteilung getRedenProTagesordnungspunkt() { return redenProTagesordnungspunkt; }
+    public EmpirischeVerteilung getAbsaetzeProRede() { return absaetzeProRede; }
+    public EmpirischeVerteilung getWoerterProAbsatz() { return woerterProAbsatz; }
+    public EmpirischeVerteilung getKommentareProRede() { return kommentareProRede; }
+    public EmpirischeVerteilung getSitzungsDauerMinuten() { return sitzungsDauerMinuten; }
+    public EmpirischeVerteilung getTageZwischenSitzungen() { return tageZwischenSitzungen; }
+    public List<String> getStartUhrzeiten() { return Collections.unmodifiableList(startUhrzeiten); }
+    public List<String> getWoerter() { return Collections.unmodifiableList(woerter); }
+    public List<String> getKommentare() { return Collections.unmodifiableList(kommentare); }
+
+    //sitzungen pro wahlperiode, orientiert an der höchsten sitzungsnummer im korpus
+    public int getSitzungenProWahlperiode() {
+        return sitzungsDaten.isEmpty() ? anzahlProtokolle : sitzungsDaten.lastKey();
+    }
+
+    public LocalDate getLetztesSitzungsdatum() {
+        return sitzungsDaten.isEmpty() ? LocalDate.now() : sitzungsDaten.lastEntry().getValue();
+    }
+}
@@ -0,0 +1,383 @@
+package de.bundestag.generator;
+
+import de.bundestag.generator.KorpusProfil.Sprecher;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * erzeugt synthetische plenarprotokolle im dbtplenarprotokoll format für lasttests.
+ * die verteilungen kommen aus einem {@link KorpusProfil}, gleicher seed und gleiche skalierung
+ * ergeben byte-gleiche dateien. die sitzungen beginnen nach dem letzten echten sitzungstag
+ * ab wahlperiode 21, damit sich ids nicht mit dem echten korpus überschneiden.
+ *
+ * aufruf: java de.bundestag.generator.ProtokollGenerator <xml-quelle> <zielverzeichnis> <skalierung> [seed]
+ */
+public class ProtokollGenerator {
+
+    private static final int ERSTE_WAHLPERIODE = 21;
+    // anteil der redner, die in der nächsten wahlperiode wieder reden (sonst neuer abgeordneter)
+    private static final double WIEDERWAHL_QUOTE = 0.6;
+    private static final String DTD_DATEI = "dbtplenarprotokoll.dtd";
+    private static final DateTimeFormatter DATUM = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    private static final DateTimeFormatter UHRZEIT = DateTimeFormatter.ofPattern("H:mm");
+
+    private final KorpusProfil profil;
+    private final long seed;
+    private final List<Sprecher> basisSprecher;
+
+    public ProtokollGenerator(KorpusProfil profil, long seed) {
+        this.profil = profil;
+        this.seed = seed;
+        this.basisSprecher = profil.getSprecher();
+        if (basisSprecher.isEmpty() || profil.getWoerter().isEmpty()) {
+            throw new IllegalArgumentException("Korpusprofil enthält keine Reden");
+        }
+    }
+
+    /**
+     * schreibt round(anzahl echter protokolle * skalierung) dateien in das zielverzeichnis.
+     * @param ziel zielverzeichnis, die dtd wird aus dem quellverzeichnis mitkopiert
+     * @param skalierung z.b. 10 für den zehnfachen korpus
+     * @return anzahl geschriebener dateien
+     */
+    public int generiere(Path quelle, Path ziel, double skalierung) {
+        int anzahl = (int) Math.max(1, Math.round(profil.getAnzahlProtokolle() * skalierung));
+        int proWahlperiode = Math.max(1, profil.getSitzungenProWahlperiode());
+
+        try {
+            Files.createDirectories(ziel);
+            Path dtd = quelle.resolve(DTD_DATEI);
+            if (Files.exists(dtd)) {
+                Files.copy(dtd, ziel.resolve(DTD_DATEI), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Zielverzeichnis konnte nicht vorbereitet werden: " + ziel, e);
+        }
+
+        //sitzungstage und rednerpools hängen voneinander ab und werden vorab der reihe nach bestimmt,
+        //die dateien selbst sind danach unabhängig und werden parallel geschrieben
+        LocalDate[] daten = sitzungsDaten(anzahl + 1);
+        int wahlperioden = (anzahl + proWahlperiode - 1) / proWahlperiode;
+        List<RednerPool> pools = rednerPools(wahlperioden);
+
+        System.out.println(" Erzeuge " + anzahl + " Protokolle (Skalierung " + skalierung + ", Seed " + seed + ") nach " + ziel);
+        IntStream.range(0, anzahl).parallel().forEach(g -> {
+            int wp = ERSTE_WAHLPERIODE + g / proWahlperiode;
+            int nr = g % proWahlperiode + 1;
+            Path datei = ziel.resolve(String.format("WP%d_S%03d.xml", wp, nr));
+            schreibeProtokoll(datei, wp, nr, daten[g], daten[g + 1], pools.get(g / proWahlperiode), new Random(mische(seed, g)));
+        });
+        System.out.println(" Generierung abgeschlossen.");
+        return anzahl;
+    }
+
+    private LocalDate[] sitzungsDaten(int anzahl) {
+        Random random = new Random(mische(seed, -1));
+        LocalDate[] daten = new LocalDate[anzahl];
+        LocalDate datum = profil.getLetztesSitzungsdatum();
+        for (int i = 0; i < anzahl; i++) {
+            datum = datum.plusDays(profil.getTageZwischenSitzungen().ziehe(random));
+            daten[i] = datum;
+        }
+        return daten;
+    }
+
+    //redner pro wahlperiode, ein teil wird jeweils durch neue abgeordnete derselben fraktion ersetzt
+    private List<RednerPool> rednerPools(int wahlperioden) {
+        Random random = new Random(mische(seed, -2));
+        List<RednerPool> pools = new ArrayList<>();
+        List<Sprecher> aktuell = basisSprecher;
+        for (int i = 0; i < wahlperioden; i++) {
+            int wp = ERSTE_WAHLPERIODE + i;
+            if (i > 0) {
+                List<Sprecher> naechste = new ArrayList<>(aktuell.size());
+                for (Sprecher s : aktuell) {
+                    if (random.nextDouble() < WIEDERWAHL_QUOTE) {
+                        naechste.add(s);
+                    } else {
+                        Sprecher vorlage = basisSprecher.get(random.nextInt(basisSprecher.size()));
+                        Sprecher neu = new Sprecher("9" + wp + vorlage.id, vorlage.vorname, vorlage.nachname,
+                                s.fraktion, s.rolle);
+                        neu.reden = s.reden;
+                        naechste.add(neu);
+                    }
+                }
+                aktuell = naechste;
+            }
+            pools.add(new RednerPool(aktuell));
+        }
+        return pools;
+    }
+
+    private void schreibeProtokoll(Path datei, int wp, int nr, LocalDate datum, LocalDate naechstesDatum,
+                                   RednerPool pool, Random random) {
+        LocalTime start = LocalTime.parse(ziehe(profil.getStartUhrzeiten(), random), UHRZEIT);
+        LocalTime ende = start.plusMinutes(profil.getSitzungsDauerMinuten().ziehe(random));
+
+        //reden der sitzung auf tagesordnungspunkte verteilen
+        int reden = Math.max(1, profil.getRedenProSitzung().ziehe(random));
+        List<Integer> tops = new ArrayList<>();
+        for (int rest = reden; rest > 0; ) {
+            int groesse = profil.getRedenProTagesordnungspunkt().getAnzahl() > 0
+                    ? Math.max(1, profil.getRedenProTagesordnungspunkt().ziehe(random)) : rest;
+            groesse = Math.min(groesse, rest);
+            tops.add(groesse);
+            rest -= groesse;
+        }
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(datei), 1 << 16)) {
+            XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.writeCharacters("\n");
+            xml.writeDTD("<!DOCTYPE dbtplenarprotokoll SYSTEM \"" + DTD_DATEI + "\">");
+            xml.writeCharacters("\n");
+
+            xml.writeStartElement("dbtplenarprotokoll");
+            xml.writeAttribute("wahlperiode", String.valueOf(wp));
+            xml.writeAttribute("sitzung-nr", String.valueOf(nr));
+            xml.writeAttribute("sitzung-datum", datum.format(DATUM));
+            xml.writeAttribute("sitzung-start-uhrzeit", start.format(UHRZEIT));
+            xml.writeAttribute("sitzung-ende-uhrzeit", ende.format(UHRZEIT));
+            xml.writeAttribute("sitzung-naechste-datum", naechstesDatum.format(DATUM));
+            xml.writeAttribute("sitzung-ort", "Berlin");
+            xml.writeAttribute("herausgeber", "Deutscher Bundestag");
+            xml.writeAttribute("herstellung", "Synthetisch erzeugt (Seed " + seed + ")");
+            xml.writeAttribute("start-seitennr", String.valueOf(nr * 100 + 1));
+
+            schreibeVorspann(xml, wp, nr, datum, tops.size());
+
+            Map<String, Sprecher> redner = new LinkedHashMap<>();
+            xml.writeStartElement("sitzungsverlauf");
+            xml.writeStartElement("sitzungsbeginn");
+            xml.writeAttribute("sitzung-start-uhrzeit", start.format(UHRZEIT));
+            absatz(xml, "N", "Beginn: " + start.format(UHRZEIT) + " Uhr");
+            xml.writeEndElement();
+
+            int redeNr = 0;
+            for (int t = 0; t < tops.size(); t++) {
+                xml.writeStartElement("tagesordnungspunkt");
+                xml.writeAttribute("top-id", "Tagesordnungspunkt " + (t + 1));
+                for (int i = 0; i < tops.get(t); i++) {
+                    Sprecher s = pool.ziehe(random);
+                    redner.putIfAbsent(s.id, s);
+                    schreibeRede(xml, String.format("ID%d%03d%03d00", wp, nr, ++redeNr), s, random);
+                }
+                xml.writeEndElement();
+            }
+
+            xml.writeStartElement("sitzungsende");
+            xml.writeAttribute("sitzung-ende-uhrzeit", ende.format(UHRZEIT));
+            absatz(xml, "N", "Schluss: " + ende.format(UHRZEIT) + " Uhr");
+            xml.writeEndElement();
+            xml.writeEndElement(); // sitzungsverlauf
+
+            xml.writeStartElement("anlagen");
+            xml.writeStartElement("anlage");
+            xml.writeStartElement("anlagen-text");
+            absatz(xml, "J", "Keine Anlagen.");
+            xml.writeEndElement();
+            xml.writeEndElement();
+            xml.writeEndElement();
+
+            xml.writeStartElement("rednerliste");
+            xml.writeAttribute("sitzung-datum", datum.format(DATUM));
+            for (Sprecher s : redner.values()) {
+                schreibeRedner(xml, s);
+            }
+            xml.writeEndElement();
+
+            xml.writeEndElement(); // dbtplenarprotokoll
+            xml.writeEndDocument();
+            xml.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Fehler beim Schreiben von " + datei, e);
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException("Fehler beim Erzeugen von " + datei, e);
+        }
+    }
+
+    private void schreibeVorspann(XMLStreamWriter xml, int wp, int nr, LocalDate datum, int tops) throws XMLStreamException {
+        xml.writeStartElement("vorspann");
+        xml.writeStartElement("kopfdaten");
+        xml.writeStartElement("plenarprotokoll-nummer");
+        xml.writeCharacters("Plenarprotokoll ");
+        element(xml, "wahlperiode", String.valueOf(wp));
+        xml.writeCharacters("/");
+        element(xml, "sitzungsnr", String.valueOf(nr));
+        xml.writeEndElement();
+        element(xml, "herausgeber", "Deutscher Bundestag");
+        element(xml, "berichtart", "Stenografischer Bericht");
+        xml.writeStartElement("sitzungstitel");
+        element(xml, "sitzungsnr", String.valueOf(nr));
+        xml.writeCharacters(". Sitzung");
+        xml.writeEndElement();
+        xml.writeStartElement("veranstaltungsdaten");
+        element(xml, "ort", "Berlin");
+        xml.writeCharacters(", ");
+        xml.writeStartElement("datum");
+        xml.writeAttribute("date", datum.format(DATUM));
+        xml.writeCharacters(datum.format(DATUM));
+        xml.writeEndElement();
+        xml.writeEndElement();
+        xml.writeEndElement(); // kopfdaten
+
+        xml.writeStartElement("inhaltsverzeichnis");
+        element(xml, "ivz-titel", "Inhalt:");
+        for (int t = 1; t <= tops; t++) {
+            xml.writeStartElement("ivz-eintrag");
+            element(xml, "ivz-eintrag-inhalt", "Tagesordnungspunkt " + t);
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+        xml.writeEndElement(); // vorspann
+    }
+
+    //eine rede: rednerzeile, absätze nach gelernter länge, kommentare zwischen den absätzen
+    private void schreibeRede(XMLStreamWriter xml, String id, Sprecher s, Random random) throws XMLStreamException {
+        int absaetze = Math.max(1, profil.getAbsaetzeProRede().ziehe(random));
+        int kommentare = profil.getKommentareProRede().ziehe(random);
+        int[] kommentareNachAbsatz = new int[absaetze];
+        for (int k = 0; k < kommentare; k++) {
+            kommentareNachAbsatz[random.nextInt(absaetze)]++;
+        }
+
+        xml.writeStartElement("rede");
+        xml.writeAttribute("id", id);
+
+        xml.writeStartElement("p");
+        xml.writeAttribute("klasse", "redner");
+        schreibeRedner(xml, s);
+        xml.writeCharacters(s.vorname + " " + s.nachname
+                + (!s.fraktion.isEmpty() ? " (" + s.fraktion + ")" : (!s.rolle.isEmpty() ? ", " + s.rolle : "")) + ":");
+        xml.writeEndElement();
+
+        boolean nachKommentar = false;
+        for (int a = 0; a < absaetze; a++) {
+            String klasse = (a == 0) ? "J_1" : (nachKommentar ? "O" : "J");
+            absatz(xml, klasse, text(random));
+            nachKommentar = kommentareNachAbsatz[a] > 0;
+            for (int k = 0; k < kommentareNachAbsatz[a]; k++) {
+                element(xml, "kommentar", ziehe(profil.getKommentare(), random));
+            }
+        }
+        xml.writeEndElement();
+    }
+
+    private void schreibeRedner(XMLStreamWriter xml, Sprecher s) throws XMLStreamException {
+        xml.writeStartElement("redner");
+        xml.writeAttribute("id", s.id);
+        xml.writeStartElement("name");
+        element(xml, "vorname", s.vorname);
+        element(xml, "nachname", s.nachname);
+        if (!s.fraktion.isEmpty()) {
+            element(xml, "fraktion", s.fraktion);
+        } else if (!s.rolle.isEmpty()) {
+            xml.writeStartElement("rolle");
+            element(xml, "rolle_lang", s.rolle);
+            element(xml, "rolle_kurz", s.rolle);
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+        xml.writeEndElement();
+    }
+
+    //absatztext aus der wortstichprobe, länge nach der gelernten verteilung
+    private String text(Random random) {
+        int woerter = Math.max(1, profil.getWoerterProAbsatz().ziehe(random));
+        StringBuilder sb = new StringBuilder(woerter * 8);
+        for (int i = 0; i < woerter; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(ziehe(profil.getWoerter(), random));
+        }
+        sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+        char letztes = sb.charAt(sb.length() - 1);
+        if (letztes != '.' && letztes != '!' && letztes != '?') {
+            sb.append('.');
+        }
+        return sb.toString();
+    }
+
+    private static void absatz(XMLStreamWriter xml, String klasse, String text) throws XMLStreamException {
+        xml.writeStartElement("p");
+        xml.writeAttribute("klasse", klasse);
+        xml.writeCharacters(text);
+        xml.writeEndElement();
+    }
+
+    private static void element(XMLStreamWriter xml, String name, String text) throws XMLStreamException {
+        xml.writeStartElement(name);
+        xml.writeCharacters(text);
+        xml.writeEndElement();
+    }
+
+    private static <T> T ziehe(List<T> liste, Random random) {
+        return liste.get(random.nextInt(liste.size()));
+    }
+
+    //leitet aus seed und index einen eigenen seed ab (splitmix64), damit jede datei unabhängig reproduzierbar ist
+    private static long mische(long seed, long index) {
+        long z = seed + 0x9E3779B97F4A7C15L * (index + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    //gewichtete auswahl der redner nach ihrer redehäufigkeit im korpus
+    private static class RednerPool {
+        private final List<Sprecher> sprecher;
+        private final long[] kumuliert;
+
+        RednerPool(List<Sprecher> sprecher) {
+            this.sprecher = sprecher;
+            this.kumuliert = new long[sprecher.size()];
+            long summe = 0;
+            for (int i = 0; i < sprecher.size(); i++) {
+                summe += Math.max(1, sprecher.get(i).reden);
+                kumuliert[i] = summe;
+            }
+        }
+
+        Sprecher ziehe(Random random) {
+            long r = (long) (random.nextDouble() * kumuliert[kumuliert.length - 1]);
+            int lo = 0, hi = kumuliert.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (kumuliert[mid] > r) hi = mid; else lo = mid + 1;
+            }
+            return sprecher.get(lo);
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Verwendung: java ProtokollGenerator <xml-quelle> <zielverzeichnis> <skalierung> [seed]");
+            return;
+        }
+        Path quelle = Paths.get(args[0]);
+        Path ziel = Paths.get(args[1]);
+        double skalierung = Double.parseDouble(args[2]);
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42L;
+
+        KorpusProfil profil = KorpusProfil.lerne(quelle);
+        new ProtokollGenerator(profil, seed).generiere(quelle, ziel, skalierung);
+    }
+}
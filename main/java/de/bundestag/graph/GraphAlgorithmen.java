@@ -0,0 +1,187 @@
+package de.bundestag.graph;
+
+import de.bundestag.metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * parallele graph algorithmen auf einer GraphProjektion. alle ergebnisse sind arrays mit einem wert
+ * pro knoten (index = knotennummer), die sich mit GraphProjektion.schreibeEigenschaften speichern lassen.
+ */
+public final class GraphAlgorithmen {
+
+    private GraphAlgorithmen() {
+    }
+
+    public static int[] grad(GraphProjektion g) {
+        return IntStream.range(0, g.getKnotenAnzahl()).parallel().map(g::grad).toArray();
+    }
+
+    /**
+     * pagerank auf dem ungerichteten graphen (jede kante in beide richtungen), pull variante: jeder
+     * knoten summiert die beiträge seiner nachbarn, die knoten werden parallel berechnet. der rang
+     * isolierter knoten wird gleichmäßig verteilt, die summe aller ränge bleibt 1.
+     */
+    public static double[] pageRank(GraphProjektion g, double daempfung, int maxIterationen, double toleranz) {
+        long start = System.nanoTime();
+        int n = g.getKnotenAnzahl();
+        int[] offsets = g.getOffsets();
+        int[] nachbarn = g.getNachbarn();
+        double[] rang = new double[n];
+        double[] neu = new double[n];
+        double[] beitrag = new double[n];
+        Arrays.fill(rang, 1.0 / n);
+
+        for (int iteration = 0; iteration < maxIterationen; iteration++) {
+            double[] alt = rang;
+            IntStream.range(0, n).parallel().forEach(v -> {
+                int grad = offsets[v + 1] - offsets[v];
+                beitrag[v] = grad > 0 ? alt[v] / grad : 0;
+            });
+            double isoliert = IntStream.range(0, n).parallel()
+                    .filter(v -> offsets[v + 1] == offsets[v]).mapToDouble(v -> alt[v]).sum();
+            double basis = (1 - daempfung) / n + daempfung * isoliert / n;
+            double[] ziel = neu;
+            double aenderung = IntStream.range(0, n).parallel().mapToDouble(v -> {
+                double summe = 0;
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    summe += beitrag[nachbarn[i]];
+                }
+                ziel[v] = basis + daempfung * summe;
+                return Math.abs(ziel[v] - alt[v]);
+            }).sum();
+            neu = rang;
+            rang = ziel;
+            if (aenderung < toleranz) {
+                break;
+            }
+        }
+        laufzeit("pagerank", start);
+        return rang;
+    }
+
+    public static double[] pageRank(GraphProjektion g) {
+        return pageRank(g, 0.85, 100, 1e-9);
+    }
+
+    /**
+     * zusammenhangskomponenten durch parallele label propagation: jeder knoten übernimmt das kleinste
+     * label seiner nachbarn, bis sich nichts mehr ändert. label[label[v]] (pointer jumping) verkürzt die
+     * anzahl der runden bei langen pfaden. das ergebnis ist die kleinste knotennummer der komponente.
+     */
+    public static int[] komponenten(GraphProjektion g) {
+        long start = System.nanoTime();
+        int n = g.getKnotenAnzahl();
+        int[] offsets = g.getOffsets();
+        int[] nachbarn = g.getNachbarn();
+        int[] label = IntStream.range(0, n).toArray();
+        boolean geaendert = true;
+        while (geaendert) {
+            //jeder knoten schreibt nur sein eigenes label, gelesene nachbarlabels sind höchstens zu groß
+            geaendert = IntStream.range(0, n).parallel().map(v -> {
+                int min = label[label[v]];
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    min = Math.min(min, label[nachbarn[i]]);
+                }
+                if (min < label[v]) {
+                    label[v] = min;
+                    return 1;
+                }
+                return 0;
+            }).sum() > 0;
+        }
+        laufzeit("komponenten", start);
+        return label;
+    }
+
+    /**
+     * für jeden startknoten die sortierte menge der knoten, die über die labels des pfads erreichbar sind,
+     * z.b. ("Abgeordneter", "Rede", "Sitzung"): die sitzungen, in denen ein abgeordneter gesprochen hat.
+     * @return ein array pro knoten aus g.knotenMitLabel(pfad[0]) in derselben reihenfolge
+     */
+    public static int[][] nachbarMengen(GraphProjektion g, String... pfad) {
+        int[] stufen = Arrays.stream(pfad).mapToInt(GraphProjektion::labelNummer).toArray();
+        int[] offsets = g.getOffsets();
+        int[] nachbarn = g.getNachbarn();
+        int[] starts = g.knotenMitLabel(pfad[0]);
+        return Arrays.stream(starts).parallel().mapToObj(s -> {
+            int[] aktuell = {s};
+            for (int stufe = 1; stufe < stufen.length; stufe++) {
+                int zielLabel = stufen[stufe];
+                int[] naechste = Arrays.stream(aktuell)
+                        .flatMap(v -> IntStream.range(offsets[v], offsets[v + 1]).map(i -> nachbarn[i]))
+                        .filter(w -> g.labelIndex(w) == zielLabel)
+                        .sorted().distinct().toArray();
+                aktuell = naechste;
+            }
+            return aktuell;
+        }).toArray(int[][]::new);
+    }
+
+    /**
+     * jaccard ähnlichkeit |A ∩ B| / |A ∪ B| der nachbarmengen, für jeden startknoten die k ähnlichsten.
+     * verglichen werden nur paare mit mindestens einem gemeinsamen nachbarn, über einen invertierten
+     * index (nachbar -> startknoten) statt aller paare. die startknoten werden parallel berechnet.
+     * @param starts die startknoten, mengen[i] gehört zu starts[i]
+     */
+    public static List<List<Aehnlichkeit>> jaccard(int[] starts, int[][] mengen, int k) {
+        long start = System.nanoTime();
+        //invertierter index in csr form: ziel knoten -> positionen in starts
+        int maxZiel = Arrays.stream(mengen).flatMapToInt(Arrays::stream).max().orElse(-1) + 1;
+        int[] offsets = new int[maxZiel + 1];
+        for (int[] menge : mengen) for (int z : menge) offsets[z + 1]++;
+        for (int z = 0; z < maxZiel; z++) offsets[z + 1] += offsets[z];
+        int[] eintraege = new int[offsets[maxZiel]];
+        int[] naechster = Arrays.copyOf(offsets, maxZiel);
+        for (int i = 0; i < mengen.length; i++) for (int z : mengen[i]) eintraege[naechster[z]++] = i;
+
+        List<List<Aehnlichkeit>> ergebnis = IntStream.range(0, starts.length).parallel().mapToObj(i -> {
+            //gemeinsame nachbarn mit jedem anderen startknoten zählen
+            int[] gemeinsam = new int[starts.length];
+            List<Integer> kandidaten = new ArrayList<>();
+            for (int z : mengen[i]) {
+                for (int e = offsets[z]; e < offsets[z + 1]; e++) {
+                    int j = eintraege[e];
+                    if (j != i && gemeinsam[j]++ == 0) kandidaten.add(j);
+                }
+            }
+            List<Aehnlichkeit> liste = new ArrayList<>(kandidaten.size());
+            for (int j : kandidaten) {
+                int schnitt = gemeinsam[j];
+                double wert = (double) schnitt / (mengen[i].length + mengen[j].length - schnitt);
+                liste.add(new Aehnlichkeit(starts[i], starts[j], schnitt, wert));
+            }
+            liste.sort((a, b) -> a.jaccard != b.jaccard ? Double.compare(b.jaccard, a.jaccard) : Integer.compare(a.b, b.b));
+            return liste.size() > k ? new ArrayList<>(liste.subList(0, k)) : liste;
+        }).collect(Collectors.toList());
+        laufzeit("jaccard", start);
+        return ergebnis;
+    }
+
+    private static void laufzeit(String algorithmus, long start) {
+        MetricsRegistry.getInstance()
+                .histogram("graph_algorithmus_seconds", "Laufzeit der Graph Algorithmen auf der Projektion", "algorithmus", algorithmus)
+                .observeSince(start);
+    }
+
+    /**
+     * ähnlichkeit zweier knoten a und b mit der anzahl gemeinsamer nachbarn (kookkurrenz).
+     */
+    public static final class Aehnlichkeit {
+        public final int a;
+        public final int b;
+        public final int gemeinsam;
+        public final double jaccard;
+
+        Aehnlichkeit(int a, int b, int gemeinsam, double jaccard) {
+            this.a = a;
+            this.b = b;
+            this.gemeinsam = gemeinsam;
+            this.jaccard = jaccard;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package de.bundestag.graph;
+
+import de.bundestag.database.GraphStore;
+import de.bundestag.factory.PortalFactory;
+import de.bundestag.model.Abgeordneter;
+import de.bundestag.model.Fraktion;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * bericht über die graph projektion: zentralste redner (pagerank), komponenten, nähe der fraktionen
+ * über gemeinsame sitzungen und redner, die in denselben sitzungen sprechen.
+ */
+public class GraphAnalyse {
+
+    private final GraphProjektion graph;
+    private final int[] grad;
+    private final double[] rang;
+    private final int[] komponente;
+
+    public GraphAnalyse(GraphProjektion graph) {
+        this.graph = graph;
+        this.grad = GraphAlgorithmen.grad(graph);
+        this.rang = GraphAlgorithmen.pageRank(graph);
+        this.komponente = GraphAlgorithmen.komponenten(graph);
+    }
+
+    //mit offenem speicher wird die gespeicherte topologie gelesen, dann passen die ids beim zurückschreiben,
+    //ohne speicher (--modell-statistik) die objekte der factory
+    public static GraphAnalyse berechne(PortalFactory factory) {
+        GraphStore store = factory.getGraphStore();
+        return new GraphAnalyse(store != null ? GraphProjektion.ausStore(store) : GraphProjektion.ausFactory(factory));
+    }
+
+    public GraphProjektion getGraph() { return graph; }
+    public int[] getGrad() { return grad; }
+    public double[] getRang() { return rang; }
+    public int[] getKomponente() { return komponente; }
+
+    /**
+     * speichert grad, pagerank und komponente als eigenschaften an allen knoten.
+     * @return anzahl der knoten, die es im speicher gibt und die geschrieben wurden
+     */
+    public int speichere(GraphStore store) {
+        Map<String, IntFunction<Number>> eigenschaften = new LinkedHashMap<>();
+        eigenschaften.put("grad", v -> grad[v]);
+        eigenschaften.put("pagerank", v -> rang[v]);
+        eigenschaften.put("komponente", v -> komponente[v]);
+        return graph.schreibeEigenschaften(store, eigenschaften);
+    }
+
+    public void printBericht(PortalFactory factory) {
+        System.out.printf("\n graph projektion: %d knoten, %d kanten\n", graph.getKnotenAnzahl(), graph.getKantenAnzahl());
+
+        Map<Integer, Integer> groessen = new HashMap<>();
+        for (int k : komponente) groessen.merge(k, 1, Integer::sum);
+        System.out.printf(" %d komponenten, die größte mit %d knoten\n", groessen.size(),
+                groessen.values().stream().mapToInt(Integer::intValue).max().orElse(0));
+
+        System.out.println("\n zentralste abgeordnete (pagerank)");
+        int[] abgeordnete = graph.knotenMitLabel("Abgeordneter");
+        IntStream.of(abgeordnete).boxed()
+                .sorted(Comparator.comparingDouble((Integer v) -> rang[v]).reversed())
+                .limit(10)
+                .forEach(v -> System.out.printf("  %-30s %4d reden  %.6f\n", name(factory, v), grad[v] - mitgliedschaften(v), rang[v]));
+
+        //fraktionen über die sitzungen, in denen ihre mitglieder gesprochen haben
+        int[] fraktionen = graph.knotenMitLabel("Fraktion");
+        List<List<GraphAlgorithmen.Aehnlichkeit>> fraktionsNaehe = GraphAlgorithmen.jaccard(fraktionen,
+                GraphAlgorithmen.nachbarMengen(graph, "Fraktion", "Abgeordneter", "Rede", "Sitzung"), 3);
+        System.out.println("\n nähe der fraktionen (jaccard über gemeinsame sitzungen)");
+        for (int i = 0; i < fraktionen.length; i++) {
+            StringBuilder zeile = new StringBuilder();
+            for (GraphAlgorithmen.Aehnlichkeit a : fraktionsNaehe.get(i)) {
+                if (zeile.length() > 0) zeile.append(", ");
+                zeile.append(String.format("%s %.2f", fraktionsName(factory, a.b), a.jaccard));
+            }
+            System.out.printf("  %-22s ! %s\n", fraktionsName(factory, fraktionen[i]), zeile);
+        }
+
+        //redner, die am häufigsten in denselben sitzungen sprechen
+        List<List<GraphAlgorithmen.Aehnlichkeit>> rednerNaehe = GraphAlgorithmen.jaccard(abgeordnete,
+                GraphAlgorithmen.nachbarMengen(graph, "Abgeordneter", "Rede", "Sitzung"), 1);
+        System.out.println("\n redner mit den ähnlichsten sitzungen (jaccard, gemeinsame sitzungen)");
+        rednerNaehe.stream()
+                .filter(l -> !l.isEmpty() && l.get(0).a < l.get(0).b && l.get(0).gemeinsam >= 10)
+                .map(l -> l.get(0))
+                .sorted(Comparator.comparingDouble((GraphAlgorithmen.Aehnlichkeit a) -> a.jaccard).reversed())
+                .limit(10)
+                .forEach(a -> System.out.printf("  %-28s %-28s %.2f %4d\n", name(factory, a.a), name(factory, a.b), a.jaccard, a.gemeinsam));
+    }
+
+    //der abgeordnete ist auch mit seiner fraktion verbunden
+    private int mitgliedschaften(int v) {
+        int anzahl = 0;
+        for (int i = graph.getOffsets()[v]; i < graph.getOffsets()[v + 1]; i++) {
+            if (graph.getLabel(graph.getNachbarn()[i]).equals("Fraktion")) anzahl++;
+        }
+        return anzahl;
+    }
+
+    private String name(PortalFactory factory, int v) {
+        Abgeordneter a = factory.getAbgeordneterById(graph.getId(v));
+        return a != null ? a.getName() : graph.getId(v);
+    }
+
+    private String fraktionsName(PortalFactory factory, int v) {
+        Fraktion f = factory.getFraktionById(graph.getId(v));
+        return f != null && f.getName() != null ? f.getName() : graph.getId(v);
+    }
+}
@@ -0,0 +1,237 @@
+package de.bundestag.graph;
+
+import de.bundestag.database.GraphStore;
+import de.bundestag.factory.PortalFactory;
+import de.bundestag.model.Abgeordneter;
+import de.bundestag.model.CypherQuery;
+import de.bundestag.model.Fraktion;
+import de.bundestag.model.Rede;
+import de.bundestag.model.Sitzung;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * die topologie Fraktion / Abgeordneter / Sitzung / Rede als ungerichteter graph in compressed sparse row
+ * form: die nachbarn von knoten v stehen in nachbarn[offsets[v] .. offsets[v + 1]). knoten sind ints
+ * 0..n-1, pro knoten gibt es nur label und id. damit laufen die algorithmen in GraphAlgorithmen über
+ * primitive arrays statt über ergebnis maps pro schritt.
+ *
+ * kanten sind die gespeicherten relationen WURDE_GEHALTEN_VON (rede - abgeordneter),
+ * GEHORTE_ZU_SITZUNG (rede - sitzung) und IST_MITGLIED_VON (abgeordneter - aktuelle fraktion).
+ * die projektion ist nach dem bau unveränderlich.
+ */
+public final class GraphProjektion {
+
+    public static final String[] LABELS = {"Fraktion", "Abgeordneter", "Sitzung", "Rede"};
+    private static final int BATCH_SIZE = 1000;
+
+    private final String[] ids;
+    private final byte[] labels;
+    private final int[] offsets;
+    private final int[] nachbarn;
+    private final List<Map<String, Integer>> index;
+
+    private GraphProjektion(Bauer bauer) {
+        int n = bauer.ids.size();
+        this.ids = bauer.ids.toArray(new String[0]);
+        this.labels = Arrays.copyOf(bauer.labels, n);
+        this.index = bauer.index;
+
+        //grad zählen, präfixsumme, dann beide richtungen jeder kante einsortieren
+        offsets = new int[n + 1];
+        for (int i = 0; i < bauer.kanten; i++) {
+            offsets[bauer.von[i] + 1]++;
+            offsets[bauer.nach[i] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        nachbarn = new int[offsets[n]];
+        int[] naechster = Arrays.copyOf(offsets, n);
+        for (int i = 0; i < bauer.kanten; i++) {
+            nachbarn[naechster[bauer.von[i]]++] = bauer.nach[i];
+            nachbarn[naechster[bauer.nach[i]]++] = bauer.von[i];
+        }
+    }
+
+    /**
+     * projektion aus den objekten der factory.
+     */
+    public static GraphProjektion ausFactory(PortalFactory factory) {
+        Bauer b = new Bauer();
+        for (Fraktion f : factory.getAllFraktionen()) b.knoten(0, f.getId());
+        for (Abgeordneter a : factory.getAllAbgeordnete()) b.knoten(1, a.getId());
+        for (Sitzung s : factory.getAllSitzungen()) b.knoten(2, s.getId());
+        for (Rede r : factory.getAllReden()) b.knoten(3, r.getId());
+
+        for (Abgeordneter a : factory.getAllAbgeordnete()) {
+            if (a.getFraktion() != null) b.kante(1, a.getId(), 0, a.getFraktion().getId());
+        }
+        for (Rede r : factory.getAllReden()) {
+            if (r.getRednerPerson() != null) b.kante(3, r.getId(), 1, r.getRednerPerson().getId());
+            if (r.getSitzung() != null) b.kante(3, r.getId(), 2, r.getSitzung().getId());
+        }
+        return new GraphProjektion(b);
+    }
+
+    /**
+     * projektion aus dem graph speicher, gelesen werden nur ids und die denormalisierten schlüssel
+     * (rednerId, sitzungId an der rede, fraktionId am abgeordneten).
+     */
+    public static GraphProjektion ausStore(GraphStore store) {
+        Bauer b = new Bauer();
+        for (int l = 0; l < 3; l++) {
+            for (Map<String, Object> k : store.scanNodes(LABELS[l], "id")) b.knoten(l, String.valueOf(k.get("id")));
+        }
+        List<Map<String, Object>> reden = store.scanNodes("Rede", "id", "rednerId", "sitzungId");
+        for (Map<String, Object> r : reden) b.knoten(3, String.valueOf(r.get("id")));
+
+        for (Map<String, Object> a : store.scanNodes("Abgeordneter", "id", "fraktionId")) {
+            if (a.get("fraktionId") != null) b.kante(1, String.valueOf(a.get("id")), 0, a.get("fraktionId").toString());
+        }
+        for (Map<String, Object> r : reden) {
+            String id = String.valueOf(r.get("id"));
+            if (r.get("rednerId") != null) b.kante(3, id, 1, r.get("rednerId").toString());
+            if (r.get("sitzungId") != null) b.kante(3, id, 2, r.get("sitzungId").toString());
+        }
+        return new GraphProjektion(b);
+    }
+
+    public int getKnotenAnzahl() {
+        return ids.length;
+    }
+
+    //jede ungerichtete kante zählt einmal
+    public int getKantenAnzahl() {
+        return nachbarn.length / 2;
+    }
+
+    public int grad(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    public int[] getNachbarn() {
+        return nachbarn;
+    }
+
+    public String getId(int v) {
+        return ids[v];
+    }
+
+    public String getLabel(int v) {
+        return LABELS[labels[v]];
+    }
+
+    public int labelIndex(int v) {
+        return labels[v];
+    }
+
+    //knotennummer oder -1
+    public int knoten(String label, String id) {
+        Integer v = index.get(labelNummer(label)).get(id);
+        return v != null ? v : -1;
+    }
+
+    //alle knoten eines labels aufsteigend
+    public int[] knotenMitLabel(String label) {
+        int l = labelNummer(label);
+        int[] ergebnis = new int[index.get(l).size()];
+        int i = 0;
+        for (int v = 0; v < labels.length; v++) {
+            if (labels[v] == l) ergebnis[i++] = v;
+        }
+        return ergebnis;
+    }
+
+    static int labelNummer(String label) {
+        for (int l = 0; l < LABELS.length; l++) {
+            if (LABELS[l].equals(label)) return l;
+        }
+        throw new IllegalArgumentException("Label ist nicht Teil der Projektion: " + label);
+    }
+
+    /**
+     * schreibt ergebnisse als eigenschaften an die knoten zurück, z.b. "pagerank" -> v -> rang[v].
+     * knoten, die im speicher fehlen, werden wie beim MATCH übersprungen.
+     * @return anzahl geschriebener knoten, ohne die übersprungenen
+     */
+    public int schreibeEigenschaften(GraphStore store, Map<String, IntFunction<Number>> eigenschaften) {
+        String set = eigenschaften.keySet().stream().map(e -> "n." + e + " = $" + e).collect(Collectors.joining(", "));
+        String[] namen = eigenschaften.keySet().toArray(new String[0]);
+        //vorhandene ids einmal pro label lesen, damit die rückgabe die wirklich geschriebenen knoten zählt
+        List<Set<String>> vorhanden = new ArrayList<>(LABELS.length);
+        for (String label : LABELS) {
+            Set<String> vorhandeneIds = new HashSet<>();
+            for (Map<String, Object> k : store.scanNodes(label, "id")) vorhandeneIds.add(String.valueOf(k.get("id")));
+            vorhanden.add(vorhandeneIds);
+        }
+        int geschrieben = 0;
+        List<CypherQuery> batch = new ArrayList<>(BATCH_SIZE);
+        for (int v = 0; v < ids.length; v++) {
+            if (!vorhanden.get(labels[v]).contains(ids[v])) {
+                continue;
+            }
+            Map<String, Object> params = new HashMap<>();
+            params.put("id", ids[v]);
+            for (Map.Entry<String, IntFunction<Number>> e : eigenschaften.entrySet()) {
+                params.put(e.getKey(), e.getValue().apply(v));
+            }
+            batch.add(new CypherQuery("MATCH (n:" + getLabel(v) + " {id: $id}) SET " + set, params)
+                    .knoten(getLabel(v), namen).nurMatch());
+            geschrieben++;
+            if (batch.size() == BATCH_SIZE) {
+                store.executeWriteBatch(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            store.executeWriteBatch(batch);
+        }
+        return geschrieben;
+    }
+
+    //sammelt knoten und kanten in wachsenden arrays, kanten zu unbekannten knoten fallen weg
+    private static final class Bauer {
+        final List<String> ids = new ArrayList<>();
+        byte[] labels = new byte[1024];
+        final List<Map<String, Integer>> index = new ArrayList<>();
+        int[] von = new int[1024];
+        int[] nach = new int[1024];
+        int kanten;
+
+        Bauer() {
+            for (int l = 0; l < LABELS.length; l++) index.add(new HashMap<>());
+        }
+
+        void knoten(int label, String id) {
+            if (index.get(label).putIfAbsent(id, ids.size()) != null) return;
+            if (ids.size() == labels.length) labels = Arrays.copyOf(labels, labels.length * 2);
+            labels[ids.size()] = (byte) label;
+            ids.add(id);
+        }
+
+        void kante(int vonLabel, String vonId, int nachLabel, String nachId) {
+            Integer a = index.get(vonLabel).get(vonId);
+            Integer b = index.get(nachLabel).get(nachId);
+            if (a == null || b == null) return;
+            if (kanten == von.length) {
+                von = Arrays.copyOf(von, kanten * 2);
+                nach = Arrays.copyOf(nach, kanten * 2);
+            }
+            von[kanten] = a;
+            nach[kanten++] = b;
+        }
+    }
+}
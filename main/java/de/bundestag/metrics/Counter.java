@@ -0,0 +1,21 @@
+package de.bundestag.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+//monoton steigender zähler, LongAdder damit parallele streams nicht um eine variable konkurrieren
+public class Counter {
+
+    private final LongAdder wert = new LongAdder();
+
+    public void inc() {
+        wert.increment();
+    }
+
+    public void add(long anzahl) {
+        wert.add(anzahl);
+    }
+
+    public long get() {
+        return wert.sum();
+    }
+}
@@ -0,0 +1,30 @@
+package de.bundestag.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+
+//momentanwert, entweder gesetzt oder beim export über einen supplier abgefragt
+public class Gauge {
+
+    private final AtomicLong bits = new AtomicLong(Double.doubleToLongBits(0.0));
+    private final DoubleSupplier supplier;
+
+    Gauge() {
+        this(null);
+    }
+
+    Gauge(DoubleSupplier supplier) {
+        this.supplier = supplier;
+    }
+
+    public void set(double wert) {
+        bits.set(Double.doubleToLongBits(wert));
+    }
+
+    public double get() {
+        if (supplier != null) {
+            return supplier.getAsDouble();
+        }
+        return Double.longBitsToDouble(bits.get());
+    }
+}
@@ -0,0 +1,78 @@
+package de.bundestag.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+//latenz histogramm in sekunden mit festen bucket grenzen (prometheus "le" semantik)
+public class Histogram {
+
+    // obere grenzen der buckets in sekunden, +Inf ist implizit der letzte bucket
+    static final double[] GRENZEN = {
+            0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60
+    };
+
+    private final LongAdder[] buckets = new LongAdder[GRENZEN.length + 1];
+    private final LongAdder anzahl = new LongAdder();
+    private final DoubleAdder summe = new DoubleAdder();
+
+    Histogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void observe(double sekunden) {
+        int i = 0;
+        while (i < GRENZEN.length && sekunden > GRENZEN[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        anzahl.increment();
+        summe.add(sekunden);
+    }
+
+    public void observeNanos(long nanos) {
+        observe(nanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    //misst ab startNanos (System.nanoTime()) bis jetzt
+    public void observeSince(long startNanos) {
+        observeNanos(System.nanoTime() - startNanos);
+    }
+
+    public long getAnzahl() {
+        return anzahl.sum();
+    }
+
+    public double getSumme() {
+        return summe.sum();
+    }
+
+    //kumulierte anzahl pro grenze, der letzte eintrag entspricht +Inf
+    public long[] getKumulierteBuckets() {
+        long[] kumuliert = new long[buckets.length];
+        long laufend = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            laufend += buckets[i].sum();
+            kumuliert[i] = laufend;
+        }
+        return kumuliert;
+    }
+
+    //grobe schätzung eines quantils aus den buckets (obere grenze des treffenden buckets)
+    public double getQuantil(double q) {
+        long[] kumuliert = getKumulierteBuckets();
+        long gesamt = kumuliert[kumuliert.length - 1];
+        if (gesamt == 0) {
+            return 0.0;
+        }
+        long ziel = (long) Math.ceil(q * gesamt);
+        for (int i = 0; i < GRENZEN.length; i++) {
+            if (kumuliert[i] >= ziel) {
+                return GRENZEN[i];
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,63 @@
+package de.bundestag.metrics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+/**
+ * startet eine flight recorder aufzeichnung mit dem "profile" preset (gc, allokation, locks)
+ * zusammen mit den eigenen ereignissen aus diesem paket und schreibt sie beim stoppen in eine datei.
+ */
+public class JfrAufzeichnung implements AutoCloseable {
+
+    private final Recording recording;
+    private final Path datei;
+
+    private JfrAufzeichnung(Recording recording, Path datei) {
+        this.recording = recording;
+        this.datei = datei;
+    }
+
+    /**
+     * startet die aufzeichnung.
+     * @param datei ziel .jfr datei, wird beim schließen geschrieben
+     * @return die laufende aufzeichnung oder null wenn jfr nicht gestartet werden konnte
+     */
+    public static JfrAufzeichnung starte(Path datei) {
+        try {
+            Recording recording = new Recording(Configuration.getConfiguration("profile"));
+            recording.setName("Reden-Portal");
+            recording.enable(ParseEvent.class);
+            recording.enable(WriteBatchEvent.class);
+            recording.enable(QueryEvent.class);
+            recording.setToDisk(true);
+            recording.start();
+            System.out.println(" JFR Aufzeichnung gestartet -> " + datei);
+            return new JfrAufzeichnung(recording, datei);
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            System.err.println("JFR Aufzeichnung konnte nicht gestartet werden: " + e.getMessage());
+            return null;
+        }
+    }
+
+    //stoppt die aufzeichnung und schreibt sie in die datei
+    @Override
+    public void close() {
+        try {
+            recording.stop();
+            if (datei.getParent() != null) {
+                Files.createDirectories(datei.getParent());
+            }
+            recording.dump(datei);
+            System.out.println(" JFR Aufzeichnung geschrieben: " + datei);
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("Fehler beim Schreiben der JFR Aufzeichnung: " + e.getMessage());
+        } finally {
+            recording.close();
+        }
+    }
+}
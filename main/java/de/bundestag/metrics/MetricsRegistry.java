@@ -0,0 +1,215 @@
+package de.bundestag.metrics;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * zentrale sammlung aller kennzahlen der pipeline (zähler, momentanwerte, latenzen).
+ * der export schreibt eine prometheus textdatei (metrics.prom) und eine json datei (metrics.json),
+ * damit läufe miteinander verglichen werden können.
+ */
+public class MetricsRegistry {
+
+    // singleton Instanz, wie bei der PortalFactory
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    //schlüssel ist name + labels, damit z.b. entities_created_total pro typ eine eigene reihe hat
+    private final Map<String, Eintrag> eintraege = new ConcurrentHashMap<>();
+    private volatile boolean exitHookRegistriert = false;
+
+    private MetricsRegistry() {
+    }
+
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * liefert den zähler zu name und labels, legt ihn beim ersten aufruf an.
+     * @param labels abwechselnd label name und wert, z.b. "typ", "Rede"
+     */
+    public Counter counter(String name, String hilfe, String... labels) {
+        return (Counter) eintrag(name, hilfe, "counter", labels, Counter::new).metrik;
+    }
+
+    public Gauge gauge(String name, String hilfe, String... labels) {
+        return (Gauge) eintrag(name, hilfe, "gauge", labels, Gauge::new).metrik;
+    }
+
+    //gauge deren wert erst beim export berechnet wird
+    public Gauge gauge(String name, String hilfe, DoubleSupplier supplier, String... labels) {
+        return (Gauge) eintrag(name, hilfe, "gauge", labels, () -> new Gauge(supplier)).metrik;
+    }
+
+    public Histogram histogram(String name, String hilfe, String... labels) {
+        return (Histogram) eintrag(name, hilfe, "histogram", labels, Histogram::new).metrik;
+    }
+
+    private Eintrag eintrag(String name, String hilfe, String typ, String[] labels,
+                            java.util.function.Supplier<Object> erzeuger) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels müssen als Name/Wert Paare angegeben werden: " + name);
+        }
+        Map<String, String> labelMap = new LinkedHashMap<>();
+        for (int i = 0; i < labels.length; i += 2) {
+            labelMap.put(labels[i], labels[i + 1]);
+        }
+        String schluessel = name + formatLabels(labelMap, null, null);
+        Eintrag eintrag = eintraege.computeIfAbsent(schluessel,
+                k -> new Eintrag(name, hilfe, typ, labelMap, erzeuger.get()));
+        if (!eintrag.typ.equals(typ)) {
+            throw new IllegalStateException("Metrik " + name + " ist bereits als " + eintrag.typ + " registriert");
+        }
+        return eintrag;
+    }
+
+    /**
+     * schreibt beide exportdateien in das verzeichnis.
+     * @param verzeichnis zielverzeichnis, wird bei bedarf angelegt
+     */
+    public void export(Path verzeichnis) {
+        try {
+            Files.createDirectories(verzeichnis);
+            writePrometheus(verzeichnis.resolve("metrics.prom"));
+            writeJson(verzeichnis.resolve("metrics.json"));
+            System.out.println(" Metriken exportiert nach " + verzeichnis);
+        } catch (IOException e) {
+            System.err.println("Fehler beim Export der Metriken: " + e.getMessage());
+        }
+    }
+
+    //registriert einen shutdown hook, der beim beenden exportiert (nur einmal)
+    public synchronized void exportAtExit(Path verzeichnis) {
+        if (exitHookRegistriert) {
+            return;
+        }
+        exitHookRegistriert = true;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> export(verzeichnis)));
+    }
+
+    public void writePrometheus(Path datei) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(datei, StandardCharsets.UTF_8)) {
+            String letzterName = null;
+            for (Eintrag e : sortiert()) {
+                if (!e.name.equals(letzterName)) {
+                    out.write("# HELP " + e.name + " " + e.hilfe + "\n");
+                    out.write("# TYPE " + e.name + " " + e.typ + "\n");
+                    letzterName = e.name;
+                }
+                if (e.metrik instanceof Counter) {
+                    out.write(e.name + formatLabels(e.labels, null, null) + " " + ((Counter) e.metrik).get() + "\n");
+                } else if (e.metrik instanceof Gauge) {
+                    out.write(e.name + formatLabels(e.labels, null, null) + " " + zahl(((Gauge) e.metrik).get()) + "\n");
+                } else {
+                    Histogram h = (Histogram) e.metrik;
+                    long[] kumuliert = h.getKumulierteBuckets();
+                    for (int i = 0; i < kumuliert.length; i++) {
+                        String le = (i < Histogram.GRENZEN.length) ? zahl(Histogram.GRENZEN[i]) : "+Inf";
+                        out.write(e.name + "_bucket" + formatLabels(e.labels, "le", le) + " " + kumuliert[i] + "\n");
+                    }
+                    out.write(e.name + "_sum" + formatLabels(e.labels, null, null) + " " + zahl(h.getSumme()) + "\n");
+                    out.write(e.name + "_count" + formatLabels(e.labels, null, null) + " " + h.getAnzahl() + "\n");
+                }
+            }
+        }
+    }
+
+    public void writeJson(Path datei) throws IOException {
+        Files.writeString(datei, toJSON().toString(), StandardCharsets.UTF_8);
+    }
+
+    //momentaufnahme aller metriken als json, eine liste von einträgen mit name, labels und werten
+    public JSONObject toJSON() {
+        JSONArray metriken = new JSONArray();
+        for (Eintrag e : sortiert()) {
+            JSONObject json = new JSONObject();
+            json.put("name", e.name);
+            json.put("typ", e.typ);
+            json.put("labels", new JSONObject(e.labels));
+            if (e.metrik instanceof Counter) {
+                json.put("wert", ((Counter) e.metrik).get());
+            } else if (e.metrik instanceof Gauge) {
+                json.put("wert", ((Gauge) e.metrik).get());
+            } else {
+                Histogram h = (Histogram) e.metrik;
+                json.put("anzahl", h.getAnzahl());
+                json.put("summe_sekunden", h.getSumme());
+                json.put("p50_sekunden", h.getQuantil(0.5));
+                json.put("p90_sekunden", h.getQuantil(0.9));
+                json.put("p99_sekunden", h.getQuantil(0.99));
+            }
+            metriken.put(json);
+        }
+        JSONObject snapshot = new JSONObject();
+        snapshot.put("zeitpunkt", Instant.now().toString());
+        snapshot.put("metriken", metriken);
+        return snapshot;
+    }
+
+    //nach name und dann nach labels sortiert, damit alle reihen einer metrik zusammenstehen
+    private List<Eintrag> sortiert() {
+        List<Eintrag> liste = new ArrayList<>(eintraege.values());
+        liste.sort(Comparator.comparing((Eintrag e) -> e.name)
+                .thenComparing(e -> formatLabels(e.labels, null, null)));
+        return liste;
+    }
+
+    private static String formatLabels(Map<String, String> labels, String extraName, String extraWert) {
+        if (labels.isEmpty() && extraName == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder("{");
+        for (Map.Entry<String, String> label : labels.entrySet()) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append(label.getKey()).append("=\"").append(escape(label.getValue())).append('"');
+        }
+        if (extraName != null) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append(extraName).append("=\"").append(extraWert).append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String escape(String wert) {
+        return wert.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String zahl(double wert) {
+        if (Double.isInfinite(wert)) {
+            return wert > 0 ? "+Inf" : "-Inf";
+        }
+        return String.format(Locale.ROOT, "%s", wert);
+    }
+
+    //interne beschreibung einer registrierten zeitreihe
+    private static class Eintrag {
+        final String name;
+        final String hilfe;
+        final String typ;
+        final Map<String, String> labels;
+        final Object metrik;
+
+        Eintrag(String name, String hilfe, String typ, Map<String, String> labels, Object metrik) {
+            this.name = name;
+            this.hilfe = hilfe;
+            this.typ = typ;
+            this.labels = labels;
+            this.metrik = metrik;
+        }
+    }
+}
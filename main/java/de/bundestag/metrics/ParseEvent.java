@@ -0,0 +1,35 @@
+package de.bundestag.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+//jfr ereignis für das parsen einer protokoll datei, die dauer ergibt sich aus begin() und commit()
+@Name("de.bundestag.Parse")
+@Label("XML Protokoll parsen")
+@Category({"Reden-Portal", "Einlesen"})
+@Description("Parsen einer einzelnen XML Protokoll Datei mit den dabei neu erstellten Entitäten")
+public class ParseEvent extends Event {
+
+    @Label("Datei")
+    public String datei;
+
+    @Label("Dateigröße")
+    @DataAmount
+    public long bytes;
+
+    @Label("Neue Reden")
+    public int reden;
+
+    @Label("Neue Kommentare")
+    public int kommentare;
+
+    @Label("Neue Abgeordnete")
+    public int abgeordnete;
+
+    @Label("Erfolgreich")
+    public boolean erfolgreich;
+}
@@ -0,0 +1,24 @@
+package de.bundestag.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+//jfr ereignis für eine leseabfrage, der name ordnet sie einer statistik zu
+@Name("de.bundestag.Query")
+@Label("Lese Abfrage")
+@Category({"Reden-Portal", "Datenbank"})
+@Description("Ausführung einer lesenden Cypher Abfrage")
+public class QueryEvent extends Event {
+
+    @Label("Abfrage")
+    public String name;
+
+    @Label("Cypher")
+    public String cypher;
+
+    @Label("Zeilen")
+    public int zeilen;
+}
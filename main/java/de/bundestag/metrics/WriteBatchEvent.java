@@ -0,0 +1,21 @@
+package de.bundestag.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+//jfr ereignis für einen schreib batch, umfasst ausführung aller queries und den commit
+@Name("de.bundestag.WriteBatch")
+@Label("Schreib Batch")
+@Category({"Reden-Portal", "Datenbank"})
+@Description("Ausführung eines Schreib Batches in einer Transaktion")
+public class WriteBatchEvent extends Event {
+
+    @Label("Batch Größe")
+    public int batchGroesse;
+
+    @Label("Erfolgreich")
+    public boolean erfolgreich;
+}
@@ -30,6 +30,9 @@ public class Abgeordneter extends AbstractEntity {
     // NEU: Assoziation zu Reden (1:n)
     private final List<Rede> reden = new ArrayList<>();
 
+    // vorberechnete Redekennzahlen, werden bei addRede fortgeschrieben
+    private final RedeAggregat aggregat = new RedeAggregat();
+
 
     /**
      * Öffentlicher Konstruktor für die PortalFactory.
@@ -54,20 +57,42 @@ public class Abgeordneter extends AbstractEntity {
 
     // NEU: Getter für die Liste der Reden (gibt eine unveränderliche Kopie zurück)
     public List<Rede> getReden() { return Collections.unmodifiableList(reden); }
+    public RedeAggregat getAggregat() { return aggregat; }
 
 
     // --- Setter (für die Zuordnung durch die Factory) ---
     public void setFraktion(Fraktion fraktion) {
+        // Die bisher gezählten Reden wandern mit zur neuen Fraktion
+        if (this.fraktion != null) {
+            this.fraktion.getAggregat().addAggregat(this.aggregat, -1);
+        }
         this.fraktion = fraktion;
+        if (fraktion != null) {
+            fraktion.getAggregat().addAggregat(this.aggregat, 1);
+        }
     }
 
     /**
      * NEU: Fügt eine Rede des Abgeordneten hinzu.
      * Behebt den Fehler im XMLProcessor.
+     * Die Kennzahlen des Abgeordneten und seiner Fraktion werden direkt mitgezählt.
      */
     public void addRede(Rede rede) {
         if (rede != null && !this.reden.contains(rede)) {
             this.reden.add(rede);
+            this.aggregat.addRede(rede);
+            if (this.fraktion != null) {
+                this.fraktion.getAggregat().addRede(rede);
+            }
+            rede.markiereGezaehlt(this);
+        }
+    }
+
+    // Wird von Rede.addKommentar aufgerufen, wenn die Rede hier schon gezählt ist
+    void kommentarHinzugefuegt() {
+        this.aggregat.addKommentare(1);
+        if (this.fraktion != null) {
+            this.fraktion.getAggregat().addKommentare(1);
         }
     }
 
@@ -82,9 +107,11 @@ public class Abgeordneter extends AbstractEntity {
     public CypherQuery toParameterizedNode() {
 
         // 1. Definiere den Cypher-Query mit Platzhaltern ($Parameter)
+        // Wird nur bei geändertem Fingerprint geschrieben, deshalb werden alle Eigenschaften gesetzt
         String cypher = "MERGE (a:Abgeordneter {id: $id}) " +
-                "ON CREATE SET a.name = $name, a.geburtsdatum = $geburtsdatum, a.funktion = $funktion " +
-                "ON MATCH SET a.funktion = $funktion"; // Aktualisiert die Funktion bei MATCH
+                "SET a.name = $name, a.geburtsdatum = $geburtsdatum, a.funktion = $funktion, a.fraktionId = $fraktionId, " +
+                RedeAggregat.setClause("a") + ", " +
+                "a.fingerprint = $fingerprint";
 
         // 2. Erstelle die Parameter-Map
         Map<String, Object> params = new HashMap<>();
@@ -93,19 +120,33 @@ public class Abgeordneter extends AbstractEntity {
         params.put("name", this.getName());
         params.put("geburtsdatum", (this.geburtsdatum != null) ? this.geburtsdatum.toString() : "NULL");
         params.put("funktion", (this.funktion != null) ? this.funktion : "NULL");
-
-        // 3. Relation zur Fraktion hinzufügen (falls vorhanden)
-        if (this.fraktion != null && this.fraktion.getId() != null) {
-            String fraktionId = this.fraktion.getId();
-
-            cypher += " WITH a " +
-                    "MATCH (f:Fraktion {id: $fraktionId}) " + // Fraktion muss existieren
+        this.aggregat.putParameter(params);
+        // aktuelle Fraktion auch als Eigenschaft, damit Auswertungen ohne Relation gruppieren können (null entfernt sie)
+        String fraktionId = (this.fraktion != null) ? this.fraktion.getId() : null;
+        params.put("fraktionId", fraktionId);
+
+        // 3. Alte Mitgliedschaften löschen, sonst bleibt nach einem Fraktionswechsel die alte Relation stehen,
+        // dann die Relation zur aktuellen Fraktion hinzufügen (falls vorhanden)
+        cypher += " WITH a " +
+                "OPTIONAL MATCH (a)-[m:IST_MITGLIED_VON]->() DELETE m " +
+                "WITH DISTINCT a";
+        if (fraktionId != null) {
+            cypher += " MATCH (f:Fraktion {id: $fraktionId}) " + // Fraktion muss existieren
                     "MERGE (a)-[:IST_MITGLIED_VON]->(f)";
-
-            params.put("fraktionId", fraktionId);
         }
 
-        return new CypherQuery(cypher, params);
+        // 4. Fingerprint über Eigenschaften, Relationsziel und die Schreibabfrage,
+        // damit bestehende Knoten die neue fraktionId Eigenschaft einmalig nachgeschrieben bekommen
+        params.put("fingerprint", CypherQuery.fingerprint(params, cypher));
+
+        CypherQuery query = new CypherQuery(cypher, params)
+                .knoten("Abgeordneter", "name", "geburtsdatum", "funktion", "fraktionId", "fingerprint")
+                .knoten("Abgeordneter", RedeAggregat.EIGENSCHAFTEN)
+                .entferneAusgehende("IST_MITGLIED_VON");
+        if (fraktionId != null) {
+            query.relation("IST_MITGLIED_VON", "Fraktion", "fraktionId");
+        }
+        return query;
     }
 
     /**
@@ -1,16 +1,142 @@
 package de.bundestag.model;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 public class CypherQuery {
     public final String cypher;
     public final Map<String, Object> parameters;
 
+    //strukturierte beschreibung desselben schreibvorgangs (knoten label, eigenschaften, relationen),
+    //damit speicher ohne cypher (z.b. InMemoryGraphStore) die query ebenfalls anwenden können
+    private String label;
+    private final Map<String, String> eigenschaften = new LinkedHashMap<>(); // eigenschaft -> parametername
+    private final List<Relation> relationen = new ArrayList<>();
+    //true wenn der knoten im cypher nur gematcht und nicht gemerged wird
+    private boolean nurMatch;
+    //typen der eingehenden und ausgehenden relationen, die das cypher am knoten löscht
+    private final List<String> entfernteEingehende = new ArrayList<>();
+    private final List<String> entfernteAusgehende = new ArrayList<>();
+
+    /**
+     * ausgehende relation vom geschriebenen knoten zu einem knoten, dessen id in einem parameter steht.
+     * wie beim MATCH im cypher wird sie nur angelegt, wenn der zielknoten existiert.
+     */
+    public static class Relation {
+        public final String typ;
+        public final String zielLabel;
+        public final String zielIdParameter;
+        private final Map<String, String> eigenschaften = new LinkedHashMap<>(); // eigenschaft -> parametername
+
+        Relation(String typ, String zielLabel, String zielIdParameter) {
+            this.typ = typ;
+            this.zielLabel = zielLabel;
+            this.zielIdParameter = zielIdParameter;
+        }
+
+        public Map<String, String> getEigenschaften() {
+            return Collections.unmodifiableMap(eigenschaften);
+        }
+    }
+
     public CypherQuery(String cypher, Map<String, Object> parameters) {
         this.cypher = cypher;
         this.parameters = parameters;
     }
 
+    /**
+     * beschreibt den knoten, der über den parameter "id" gemerged wird.
+     * @param label das knoten label
+     * @param eigenschaften gesetzte eigenschaften, entweder "name" (parameter heißt gleich) oder "name=parameter"
+     * @return diese query für weitere angaben
+     */
+    public CypherQuery knoten(String label, String... eigenschaften) {
+        this.label = label;
+        zuordnen(this.eigenschaften, eigenschaften);
+        return this;
+    }
+
+    /**
+     * beschreibt eine relation vom knoten zum zielknoten.
+     * @param eigenschaften eigenschaften der relation (SET r.x = ...), schreibweise wie bei knoten()
+     */
+    public CypherQuery relation(String typ, String zielLabel, String zielIdParameter, String... eigenschaften) {
+        Relation relation = new Relation(typ, zielLabel, zielIdParameter);
+        zuordnen(relation.eigenschaften, eigenschaften);
+        this.relationen.add(relation);
+        return this;
+    }
+
+    /**
+     * der knoten wird im cypher nur mit MATCH gesucht. fehlt er, schreibt die query nichts,
+     * auch keine eigenschaften und relationen.
+     */
+    public CypherQuery nurMatch() {
+        this.nurMatch = true;
+        return this;
+    }
+
+    public boolean isNurMatch() {
+        return nurMatch;
+    }
+
+    /**
+     * das cypher löscht alle eingehenden relationen dieser typen am knoten (MATCH ()-[b:TYP]->(n) DELETE b),
+     * vor den relationen, die die query anlegt.
+     */
+    public CypherQuery entferneEingehende(String... typen) {
+        this.entfernteEingehende.addAll(List.of(typen));
+        return this;
+    }
+
+    public List<String> getEntfernteEingehende() {
+        return Collections.unmodifiableList(entfernteEingehende);
+    }
+
+    /**
+     * das cypher löscht alle ausgehenden relationen dieser typen am knoten (MATCH (n)-[b:TYP]->() DELETE b),
+     * vor den relationen, die die query anlegt.
+     */
+    public CypherQuery entferneAusgehende(String... typen) {
+        this.entfernteAusgehende.addAll(List.of(typen));
+        return this;
+    }
+
+    public List<String> getEntfernteAusgehende() {
+        return Collections.unmodifiableList(entfernteAusgehende);
+    }
+
+    //"name" oder "name=parameter"
+    private static void zuordnen(Map<String, String> ziel, String... eigenschaften) {
+        for (String eigenschaft : eigenschaften) {
+            int trenner = eigenschaft.indexOf('=');
+            if (trenner < 0) {
+                ziel.put(eigenschaft, eigenschaft);
+            } else {
+                ziel.put(eigenschaft.substring(0, trenner), eigenschaft.substring(trenner + 1));
+            }
+        }
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public Map<String, String> getEigenschaften() {
+        return Collections.unmodifiableMap(eigenschaften);
+    }
+
+    public List<Relation> getRelationen() {
+        return Collections.unmodifiableList(relationen);
+    }
+
     /**
      * Erstellt einen leeren Query-Container. Nützlich, wenn kein Query ausgeführt werden soll.
      * @return Ein leeres CypherQuery-Objekt.
@@ -18,4 +144,64 @@ public class CypherQuery {
     public static CypherQuery empty() {
         return new CypherQuery("", java.util.Collections.emptyMap());
     }
+
+    /**
+     * Gibt den Fingerprint zurück, den die Entität in ihre Parameter gelegt hat.
+     * @return Der Fingerprint oder null, wenn die Entität keinen berechnet.
+     */
+    public String getFingerprint() {
+        Object fingerprint = parameters.get("fingerprint");
+        return (fingerprint != null) ? fingerprint.toString() : null;
+    }
+
+    /**
+     * Berechnet einen Inhalts-Fingerprint (SHA-1, hex) über alle Parameter.
+     * Die Schlüssel werden sortiert, damit die Reihenfolge der HashMap keine Rolle spielt.
+     * Relationsziele (z.B. rednerId) stehen auch in den Parametern und zählen damit mit.
+     * @param params Die Parameter-Map der Entität (ohne den Fingerprint selbst).
+     * @return Der Fingerprint als Hex-String.
+     */
+    public static String fingerprint(Map<String, Object> params) {
+        return hashHex("SHA-1", fingerprintInhalt(params).toString());
+    }
+
+    /**
+     * Wie {@link #fingerprint(Map)}, zusätzlich über den Text der Schreibabfrage.
+     * Kommt eine Eigenschaft hinzu, deren Parameter schon vorher da war, ändert sich so
+     * trotzdem der Fingerprint und bestehende Knoten werden einmal neu geschrieben.
+     */
+    public static String fingerprint(Map<String, Object> params, String cypher) {
+        return hashHex("SHA-1", fingerprintInhalt(params).append(cypher).toString());
+    }
+
+    private static StringBuilder fingerprintInhalt(Map<String, Object> params) {
+        StringBuilder inhalt = new StringBuilder();
+        for (Map.Entry<String, Object> entry : new TreeMap<>(params).entrySet()) {
+            if (entry.getKey().equals("fingerprint")) continue;
+            inhalt.append(entry.getKey()).append('=').append(entry.getValue()).append('\u0000');
+        }
+        return inhalt;
+    }
+
+    /**
+     * Hilfsmethode: Hash eines Strings (UTF-8) als Hex-String.
+     * Wird auch für die inhaltsadressierten Redetexte (SHA-256) verwendet.
+     * @param algorithmus Name des MessageDigest Algorithmus, z.B. "SHA-256".
+     * @param inhalt Der zu hashende Text.
+     * @return Der Hash als Hex-String in Kleinbuchstaben.
+     */
+    public static String hashHex(String algorithmus, String inhalt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(algorithmus);
+            byte[] hash = digest.digest(inhalt.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-1 und SHA-256 sind in jeder JVM vorhanden
+            throw new IllegalStateException(algorithmus + " nicht verfügbar", e);
+        }
+    }
 }
\ No newline at end of file
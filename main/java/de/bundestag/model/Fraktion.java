@@ -18,6 +18,8 @@ public class Fraktion extends AbstractEntity {
     //dieliste speichert alle Abgeordneten, die dazu gehören
     private final List<Abgeordneter> mitglieder;
     private int mitgliederanzahl; // wie viele mitglieder es gibt (wird gespeichert)
+    //summe der redekennzahlen aller mitglieder, wird von Abgeordneter fortgeschrieben
+    private final RedeAggregat aggregat = new RedeAggregat();
 
 
      //erstellen wir eine neue fraktion
@@ -58,6 +60,10 @@ public class Fraktion extends AbstractEntity {
         return mitgliederanzahl;
     }
 
+    public RedeAggregat getAggregat() {
+        return aggregat;
+    }
+
     public List<Abgeordneter> getMitglieder() {
         //gibt die liste zurück aber man kann sie von außen nicht ändern
         return Collections.unmodifiableList(this.mitglieder);
@@ -70,9 +76,11 @@ public class Fraktion extends AbstractEntity {
     public CypherQuery toParameterizedNode() {
 
         //der cypherbefehl mit platzhaltern ($id, $name, etc.)
+        //es wird nur geschrieben wenn sich der fingerprint geändert hat, deshalb werden alle eigenschaften gesetzt
         String cypher = "MERGE (f:Fraktion {id: $id}) " +
-                "ON CREATE SET f.name = $name, f.herkunftspartei = $herkunftspartei, f.mitgliederanzahl = $mitgliederAnzahl " +
-                "ON MATCH SET f.mitgliederanzahl = $mitgliederAnzahl"; // die mitgliederanzahl wird immer aktualisiert
+                "SET f.name = $name, f.herkunftspartei = $herkunftspartei, f.mitgliederanzahl = $mitgliederAnzahl, " +
+                RedeAggregat.setClause("f") + ", " +
+                "f.fingerprint = $fingerprint";
 
         //eine map um die Platzhalter mit werten zu füllen
         Map<String, Object> params = new HashMap<>();
@@ -82,8 +90,12 @@ public class Fraktion extends AbstractEntity {
         params.put("name", this.name);
         params.put("herkunftspartei", this.herkunftspartei);
         params.put("mitgliederAnzahl", this.mitgliederanzahl);
+        this.aggregat.putParameter(params); //redeanzahl, textlänge und kommentare
+        params.put("fingerprint", CypherQuery.fingerprint(params));
 
-        return new CypherQuery(cypher, params); // gibt befehl und werte zurück
+        return new CypherQuery(cypher, params) // gibt befehl und werte zurück
+                .knoten("Fraktion", "name", "herkunftspartei", "mitgliederanzahl=mitgliederAnzahl", "fingerprint")
+                .knoten("Fraktion", RedeAggregat.EIGENSCHAFTEN);
     }
 
      //veraltete methode wird nicht mehr benutzt
@@ -17,6 +17,14 @@ public interface IEntity {
 
     CypherQuery toParameterizedNode();
 
+    //inhalts fingerprint über alle gespeicherten eigenschaften und relationsziele
+    //wird am knoten als fingerprint gespeichert damit unveränderte entitäten nicht neu geschrieben werden
+     //return Der Fingerprint der Entität
+
+    default String getFingerprint() {
+        return toParameterizedNode().getFingerprint();
+    }
+
     //Für die JSONrepräsentation
 
      //konvertiert die Entität in ein JSON objekt
@@ -108,10 +108,10 @@ public class Kommentar implements IEntity {
 
         // 1. definiere den cypher-query mit platzhaltern ($parameter)
         // merge (k:kommentar {id: $id}) stellt sicher, dass der knoten erstellt oder gefunden wird.
-        // on create set setzt die eigenschaften nur beim erstellen.
+        // set schreibt alle eigenschaften, der query wird nur bei geändertem fingerprint ausgeführt.
         String cypher =
                 "MERGE (k:Kommentar {id: $id}) " +
-                        "ON CREATE SET k.Autor = $autor, k.Inhalt = $text, k.Datum = $datum";
+                        "SET k.Autor = $autor, k.Inhalt = $text, k.Datum = $datum, k.fingerprint = $fingerprint";
 
         // 2. erstelle die parameter-map zur übergabe der werte an die datenbank.
         Map<String, Object> params = new HashMap<>();
@@ -135,8 +135,16 @@ public class Kommentar implements IEntity {
             params.put("redeId", this.rede.getId());
         }
 
+        // 4. fingerprint über eigenschaften und die zugehörige rede
+        params.put("fingerprint", CypherQuery.fingerprint(params));
+
         //erstellt das Cypherquery objekt,das vom datenbankclient verwendet wird
-        return new CypherQuery(cypher, params);
+        CypherQuery query = new CypherQuery(cypher, params)
+                .knoten("Kommentar", "Autor=autor", "Inhalt=text", "Datum=datum", "fingerprint");
+        if (this.rede != null) {
+            query.relation("IST_TEIL_VON", "Rede", "redeId");
+        }
+        return query;
     }
 
 
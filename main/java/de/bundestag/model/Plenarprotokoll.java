@@ -132,14 +132,15 @@ public class Plenarprotokoll implements IEntity {
     public CypherQuery toParameterizedNode() {
 
         //definiere den CypherQuery mit Platzhaltern/$Parameter
+        //wird nur bei geändertem fingerprint geschrieben, daher alle eigenschaften setzen
         String cypher = "MERGE (p:Protokoll {id: $id}) " +
-                "ON CREATE SET p.wahlperiode = $wahlperiode, " +
+                "SET p.wahlperiode = $wahlperiode, " +
                 "p.sitzungsNr = $sitzungsNr, " +
                 "p.datum = $datum, " +
                 "p.start = $start, " +
                 "p.ende = $ende, " +
-                "p.ort = $ort " +
-                "ON MATCH SET p.ende = $ende"; //endezeit bei match aktualisieren
+                "p.ort = $ort, " +
+                "p.fingerprint = $fingerprint";
 
         //erstelle die ParameterMap
         Map<String, Object> params = new HashMap<>();
@@ -165,7 +166,14 @@ public class Plenarprotokoll implements IEntity {
             params.put("sitzungId", sitzungId);
         }
 
-        return new CypherQuery(cypher, params);
+        params.put("fingerprint", CypherQuery.fingerprint(params));
+
+        CypherQuery query = new CypherQuery(cypher, params)
+                .knoten("Protokoll", "wahlperiode", "sitzungsNr", "datum", "start", "ende", "ort", "fingerprint");
+        if (params.containsKey("sitzungId")) {
+            query.relation("ENTHAELT_SITZUNG", "Sitzung", "sitzungId");
+        }
+        return query;
     }
 
 
@@ -20,11 +20,24 @@ public class Rede implements IEntity {
     private String ueberschrift;
     private Abgeordneter rednerPerson;
     private String textInhalt;
+    private String textHash; // wird bei Bedarf aus textInhalt berechnet
     private Sitzung sitzung;
+    // Tagesordnungspunkt, unter dem die Rede im Protokoll steht (null wenn außerhalb eines Punkts)
+    private Tagesordnungspunkt tagesordnungspunkt;
+    // Fraktion des Redners zum Zeitpunkt der Rede, wird am Knoten als Schlüssel gespeichert
+    private String fraktionId;
+
+    // Merkt sich, ob die Rede schon in den Aggregaten von Redner und Sitzung steckt,
+    // damit spätere Kommentare dort nachgezählt werden
+    private Abgeordneter gezaehltBeiAbgeordneter;
+    private Sitzung gezaehltInSitzung;
 
     // NEU: Liste für die Kommentare (zur Erfüllung der Aufgabenstellung)
     private final List<Kommentar> kommentare;
 
+    // Absätze, Redebeiträge und Kommentarpositionen als Offsets in textInhalt (null wenn nicht gegliedert)
+    private RedeSegmente segmente;
+
     /**
      * Macht ein neues Rede-Objekt.
      */
@@ -36,6 +49,9 @@ public class Rede implements IEntity {
         this.textInhalt = textInhalt;
         this.sitzung = null;
         this.kommentare = new ArrayList<>();
+        if (rednerPerson != null && rednerPerson.getFraktion() != null) {
+            this.fraktionId = rednerPerson.getFraktion().getId();
+        }
     }
 
     // --- Setter/Getter ---
@@ -47,13 +63,66 @@ public class Rede implements IEntity {
         return sitzung;
     }
 
+    public void setTagesordnungspunkt(Tagesordnungspunkt tagesordnungspunkt) {
+        this.tagesordnungspunkt = tagesordnungspunkt;
+    }
+
+    public Tagesordnungspunkt getTagesordnungspunkt() {
+        return tagesordnungspunkt;
+    }
+
+    public void setSegmente(RedeSegmente segmente) {
+        this.segmente = segmente;
+    }
+
+    public RedeSegmente getSegmente() {
+        return segmente;
+    }
+
+    // Länge des eigenen Textes ohne Kopfzeilen, Sitzungsleitung und fremde Beiträge, ohne Gliederung der ganze Text
+    public int getEigeneTextLaenge() {
+        return (segmente != null) ? segmente.getEigeneZeichen() : getTextLength();
+    }
+
+    public LocalDate getDatum() {
+        return datum;
+    }
+
+    public String getUeberschrift() {
+        return ueberschrift;
+    }
+
+    public Abgeordneter getRednerPerson() {
+        return rednerPerson;
+    }
+
+    // Fraktion zum Zeitpunkt der Rede (kann null sein, z.B. bei Regierungsmitgliedern)
+    public String getFraktionId() {
+        return fraktionId;
+    }
+
     // --- NEUE Methoden zur Verwaltung der Kommentare ---
     public void addKommentar(Kommentar k) {
         if (k != null) {
             this.kommentare.add(k);
+            if (gezaehltBeiAbgeordneter != null) {
+                gezaehltBeiAbgeordneter.kommentarHinzugefuegt();
+            }
+            if (gezaehltInSitzung != null) {
+                gezaehltInSitzung.kommentarHinzugefuegt();
+            }
         }
     }
 
+    // Werden von Abgeordneter.addRede und Sitzung.addRede gesetzt
+    void markiereGezaehlt(Abgeordneter abgeordneter) {
+        this.gezaehltBeiAbgeordneter = abgeordneter;
+    }
+
+    void markiereGezaehlt(Sitzung sitzung) {
+        this.gezaehltInSitzung = sitzung;
+    }
+
     public List<Kommentar> getKommentare() {
         return Collections.unmodifiableList(this.kommentare);
     }
@@ -77,6 +146,48 @@ public class Rede implements IEntity {
         return 0;
     }
 
+    /**
+     * Schlüssel des Textes im inhaltsadressierten Textspeicher (SHA-256, hex).
+     * Wird einmal berechnet, der Text ändert sich nach dem Parsen nicht mehr.
+     */
+    public String getTextHash() {
+        if (this.textHash == null) {
+            this.textHash = CypherQuery.hashHex("SHA-256", (this.textInhalt != null) ? this.textInhalt : "");
+        }
+        return this.textHash;
+    }
+
+    // Anzahl der Wörter (durch Leerraum getrennt)
+    public int getWortAnzahl() {
+        if (this.textInhalt == null || this.textInhalt.isBlank()) {
+            return 0;
+        }
+        int anzahl = 0;
+        boolean imWort = false;
+        for (int i = 0; i < this.textInhalt.length(); i++) {
+            boolean leer = Character.isWhitespace(this.textInhalt.charAt(i));
+            if (!leer && !imWort) {
+                anzahl++;
+            }
+            imWort = !leer;
+        }
+        return anzahl;
+    }
+
+    // Anzahl der Absätze, der XMLProcessor trennt die <p> Inhalte mit Zeilenumbrüchen
+    public int getAbsatzAnzahl() {
+        if (this.textInhalt == null || this.textInhalt.isEmpty()) {
+            return 0;
+        }
+        int anzahl = 1;
+        for (int i = 0; i < this.textInhalt.length(); i++) {
+            if (this.textInhalt.charAt(i) == '\n') {
+                anzahl++;
+            }
+        }
+        return anzahl;
+    }
+
     // --- IEntity Methoden ---
     @Override
     public String getId() {
@@ -117,16 +228,30 @@ public class Rede implements IEntity {
     public CypherQuery toParameterizedNode() {
 
         // 1. Definiere den Cypher-Query mit Platzhaltern ($Parameter)
+        // Wird nur bei geändertem Fingerprint geschrieben, deshalb werden alle Eigenschaften gesetzt
+        // Der Volltext liegt im TextStore, am Knoten bleiben nur Hash und Textkennzahlen
         String cypher = "MERGE (r:Rede {id: $id}) " +
-                "ON CREATE SET r.ueberschrift = $ueberschrift, r.datum = $datum, r.text = $text, r.kommentar_anzahl = $kommentarAnzahl " +
-                "ON MATCH SET r.kommentar_anzahl = $kommentarAnzahl "; // Aktualisiert den Zähler immer
+                "SET r.ueberschrift = $ueberschrift, r.datum = $datum, r.kommentar_anzahl = $kommentarAnzahl, " +
+                "r.textHash = $textHash, r.textLaenge = $textLaenge, r.wortAnzahl = $wortAnzahl, r.absatzAnzahl = $absatzAnzahl, " +
+                // denormalisierte Schlüssel für Gruppierungen ohne Traversierung
+                "r.rednerId = $rednerId, r.fraktionId = $fraktionId, r.sitzungId = $sitzungId, " +
+                "r.tagesordnungspunktId = $tagesordnungspunktId, " +
+                "r.fingerprint = $fingerprint " +
+                "REMOVE r.text "; // alte Knoten hatten den Volltext noch als Property
 
         // 2. Erstelle die Parameter-Map
         Map<String, Object> params = new HashMap<>();
         params.put("id", this.getId());
         params.put("ueberschrift", this.ueberschrift);
         params.put("datum", (datum != null) ? datum.toString() : "KEINDATUM");
-        params.put("text", this.textInhalt); // KEINE Escapierung mehr nötig!
+        params.put("textHash", this.getTextHash());
+        params.put("textLaenge", this.getTextLength());
+        params.put("wortAnzahl", this.getWortAnzahl());
+        params.put("absatzAnzahl", this.getAbsatzAnzahl());
+        params.put("rednerId", (this.rednerPerson != null) ? this.rednerPerson.getId() : null);
+        params.put("fraktionId", this.fraktionId);
+        params.put("sitzungId", (this.sitzung != null) ? this.sitzung.getId() : null);
+        params.put("tagesordnungspunktId", (this.tagesordnungspunkt != null) ? this.tagesordnungspunkt.getId() : null);
         params.put("kommentarAnzahl", this.kommentare.size());
 
         // 3. Füge die Relationen hinzu
@@ -136,7 +261,6 @@ public class Rede implements IEntity {
             cypher += " WITH r " +
                     "MATCH (p:Abgeordneter {id: $rednerId}) " +
                     "MERGE (r)-[:WURDE_GEHALTEN_VON]->(p)";
-            params.put("rednerId", this.rednerPerson.getId());
         }
 
         // Verbindung zur Sitzung
@@ -144,10 +268,31 @@ public class Rede implements IEntity {
             cypher += " WITH r " +
                     "MATCH (s:Sitzung {id: $sitzungId}) " +
                     "MERGE (r)-[:GEHORTE_ZU_SITZUNG]->(s)";
-            params.put("sitzungId", this.sitzung.getId());
         }
 
-        return new CypherQuery(cypher, params);
+        // Verbindung zum Tagesordnungspunkt
+        if (this.tagesordnungspunkt != null) {
+            cypher += " WITH r " +
+                    "MATCH (t:Tagesordnungspunkt {id: $tagesordnungspunktId}) " +
+                    "MERGE (r)-[:GEHORTE_ZU_TAGESORDNUNGSPUNKT]->(t)";
+        }
+
+        // 4. Fingerprint über Eigenschaften und Relationsziele
+        params.put("fingerprint", CypherQuery.fingerprint(params));
+
+        CypherQuery query = new CypherQuery(cypher, params)
+                .knoten("Rede", "ueberschrift", "datum", "kommentar_anzahl=kommentarAnzahl", "textHash", "textLaenge",
+                        "wortAnzahl", "absatzAnzahl", "rednerId", "fraktionId", "sitzungId", "tagesordnungspunktId", "fingerprint");
+        if (this.rednerPerson != null) {
+            query.relation("WURDE_GEHALTEN_VON", "Abgeordneter", "rednerId");
+        }
+        if (this.sitzung != null) {
+            query.relation("GEHORTE_ZU_SITZUNG", "Sitzung", "sitzungId");
+        }
+        if (this.tagesordnungspunkt != null) {
+            query.relation("GEHORTE_ZU_TAGESORDNUNGSPUNKT", "Tagesordnungspunkt", "tagesordnungspunktId");
+        }
+        return query;
     }
 
     /**
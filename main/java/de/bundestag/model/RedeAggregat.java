@@ -0,0 +1,80 @@
+package de.bundestag.model;
+
+import java.util.Map;
+
+//vorberechnete kennzahlen über die reden einer person, fraktion oder sitzung
+//die zähler werden beim einlesen fortlaufend erhöht und mit dem knoten gespeichert,
+//damit die statistiken nur noch eigenschaften lesen statt alle reden zu durchlaufen
+public class RedeAggregat {
+
+    private long redeAnzahl; // alle reden
+    private long redenMitText; // reden mit nicht leerem text, basis für die durchschnittliche länge
+    private long textLaengeSumme; // summe der textlängen in zeichen
+    private long kommentarAnzahl; // kommentare zu diesen reden
+
+    //zählt eine rede mit ihren bisherigen kommentaren
+    public synchronized void addRede(Rede rede) {
+        add(rede, 1);
+    }
+
+    //nimmt eine rede wieder heraus, z.b. wenn ein abgeordneter die fraktion wechselt
+    public synchronized void removeRede(Rede rede) {
+        add(rede, -1);
+    }
+
+    public synchronized void addKommentare(long anzahl) {
+        this.kommentarAnzahl += anzahl;
+    }
+
+    //überträgt alle zähler eines anderen aggregats (mit vorzeichen)
+    public synchronized void addAggregat(RedeAggregat anderes, int vorzeichen) {
+        this.redeAnzahl += vorzeichen * anderes.getRedeAnzahl();
+        this.redenMitText += vorzeichen * anderes.getRedenMitText();
+        this.textLaengeSumme += vorzeichen * anderes.getTextLaengeSumme();
+        this.kommentarAnzahl += vorzeichen * anderes.getKommentarAnzahl();
+    }
+
+    private void add(Rede rede, int vorzeichen) {
+        int laenge = rede.getTextLength();
+        this.redeAnzahl += vorzeichen;
+        if (laenge > 0) {
+            this.redenMitText += vorzeichen;
+            this.textLaengeSumme += (long) vorzeichen * laenge;
+        }
+        this.kommentarAnzahl += (long) vorzeichen * rede.getKommentare().size();
+    }
+
+    public synchronized long getRedeAnzahl() { return redeAnzahl; }
+    public synchronized long getRedenMitText() { return redenMitText; }
+    public synchronized long getTextLaengeSumme() { return textLaengeSumme; }
+    public synchronized long getKommentarAnzahl() { return kommentarAnzahl; }
+
+    //legt die zähler als cypher parameter ab, die namen entsprechen den knoten eigenschaften
+    public synchronized void putParameter(Map<String, Object> params) {
+        params.put("redeAnzahl", redeAnzahl);
+        params.put("redenMitText", redenMitText);
+        params.put("textLaengeSumme", textLaengeSumme);
+        params.put("kommentarAnzahl", kommentarAnzahl);
+    }
+
+    //namen der knoten eigenschaften, gleich den parameternamen aus putParameter
+    public static final String[] EIGENSCHAFTEN = {"redeAnzahl", "redenMitText", "textLaengeSumme", "kommentarAnzahl"};
+
+    //cypher fragment zum setzen der zähler auf der knotenvariable
+    public static String setClause(String variable) {
+        return variable + ".redeAnzahl = $redeAnzahl, "
+                + variable + ".redenMitText = $redenMitText, "
+                + variable + ".textLaengeSumme = $textLaengeSumme, "
+                + variable + ".kommentarAnzahl = $kommentarAnzahl";
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RedeAggregat{" +
+                "Reden=" + redeAnzahl +
+                ", MitText=" + redenMitText +
+                ", Zeichen=" + textLaengeSumme +
+                ", Kommentare=" + kommentarAnzahl +
+                '}';
+    }
+}
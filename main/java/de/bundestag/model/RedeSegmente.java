@@ -0,0 +1,180 @@
+package de.bundestag.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * gliederung einer rede beim einlesen: absätze mit ihrer klasse aus dem protokoll ("redner", "J", "J_1",
+ * "O", ...), redebeiträge (der redner selbst, die sitzungsleitung, andere redner z.b. bei zwischenfragen)
+ * und die positionen der kommentare. alle positionen sind zeichen offsets in Rede.getText(), der text
+ * selbst wird nicht noch einmal gespeichert.
+ *
+ * die arrays sind nach dem bau unveränderlich, kennzahlen wie die länge des eigenen textes oder die
+ * unterbrechungen werden in einem durchlauf daraus berechnet, ohne das xml erneut zu lesen.
+ */
+public final class RedeSegmente {
+
+    public enum Rolle { REDNER, SITZUNGSLEITUNG, ANDERER }
+
+    //klasse der kopfzeile eines redebeitrags ("Name (Fraktion):"), zählt nicht zum eigenen text
+    public static final String KLASSE_REDNER = "redner";
+
+    private static final Rolle[] ROLLEN = Rolle.values();
+
+    private final int[] absatzStart;
+    private final int[] absatzEnde;
+    private final String[] absatzKlasse;
+    //erster absatz jedes redebeitrags, aufsteigend
+    private final int[] beitragStart;
+    private final byte[] beitragRolle;
+    private final String[] beitragSprecher;
+    private final int[] kommentarPosition;
+
+    private RedeSegmente(Bauer b, int verschiebung, int laenge) {
+        int n = b.absaetze;
+        absatzStart = new int[n];
+        absatzEnde = new int[n];
+        for (int i = 0; i < n; i++) {
+            absatzStart[i] = begrenzt(b.start[i] - verschiebung, laenge);
+            absatzEnde[i] = begrenzt(b.ende[i] - verschiebung, laenge);
+        }
+        absatzKlasse = b.klassen.toArray(new String[0]);
+        beitragStart = Arrays.copyOf(b.beitragStart, b.beitraege);
+        beitragRolle = Arrays.copyOf(b.beitragRolle, b.beitraege);
+        beitragSprecher = b.sprecher.toArray(new String[0]);
+        kommentarPosition = new int[b.kommentare];
+        for (int i = 0; i < b.kommentare; i++) {
+            kommentarPosition[i] = begrenzt(b.kommentarPosition[i] - verschiebung, laenge);
+        }
+    }
+
+    private static int begrenzt(int position, int laenge) {
+        return Math.max(0, Math.min(position, laenge));
+    }
+
+    public int getAbsatzAnzahl() { return absatzStart.length; }
+    public int absatzStart(int i) { return absatzStart[i]; }
+    public int absatzEnde(int i) { return absatzEnde[i]; }
+    public String absatzKlasse(int i) { return absatzKlasse[i]; }
+
+    public int getBeitragAnzahl() { return beitragStart.length; }
+    public int beitragStart(int b) { return beitragStart[b]; }
+    public Rolle beitragRolle(int b) { return ROLLEN[beitragRolle[b]]; }
+    //abgeordneten id bei rednern, der name aus dem protokoll bei der sitzungsleitung
+    public String beitragSprecher(int b) { return beitragSprecher[b]; }
+
+    public int getKommentarAnzahl() { return kommentarPosition.length; }
+    public int kommentarPosition(int k) { return kommentarPosition[k]; }
+
+    //rolle des redebeitrags, zu dem der absatz gehört
+    public Rolle rolleVonAbsatz(int i) {
+        int b = Arrays.binarySearch(beitragStart, i);
+        if (b < 0) b = -b - 2;
+        return b < 0 ? Rolle.REDNER : beitragRolle(b);
+    }
+
+    /**
+     * zeichen in absätzen des redners ohne die kopfzeilen, also ohne sitzungsleitung und fremde beiträge.
+     */
+    public int getEigeneZeichen() {
+        int summe = 0;
+        int b = -1;
+        for (int i = 0; i < absatzStart.length; i++) {
+            while (b + 1 < beitragStart.length && beitragStart[b + 1] <= i) b++;
+            if ((b < 0 || beitragRolle[b] == Rolle.REDNER.ordinal()) && !KLASSE_REDNER.equals(absatzKlasse[i])) {
+                summe += absatzEnde[i] - absatzStart[i];
+            }
+        }
+        return summe;
+    }
+
+    /**
+     * unterbrechungen der eigenen rede: alle kommentare und jeder fremde redebeitrag (sitzungsleitung,
+     * zwischenfrage), auf den wieder der redner folgt. die schlussworte der sitzungsleitung zählen nicht.
+     */
+    public int getUnterbrechungen() {
+        int fremde = 0;
+        for (int b = 0; b + 1 < beitragStart.length; b++) {
+            if (beitragRolle[b] != Rolle.REDNER.ordinal()) {
+                for (int c = b + 1; c < beitragStart.length; c++) {
+                    if (beitragRolle[c] == Rolle.REDNER.ordinal()) {
+                        fremde++;
+                        break;
+                    }
+                }
+            }
+        }
+        return kommentarPosition.length + fremde;
+    }
+
+    //unterbrechungen je 1000 zeichen eigenen textes, 0 ohne eigenen text
+    public double getUnterbrechungenProTausend() {
+        int eigene = getEigeneZeichen();
+        return eigene > 0 ? getUnterbrechungen() * 1000.0 / eigene : 0;
+    }
+
+    /**
+     * baut text und gliederung gleichzeitig auf: jeder absatz wird getrimmt und mit "\n" angehängt,
+     * der fertige text wird wie bisher insgesamt getrimmt, die offsets werden entsprechend verschoben.
+     */
+    public static final class Bauer {
+        private final StringBuilder text = new StringBuilder();
+        private int[] start = new int[16];
+        private int[] ende = new int[16];
+        private final List<String> klassen = new ArrayList<>();
+        private int absaetze;
+        private int[] beitragStart = new int[4];
+        private byte[] beitragRolle = new byte[4];
+        private final List<String> sprecher = new ArrayList<>();
+        private int beitraege;
+        private int[] kommentarPosition = new int[8];
+        private int kommentare;
+
+        public Bauer absatz(String klasse, String inhalt) {
+            if (absaetze == start.length) {
+                start = Arrays.copyOf(start, absaetze * 2);
+                ende = Arrays.copyOf(ende, absaetze * 2);
+            }
+            start[absaetze] = text.length();
+            text.append(inhalt.trim());
+            ende[absaetze] = text.length();
+            text.append('\n');
+            klassen.add(klasse != null ? klasse.intern() : "");
+            absaetze++;
+            return this;
+        }
+
+        //ein neuer redebeitrag beginnt mit dem nächsten absatz
+        public Bauer beitrag(Rolle rolle, String sprecherId) {
+            if (beitraege == beitragStart.length) {
+                beitragStart = Arrays.copyOf(beitragStart, beitraege * 2);
+                beitragRolle = Arrays.copyOf(beitragRolle, beitraege * 2);
+            }
+            beitragStart[beitraege] = absaetze;
+            beitragRolle[beitraege] = (byte) rolle.ordinal();
+            sprecher.add(sprecherId);
+            beitraege++;
+            return this;
+        }
+
+        //kommentar an der aktuellen stelle, also hinter dem letzten absatz
+        public Bauer kommentar() {
+            if (kommentare == kommentarPosition.length) {
+                kommentarPosition = Arrays.copyOf(kommentarPosition, kommentare * 2);
+            }
+            kommentarPosition[kommentare++] = absaetze > 0 ? ende[absaetze - 1] : 0;
+            return this;
+        }
+
+        public String getText() {
+            return text.toString().trim();
+        }
+
+        public RedeSegmente baue() {
+            int vorne = 0;
+            while (vorne < text.length() && text.charAt(vorne) <= ' ') vorne++;
+            return new RedeSegmente(this, vorne, getText().length());
+        }
+    }
+}
@@ -25,6 +25,9 @@ public class Sitzung implements IEntity {
     //Assoziation zur Speicherung der Reden für die Factory Logik
     private final List<Rede> alleReden;
 
+    //vorberechnete kennzahlen über alle reden der sitzung
+    private final RedeAggregat aggregat = new RedeAggregat();
+
 
      //konstruktor akzeptiert die eindeutige ID
 
@@ -45,9 +48,20 @@ public class Sitzung implements IEntity {
     public void addRede(Rede rede) {
         if (rede != null && !this.alleReden.contains(rede)) {
             this.alleReden.add(rede);
+            this.aggregat.addRede(rede);
+            rede.markiereGezaehlt(this);
         }
     }
 
+    //wird von Rede.addKommentar aufgerufen, wenn die rede hier schon gezählt ist
+    void kommentarHinzugefuegt() {
+        this.aggregat.addKommentare(1);
+    }
+
+    public RedeAggregat getAggregat() {
+        return aggregat;
+    }
+
     //optionalGetter für die Redenliste
     public List<Rede> getAlleReden() {
         return alleReden;
@@ -73,9 +87,11 @@ public class Sitzung implements IEntity {
     public CypherQuery toParameterizedNode() {
 
         //definiere den Cypherquery mit Platzhaltern $Parameter
+        //wird nur bei geändertem fingerprint geschrieben, daher alle eigenschaften setzen
         String cypher = "MERGE (s:Sitzung {id: $id}) " +
-                "ON CREATE SET s.datum = $datum, s.zeit = $zeit, s.raumnummer = $raumnummer, s.zugang = $zugang " +
-                "ON MATCH SET s.zugang = $zugang"; //aktualisiert den Zugang bei MATCH
+                "SET s.datum = $datum, s.zeit = $zeit, s.raumnummer = $raumnummer, s.zugang = $zugang, " +
+                RedeAggregat.setClause("s") + ", " +
+                "s.fingerprint = $fingerprint";
 
         //erstelle die Parameter Map
         Map<String, Object> params = new HashMap<>();
@@ -86,10 +102,14 @@ public class Sitzung implements IEntity {
         params.put("zeit", (zeit != null) ? zeit.toString() : "NULL");
         params.put("raumnummer", this.raumnummer);
         params.put("zugang", this.zugang);
+        this.aggregat.putParameter(params);
+        params.put("fingerprint", CypherQuery.fingerprint(params));
 
         //relationen (Sitzung hat typischerweise keine ausgehenden Relationen, nur eingehende von Reden)
 
-        return new CypherQuery(cypher, params);
+        return new CypherQuery(cypher, params)
+                .knoten("Sitzung", "datum", "zeit", "raumnummer", "zugang", "fingerprint")
+                .knoten("Sitzung", RedeAggregat.EIGENSCHAFTEN);
     }
 
     //toNode Methode
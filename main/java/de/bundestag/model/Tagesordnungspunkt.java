@@ -0,0 +1,111 @@
+package de.bundestag.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONObject;
+
+/**
+ * ein tagesordnungspunkt (auch zusatzpunkt) einer sitzung aus dem <tagesordnungspunkt> block des
+ * protokolls, z.b. "Tagesordnungspunkt 2" oder "Zusatzpunkt 3". der titel kommt aus den T_ absätzen
+ * am anfang des blocks oder aus dem inhaltsverzeichnis. die reden des punkts werden wie bei der
+ * sitzung in einem RedeAggregat mitgezählt, damit debattenlänge und redeanzahl pro thema direkt
+ * am knoten stehen.
+ */
+public class Tagesordnungspunkt extends AbstractEntity {
+
+    private final String bezeichnung; // top-id aus dem protokoll
+    private final String titel;
+    private final List<String> drucksachen; // nummern wie "20/6500"
+    private final Sitzung sitzung;
+
+    private final List<Rede> reden = new ArrayList<>();
+    private final RedeAggregat aggregat = new RedeAggregat();
+
+    public Tagesordnungspunkt(String id, String bezeichnung, String titel, List<String> drucksachen, Sitzung sitzung) {
+        super(id);
+        this.bezeichnung = bezeichnung;
+        this.titel = titel;
+        this.drucksachen = new ArrayList<>(drucksachen);
+        this.sitzung = sitzung;
+    }
+
+    //id aus sitzung und bezeichnung, z.b. "WP20_S1_Tagesordnungspunkt_2"
+    public static String id(String sitzungId, String bezeichnung) {
+        //auch geschützte leerzeichen, die kommen in den top-ids vor
+        return sitzungId + "_" + bezeichnung.replace('\u00A0', ' ').trim().replaceAll("\\s+", "_");
+    }
+
+    //ein punkt kann im protokoll unterbrochen und später fortgesetzt werden, die reden kommen dann dazu
+    public synchronized void addRede(Rede rede) {
+        if (rede != null && !reden.contains(rede)) {
+            reden.add(rede);
+            aggregat.addRede(rede);
+        }
+    }
+
+    public synchronized List<Rede> getReden() {
+        return Collections.unmodifiableList(new ArrayList<>(reden));
+    }
+
+    public RedeAggregat getAggregat() { return aggregat; }
+    public String getBezeichnung() { return bezeichnung; }
+    public String getTitel() { return titel; }
+    public List<String> getDrucksachen() { return Collections.unmodifiableList(drucksachen); }
+    public Sitzung getSitzung() { return sitzung; }
+
+    @Override
+    public CypherQuery toParameterizedNode() {
+        String cypher = "MERGE (t:Tagesordnungspunkt {id: $id}) " +
+                "SET t.bezeichnung = $bezeichnung, t.titel = $titel, t.drucksachen = $drucksachen, " +
+                "t.sitzungId = $sitzungId, " +
+                RedeAggregat.setClause("t") + ", " +
+                "t.fingerprint = $fingerprint";
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", getId());
+        params.put("bezeichnung", bezeichnung);
+        params.put("titel", titel);
+        params.put("drucksachen", new ArrayList<>(drucksachen));
+        params.put("sitzungId", (sitzung != null) ? sitzung.getId() : null);
+        aggregat.putParameter(params);
+
+        if (sitzung != null) {
+            cypher += " WITH t " +
+                    "MATCH (s:Sitzung {id: $sitzungId}) " +
+                    "MERGE (t)-[:TEIL_VON_SITZUNG]->(s)";
+        }
+        params.put("fingerprint", CypherQuery.fingerprint(params, cypher));
+
+        CypherQuery query = new CypherQuery(cypher, params)
+                .knoten("Tagesordnungspunkt", "bezeichnung", "titel", "drucksachen", "sitzungId", "fingerprint")
+                .knoten("Tagesordnungspunkt", RedeAggregat.EIGENSCHAFTEN);
+        if (sitzung != null) {
+            query.relation("TEIL_VON_SITZUNG", "Sitzung", "sitzungId");
+        }
+        return query;
+    }
+
+    @Override
+    public JSONObject toJSON() {
+        JSONObject json = new JSONObject();
+        json.put("id", getId());
+        json.put("bezeichnung", bezeichnung);
+        json.put("titel", titel);
+        json.put("drucksachen", drucksachen);
+        json.put("sitzungId", (sitzung != null) ? sitzung.getId() : "NULL");
+        json.put("redeAnzahl", aggregat.getRedeAnzahl());
+        return json;
+    }
+
+    @Override
+    public String toString() {
+        return "Tagesordnungspunkt{" +
+                "ID='" + getId() + '\'' +
+                ", Titel='" + titel + '\'' +
+                ", " + aggregat +
+                '}';
+    }
+}
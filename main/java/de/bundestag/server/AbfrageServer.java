@@ -0,0 +1,356 @@
+package de.bundestag.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.bundestag.database.GraphStore;
+import de.bundestag.database.TextStore;
+import de.bundestag.factory.PortalFactory;
+import de.bundestag.metrics.MetricsRegistry;
+import de.bundestag.service.GraphStatistik;
+import de.bundestag.service.StatistikQuelle;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * http server mit json endpunkten über den geöffneten GraphStore, damit zahlen abgefragt werden
+ * können ohne den ganzen lauf zu wiederholen. die abfragen gehen durch den CachingGraphStore, nach
+ * dem ersten aufruf kommen die meisten antworten aus dem cache.
+ *
+ * GET /anzahl                                 knoten pro label und beziehungen
+ * GET /statistik/{bericht}[?sitzung=id]       die auswertungen aus Statistik
+ * GET /reden/{id}[?text=true]                 eine rede, auf wunsch mit volltext
+ * GET /abgeordnete/{id}/reden?nach=&limit=    reden eines abgeordneten, keyset paginierung über die rede id
+ * GET /sitzungen/{id}/reden?nach=&limit=      reden einer sitzung
+ * GET /tagesordnungspunkte?titel=&limit=      tagesordnungspunkte, deren titel den text enthält
+ * GET /tagesordnungspunkte/{id}/reden?nach=&limit=  reden zu einem tagesordnungspunkt
+ * GET /metriken                               alle metriken als json
+ *
+ * jede anfrage läuft in einem eigenen virtuellen thread (ab java 21), sonst in einem cached pool.
+ */
+public class AbfrageServer implements AutoCloseable {
+
+    private static final int STANDARD_LIMIT = 50;
+    private static final int MAX_LIMIT = 500;
+    private static final String[] REDE_EIGENSCHAFTEN = {"id", "ueberschrift", "datum", "kommentar_anzahl", "textHash",
+            "textLaenge", "wortAnzahl", "absatzAnzahl", "rednerId", "fraktionId", "sitzungId", "tagesordnungspunktId"};
+    private static final String[] TAGESORDNUNGSPUNKT_EIGENSCHAFTEN = {"id", "bezeichnung", "titel", "sitzungId",
+            "redeAnzahl", "textLaengeSumme", "kommentarAnzahl"};
+    private static final String[] LABELS = {"Abgeordneter", "Fraktion", "Rede", "Kommentar", "Sitzung", "Tagesordnungspunkt", "Protokoll"};
+    private static final String[] BEZIEHUNGEN = {"IST_MITGLIED_VON", "WURDE_GEHALTEN_VON", "IST_TEIL_VON", "GEHORTE_ZU_SITZUNG",
+            "GEHORTE_ZU_TAGESORDNUNGSPUNKT", "TEIL_VON_SITZUNG", "ENTHAELT_SITZUNG"};
+
+    private final GraphStore store;
+    private final TextStore textStore;
+    private final StatistikQuelle statistik;
+    private final Map<String, Function<Anfrage, List<Map<String, Object>>>> berichte = new HashMap<>();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicBoolean schliessen = new AtomicBoolean();
+    private final CountDownLatch geschlossen = new CountDownLatch(1);
+
+    //ohne authentifizierung, deshalb standardmäßig nur lokal erreichbar
+    public AbfrageServer(PortalFactory factory, int port) throws IOException {
+        this(factory, port, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * @param adresse adresse, an die der server gebunden wird. eine andere als die loopback adresse
+     *                (z.b. 0.0.0.0) macht die daten ohne anmeldung im netz sichtbar und muss bewusst gewählt werden
+     */
+    public AbfrageServer(PortalFactory factory, int port, InetAddress adresse) throws IOException {
+        if (factory.getGraphStore() == null) {
+            throw new IllegalStateException("Der Abfrage Server braucht einen GraphStore (nicht mit --modell-statistik)");
+        }
+        this.store = factory.getGraphStore();
+        this.textStore = factory.getTextStore();
+        this.statistik = new GraphStatistik(store);
+
+        berichte.put("redelaenge-person", a -> statistik.redeLaengeProPerson());
+        berichte.put("redelaenge-fraktion", a -> statistik.redeLaengeProFraktion());
+        berichte.put("kommentare-abgeordneter", a -> statistik.kommentareProAbgeordneten());
+        berichte.put("kommentare-fraktion", a -> statistik.kommentareProFraktion());
+        berichte.put("laengste-sitzung-reden", a -> statistik.laengsteSitzungNachRedeAnzahl());
+        berichte.put("laengste-sitzung-laenge", a -> statistik.laengsteSitzungNachRedelaenge());
+        //ohne ?sitzung= gilt wie in Statistik die längste sitzung
+        berichte.put("sitzung-redelaenge-person", a -> statistik.redeLaengeProPersonInSitzung(
+                a.param("sitzung", () -> laengsteSitzung(statistik.laengsteSitzungNachRedeAnzahl()))));
+        berichte.put("sitzung-kommentare-abgeordneter", a -> statistik.kommentareProAbgeordnetenInSitzung(
+                a.param("sitzung", () -> laengsteSitzung(statistik.laengsteSitzungNachRedeAnzahl()))));
+        berichte.put("sitzung-redelaenge-fraktion", a -> statistik.redeLaengeProFraktionInSitzung(
+                a.param("sitzung", () -> laengsteSitzung(statistik.laengsteSitzungNachRedelaenge()))));
+        berichte.put("sitzung-kommentare-fraktion", a -> statistik.kommentareProFraktionInSitzung(
+                a.param("sitzung", () -> laengsteSitzung(statistik.laengsteSitzungNachRedelaenge()))));
+
+        this.server = HttpServer.create(new InetSocketAddress(adresse, port), 0);
+        this.executor = anfrageExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::bearbeite);
+    }
+
+    public void start() {
+        server.start();
+        System.out.println(" Abfrage Server läuft auf http://" + server.getAddress().getAddress().getHostAddress()
+                + ":" + server.getAddress().getPort() + "/");
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * blockiert bis der server mit close() geschlossen wird. bei strg+c ruft der shutdown hook des aufrufers
+     * (MainApp) close() auf, danach kann der aufrufende thread noch aufräumen.
+     */
+    public void laufeBisBeendet() throws InterruptedException {
+        geschlossen.await();
+    }
+
+    /**
+     * nimmt keine neuen anfragen mehr an und wartet, bis laufende anfragen beantwortet sind. erst danach
+     * darf der speicher geschlossen werden. ein zweiter aufruf tut nichts.
+     */
+    @Override
+    public void close() {
+        if (!schliessen.compareAndSet(false, true)) {
+            return;
+        }
+        server.stop(1);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                System.err.println(" Abfrage Server: laufende Anfragen nach 30 s abgebrochen.");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            geschlossen.countDown();
+        }
+    }
+
+    //ein virtueller thread pro anfrage, per reflection damit der code auch unter java 17 läuft
+    static ExecutorService anfrageExecutor() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private void bearbeite(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        Anfrage anfrage = new Anfrage(exchange);
+        String endpunkt = "unbekannt";
+        int status;
+        Object antwort;
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                throw new AnfrageFehler(405, "Nur GET wird unterstützt");
+            }
+            String[] teile = anfrage.pfad;
+            if (teile.length == 1 && teile[0].equals("anzahl")) {
+                endpunkt = "/anzahl";
+                antwort = anzahl();
+            } else if (teile.length == 2 && teile[0].equals("statistik")) {
+                endpunkt = "/statistik/" + teile[1];
+                Function<Anfrage, List<Map<String, Object>>> bericht = berichte.get(teile[1]);
+                if (bericht == null) {
+                    endpunkt = "/statistik/unbekannt";
+                    throw new AnfrageFehler(404, "Unbekannter Bericht: " + teile[1] + ", verfügbar: " + berichte.keySet());
+                }
+                antwort = zeilen(bericht.apply(anfrage));
+            } else if (teile.length == 2 && teile[0].equals("reden")) {
+                endpunkt = "/reden/{id}";
+                antwort = rede(teile[1], anfrage.param("text", () -> "false").equals("true"));
+            } else if (teile.length == 3 && teile[0].equals("abgeordnete") && teile[2].equals("reden")) {
+                endpunkt = "/abgeordnete/{id}/reden";
+                antwort = redenSeite("rednerId", teile[1], anfrage);
+            } else if (teile.length == 3 && teile[0].equals("sitzungen") && teile[2].equals("reden")) {
+                endpunkt = "/sitzungen/{id}/reden";
+                antwort = redenSeite("sitzungId", teile[1], anfrage);
+            } else if (teile.length == 1 && teile[0].equals("tagesordnungspunkte")) {
+                endpunkt = "/tagesordnungspunkte";
+                antwort = tagesordnungspunkte(anfrage);
+            } else if (teile.length == 3 && teile[0].equals("tagesordnungspunkte") && teile[2].equals("reden")) {
+                endpunkt = "/tagesordnungspunkte/{id}/reden";
+                antwort = redenSeite("tagesordnungspunktId", teile[1], anfrage);
+            } else if (teile.length == 1 && teile[0].equals("metriken")) {
+                endpunkt = "/metriken";
+                antwort = MetricsRegistry.getInstance().toJSON();
+            } else {
+                throw new AnfrageFehler(404, "Unbekannter Pfad: " + exchange.getRequestURI().getPath());
+            }
+            status = 200;
+        } catch (AnfrageFehler e) {
+            status = e.status;
+            antwort = new JSONObject().put("fehler", e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Fehler bei " + exchange.getRequestURI() + ": " + e.getMessage());
+            status = 500;
+            antwort = new JSONObject().put("fehler", String.valueOf(e.getMessage()));
+        }
+
+        byte[] body = antwort.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.histogram("http_request_seconds", "Dauer der HTTP Anfragen", "endpunkt", endpunkt).observeSince(start);
+        metrics.counter("http_requests_total", "HTTP Anfragen", "endpunkt", endpunkt, "status", String.valueOf(status)).inc();
+    }
+
+    private JSONObject anzahl() {
+        JSONObject knoten = new JSONObject();
+        for (String label : LABELS) {
+            knoten.put(label, store.countNodes(label));
+        }
+        JSONObject beziehungen = new JSONObject();
+        for (String typ : BEZIEHUNGEN) {
+            beziehungen.put(typ, store.countRelationships(typ));
+        }
+        return new JSONObject().put("knoten", knoten).put("beziehungen", beziehungen);
+    }
+
+    private JSONObject rede(String id, boolean mitText) {
+        List<Map<String, Object>> treffer = store.findNodes("Rede", "id", id, REDE_EIGENSCHAFTEN);
+        if (treffer.isEmpty()) {
+            throw new AnfrageFehler(404, "Rede nicht gefunden: " + id);
+        }
+        JSONObject rede = new JSONObject(treffer.get(0));
+        if (mitText && textStore != null && treffer.get(0).get("textHash") != null) {
+            rede.put("text", textStore.get(treffer.get(0).get("textHash").toString()));
+        }
+        return rede;
+    }
+
+    /**
+     * eine seite reden nach id sortiert, beginnend nach der id "nach". die antwort enthält in "naechster"
+     * den cursor für die folgende seite, neue reden verschieben damit keine bereits gelesene seite.
+     */
+    private JSONObject redenSeite(String eigenschaft, String id, Anfrage anfrage) {
+        int limit = anfrage.zahl("limit", STANDARD_LIMIT);
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new AnfrageFehler(400, "limit muss zwischen 1 und " + MAX_LIMIT + " liegen");
+        }
+        String nach = anfrage.param("nach", () -> "");
+
+        //keyset pagination im speicher: eine zeile mehr als das limit zeigt, ob es eine weitere seite gibt
+        List<Map<String, Object>> treffer = store.findNodesNach("Rede", eigenschaft, id, nach, limit + 1, REDE_EIGENSCHAFTEN);
+        boolean weitere = treffer.size() > limit;
+        JSONArray reden = new JSONArray();
+        String letzte = null;
+        for (Map<String, Object> r : treffer.subList(0, Math.min(limit, treffer.size()))) {
+            reden.put(new JSONObject(r));
+            letzte = String.valueOf(r.get("id"));
+        }
+        JSONObject seite = new JSONObject();
+        seite.put("reden", reden);
+        seite.put("anzahl", reden.length());
+        seite.put("naechster", weitere ? letzte : JSONObject.NULL);
+        return seite;
+    }
+
+    //titelsuche über den text index des speichers, ohne titel gibt es keine liste aller punkte
+    private JSONArray tagesordnungspunkte(Anfrage anfrage) {
+        String titel = anfrage.param("titel", () -> {
+            throw new AnfrageFehler(400, "Parameter titel fehlt");
+        });
+        if (titel.isBlank()) {
+            throw new AnfrageFehler(400, "Parameter titel ist leer");
+        }
+        int limit = anfrage.zahl("limit", STANDARD_LIMIT);
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new AnfrageFehler(400, "limit muss zwischen 1 und " + MAX_LIMIT + " liegen");
+        }
+        return zeilen(store.findNodesEnthaelt("Tagesordnungspunkt", "titel", titel, limit, TAGESORDNUNGSPUNKT_EIGENSCHAFTEN));
+    }
+
+    private static JSONArray zeilen(List<Map<String, Object>> ergebnis) {
+        JSONArray zeilen = new JSONArray();
+        for (Map<String, Object> zeile : ergebnis) {
+            zeilen.put(new JSONObject(zeile));
+        }
+        return zeilen;
+    }
+
+    private static String laengsteSitzung(List<Map<String, Object>> ergebnis) {
+        if (ergebnis.isEmpty() || ergebnis.get(0).get("SitzungsId") == null) {
+            throw new AnfrageFehler(404, "Keine Sitzung gefunden");
+        }
+        return ergebnis.get(0).get("SitzungsId").toString();
+    }
+
+    //zerlegter pfad und query parameter einer anfrage
+    private static final class Anfrage {
+        final String[] pfad;
+        final Map<String, String> parameter = new HashMap<>();
+
+        Anfrage(HttpExchange exchange) {
+            String p = exchange.getRequestURI().getPath();
+            String ohneRand = p.replaceAll("^/+|/+$", "");
+            this.pfad = ohneRand.isEmpty() ? new String[0] : ohneRand.split("/+");
+            String query = exchange.getRequestURI().getRawQuery();
+            if (query != null) {
+                for (String paar : query.split("&")) {
+                    int i = paar.indexOf('=');
+                    if (i > 0) {
+                        parameter.put(URLDecoder.decode(paar.substring(0, i), StandardCharsets.UTF_8),
+                                URLDecoder.decode(paar.substring(i + 1), StandardCharsets.UTF_8));
+                    }
+                }
+            }
+        }
+
+        String param(String name, Supplier<String> standard) {
+            String wert = parameter.get(name);
+            return wert != null && !wert.isEmpty() ? wert : standard.get();
+        }
+
+        int zahl(String name, int standard) {
+            String wert = parameter.get(name);
+            if (wert == null || wert.isEmpty()) {
+                return standard;
+            }
+            try {
+                return Integer.parseInt(wert);
+            } catch (NumberFormatException e) {
+                throw new AnfrageFehler(400, name + " ist keine Zahl: " + wert);
+            }
+        }
+    }
+
+    //fehler mit http status, wird als {"fehler": ...} beantwortet
+    private static final class AnfrageFehler extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        AnfrageFehler(int status, String meldung) {
+            super(meldung);
+            this.status = status;
+        }
+    }
+}
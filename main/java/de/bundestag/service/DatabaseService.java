@@ -1,26 +1,42 @@
 package de.bundestag.service;
 
 import de.bundestag.factory.PortalFactory;
-import de.bundestag.database.Neo4jConnection;
+import de.bundestag.database.GraphStore;
+import de.bundestag.database.TextStore;
+import de.bundestag.metrics.Histogram;
+import de.bundestag.metrics.MetricsRegistry;
 import de.bundestag.model.IEntity;
 import de.bundestag.model.CypherQuery; //Importiere die Hilfsklasse
+import de.bundestag.model.Kommentar;
+import de.bundestag.model.Rede;
+import de.bundestag.text.KommentarAnalyse;
 
 import java.util.Collection;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public class DatabaseService {
 
     private final PortalFactory factory;
-    private final Neo4jConnection dbConnection;
+    private final GraphStore graphStore;
+    private final TextStore textStore;
     //Batch Größe: Ein guter Wert,um transaktions Overhead zu reduzieren
     private static final int BATCH_SIZE = 1000;
+    //die version der reaktionsauswertung steht neben der schema version an einem eigenen knoten
+    private static final String REAKTIONEN_LABEL = "Schema";
+    private static final String REAKTIONEN_ID = "reaktionen";
 
     public DatabaseService(PortalFactory factory) {
         this.factory = factory;
-        //Die Datenbankverbindung wird über die Factory bezogen
-        this.dbConnection = factory.getDbConnection();
+        //Der Graph speicher wird über die Factory bezogen
+        this.graphStore = factory.getGraphStore();
+        this.textStore = factory.getTextStore();
     }
 
      //speichert alle geladenen Entitäten in die Neo4jDatenbank, indem alle
@@ -29,65 +45,189 @@ public class DatabaseService {
     public void saveAllEntitiesToDatabase() {
         System.out.println("\n STARTE DATENBANK SPEICHERUNG ");
 
+        //redetexte zuerst in den textspeicher, die rede knoten verweisen nur auf den hash
+        saveRedetexte();
+
         // sammle alle Queries aus allen Entitätstypen
         List<CypherQuery> allQueries = collectAllQueries();
         System.out.println("Gesamte Queries gesammelt: " + allQueries.size() + " Abfragen.");
 
         // führt alle gesammelten Queries in Batches aus
-        executeBatchedQueries(allQueries);
+        boolean geschrieben = executeBatchedQueries(allQueries);
+
+        //reaktionen aus den neuen oder geänderten kommentaren als beziehungen zwischen akteur und rede.
+        //ist die gespeicherte version der auswertung alt oder fehlt sie, werden einmal alle reden ausgewertet
+        boolean alleReden = !KommentarAnalyse.version().equals(gespeicherteReaktionenVersion());
+        if (executeBatchedQueries(collectReaktionQueries(allQueries, alleReden)) && geschrieben && alleReden) {
+            executeBatchedQueries(List.of(reaktionenVersionQuery()));
+        }
+
+        //nach dem initialen laden constraints nachziehen und normal neu starten
+        if (graphStore.isBulkLoadModus()) {
+            graphStore.finishBulkLoad();
+        }
 
         System.out.println("DATENBANK SPEICHERUNG ABGESCHLOSSEN");
     }
 
 
+    //legt alle redetexte im textspeicher ab, bereits vorhandene inhalte werden übersprungen
+    private void saveRedetexte() {
+        int vorher = textStore.size();
+        factory.getAllReden().parallelStream()
+                .map(Rede::getText)
+                .forEach(textStore::put);
+        textStore.flush();
+        System.out.println("Textspeicher: " + (textStore.size() - vorher) + " neue Redetexte abgelegt.");
+    }
+
+    /**
+     * lädt den volltext einer rede über den am knoten gespeicherten hash.
+     * @param redeId die id der rede
+     * @return der redetext oder null wenn die rede oder der text nicht gefunden wird
+     */
+    public String ladeRedetext(String redeId) {
+        List<Map<String, Object>> result = graphStore.findNodes("Rede", "id", redeId, "textHash");
+        if (result.isEmpty() || result.get(0).get("textHash") == null) {
+            return null;
+        }
+        return textStore.get(result.get(0).get("textHash").toString());
+    }
+
      //sammelt alle parametrisierten Queries aus allen Factory Listen in der richtigen Reihenfolge
 
     private List<CypherQuery> collectAllQueries() {
         List<CypherQuery> allQueries = new ArrayList<>();
 
         //Sammle in der Reihenfolge der Abhängigkeiten
-        allQueries.addAll(collectQueries(factory.getAllFraktionen(), "Fraktionen"));
-        allQueries.addAll(collectQueries(factory.getAllSitzungen(), "Sitzungen"));
-        allQueries.addAll(collectQueries(factory.getAllAbgeordnete(), "Abgeordnete"));
-        allQueries.addAll(collectQueries(factory.getAllReden(), "Reden"));
-        allQueries.addAll(collectQueries(factory.getAllKommentare(), "Kommentare"));
+        allQueries.addAll(collectQueries(factory.getAllFraktionen(), "Fraktionen", "Fraktion"));
+        allQueries.addAll(collectQueries(factory.getAllSitzungen(), "Sitzungen", "Sitzung"));
+        allQueries.addAll(collectQueries(factory.getAllAbgeordnete(), "Abgeordnete", "Abgeordneter"));
+        allQueries.addAll(collectQueries(factory.getAllTagesordnungspunkte(), "Tagesordnungspunkte", "Tagesordnungspunkt"));
+        allQueries.addAll(collectQueries(factory.getAllReden(), "Reden", "Rede"));
+        allQueries.addAll(collectQueries(factory.getAllKommentare(), "Kommentare", "Kommentar"));
 
         return allQueries;
     }
 
+    //zerlegt die kommentare aller reden, zu denen eine rede oder ein kommentar geschrieben wird, in ereignisse.
+    //die anzahl an einer beziehung zählt alle kommentare der rede, deshalb wird die ganze rede neu ausgewertet.
+    //die alten beziehungen der rede werden vorher gelöscht, damit weggefallene reaktionen nicht stehen bleiben
+    private List<CypherQuery> collectReaktionQueries(List<CypherQuery> geschrieben, boolean alleReden) {
+        Set<String> redeIds;
+        if (alleReden) {
+            redeIds = factory.getAllReden().stream().map(Rede::getId).collect(Collectors.toSet());
+        } else {
+            redeIds = new HashSet<>();
+            for (CypherQuery query : geschrieben) {
+                if ("Rede".equals(query.getLabel())) {
+                    redeIds.add(query.parameters.get("id").toString());
+                } else if ("Kommentar".equals(query.getLabel()) && query.parameters.get("redeId") != null) {
+                    redeIds.add(query.parameters.get("redeId").toString());
+                }
+            }
+        }
+        if (redeIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Kommentar> kommentare = redeIds.stream()
+                .map(factory::getRedeById)
+                .filter(Objects::nonNull)
+                .flatMap(rede -> rede.getKommentare().stream())
+                .collect(Collectors.toList());
+        List<CypherQuery> queries = new ArrayList<>(KommentarAnalyse.entferneBeziehungen(redeIds));
+        queries.addAll(KommentarAnalyse.beziehungen(KommentarAnalyse.fuer(factory).zerlegeAlle(kommentare)));
+        System.out.println("Sammle " + queries.size() + " Queries für Reaktionen aus " + kommentare.size() + " Kommentaren von "
+                + redeIds.size() + " Reden" + (alleReden ? " (neue Version der Auswertung, alle Reden)" : "") + "...");
+        return queries;
+    }
+
+    //version der reaktionsauswertung, mit der die beziehungen zuletzt vollständig geschrieben wurden
+    private String gespeicherteReaktionenVersion() {
+        List<Map<String, Object>> result = graphStore.findNodes(REAKTIONEN_LABEL, "id", REAKTIONEN_ID, "version");
+        return result.isEmpty() || result.get(0).get("version") == null ? null : result.get(0).get("version").toString();
+    }
+
+    private static CypherQuery reaktionenVersionQuery() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", REAKTIONEN_ID);
+        params.put("version", KommentarAnalyse.version());
+        return new CypherQuery("MERGE (s:" + REAKTIONEN_LABEL + " {id: $id}) SET s.version = $version", params)
+                .knoten(REAKTIONEN_LABEL, "version");
+    }
+
      //Hilfsmethode:konvertiert eine Collection von Entitäten in eine Liste von CypherQuery Objekten
-    private <T extends IEntity> List<CypherQuery> collectQueries(Collection<T> entities, String entityName) {
-        System.out.println("Sammle " + entities.size() + " Queries für " + entityName + "...");
-        //konvertiert alle Entitäten in Queries und filtert leere Queries heraus
-        return entities.stream()
+     //Entitäten deren Fingerprint mit dem gespeicherten Knoten übereinstimmt werden übersprungen
+    private <T extends IEntity> List<CypherQuery> collectQueries(Collection<T> entities, String entityName, String label) {
+        Map<String, String> gespeicherteFingerprints = loadStoredFingerprints(label);
+
+        //konvertiert alle Entitäten in Queries und filtert leere und unveränderte Queries heraus
+        List<CypherQuery> queries = entities.stream()
                 .map(IEntity::toParameterizedNode)
                 .filter(query -> query != null && !query.cypher.isEmpty())
+                .filter(query -> !isUnchanged(query, gespeicherteFingerprints))
                 .collect(Collectors.toList());
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.counter("db_queries_collected_total", "Geänderte oder neue Entitäten die geschrieben werden", "label", label)
+                .add(queries.size());
+        metrics.counter("db_queries_skipped_total", "Unveränderte Entitäten die übersprungen werden", "label", label)
+                .add(entities.size() - queries.size());
+
+        System.out.println("Sammle " + queries.size() + " Queries für " + entityName
+                + " (" + (entities.size() - queries.size()) + " unverändert übersprungen)...");
+        return queries;
+    }
+
+    //liest id und fingerprint aller bereits gespeicherten knoten eines labels
+    private Map<String, String> loadStoredFingerprints(String label) {
+        Map<String, String> fingerprints = new HashMap<>();
+        for (Map<String, Object> row : graphStore.scanNodes(label, "id", "fingerprint")) {
+            if (row.get("fingerprint") != null) {
+                fingerprints.put(String.valueOf(row.get("id")), String.valueOf(row.get("fingerprint")));
+            }
+        }
+        return fingerprints;
+    }
+
+    //true wenn der knoten mit genau diesem inhalt schon in der datenbank liegt
+    private boolean isUnchanged(CypherQuery query, Map<String, String> gespeicherteFingerprints) {
+        String fingerprint = query.getFingerprint();
+        Object id = query.parameters.get("id");
+        return fingerprint != null && id != null && fingerprint.equals(gespeicherteFingerprints.get(id.toString()));
     }
 
      //führt die gesammelten Queries in definierten Batches aus, wobei jeder Batch eine Transaktion bildet
 
-    private void executeBatchedQueries(List<CypherQuery> allQueries) {
+    //liefert false, wenn ein batch zurückgerollt wurde und die übrigen nicht mehr ausgeführt wurden
+    private boolean executeBatchedQueries(List<CypherQuery> allQueries) {
         int totalQueries = allQueries.size();
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        Histogram commitLatenz = metrics.histogram("db_batch_commit_seconds", "Dauer eines Schreib Batches inklusive Commit");
 
         for (int i = 0; i < totalQueries; i += BATCH_SIZE) {
             int endIndex = Math.min(i + BATCH_SIZE, totalQueries);
             //erstellt den Batch (Subliste)
             List<CypherQuery> batch = allQueries.subList(i, endIndex);
 
+            long start = System.nanoTime();
             try {
                 //Aufruf der Methode, die den gesamten Batch in einer Transaktion verarbeitet
                 //dies reduziert den Transaktions vverhead drastisch
-                dbConnection.executeWriteBatch(batch);
+                graphStore.executeWriteBatch(batch);
+                commitLatenz.observeSince(start);
+                metrics.counter("db_batches_committed_total", "Erfolgreich geschriebene Batches").inc();
                 System.out.printf("Batch %d (Einträge: %d - %d) erfolgreich ausgeführt.%n",
                         (i / BATCH_SIZE) + 1, i + 1, endIndex);
             } catch (Exception e) {
                 //fehlerbehandlung für den gesamten Batch
+                metrics.counter("db_batches_failed_total", "Zurückgerollte Batches").inc();
                 System.err.printf("FEHLER beim Ausführen von Batch %d (Einträge: %d - %d). Der Batch wurde zurückgerollt. Ursache: %s%n",
                         (i / BATCH_SIZE) + 1, i + 1, endIndex, e.getMessage());
                 //Wir stoppen die Verarbeitung,da ein Fehler im Batch aufgetreten ist.
-                break;
+                return false;
             }
         }
+        return true;
     }
 }
\ No newline at end of file
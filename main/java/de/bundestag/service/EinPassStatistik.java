@@ -0,0 +1,241 @@
+package de.bundestag.service;
+
+import de.bundestag.database.GraphStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static de.bundestag.service.StatistikZeilen.absteigend;
+import static de.bundestag.service.StatistikZeilen.begrenzt;
+import static de.bundestag.service.StatistikZeilen.zahl;
+import static de.bundestag.service.StatistikZeilen.zeile;
+
+/**
+ * statistik quelle für den vollständigen bericht mit nur einem durchlauf über die reden.
+ * beim ersten zugriff wird pro rede ein tupel (redner, fraktion, sitzung, textlänge, kommentare)
+ * gelesen, daraus entstehen in einer schleife alle gruppierungen: pro person, pro fraktion,
+ * pro sitzung und pro sitzung und redner bzw. fraktion für die auswertungen der längsten sitzung.
+ * dazu kommen nur die kleinen id -> name tabellen von abgeordneten, fraktionen und sitzungen.
+ *
+ * das ergebnis ist eine momentaufnahme, für einen neuen stand eine neue instanz anlegen.
+ */
+public class EinPassStatistik implements StatistikQuelle {
+
+    private final GraphStore store;
+    private Bestand bestand; // wird beim ersten zugriff geladen
+
+    public EinPassStatistik(GraphStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public long anzahl(String label) {
+        return store.countNodes(label);
+    }
+
+    @Override
+    public List<Map<String, Object>> redeLaengeProPerson() {
+        Bestand b = bestand();
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        b.proPerson.forEach((id, summe) -> {
+            String name = b.personName.get(id);
+            if (name != null && summe.redenMitText > 0) {
+                zeilen.add(zeile("Name", name, "AbgeordnetenId", id,
+                        "AvgLaenge", summe.durchschnittLaenge(), "CountReden", summe.redenMitText));
+            }
+        });
+        return absteigend(zeilen, "AvgLaenge");
+    }
+
+    @Override
+    public List<Map<String, Object>> redeLaengeProFraktion() {
+        Bestand b = bestand();
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        b.proFraktion.forEach((id, summe) -> {
+            if (b.fraktionName.containsKey(id) && summe.redenMitText > 0) {
+                zeilen.add(zeile("Fraktion", b.fraktionName.get(id),
+                        "AvgLaenge", summe.durchschnittLaenge(), "CountReden", summe.redenMitText));
+            }
+        });
+        return absteigend(zeilen, "AvgLaenge");
+    }
+
+    @Override
+    public List<Map<String, Object>> kommentareProAbgeordneten() {
+        Bestand b = bestand();
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        b.proPerson.forEach((id, summe) -> {
+            String name = b.personName.get(id);
+            if (name != null) {
+                zeilen.add(zeile("Name", name,
+                        "RedeAnzahl", summe.reden, "AvgKommentareProRede", summe.kommentareProRede()));
+            }
+        });
+        return absteigend(zeilen, "AvgKommentareProRede");
+    }
+
+    @Override
+    public List<Map<String, Object>> kommentareProFraktion() {
+        Bestand b = bestand();
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        b.proFraktion.forEach((id, summe) -> {
+            if (b.fraktionName.containsKey(id)) {
+                zeilen.add(zeile("FraktionName", b.fraktionName.get(id),
+                        "RedeAnzahl", summe.reden, "AvgKommentareProRede", summe.kommentareProRede()));
+            }
+        });
+        return absteigend(zeilen, "AvgKommentareProRede");
+    }
+
+    @Override
+    public List<Map<String, Object>> laengsteSitzungNachRedeAnzahl() {
+        Bestand b = bestand();
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        b.proSitzung.forEach((id, summe) -> {
+            if (b.sitzungDatum.containsKey(id)) {
+                zeilen.add(zeile("SitzungsId", id, "Datum", b.sitzungDatum.get(id), "RedeAnzahl", summe.reden));
+            }
+        });
+        return begrenzt(absteigend(zeilen, "RedeAnzahl"), 1);
+    }
+
+    @Override
+    public List<Map<String, Object>> laengsteSitzungNachRedelaenge() {
+        Bestand b = bestand();
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        b.proSitzung.forEach((id, summe) -> {
+            if (b.sitzungDatum.containsKey(id) && summe.textLaenge > 0) {
+                zeilen.add(zeile("SitzungsId", id, "Datum", b.sitzungDatum.get(id), "GesamtLaenge", summe.textLaenge));
+            }
+        });
+        return begrenzt(absteigend(zeilen, "GesamtLaenge"), 1);
+    }
+
+    @Override
+    public List<Map<String, Object>> redeLaengeProPersonInSitzung(String sitzungsId) {
+        Bestand b = bestand();
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        b.proSitzungUndPerson.getOrDefault(sitzungsId, Map.of()).forEach((id, summe) -> {
+            String name = b.personName.get(id);
+            if (name != null && summe.redenMitText > 0) {
+                zeilen.add(zeile("Name", name, "AvgLaenge", summe.durchschnittLaenge(), "CountReden", summe.redenMitText));
+            }
+        });
+        return absteigend(zeilen, "AvgLaenge");
+    }
+
+    @Override
+    public List<Map<String, Object>> kommentareProAbgeordnetenInSitzung(String sitzungsId) {
+        Bestand b = bestand();
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        b.proSitzungUndPerson.getOrDefault(sitzungsId, Map.of()).forEach((id, summe) -> {
+            String name = b.personName.get(id);
+            if (name != null) {
+                zeilen.add(zeile("Name", name, "KommentarAnzahl", summe.kommentare));
+            }
+        });
+        return absteigend(zeilen, "KommentarAnzahl");
+    }
+
+    @Override
+    public List<Map<String, Object>> redeLaengeProFraktionInSitzung(String sitzungsId) {
+        Bestand b = bestand();
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        b.proSitzungUndFraktion.getOrDefault(sitzungsId, Map.of()).forEach((id, summe) -> {
+            Object name = b.fraktionName.get(id);
+            if (name != null && summe.redenMitText > 0) {
+                zeilen.add(zeile("Fraktion", name, "AvgLaenge", summe.durchschnittLaenge(), "CountReden", summe.redenMitText));
+            }
+        });
+        return absteigend(zeilen, "AvgLaenge");
+    }
+
+    @Override
+    public List<Map<String, Object>> kommentareProFraktionInSitzung(String sitzungsId) {
+        Bestand b = bestand();
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        b.proSitzungUndFraktion.getOrDefault(sitzungsId, Map.of()).forEach((id, summe) -> {
+            Object name = b.fraktionName.get(id);
+            if (name != null) {
+                zeilen.add(zeile("FraktionName", name, "KommentarAnzahl", summe.kommentare));
+            }
+        });
+        return absteigend(zeilen, "KommentarAnzahl");
+    }
+
+    private synchronized Bestand bestand() {
+        if (bestand == null) {
+            bestand = lade();
+        }
+        return bestand;
+    }
+
+    //der einzige durchlauf über die reden, alle gruppierungen in einer schleife
+    private Bestand lade() {
+        Bestand b = new Bestand();
+        for (Map<String, Object> a : store.scanNodes("Abgeordneter", "id", "name", "fraktionId")) {
+            String id = String.valueOf(a.get("id"));
+            if (a.get("name") != null) {
+                b.personName.put(id, a.get("name").toString());
+            }
+            if (a.get("fraktionId") != null) {
+                b.personFraktion.put(id, a.get("fraktionId").toString());
+            }
+        }
+        for (Map<String, Object> f : store.scanNodes("Fraktion", "id", "name")) {
+            b.fraktionName.put(String.valueOf(f.get("id")), f.get("name"));
+        }
+        for (Map<String, Object> s : store.scanNodes("Sitzung", "id", "datum")) {
+            b.sitzungDatum.put(String.valueOf(s.get("id")), s.get("datum"));
+        }
+
+        for (Map<String, Object> r : store.scanNodes("Rede", "rednerId", "fraktionId", "sitzungId", "textLaenge", "kommentar_anzahl")) {
+            String rednerId = text(r.get("rednerId"));
+            String fraktionId = text(r.get("fraktionId")); // fraktion zum zeitpunkt der rede
+            String sitzungId = text(r.get("sitzungId"));
+            long laenge = zahl(r.get("textLaenge"));
+            long kommentare = zahl(r.get("kommentar_anzahl"));
+
+            if (rednerId != null) {
+                b.proPerson.computeIfAbsent(rednerId, k -> new RedeSumme()).add(laenge, kommentare);
+                //die fraktion zählt die reden ihrer aktuellen mitglieder, wie die zähler am fraktion knoten
+                String aktuelleFraktion = b.personFraktion.get(rednerId);
+                if (aktuelleFraktion != null) {
+                    b.proFraktion.computeIfAbsent(aktuelleFraktion, k -> new RedeSumme()).add(laenge, kommentare);
+                }
+            }
+            if (sitzungId != null) {
+                b.proSitzung.computeIfAbsent(sitzungId, k -> new RedeSumme()).add(laenge, kommentare);
+                if (rednerId != null) {
+                    b.proSitzungUndPerson.computeIfAbsent(sitzungId, k -> new HashMap<>())
+                            .computeIfAbsent(rednerId, k -> new RedeSumme()).add(laenge, kommentare);
+                }
+                if (fraktionId != null) {
+                    b.proSitzungUndFraktion.computeIfAbsent(sitzungId, k -> new HashMap<>())
+                            .computeIfAbsent(fraktionId, k -> new RedeSumme()).add(laenge, kommentare);
+                }
+            }
+        }
+        return b;
+    }
+
+    private static String text(Object wert) {
+        return wert != null ? wert.toString() : null;
+    }
+
+    //alle gruppierungen aus dem einen durchlauf
+    private static final class Bestand {
+        final Map<String, String> personName = new HashMap<>();
+        final Map<String, String> personFraktion = new HashMap<>();
+        final Map<String, Object> fraktionName = new HashMap<>();
+        final Map<String, Object> sitzungDatum = new HashMap<>();
+
+        final Map<String, RedeSumme> proPerson = new HashMap<>();
+        final Map<String, RedeSumme> proFraktion = new HashMap<>();
+        final Map<String, RedeSumme> proSitzung = new HashMap<>();
+        final Map<String, Map<String, RedeSumme>> proSitzungUndPerson = new HashMap<>();
+        final Map<String, Map<String, RedeSumme>> proSitzungUndFraktion = new HashMap<>();
+    }
+}
@@ -0,0 +1,187 @@
+package de.bundestag.service;
+
+import de.bundestag.database.GraphStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static de.bundestag.service.StatistikZeilen.absteigend;
+import static de.bundestag.service.StatistikZeilen.begrenzt;
+import static de.bundestag.service.StatistikZeilen.zahl;
+import static de.bundestag.service.StatistikZeilen.zeile;
+
+//statistik quelle über den graph speicher (neo4j oder arbeitsspeicher)
+//gelesen werden nur knoten eigenschaften, gruppiert und sortiert wird hier in java
+public class GraphStatistik implements StatistikQuelle {
+
+    private final GraphStore store;
+
+    public GraphStatistik(GraphStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public long anzahl(String label) {
+        return store.countNodes(label);
+    }
+
+    //liest die beim einlesen vorberechneten zähler am abgeordneten
+    @Override
+    public List<Map<String, Object>> redeLaengeProPerson() {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        for (Map<String, Object> a : store.scanNodes("Abgeordneter", "id", "name", "redenMitText", "textLaengeSumme")) {
+            long redenMitText = zahl(a.get("redenMitText"));
+            // nur abgeordnete mit mindestens einer rede mit text und mit namen
+            if (redenMitText > 0 && a.get("name") != null) {
+                zeilen.add(zeile("Name", a.get("name"), "AbgeordnetenId", a.get("id"),
+                        "AvgLaenge", zahl(a.get("textLaengeSumme")) * 1.0 / redenMitText, // durchschnittliche länge
+                        "CountReden", redenMitText)); // anzahl der gehaltenen reden mit text
+            }
+        }
+        return absteigend(zeilen, "AvgLaenge");
+    }
+
+    // liest die summen der mitglieder direkt an der fraktion
+    @Override
+    public List<Map<String, Object>> redeLaengeProFraktion() {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        for (Map<String, Object> f : store.scanNodes("Fraktion", "name", "redenMitText", "textLaengeSumme")) {
+            long redenMitText = zahl(f.get("redenMitText"));
+            if (redenMitText > 0) { // nur fraktionen mit reden mit text
+                zeilen.add(zeile("Fraktion", f.get("name"),
+                        "AvgLaenge", zahl(f.get("textLaengeSumme")) * 1.0 / redenMitText,
+                        "CountReden", redenMitText));
+            }
+        }
+        return absteigend(zeilen, "AvgLaenge");
+    }
+
+    //berechnet kommentarAnzahl * 1.0 / redeAnzahl aus den zählern am abgeordneten
+    @Override
+    public List<Map<String, Object>> kommentareProAbgeordneten() {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        for (Map<String, Object> a : store.scanNodes("Abgeordneter", "name", "redeAnzahl", "kommentarAnzahl")) {
+            long redeAnzahl = zahl(a.get("redeAnzahl"));
+            if (redeAnzahl > 0 && a.get("name") != null) { // filtert abgeordnete mit reden und namen
+                zeilen.add(zeile("Name", a.get("name"),
+                        "RedeAnzahl", redeAnzahl,
+                        "AvgKommentareProRede", zahl(a.get("kommentarAnzahl")) * 1.0 / redeAnzahl));
+            }
+        }
+        return absteigend(zeilen, "AvgKommentareProRede");
+    }
+
+    // berechnet kommentarAnzahl * 1.0 / redeAnzahl aus den zählern an der fraktion
+    @Override
+    public List<Map<String, Object>> kommentareProFraktion() {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        for (Map<String, Object> f : store.scanNodes("Fraktion", "name", "redeAnzahl", "kommentarAnzahl")) {
+            long redeAnzahl = zahl(f.get("redeAnzahl"));
+            if (redeAnzahl > 0) { // nur fraktionen mit reden
+                zeilen.add(zeile("FraktionName", f.get("name"),
+                        "RedeAnzahl", redeAnzahl,
+                        "AvgKommentareProRede", zahl(f.get("kommentarAnzahl")) * 1.0 / redeAnzahl));
+            }
+        }
+        return absteigend(zeilen, "AvgKommentareProRede");
+    }
+
+    // liest die beim einlesen gezählte redeanzahl an der sitzung (als proxy für zeit)
+    @Override
+    public List<Map<String, Object>> laengsteSitzungNachRedeAnzahl() {
+        return laengsteSitzung("redeAnzahl", "RedeAnzahl");
+    }
+
+    // liest die vorberechnete summe der textlängen an der sitzung
+    @Override
+    public List<Map<String, Object>> laengsteSitzungNachRedelaenge() {
+        return laengsteSitzung("textLaengeSumme", "GesamtLaenge");
+    }
+
+    // gruppiert über die denormalisierten schlüssel der rede (index rede_sitzung_redner),
+    // der name wird erst nach der aggregation pro redner nachgeschlagen
+    @Override
+    public List<Map<String, Object>> redeLaengeProPersonInSitzung(String sitzungsId) {
+        return absteigend(redeLaengeProGruppe(sitzungsId, "rednerId", "Abgeordneter", "Name"), "AvgLaenge");
+    }
+
+    //nutzt die schlüssel sitzungId/rednerId und die kommentaranzahl am rede knoten
+    @Override
+    public List<Map<String, Object>> kommentareProAbgeordnetenInSitzung(String sitzungsId) {
+        return absteigend(kommentareProGruppe(sitzungsId, "rednerId", "Abgeordneter", "Name"), "KommentarAnzahl");
+    }
+
+    //gruppiert über die fraktion zum zeitpunkt der rede (index rede_sitzung_fraktion)
+    @Override
+    public List<Map<String, Object>> redeLaengeProFraktionInSitzung(String sitzungsId) {
+        return absteigend(redeLaengeProGruppe(sitzungsId, "fraktionId", "Fraktion", "Fraktion"), "AvgLaenge");
+    }
+
+    @Override
+    public List<Map<String, Object>> kommentareProFraktionInSitzung(String sitzungsId) {
+        return absteigend(kommentareProGruppe(sitzungsId, "fraktionId", "Fraktion", "FraktionName"), "KommentarAnzahl");
+    }
+
+    //längste sitzung nach einem zähler an der sitzung, als liste mit höchstens einer zeile
+    private List<Map<String, Object>> laengsteSitzung(String eigenschaft, String spalte) {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        for (Map<String, Object> s : store.scanNodes("Sitzung", "id", "datum", eigenschaft)) {
+            long wert = zahl(s.get(eigenschaft));
+            if (wert > 0) { // nur sitzungen mit reden
+                zeilen.add(zeile("SitzungsId", s.get("id"), "Datum", s.get("datum"), spalte, wert));
+            }
+        }
+        return begrenzt(absteigend(zeilen, spalte), 1);
+    }
+
+    //durchschnittliche redelänge der reden einer sitzung, gruppiert nach rednerId oder fraktionId
+    private List<Map<String, Object>> redeLaengeProGruppe(String sitzungsId, String schluessel, String label, String spalte) {
+        Map<String, long[]> gruppen = new LinkedHashMap<>(); // schlüssel -> {summe, anzahl}
+        for (Map<String, Object> r : store.findNodes("Rede", "sitzungId", sitzungsId, schluessel, "textLaenge")) {
+            long laenge = zahl(r.get("textLaenge"));
+            if (r.get(schluessel) != null && laenge > 0) { // filterkriterien
+                long[] g = gruppen.computeIfAbsent(r.get(schluessel).toString(), k -> new long[2]);
+                g[0] += laenge;
+                g[1]++;
+            }
+        }
+        Map<String, Object> namen = namenNachId(label);
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        gruppen.forEach((id, g) -> {
+            if (namen.get(id) != null) {
+                zeilen.add(zeile(spalte, namen.get(id), "AvgLaenge", g[0] * 1.0 / g[1], "CountReden", g[1]));
+            }
+        });
+        return zeilen;
+    }
+
+    //summe der kommentare der reden einer sitzung (nicht der durchschnitt pro rede)
+    private List<Map<String, Object>> kommentareProGruppe(String sitzungsId, String schluessel, String label, String spalte) {
+        Map<String, Long> gruppen = new LinkedHashMap<>();
+        for (Map<String, Object> r : store.findNodes("Rede", "sitzungId", sitzungsId, schluessel, "kommentar_anzahl")) {
+            if (r.get(schluessel) != null) {
+                gruppen.merge(r.get(schluessel).toString(), zahl(r.get("kommentar_anzahl")), Long::sum);
+            }
+        }
+        Map<String, Object> namen = namenNachId(label);
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        gruppen.forEach((id, anzahl) -> {
+            if (namen.get(id) != null) {
+                zeilen.add(zeile(spalte, namen.get(id), "KommentarAnzahl", anzahl));
+            }
+        });
+        return zeilen;
+    }
+
+    //id -> name aller knoten eines labels, zum nachschlagen nach der gruppierung
+    private Map<String, Object> namenNachId(String label) {
+        Map<String, Object> namen = new HashMap<>();
+        for (Map<String, Object> n : store.scanNodes(label, "id", "name")) {
+            namen.put(String.valueOf(n.get("id")), n.get("name"));
+        }
+        return namen;
+    }
+}
@@ -0,0 +1,195 @@
+package de.bundestag.service;
+
+import de.bundestag.factory.PortalFactory;
+import de.bundestag.model.Abgeordneter;
+import de.bundestag.model.Fraktion;
+import de.bundestag.model.Rede;
+import de.bundestag.model.Sitzung;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+import static de.bundestag.service.StatistikZeilen.absteigend;
+import static de.bundestag.service.StatistikZeilen.begrenzt;
+import static de.bundestag.service.StatistikZeilen.zeile;
+
+/**
+ * statistik quelle direkt über das geparste modell in der factory, ohne datenbank.
+ * die kennzahlen werden nicht aus den RedeAggregat zählern gelesen, sondern mit parallelen
+ * streams aus den einzelnen reden neu reduziert. die zeilen entsprechen spalte für spalte denen
+ * von GraphStatistik, damit StatistikVergleich beide quellen gegeneinander prüfen kann.
+ */
+public class ModellStatistik implements StatistikQuelle {
+
+    private static final Collector<Rede, RedeSumme, RedeSumme> SAMMLER =
+            RedeSumme.sammler(Rede::getTextLength, r -> r.getKommentare().size());
+
+    private final PortalFactory factory;
+
+    public ModellStatistik(PortalFactory factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public long anzahl(String label) {
+        switch (label) {
+            case "Abgeordneter": return factory.getAllAbgeordnete().size();
+            case "Fraktion": return factory.getAllFraktionen().size();
+            case "Sitzung": return factory.getAllSitzungen().size();
+            case "Rede": return factory.getAllReden().size();
+            case "Kommentar": return factory.getAllKommentare().size();
+            default: return 0;
+        }
+    }
+
+    //gruppiert nach dem redner, wie die zähler am abgeordneten knoten
+    @Override
+    public List<Map<String, Object>> redeLaengeProPerson() {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        summenNach(Rede::getRednerPerson).forEach((a, summe) -> {
+            if (summe.redenMitText > 0) {
+                zeilen.add(zeile("Name", a.getName(), "AbgeordnetenId", a.getId(),
+                        "AvgLaenge", summe.durchschnittLaenge(),
+                        "CountReden", summe.redenMitText));
+            }
+        });
+        return absteigend(zeilen, "AvgLaenge");
+    }
+
+    //gruppiert nach der aktuellen fraktion des redners, wie die summen der mitglieder an der fraktion
+    @Override
+    public List<Map<String, Object>> redeLaengeProFraktion() {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        summenNach(ModellStatistik::aktuelleFraktion).forEach((f, summe) -> {
+            if (summe.redenMitText > 0) {
+                zeilen.add(zeile("Fraktion", f.getName(),
+                        "AvgLaenge", summe.durchschnittLaenge(),
+                        "CountReden", summe.redenMitText));
+            }
+        });
+        return absteigend(zeilen, "AvgLaenge");
+    }
+
+    @Override
+    public List<Map<String, Object>> kommentareProAbgeordneten() {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        summenNach(Rede::getRednerPerson).forEach((a, summe) ->
+                zeilen.add(zeile("Name", a.getName(),
+                        "RedeAnzahl", summe.reden,
+                        "AvgKommentareProRede", summe.kommentareProRede())));
+        return absteigend(zeilen, "AvgKommentareProRede");
+    }
+
+    @Override
+    public List<Map<String, Object>> kommentareProFraktion() {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        summenNach(ModellStatistik::aktuelleFraktion).forEach((f, summe) ->
+                zeilen.add(zeile("FraktionName", f.getName(),
+                        "RedeAnzahl", summe.reden,
+                        "AvgKommentareProRede", summe.kommentareProRede())));
+        return absteigend(zeilen, "AvgKommentareProRede");
+    }
+
+    @Override
+    public List<Map<String, Object>> laengsteSitzungNachRedeAnzahl() {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        summenNach(Rede::getSitzung).forEach((s, summe) ->
+                zeilen.add(zeile("SitzungsId", s.getId(), "Datum", datum(s), "RedeAnzahl", summe.reden)));
+        return begrenzt(absteigend(zeilen, "RedeAnzahl"), 1);
+    }
+
+    @Override
+    public List<Map<String, Object>> laengsteSitzungNachRedelaenge() {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        summenNach(Rede::getSitzung).forEach((s, summe) -> {
+            if (summe.textLaenge > 0) {
+                zeilen.add(zeile("SitzungsId", s.getId(), "Datum", datum(s), "GesamtLaenge", summe.textLaenge));
+            }
+        });
+        return begrenzt(absteigend(zeilen, "GesamtLaenge"), 1);
+    }
+
+    @Override
+    public List<Map<String, Object>> redeLaengeProPersonInSitzung(String sitzungsId) {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        summenInSitzung(sitzungsId, ModellStatistik::rednerId).forEach((id, summe) -> {
+            Abgeordneter a = factory.getAbgeordneterById(id);
+            if (a != null && summe.redenMitText > 0) {
+                zeilen.add(zeile("Name", a.getName(),
+                        "AvgLaenge", summe.durchschnittLaenge(),
+                        "CountReden", summe.redenMitText));
+            }
+        });
+        return absteigend(zeilen, "AvgLaenge");
+    }
+
+    @Override
+    public List<Map<String, Object>> kommentareProAbgeordnetenInSitzung(String sitzungsId) {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        summenInSitzung(sitzungsId, ModellStatistik::rednerId).forEach((id, summe) -> {
+            Abgeordneter a = factory.getAbgeordneterById(id);
+            if (a != null) {
+                zeilen.add(zeile("Name", a.getName(), "KommentarAnzahl", summe.kommentare));
+            }
+        });
+        return absteigend(zeilen, "KommentarAnzahl");
+    }
+
+    //fraktion zum zeitpunkt der rede, wie die fraktionId am rede knoten
+    @Override
+    public List<Map<String, Object>> redeLaengeProFraktionInSitzung(String sitzungsId) {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        summenInSitzung(sitzungsId, Rede::getFraktionId).forEach((id, summe) -> {
+            Fraktion f = factory.getFraktionById(id);
+            if (f != null && f.getName() != null && summe.redenMitText > 0) {
+                zeilen.add(zeile("Fraktion", f.getName(),
+                        "AvgLaenge", summe.durchschnittLaenge(),
+                        "CountReden", summe.redenMitText));
+            }
+        });
+        return absteigend(zeilen, "AvgLaenge");
+    }
+
+    @Override
+    public List<Map<String, Object>> kommentareProFraktionInSitzung(String sitzungsId) {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        summenInSitzung(sitzungsId, Rede::getFraktionId).forEach((id, summe) -> {
+            Fraktion f = factory.getFraktionById(id);
+            if (f != null && f.getName() != null) {
+                zeilen.add(zeile("FraktionName", f.getName(), "KommentarAnzahl", summe.kommentare));
+            }
+        });
+        return absteigend(zeilen, "KommentarAnzahl");
+    }
+
+    //parallele reduktion aller reden auf eine summe pro schlüssel, reden ohne schlüssel fallen weg
+    private <K> Map<K, RedeSumme> summenNach(Function<Rede, K> schluessel) {
+        return factory.getAllReden().parallelStream()
+                .filter(r -> schluessel.apply(r) != null)
+                .collect(Collectors.groupingBy(schluessel, SAMMLER));
+    }
+
+    private Map<String, RedeSumme> summenInSitzung(String sitzungsId, Function<Rede, String> schluessel) {
+        return factory.getAllReden().parallelStream()
+                .filter(r -> r.getSitzung() != null && r.getSitzung().getId().equals(sitzungsId))
+                .filter(r -> schluessel.apply(r) != null)
+                .collect(Collectors.groupingBy(schluessel, SAMMLER));
+    }
+
+    private static Fraktion aktuelleFraktion(Rede rede) {
+        return rede.getRednerPerson() != null ? rede.getRednerPerson().getFraktion() : null;
+    }
+
+    private static String rednerId(Rede rede) {
+        return rede.getRednerPerson() != null ? rede.getRednerPerson().getId() : null;
+    }
+
+    //gleiche darstellung wie die datum eigenschaft am sitzung knoten
+    private static String datum(Sitzung sitzung) {
+        return sitzung.getDatum() != null ? sitzung.getDatum().toString() : "NULL";
+    }
+}
@@ -0,0 +1,247 @@
+package de.bundestag.service;
+
+import de.bundestag.factory.PortalFactory;
+import de.bundestag.factory.PortalFactoryListener;
+import de.bundestag.metrics.MetricsRegistry;
+import de.bundestag.model.Abgeordneter;
+import de.bundestag.model.Fraktion;
+import de.bundestag.model.Kommentar;
+import de.bundestag.model.Rede;
+import de.bundestag.model.Sitzung;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static de.bundestag.service.StatistikZeilen.absteigend;
+import static de.bundestag.service.StatistikZeilen.begrenzt;
+import static de.bundestag.service.StatistikZeilen.zeile;
+
+/**
+ * statistik die während des einlesens mitläuft. als listener der PortalFactory zählt sie jede neue
+ * rede und jeden neuen kommentar sofort in LongAdder zähler pro abgeordneten, sitzung und
+ * sitzung x redner bzw. sitzung x fraktion. die abfragen sind jederzeit möglich, auch mitten in einem
+ * langen lauf, und nach der letzten datei ist der bericht ohne weiteren durchlauf fertig.
+ *
+ * die fraktion zählt wie der fraktion knoten die reden ihrer aktuellen mitglieder, deshalb wird sie
+ * erst bei der abfrage aus den zählern der abgeordneten summiert (ein fraktionswechsel verschiebt so
+ * automatisch alle reden). die auswertungen pro sitzung nutzen die fraktion zum zeitpunkt der rede.
+ */
+public class OnlineStatistik implements StatistikQuelle, PortalFactoryListener {
+
+    private final PortalFactory factory;
+
+    private final Map<Abgeordneter, RedeZaehler> proPerson = new ConcurrentHashMap<>();
+    private final Map<Sitzung, RedeZaehler> proSitzung = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, RedeZaehler>> proSitzungUndPerson = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, RedeZaehler>> proSitzungUndFraktion = new ConcurrentHashMap<>();
+    private final LongAdder reden = new LongAdder();
+    private final LongAdder kommentare = new LongAdder();
+
+    /**
+     * legt die statistik an und meldet sie bei der factory an. zählt nur was danach erstellt wird.
+     */
+    public static OnlineStatistik anmelden(PortalFactory factory) {
+        OnlineStatistik online = new OnlineStatistik(factory);
+        factory.addListener(online);
+        return online;
+    }
+
+    public OnlineStatistik(PortalFactory factory) {
+        this.factory = factory;
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.gauge("online_reden", "Bisher mitgezählte Reden", reden::sum);
+        metrics.gauge("online_kommentare", "Bisher mitgezählte Kommentare", kommentare::sum);
+    }
+
+    @Override
+    public void redeErstellt(Rede rede) {
+        int laenge = rede.getTextLength();
+        long kommentarAnzahl = rede.getKommentare().size();
+        reden.increment();
+        kommentare.add(kommentarAnzahl);
+        for (RedeZaehler z : zaehlerFuer(rede)) {
+            z.addRede(laenge, kommentarAnzahl);
+        }
+    }
+
+    @Override
+    public void kommentarErstellt(Kommentar kommentar) {
+        Rede rede = kommentar.getRede();
+        if (rede == null) {
+            return;
+        }
+        kommentare.increment();
+        for (RedeZaehler z : zaehlerFuer(rede)) {
+            z.kommentare.increment();
+        }
+    }
+
+    //alle zähler, zu denen eine rede beiträgt
+    private List<RedeZaehler> zaehlerFuer(Rede rede) {
+        List<RedeZaehler> zaehler = new ArrayList<>(4);
+        Abgeordneter redner = rede.getRednerPerson();
+        Sitzung sitzung = rede.getSitzung();
+        if (redner != null) {
+            zaehler.add(proPerson.computeIfAbsent(redner, k -> new RedeZaehler()));
+        }
+        if (sitzung != null) {
+            zaehler.add(proSitzung.computeIfAbsent(sitzung, k -> new RedeZaehler()));
+            if (redner != null) {
+                zaehler.add(proSitzungUndPerson.computeIfAbsent(sitzung.getId(), k -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(redner.getId(), k -> new RedeZaehler()));
+            }
+            if (rede.getFraktionId() != null) {
+                zaehler.add(proSitzungUndFraktion.computeIfAbsent(sitzung.getId(), k -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(rede.getFraktionId(), k -> new RedeZaehler()));
+            }
+        }
+        return zaehler;
+    }
+
+    @Override
+    public long anzahl(String label) {
+        switch (label) {
+            case "Rede": return reden.sum();
+            case "Kommentar": return kommentare.sum();
+            case "Abgeordneter": return factory.getAllAbgeordnete().size();
+            case "Fraktion": return factory.getAllFraktionen().size();
+            case "Sitzung": return factory.getAllSitzungen().size();
+            default: return 0;
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> redeLaengeProPerson() {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        proPerson.forEach((a, z) -> {
+            RedeSumme summe = z.stand();
+            if (summe.redenMitText > 0) {
+                zeilen.add(zeile("Name", a.getName(), "AbgeordnetenId", a.getId(),
+                        "AvgLaenge", summe.durchschnittLaenge(), "CountReden", summe.redenMitText));
+            }
+        });
+        return absteigend(zeilen, "AvgLaenge");
+    }
+
+    @Override
+    public List<Map<String, Object>> redeLaengeProFraktion() {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        proFraktion().forEach((f, summe) -> {
+            if (summe.redenMitText > 0) {
+                zeilen.add(zeile("Fraktion", f.getName(),
+                        "AvgLaenge", summe.durchschnittLaenge(), "CountReden", summe.redenMitText));
+            }
+        });
+        return absteigend(zeilen, "AvgLaenge");
+    }
+
+    @Override
+    public List<Map<String, Object>> kommentareProAbgeordneten() {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        proPerson.forEach((a, z) -> {
+            RedeSumme summe = z.stand();
+            zeilen.add(zeile("Name", a.getName(),
+                    "RedeAnzahl", summe.reden, "AvgKommentareProRede", summe.kommentareProRede()));
+        });
+        return absteigend(zeilen, "AvgKommentareProRede");
+    }
+
+    @Override
+    public List<Map<String, Object>> kommentareProFraktion() {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        proFraktion().forEach((f, summe) ->
+                zeilen.add(zeile("FraktionName", f.getName(),
+                        "RedeAnzahl", summe.reden, "AvgKommentareProRede", summe.kommentareProRede())));
+        return absteigend(zeilen, "AvgKommentareProRede");
+    }
+
+    @Override
+    public List<Map<String, Object>> laengsteSitzungNachRedeAnzahl() {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        proSitzung.forEach((s, z) ->
+                zeilen.add(zeile("SitzungsId", s.getId(), "Datum", datum(s), "RedeAnzahl", z.stand().reden)));
+        return begrenzt(absteigend(zeilen, "RedeAnzahl"), 1);
+    }
+
+    @Override
+    public List<Map<String, Object>> laengsteSitzungNachRedelaenge() {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        proSitzung.forEach((s, z) -> {
+            long gesamt = z.textLaenge.sum();
+            if (gesamt > 0) {
+                zeilen.add(zeile("SitzungsId", s.getId(), "Datum", datum(s), "GesamtLaenge", gesamt));
+            }
+        });
+        return begrenzt(absteigend(zeilen, "GesamtLaenge"), 1);
+    }
+
+    @Override
+    public List<Map<String, Object>> redeLaengeProPersonInSitzung(String sitzungsId) {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        proSitzungUndPerson.getOrDefault(sitzungsId, Map.of()).forEach((id, z) -> {
+            Abgeordneter a = factory.getAbgeordneterById(id);
+            RedeSumme summe = z.stand();
+            if (a != null && summe.redenMitText > 0) {
+                zeilen.add(zeile("Name", a.getName(), "AvgLaenge", summe.durchschnittLaenge(), "CountReden", summe.redenMitText));
+            }
+        });
+        return absteigend(zeilen, "AvgLaenge");
+    }
+
+    @Override
+    public List<Map<String, Object>> kommentareProAbgeordnetenInSitzung(String sitzungsId) {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        proSitzungUndPerson.getOrDefault(sitzungsId, Map.of()).forEach((id, z) -> {
+            Abgeordneter a = factory.getAbgeordneterById(id);
+            if (a != null) {
+                zeilen.add(zeile("Name", a.getName(), "KommentarAnzahl", z.kommentare.sum()));
+            }
+        });
+        return absteigend(zeilen, "KommentarAnzahl");
+    }
+
+    @Override
+    public List<Map<String, Object>> redeLaengeProFraktionInSitzung(String sitzungsId) {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        proSitzungUndFraktion.getOrDefault(sitzungsId, Map.of()).forEach((id, z) -> {
+            Fraktion f = factory.getFraktionById(id);
+            RedeSumme summe = z.stand();
+            if (f != null && f.getName() != null && summe.redenMitText > 0) {
+                zeilen.add(zeile("Fraktion", f.getName(), "AvgLaenge", summe.durchschnittLaenge(), "CountReden", summe.redenMitText));
+            }
+        });
+        return absteigend(zeilen, "AvgLaenge");
+    }
+
+    @Override
+    public List<Map<String, Object>> kommentareProFraktionInSitzung(String sitzungsId) {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        proSitzungUndFraktion.getOrDefault(sitzungsId, Map.of()).forEach((id, z) -> {
+            Fraktion f = factory.getFraktionById(id);
+            if (f != null && f.getName() != null) {
+                zeilen.add(zeile("FraktionName", f.getName(), "KommentarAnzahl", z.kommentare.sum()));
+            }
+        });
+        return absteigend(zeilen, "KommentarAnzahl");
+    }
+
+    //summiert die zähler der abgeordneten nach ihrer aktuellen fraktion
+    private Map<Fraktion, RedeSumme> proFraktion() {
+        Map<Fraktion, RedeSumme> summen = new HashMap<>();
+        proPerson.forEach((a, z) -> {
+            Fraktion f = a.getFraktion();
+            if (f != null) {
+                summen.computeIfAbsent(f, k -> new RedeSumme()).merge(z.stand());
+            }
+        });
+        return summen;
+    }
+
+    private static String datum(Sitzung sitzung) {
+        return sitzung.getDatum() != null ? sitzung.getDatum().toString() : "NULL";
+    }
+}
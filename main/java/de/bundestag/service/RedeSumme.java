@@ -0,0 +1,47 @@
+package de.bundestag.service;
+
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+
+//teilsummen über die reden einer gruppe (person, fraktion, sitzung), werden pro thread
+//gefüllt und danach zusammengeführt. gleiche zählweise wie RedeAggregat
+final class RedeSumme {
+
+    long reden;
+    long redenMitText;
+    long textLaenge;
+    long kommentare;
+
+    //sammler für parallele streams, länge und kommentaranzahl werden über die funktionen gelesen
+    static <T> Collector<T, RedeSumme, RedeSumme> sammler(ToIntFunction<T> laenge, ToLongFunction<T> kommentare) {
+        return Collector.of(RedeSumme::new,
+                (summe, t) -> summe.add(laenge.applyAsInt(t), kommentare.applyAsLong(t)),
+                RedeSumme::merge);
+    }
+
+    void add(long laenge, long kommentarAnzahl) {
+        reden++;
+        if (laenge > 0) {
+            redenMitText++;
+            textLaenge += laenge;
+        }
+        kommentare += kommentarAnzahl;
+    }
+
+    RedeSumme merge(RedeSumme andere) {
+        reden += andere.reden;
+        redenMitText += andere.redenMitText;
+        textLaenge += andere.textLaenge;
+        kommentare += andere.kommentare;
+        return this;
+    }
+
+    double durchschnittLaenge() {
+        return textLaenge * 1.0 / redenMitText;
+    }
+
+    double kommentareProRede() {
+        return kommentare * 1.0 / reden;
+    }
+}
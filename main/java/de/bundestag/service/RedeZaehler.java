@@ -0,0 +1,31 @@
+package de.bundestag.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+//lock freie zähler einer gruppe für statistiken, die beim einlesen mitlaufen.
+//stand() liefert eine momentaufnahme als RedeSumme
+final class RedeZaehler {
+
+    final LongAdder reden = new LongAdder();
+    final LongAdder redenMitText = new LongAdder();
+    final LongAdder textLaenge = new LongAdder();
+    final LongAdder kommentare = new LongAdder();
+
+    void addRede(int laenge, long kommentarAnzahl) {
+        reden.increment();
+        if (laenge > 0) {
+            redenMitText.increment();
+            textLaenge.add(laenge);
+        }
+        kommentare.add(kommentarAnzahl);
+    }
+
+    RedeSumme stand() {
+        RedeSumme summe = new RedeSumme();
+        summe.reden = reden.sum();
+        summe.redenMitText = redenMitText.sum();
+        summe.textLaenge = textLaenge.sum();
+        summe.kommentare = kommentare.sum();
+        return summe;
+    }
+}
@@ -0,0 +1,85 @@
+package de.bundestag.service;
+
+import de.bundestag.factory.PortalFactory;
+import de.bundestag.model.Fraktion;
+import de.bundestag.model.Rede;
+import de.bundestag.model.RedeSegmente;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+import static de.bundestag.service.StatistikZeilen.absteigend;
+import static de.bundestag.service.StatistikZeilen.zeile;
+
+/**
+ * kennzahlen aus der gliederung der reden (RedeSegmente): eigener text ohne kopfzeilen und sitzungsleitung,
+ * unterbrechungen durch kommentare und fremde beiträge, anteil der sitzungsleitung am text. alles in einem
+ * parallelen durchlauf über die reden, gruppiert nach der fraktion zum zeitpunkt der rede.
+ */
+public class SegmentStatistik {
+
+    private final PortalFactory factory;
+
+    public SegmentStatistik(PortalFactory factory) {
+        this.factory = factory;
+    }
+
+    public List<Map<String, Object>> unterbrechungenProFraktion() {
+        Map<String, Summe> summen = factory.getAllReden().parallelStream()
+                .filter(r -> r.getFraktionId() != null && r.getSegmente() != null)
+                .collect(Collectors.groupingBy(Rede::getFraktionId, Collector.of(Summe::new, Summe::add, Summe::merge)));
+
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        summen.forEach((id, s) -> {
+            Fraktion f = factory.getFraktionById(id);
+            zeilen.add(zeile("FraktionName", f != null && f.getName() != null ? f.getName() : id,
+                    "RedeAnzahl", s.reden,
+                    "AvgEigeneLaenge", s.reden > 0 ? (double) s.eigeneZeichen / s.reden : 0.0,
+                    "UnterbrechungenProTausend", s.eigeneZeichen > 0 ? s.unterbrechungen * 1000.0 / s.eigeneZeichen : 0.0,
+                    "AnteilFremd", s.gesamtZeichen > 0 ? 1.0 - (double) s.eigeneZeichen / s.gesamtZeichen : 0.0));
+        });
+        return absteigend(zeilen, "UnterbrechungenProTausend");
+    }
+
+    public void printBericht() {
+        System.out.println("\n unterbrechungen pro fraktion (gliederung der reden, eigener text ohne sitzungsleitung)");
+        System.out.printf("%-22s ! %8s ! %14s ! %16s ! %s\n", "fraktion", "reden", "eigene (zch.)", "unterbr./1000 z.", "anteil fremd");
+        System.out.println("-----------------------!----------!----------------!------------------!-------------");
+        for (Map<String, Object> z : unterbrechungenProFraktion()) {
+            System.out.printf("%-22s ! %8d ! %14.1f ! %16.2f ! %11.1f%%\n", z.get("FraktionName"),
+                    ((Number) z.get("RedeAnzahl")).longValue(),
+                    ((Number) z.get("AvgEigeneLaenge")).doubleValue(),
+                    ((Number) z.get("UnterbrechungenProTausend")).doubleValue(),
+                    ((Number) z.get("AnteilFremd")).doubleValue() * 100);
+        }
+    }
+
+    //summen einer gruppe, ein durchlauf über die arrays der gliederung pro rede
+    private static final class Summe {
+        long reden;
+        long eigeneZeichen;
+        long gesamtZeichen;
+        long unterbrechungen;
+
+        void add(Rede rede) {
+            RedeSegmente s = rede.getSegmente();
+            reden++;
+            eigeneZeichen += s.getEigeneZeichen();
+            unterbrechungen += s.getUnterbrechungen();
+            for (int i = 0; i < s.getAbsatzAnzahl(); i++) {
+                gesamtZeichen += s.absatzEnde(i) - s.absatzStart(i);
+            }
+        }
+
+        Summe merge(Summe andere) {
+            reden += andere.reden;
+            eigeneZeichen += andere.eigeneZeichen;
+            gesamtZeichen += andere.gesamtZeichen;
+            unterbrechungen += andere.unterbrechungen;
+            return this;
+        }
+    }
+}
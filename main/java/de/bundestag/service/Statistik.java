@@ -1,28 +1,38 @@
 package de.bundestag.service;
 
 import de.bundestag.factory.PortalFactory;
-import de.bundestag.database.Neo4jConnection;
+import de.bundestag.metrics.MetricsRegistry;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
-//die klasse statistik enthält methoden zur berechnung und ausgabe von statistiken
-// basierend auf den daten die in der neo4j datenbank gespeichert sind
+import static de.bundestag.service.StatistikZeilen.begrenzt;
+
+//die klasse statistik enthält methoden zur ausgabe von statistiken
+// die zahlen liefert eine StatistikQuelle: der graph speicher (neo4j oder arbeitsspeicher)
+// oder direkt das geparste modell in der factory
 public class Statistik {
 
-    //verbindung zur datenbank
-    private final Neo4jConnection dbConn; // referenz auf die datenbankverbindung
+    //die top listen pro sitzung zeigen nur die ersten einträge
+    private static final int TOP_N = 10;
+
+    private final StatistikQuelle quelle; // referenz auf die quelle der zahlen
 
-    //konstruktor: speichert die datenbankverbindung
+    //konstruktor: statistik über den graph speicher der factory
     public Statistik(PortalFactory factory) {
-        this.dbConn = factory.getDbConnection(); // holt die verbindung über die factory
+        this(new GraphStatistik(factory.getGraphStore())); // holt den speicher über die factory
+    }
+
+    public Statistik(StatistikQuelle quelle) {
+        this.quelle = quelle;
     }
 
     //Datenzählungen aus der datenbank abrufen
      //ruft die anzahl der knoten für alle labels aus der datenbank ab
 
     public void printDataCounts() {
-        System.out.println("\n--- datenzählung (aus neo4j) ---"); //überschrift ausgeben
+        System.out.println("\n--- datenzählung ---"); //überschrift ausgeben
 
         //map der labels,die gezählt werden sollen
         Map<String, String> labels = Map.of(
@@ -38,17 +48,10 @@ public class Statistik {
             String bezeichnung = entry.getKey(); // der anzeige name
             String label = entry.getValue(); //der tatsächliche neo4j labelname
 
-            // cypher abfrage zum zählen der knoten mit dem aktuellen label
-            String query = String.format("MATCH (n:%s) RETURN count(n) AS Count", label);
-            // führt die leseabfrage aus
-            List<Map<String, Object>> result = dbConn.executeReadQuery(query);
-
-            if (!result.isEmpty()) { // prüft, ob ergebnisse vorhanden sind
-                // extrahiert die anzahl/count aus dem Ergebnis
-                long count = (long) result.get(0).get("Count");
-                //gibt das ergebnis formatiert aus
-                System.out.printf("anzahl %-12s: %d\n", bezeichnung, count);
-            }
+            // zählt die knoten mit dem aktuellen label
+            long count = gemessen("datenzaehlung", () -> quelle.anzahl(label));
+            //gibt das ergebnis formatiert aus
+            System.out.printf("anzahl %-12s: %d\n", bezeichnung, count);
         }
     }
 
@@ -57,22 +60,9 @@ public class Statistik {
     public void redeLaengeProPerson() {
         System.out.println("\n 4a durchschnittliche redelänge pro jedem abgeordneten");
 
-        //cypherabfrage: holt den durchschnitt der redelänge/zeichen pro abgeordneten
+        //liest die beim einlesen vorberechneten zähler am abgeordneten
         //limit 20 entfernt,um alle abgeordneten anzuzeigen
-        String query = """
-            MATCH (r:Rede)-[:WURDE_GEHALTEN_VON]->(a:Abgeordneter)
-            // filtert reden ohne text oder mit leerem text und abgeordnete ohne namen
-            WHERE r.text IS NOT NULL AND size(r.text) > 0 AND a.name IS NOT NULL
-            RETURN 
-                a.name AS Name, // name des abgeordneten
-                a.id AS AbgeordnetenId, // id des abgeordneten
-                avg(size(r.text)) AS AvgLaenge, // berechnet die durchschnittliche länge des redetextes
-                count(r) AS CountReden // zählt die anzahl der gehaltenen reden
-            ORDER BY AvgLaenge DESC // sortiert nach durchschnittlicher länge absteigend
-        """;
-
-        //führt die leseabfrage aus
-        List<Map<String, Object>> results = dbConn.executeReadQuery(query);
+        List<Map<String, Object>> results = gemessen("rede_laenge_person", quelle::redeLaengeProPerson);
 
         //gibt die tabellen header aus
         System.out.printf("%-25s ! %18s ! %s\n", "name", "durchschnitt (zch.)", "anzahl");
@@ -87,7 +77,7 @@ public class Statistik {
             String name = (String) record.get("Name");
             // konvertiert die nummer (long oder double von neo4j) in double
             double avg = ((Number) record.get("AvgLaenge")).doubleValue();
-            long count = (long) record.get("CountReden");
+            long count = ((Number) record.get("CountReden")).longValue();
             //gibt die daten formatiert aus
             System.out.printf("%-25s ! %18.2f ! %6d\n", name, avg, count);
         }
@@ -97,19 +87,8 @@ public class Statistik {
     public void redeLaengeProFraktion() {
         System.out.println("\n 4a durchschnittliche redelänge pro fraktion ");
 
-        // cypherabfrage: holt den durchschnitt der redeläng/ezeichen pro fraktion
-        String query = """
-            MATCH (r:Rede)-[:WURDE_GEHALTEN_VON]->(a:Abgeordneter)-[:IST_MITGLIED_VON]->(f:Fraktion) // matcht rede -> abgeordneter -> fraktion
-            WHERE r.text IS NOT NULL AND size(r.text) > 0 // filtert nach vorhandenem redetext
-            RETURN 
-                f.name AS Fraktion, // name der fraktion
-                avg(size(r.text)) AS AvgLaenge, // durchschnittliche redelänge
-                count(r) AS CountReden // gesamtzahl der reden der fraktion
-            ORDER BY AvgLaenge DESC // sortiert nach durchschnittlicher länge
-        """;
-
-        //führt die leseabfrage aus
-        List<Map<String, Object>> results = dbConn.executeReadQuery(query);
+        // liest die summen der mitglieder direkt an der fraktion
+        List<Map<String, Object>> results = gemessen("rede_laenge_fraktion", quelle::redeLaengeProFraktion);
 
         //gibt die tabellen header aus
         System.out.printf("%-15s ! %18s ! %s\n", "fraktion", "durchschnitt (zch.)", "anzahl");
@@ -124,7 +103,7 @@ public class Statistik {
             String fraktion = (String) record.get("Fraktion");
             // konvertiert die nummer in double
             double avg = ((Number) record.get("AvgLaenge")).doubleValue();
-            long count = (long) record.get("CountReden");
+            long count = ((Number) record.get("CountReden")).longValue();
             // gibt die daten formatiert aus
             System.out.printf("%-15s ! %18.2f ! %6d\n", fraktion, avg, count);
         }
@@ -137,21 +116,9 @@ public class Statistik {
     public void kommentarHaeufigkeitProAbgeordneten() {
         System.out.println("\n4b kommentar häufigkeit pro jedem abgeordneten (durchschnitt pro rede)");
 
-        //berechnet count(k) * 1.0 / count(r) für den durchschnitt
-        String cypher = """
-            MATCH (a:Abgeordneter)<-[:WURDE_GEHALTEN_VON]-(r:Rede) // matcht abgeordneter <- rede
-            OPTIONAL MATCH (k:Kommentar)-[:IST_TEIL_VON]->(r) // optional matcht kommentar -> rede
-            WHERE a.name IS NOT NULL // filtert abgeordnete mit namen
-            RETURN 
-                a.name AS Name, 
-                COUNT(r) AS RedeAnzahl, // gesamtzahl der reden pro abgeordneten
-                // berechnung des durchschnitts: gesamtkommentare / gesamtzahl reden
-                COUNT(k) * 1.0 / COUNT(r) AS AvgKommentareProRede // *1.0 erzwingt double-division
-            ORDER BY AvgKommentareProRede DESC // sortiert nach kommentar-durchschnitt
-        """;
-
+        //berechnet kommentarAnzahl * 1.0 / redeAnzahl aus den zählern am abgeordneten
         try {
-            List<Map<String, Object>> result = dbConn.executeReadQuery(cypher); //führt die abfrage aus
+            List<Map<String, Object>> result = gemessen("kommentare_abgeordneter", quelle::kommentareProAbgeordneten);
 
             if (result.isEmpty()) { // prüft, ob ergebnisse leer sind
                 System.out.println("keine daten zur kommentar häufigkeit pro abgeordneten gefunden");
@@ -165,7 +132,7 @@ public class Statistik {
             for (Map<String, Object> row : result) { // iteriert über ergebnisse
                 String name = (String) row.get("Name");
                 Double avg = ((Number) row.get("AvgKommentareProRede")).doubleValue(); //durchschnitt
-                Long count = (Long) row.get("RedeAnzahl"); //Anzahl der reden
+                long count = ((Number) row.get("RedeAnzahl")).longValue(); //Anzahl der reden
 
                 // gibt die daten formatiert aus
                 System.out.printf("%-10.2f ! %-25s ! %12d\n", avg, name, count);
@@ -180,20 +147,9 @@ public class Statistik {
     public void kommentarHaeufigkeitProFraktion() {
         System.out.println("\n--- 4(b) kommentar-häufigkeit pro jede fraktion (durchschnitt pro rede) ---");
 
-        // berechnet count(k) * 1.0 / count(r) für den durchschnitt
-        String cypher = """
-            MATCH (f:Fraktion)<-[:IST_MITGLIED_VON]-(a:Abgeordneter)<-[:WURDE_GEHALTEN_VON]-(r:Rede) // matcht fraktion <- abgeordneter <- rede
-            OPTIONAL MATCH (k:Kommentar)-[:IST_TEIL_VON]->(r) // optional matcht kommentar -> rede
-            RETURN 
-                f.name AS FraktionName, // name der fraktion
-                COUNT(r) AS RedeAnzahl, // gesamtzahl der reden pro fraktion
-                // berechnung des durchschnitts: gesamtkommentare / gesamtzahl reden
-                COUNT(k) * 1.0 / COUNT(r) AS AvgKommentareProRede // *1.0 erzwingt double-division
-            ORDER BY AvgKommentareProRede DESC // sortiert nach kommentar-durchschnitt
-        """;
-
+        // berechnet kommentarAnzahl * 1.0 / redeAnzahl aus den zählern an der fraktion
         try {
-            List<Map<String, Object>> result = dbConn.executeReadQuery(cypher); //führt die abfrage aus
+            List<Map<String, Object>> result = gemessen("kommentare_fraktion", quelle::kommentareProFraktion);
 
             if (result.isEmpty()) { //prüft, ob ergebnisse leer sind
                 System.out.println("keine daten zur kommentar-häufigkeit pro fraktion gefunden");
@@ -207,7 +163,7 @@ public class Statistik {
             for (Map<String, Object> row : result) { //iteriert über ergebnisse
                 String name = (String) row.get("FraktionName"); // fraktionsname
                 Double avg = ((Number) row.get("AvgKommentareProRede")).doubleValue(); // durchschnitt
-                Long count = (Long) row.get("RedeAnzahl"); //Anzahl der reden
+                long count = ((Number) row.get("RedeAnzahl")).longValue(); //Anzahl der reden
 
                 //gibt die daten formatiert aus
                 System.out.printf("%-10.2f ! %-15s ! %12d\n", avg, name, count);
@@ -224,18 +180,10 @@ public class Statistik {
     public String getLaengsteSitzungNachZeitId() {
         System.out.println("\n 4(c) ermittle längste sitzung (nach zeit/redenanzahl)");
 
-        // korrektur: nutzt die korrekte relation (r:rede)-[:gehorte_zu_sitzung]->(s)
-        String cypher = """
-            MATCH (r:Rede)-[:GEHORTE_ZU_SITZUNG]->(s:Sitzung) // matcht rede -> sitzung
-            RETURN 
-                s.id AS SitzungsId, // gibt die sitzungs-id zurück
-                s.datum AS Datum, // gibt das sitzungsdatum zurück
-                COUNT(r) AS RedeAnzahl // zählt die reden pro sitzung
-            ORDER BY RedeAnzahl DESC // sortiert nach der anzahl der reden (als proxy für zeit)
-            LIMIT 1 // nur die längste sitzung
-        """;
-
-        List<Map<String, Object>> result = dbConn.executeReadQuery(cypher); //führt die abfrage aus
+        // liest die beim einlesen gezählte redeanzahl an der sitzung
+        // sortiert nach der anzahl der reden (als proxy für zeit), nur die längste sitzung
+        List<Map<String, Object>> result = gemessen("laengste_sitzung_zeit",
+                quelle::laengsteSitzungNachRedeAnzahl);
 
         if (result.isEmpty()) { // prüft ob Ergebnisse leer sind
             System.out.println("keine sitzungen gefunden");
@@ -258,18 +206,9 @@ public class Statistik {
         System.out.println("\n 4(c) ermittle längste sitzung (nach gesamt redelänge) ");
 
 
-        String cypher = """
-            MATCH (r:Rede)-[:GEHORTE_ZU_SITZUNG]->(s:Sitzung) // matcht rede -> sitzung
-            WHERE r.text IS NOT NULL AND size(r.text) > 0 // nur reden mit text
-            RETURN 
-                s.id AS SitzungsId, // gibt die sitzungs-id zurück
-                s.datum AS Datum, // gibt das sitzungsdatum zurück
-                SUM(size(r.text)) AS GesamtLaenge // summiert die länge aller redetexte
-            ORDER BY GesamtLaenge DESC // sortiert nach gesamtlänge
-            LIMIT 1 // nur die längste sitzung
-        """;
-
-        List<Map<String, Object>> result = dbConn.executeReadQuery(cypher); //führt die abfrage aus
+        // liest die vorberechnete summe der textlängen an der sitzung, sortiert nach gesamtlänge
+        List<Map<String, Object>> result = gemessen("laengste_sitzung_redelaenge",
+                quelle::laengsteSitzungNachRedelaenge);
 
         if (result.isEmpty()) { //prüft ob ergebnisse leer sind
             System.out.println("keine sitzungen mit reden gefunden");
@@ -298,21 +237,10 @@ public class Statistik {
         //überschrift mit der gefundenen sitzungs id
         System.out.println("\n 4(c) avg. redelänge pro abgeordneten in sitzung " + sitzungsId + " (längste nach zeit/redenanzahl) ---");
 
-        // korrektur: nutzt die korrekte Relation (r:rede)-[:gehorte_zu_sitzung]->(s)
-        // cypher abfrage, die auf die gefundene sitzungs-id filtert
-        String query = String.format("""
-            MATCH (r:Rede)-[:GEHORTE_ZU_SITZUNG]->(s:Sitzung {id: '%s'}) // filtert nach sitzung id
-            MATCH (r)-[:WURDE_GEHALTEN_VON]->(a:Abgeordneter) // matcht rede -> abgeordneter
-            WHERE r.text IS NOT NULL AND size(r.text) > 0 AND a.name IS NOT NULL // filterkriterien
-            RETURN 
-                a.name AS Name,
-                avg(size(r.text)) AS AvgLaenge,
-                count(r) AS CountReden
-            ORDER BY AvgLaenge DESC
-            LIMIT 10 // zeigt nur die top 10
-        """, sitzungsId);
-
-        List<Map<String, Object>> results = dbConn.executeReadQuery(query); // führt die abfrage aus
+        // gruppiert über die denormalisierten schlüssel der rede (index rede_sitzung_redner),
+        // der name wird erst nach der aggregation pro redner nachgeschlagen
+        List<Map<String, Object>> results = gemessen("sitzung_rede_laenge_person",
+                () -> begrenzt(quelle.redeLaengeProPersonInSitzung(sitzungsId), TOP_N)); // nur die top 10
         printAbgeordnetenStatistik(results); // gibt die ergebnisse aus
     }
 
@@ -325,21 +253,10 @@ public class Statistik {
         //überschrift mit der gefundenen sitzungs id
         System.out.println("\n4(c) kommentar häufigkeit pro abgeordneten in sitzung " + sitzungsId + " (längste nach zeit/redenanzahl) ---");
 
-        //korrektur: nutzt die korrekte relationen (r:rede)-[:gehorte_zu_sitzung]->(s) und (k)-[:ist_teil_von]->(r)
-        // cypher abfrage, die die anzahl der kommentare pro abgeordneten in der sitzung zählt
-        String cypher = String.format("""
-            MATCH (r:Rede)-[:GEHORTE_ZU_SITZUNG]->(s:Sitzung {id: '%s'}) // filtert nach sitzung id
-            MATCH (r)-[:WURDE_GEHALTEN_VON]->(a:Abgeordneter) // matcht rede -> abgeordneter
-            OPTIONAL MATCH (k:Kommentar)-[:IST_TEIL_VON]->(r) // optional matcht kommentar -> rede
-            WHERE a.name IS NOT NULL
-            RETURN 
-                a.name AS Name, 
-                COUNT(k) AS KommentarAnzahl // zählt die kommentare (nicht den durchschnitt pro rede)
-            ORDER BY KommentarAnzahl DESC
-            LIMIT 10 // zeigt nur die top 10
-        """, sitzungsId);
-
-        List<Map<String, Object>> results = dbConn.executeReadQuery(cypher); // führt die abfrage aus
+        //nutzt die schlüssel sitzungId/rednerId und die kommentaranzahl am rede knoten
+        //summiert die kommentare pro abgeordneten (nicht den durchschnitt pro rede)
+        List<Map<String, Object>> results = gemessen("sitzung_kommentare_abgeordneter",
+                () -> begrenzt(quelle.kommentareProAbgeordnetenInSitzung(sitzungsId), TOP_N)); // nur die top 10
         printKommentarStatistik(results); //gibt die Ergebnisse aus
     }
 
@@ -353,20 +270,9 @@ public class Statistik {
         //überschrift mit der gefundenen sitzungs-id
         System.out.println("\n 4c avg redelänge pro fraktion in sitzung " + sitzungsId + " (längste nach gesamt redelänge)");
 
-        //korrektur: nutzt die korrekte relation (r:rede)-[:gehorte_zu_sitzung]->(s)
-        // cypher abfrage, die den durchschnitt pro fraktion in der sitzung berechnet
-        String query = String.format("""
-            MATCH (r:Rede)-[:GEHORTE_ZU_SITZUNG]->(s:Sitzung {id: '%s'}) // filtert nach sitzung id
-            MATCH (r)-[:WURDE_GEHALTEN_VON]->(a:Abgeordneter)-[:IST_MITGLIED_VON]->(f:Fraktion) // matcht bis zur fraktion
-            WHERE r.text IS NOT NULL AND size(r.text) > 0
-            RETURN 
-                f.name AS Fraktion,
-                avg(size(r.text)) AS AvgLaenge,
-                count(r) AS CountReden
-            ORDER BY AvgLaenge DESC
-        """, sitzungsId);
-
-        List<Map<String, Object>> results = dbConn.executeReadQuery(query); //führt die abfrage aus
+        //gruppiert über die fraktion zum zeitpunkt der rede (index rede_sitzung_fraktion)
+        List<Map<String, Object>> results = gemessen("sitzung_rede_laenge_fraktion",
+                () -> quelle.redeLaengeProFraktionInSitzung(sitzungsId));
         printFraktionsStatistik(results); // gibt die ergebnisse aus
     }
 
@@ -379,23 +285,25 @@ public class Statistik {
         // überschrift mit der gefundenen sitzungs id
         System.out.println("\n4(c) kommentar häufigkeit pro fraktion in sitzung " + sitzungsId + " (längste nach gesamt redelänge) ---");
 
-        //korrektur: nutzt die korrekte relationen (r:rede)-[:gehorte_zu_sitzung]->(s) und (k)-[:ist_teil_von]->(r)
-        // cypher abfrage, die die anzahl der kommentare pro fraktion in der sitzung zählt
-        String cypher = String.format("""
-            MATCH (r:Rede)-[:GEHORTE_ZU_SITZUNG]->(s:Sitzung {id: '%s'}) // filtert nach sitzung id
-            MATCH (r)-[:WURDE_GEHALTEN_VON]->(a:Abgeordneter)-[:IST_MITGLIED_VON]->(f:Fraktion) // matcht bis zur fraktion
-            OPTIONAL MATCH (k:Kommentar)-[:IST_TEIL_VON]->(r) // optional matcht kommentar -> rede
-            RETURN 
-                f.name AS FraktionName,
-                COUNT(k) AS KommentarAnzahl // zählt die gesamtanzahl der kommentare
-            ORDER BY KommentarAnzahl DESC
-        """, sitzungsId);
-
-        List<Map<String, Object>> results = dbConn.executeReadQuery(cypher); // führt die abfrage aus
+        //nutzt die schlüssel sitzungId/fraktionId und die kommentaranzahl am rede knoten
+        List<Map<String, Object>> results = gemessen("sitzung_kommentare_fraktion",
+                () -> quelle.kommentareProFraktionInSitzung(sitzungsId));
         printFraktionsKommentarStatistik(results); // gibt die ergebnisse aus
     }
 
 
+    //führt eine auswertung aus und misst ihre dauer pro statistik abfrage
+    private <T> T gemessen(String name, Supplier<T> auswertung) {
+        long start = System.nanoTime();
+        try {
+            return auswertung.get();
+        } finally {
+            MetricsRegistry.getInstance()
+                    .histogram("statistik_query_seconds", "Dauer der Statistik Abfragen in Sekunden", "abfrage", name)
+                    .observeSince(start);
+        }
+    }
+
     //private hilfsmethode zur formatierung und ausgabe der abgeordneten statistik
     private void printAbgeordnetenStatistik(List<Map<String, Object>> results) {
         //gibt die tabellen-header aus
@@ -403,9 +311,9 @@ public class Statistik {
         System.out.println("---------------------------!---------------------!---------");
         for (Map<String, Object> record : results) {
             String name = (String) record.get("Name");
-            // casts prüfen, da cypher zahlen oft als double zurückgibt
+            // casts prüfen, der durchschnitt ist ein double
             double avg = ((Number) record.get("AvgLaenge")).doubleValue();
-            long count = (long) record.get("CountReden");
+            long count = ((Number) record.get("CountReden")).longValue();
             System.out.printf("%-25s ! %18.2f ! %6d\n", name, avg, count);
         }
     }
@@ -418,7 +326,7 @@ public class Statistik {
         for (Map<String, Object> record : results) {
             String fraktion = (String) record.get("Fraktion");
             double avg = ((Number) record.get("AvgLaenge")).doubleValue();
-            long count = (long) record.get("CountReden");
+            long count = ((Number) record.get("CountReden")).longValue();
             System.out.printf("%-15s ! %18.2f ! %6d\n", fraktion, avg, count);
         }
     }
@@ -431,7 +339,7 @@ public class Statistik {
         System.out.println("-------------!---------------------------");
         for (Map<String, Object> row : results) {
             String name = (String) row.get("Name");
-            Long anzahl = (Long) row.get("KommentarAnzahl");
+            long anzahl = ((Number) row.get("KommentarAnzahl")).longValue();
             System.out.printf("%-12d ! %s\n", anzahl, name);
         }
     }
@@ -443,7 +351,7 @@ public class Statistik {
         System.out.println("-------------!---------------------");
         for (Map<String, Object> row : results) {
             String name = (String) row.get("FraktionName");
-            Long anzahl = (Long) row.get("KommentarAnzahl");
+            long anzahl = ((Number) row.get("KommentarAnzahl")).longValue();
             System.out.printf("%-12d ! %s\n", anzahl, name);
         }
     }
@@ -0,0 +1,45 @@
+package de.bundestag.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * liefert die ergebnisse der statistik (aufgabe 4a-4c) als zeilen mit festen spaltennamen,
+ * absteigend nach dem jeweiligen kennwert sortiert. Statistik formatiert und begrenzt die ausgabe,
+ * woher die zahlen kommen (graph speicher oder geparstes modell) entscheidet die quelle.
+ */
+public interface StatistikQuelle {
+
+    //anzahl der knoten bzw. entitäten eines labels, z.b. "Rede"
+    long anzahl(String label);
+
+    //spalten Name, AbgeordnetenId, AvgLaenge, CountReden
+    List<Map<String, Object>> redeLaengeProPerson();
+
+    //spalten Fraktion, AvgLaenge, CountReden
+    List<Map<String, Object>> redeLaengeProFraktion();
+
+    //spalten Name, RedeAnzahl, AvgKommentareProRede
+    List<Map<String, Object>> kommentareProAbgeordneten();
+
+    //spalten FraktionName, RedeAnzahl, AvgKommentareProRede
+    List<Map<String, Object>> kommentareProFraktion();
+
+    //höchstens eine zeile mit SitzungsId, Datum, RedeAnzahl
+    List<Map<String, Object>> laengsteSitzungNachRedeAnzahl();
+
+    //höchstens eine zeile mit SitzungsId, Datum, GesamtLaenge
+    List<Map<String, Object>> laengsteSitzungNachRedelaenge();
+
+    //spalten Name, AvgLaenge, CountReden für die reden einer sitzung
+    List<Map<String, Object>> redeLaengeProPersonInSitzung(String sitzungsId);
+
+    //spalten Name, KommentarAnzahl für die reden einer sitzung
+    List<Map<String, Object>> kommentareProAbgeordnetenInSitzung(String sitzungsId);
+
+    //spalten Fraktion, AvgLaenge, CountReden, gruppiert nach der fraktion zum zeitpunkt der rede
+    List<Map<String, Object>> redeLaengeProFraktionInSitzung(String sitzungsId);
+
+    //spalten FraktionName, KommentarAnzahl, gruppiert nach der fraktion zum zeitpunkt der rede
+    List<Map<String, Object>> kommentareProFraktionInSitzung(String sitzungsId);
+}
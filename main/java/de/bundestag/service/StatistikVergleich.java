@@ -0,0 +1,106 @@
+package de.bundestag.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * prüft zwei statistik quellen auf exakt gleiche ergebnisse, z.b. die auswertung im speicher
+ * gegen die zahlen aus neo4j. die auswertungen pro sitzung werden für die längste sitzung
+ * der ersten quelle verglichen.
+ */
+public class StatistikVergleich {
+
+    private StatistikVergleich() {
+    }
+
+    /**
+     * @return eine beschreibung pro abweichung, leer wenn beide quellen übereinstimmen
+     */
+    public static List<String> vergleiche(StatistikQuelle erwartet, StatistikQuelle geprueft) {
+        List<String> abweichungen = new ArrayList<>();
+
+        for (String label : new String[]{"Abgeordneter", "Fraktion", "Sitzung", "Rede", "Kommentar"}) {
+            long a = erwartet.anzahl(label);
+            long b = geprueft.anzahl(label);
+            if (a != b) {
+                abweichungen.add("anzahl " + label + ": " + a + " != " + b);
+            }
+        }
+
+        vergleiche("redeLaengeProPerson", erwartet.redeLaengeProPerson(), geprueft.redeLaengeProPerson(), abweichungen);
+        vergleiche("redeLaengeProFraktion", erwartet.redeLaengeProFraktion(), geprueft.redeLaengeProFraktion(), abweichungen);
+        vergleiche("kommentareProAbgeordneten", erwartet.kommentareProAbgeordneten(), geprueft.kommentareProAbgeordneten(), abweichungen);
+        vergleiche("kommentareProFraktion", erwartet.kommentareProFraktion(), geprueft.kommentareProFraktion(), abweichungen);
+
+        List<Map<String, Object>> nachZeit = erwartet.laengsteSitzungNachRedeAnzahl();
+        vergleiche("laengsteSitzungNachRedeAnzahl", nachZeit, geprueft.laengsteSitzungNachRedeAnzahl(), abweichungen);
+        if (!nachZeit.isEmpty()) {
+            String id = (String) nachZeit.get(0).get("SitzungsId");
+            vergleiche("redeLaengeProPersonInSitzung(" + id + ")",
+                    erwartet.redeLaengeProPersonInSitzung(id), geprueft.redeLaengeProPersonInSitzung(id), abweichungen);
+            vergleiche("kommentareProAbgeordnetenInSitzung(" + id + ")",
+                    erwartet.kommentareProAbgeordnetenInSitzung(id), geprueft.kommentareProAbgeordnetenInSitzung(id), abweichungen);
+        }
+
+        List<Map<String, Object>> nachLaenge = erwartet.laengsteSitzungNachRedelaenge();
+        vergleiche("laengsteSitzungNachRedelaenge", nachLaenge, geprueft.laengsteSitzungNachRedelaenge(), abweichungen);
+        if (!nachLaenge.isEmpty()) {
+            String id = (String) nachLaenge.get(0).get("SitzungsId");
+            vergleiche("redeLaengeProFraktionInSitzung(" + id + ")",
+                    erwartet.redeLaengeProFraktionInSitzung(id), geprueft.redeLaengeProFraktionInSitzung(id), abweichungen);
+            vergleiche("kommentareProFraktionInSitzung(" + id + ")",
+                    erwartet.kommentareProFraktionInSitzung(id), geprueft.kommentareProFraktionInSitzung(id), abweichungen);
+        }
+        return abweichungen;
+    }
+
+    /**
+     * vergleicht und gibt das ergebnis aus.
+     * @return true wenn beide quellen übereinstimmen
+     */
+    public static boolean pruefeUndMelde(StatistikQuelle erwartet, StatistikQuelle geprueft) {
+        List<String> abweichungen = vergleiche(erwartet, geprueft);
+        if (abweichungen.isEmpty()) {
+            System.out.println(" Statistik Vergleich: alle Auswertungen stimmen überein.");
+            return true;
+        }
+        System.err.println(" Statistik Vergleich: " + abweichungen.size() + " Abweichungen");
+        abweichungen.stream().limit(20).forEach(a -> System.err.println("  " + a));
+        return false;
+    }
+
+    //zeile für zeile, beide listen sind deterministisch sortiert
+    private static void vergleiche(String auswertung, List<Map<String, Object>> a, List<Map<String, Object>> b,
+                                   List<String> abweichungen) {
+        if (a.size() != b.size()) {
+            abweichungen.add(auswertung + ": " + a.size() + " Zeilen != " + b.size() + " Zeilen");
+            return;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!gleich(a.get(i), b.get(i))) {
+                abweichungen.add(auswertung + " Zeile " + (i + 1) + ": " + a.get(i) + " != " + b.get(i));
+            }
+        }
+    }
+
+    private static boolean gleich(Map<String, Object> a, Map<String, Object> b) {
+        if (!a.keySet().equals(b.keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, Object> spalte : a.entrySet()) {
+            Object x = spalte.getValue();
+            Object y = b.get(spalte.getKey());
+            if (x instanceof Number && y instanceof Number) {
+                //Integer und Long bzw. Long und Double aus verschiedenen speichern gelten als gleich
+                if (Double.compare(((Number) x).doubleValue(), ((Number) y).doubleValue()) != 0) {
+                    return false;
+                }
+            } else if (!Objects.equals(x, y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,41 @@
+package de.bundestag.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//hilfsmethoden für die ergebniszeilen der statistik quellen (spaltenname -> wert)
+final class StatistikZeilen {
+
+    private StatistikZeilen() {
+    }
+
+    //baut eine ergebniszeile aus abwechselnd spaltenname und wert
+    static Map<String, Object> zeile(Object... spaltenUndWerte) {
+        Map<String, Object> zeile = new LinkedHashMap<>();
+        for (int i = 0; i < spaltenUndWerte.length; i += 2) {
+            zeile.put((String) spaltenUndWerte[i], spaltenUndWerte[i + 1]);
+        }
+        return zeile;
+    }
+
+    //absteigend nach der spalte, bei gleichstand nach dem zeileninhalt (erste spalte zuerst),
+    //damit jede quelle unabhängig von ihrer lesereihenfolge dieselbe reihenfolge liefert
+    static List<Map<String, Object>> absteigend(List<Map<String, Object>> zeilen, String spalte) {
+        zeilen.sort(Comparator.comparingDouble((Map<String, Object> z) -> ((Number) z.get(spalte)).doubleValue())
+                .reversed()
+                .thenComparing(Object::toString));
+        return zeilen;
+    }
+
+    static List<Map<String, Object>> begrenzt(List<Map<String, Object>> zeilen, int limit) {
+        return zeilen.size() > limit ? new ArrayList<>(zeilen.subList(0, limit)) : zeilen;
+    }
+
+    //fehlende eigenschaften zählen als 0
+    static long zahl(Object wert) {
+        return (wert instanceof Number) ? ((Number) wert).longValue() : 0L;
+    }
+}
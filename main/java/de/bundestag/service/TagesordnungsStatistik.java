@@ -0,0 +1,98 @@
+package de.bundestag.service;
+
+import de.bundestag.factory.PortalFactory;
+import de.bundestag.model.Fraktion;
+import de.bundestag.model.Rede;
+import de.bundestag.model.RedeAggregat;
+import de.bundestag.model.Tagesordnungspunkt;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static de.bundestag.service.StatistikZeilen.absteigend;
+import static de.bundestag.service.StatistikZeilen.begrenzt;
+import static de.bundestag.service.StatistikZeilen.zeile;
+
+/**
+ * auswertungen pro tagesordnungspunkt. die debattenlänge steht im RedeAggregat am punkt, die reden
+ * eines themas kommen über den titelindex der factory und die liste am punkt, ohne volltextsuche
+ * über alle reden.
+ */
+public class TagesordnungsStatistik {
+
+    private final PortalFactory factory;
+
+    public TagesordnungsStatistik(PortalFactory factory) {
+        this.factory = factory;
+    }
+
+    //längste debatten nach der summe der redelängen
+    public List<Map<String, Object>> laengsteDebatten(int limit) {
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        for (Tagesordnungspunkt t : factory.getAllTagesordnungspunkte()) {
+            RedeAggregat a = t.getAggregat();
+            if (a.getRedeAnzahl() == 0) continue;
+            zeilen.add(zeile("Tagesordnungspunkt", t.getId(),
+                    "Titel", t.getTitel(),
+                    "RedeAnzahl", a.getRedeAnzahl(),
+                    "TextLaengeSumme", a.getTextLaengeSumme(),
+                    "KommentarAnzahl", a.getKommentarAnzahl()));
+        }
+        return begrenzt(absteigend(zeilen, "TextLaengeSumme"), limit);
+    }
+
+    //reden und redeanteil der fraktionen über alle tagesordnungspunkte, deren titel zur anfrage passt
+    public List<Map<String, Object>> redenProFraktion(String anfrage) {
+        Map<String, long[]> summen = new HashMap<>(); // fraktion -> {reden, zeichen}
+        for (Tagesordnungspunkt t : factory.sucheTagesordnungspunkte(anfrage)) {
+            for (Rede r : t.getReden()) {
+                long[] s = summen.computeIfAbsent(r.getFraktionId() != null ? r.getFraktionId() : "ohne Fraktion", k -> new long[2]);
+                s[0]++;
+                s[1] += r.getTextLength();
+            }
+        }
+        long gesamt = summen.values().stream().mapToLong(s -> s[1]).sum();
+        List<Map<String, Object>> zeilen = new ArrayList<>();
+        summen.forEach((id, s) -> {
+            Fraktion f = factory.getFraktionById(id);
+            zeilen.add(zeile("FraktionName", f != null && f.getName() != null ? f.getName() : id,
+                    "RedeAnzahl", s[0],
+                    "TextLaengeSumme", s[1],
+                    "Anteil", gesamt > 0 ? (double) s[1] / gesamt : 0.0));
+        });
+        return absteigend(zeilen, "TextLaengeSumme");
+    }
+
+    public void printBericht(String anfrage) {
+        System.out.printf("\n %d tagesordnungspunkte, längste debatten (summe der redelängen)\n", factory.getAllTagesordnungspunkte().size());
+        for (Map<String, Object> z : laengsteDebatten(10)) {
+            System.out.printf("  %-34s %4d reden %9d zch.  %s\n", z.get("Tagesordnungspunkt"),
+                    ((Number) z.get("RedeAnzahl")).longValue(), ((Number) z.get("TextLaengeSumme")).longValue(),
+                    kurz(z.get("Titel").toString(), 70));
+        }
+
+        if (anfrage == null || anfrage.isEmpty()) {
+            return;
+        }
+        List<Tagesordnungspunkt> treffer = factory.sucheTagesordnungspunkte(anfrage);
+        System.out.printf("\n tagesordnungspunkte zu \"%s\": %d\n", anfrage, treffer.size());
+        treffer.stream()
+                .sorted((a, b) -> Long.compare(b.getAggregat().getTextLaengeSumme(), a.getAggregat().getTextLaengeSumme()))
+                .limit(5)
+                .forEach(t -> System.out.printf("  %-34s %4d reden  %s\n", t.getId(), t.getAggregat().getRedeAnzahl(), kurz(t.getTitel(), 70)));
+        System.out.printf("%-22s ! %8s ! %12s ! %s\n", "fraktion", "reden", "zeichen", "anteil");
+        System.out.println("-----------------------!----------!--------------!-------");
+        for (Map<String, Object> z : redenProFraktion(anfrage)) {
+            System.out.printf("%-22s ! %8d ! %12d ! %5.1f%%\n", z.get("FraktionName"),
+                    ((Number) z.get("RedeAnzahl")).longValue(),
+                    ((Number) z.get("TextLaengeSumme")).longValue(),
+                    ((Number) z.get("Anteil")).doubleValue() * 100);
+        }
+    }
+
+    private static String kurz(String text, int laenge) {
+        return text.length() > laenge ? text.substring(0, laenge - 3) + "..." : text;
+    }
+}
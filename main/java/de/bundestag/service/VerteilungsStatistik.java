@@ -0,0 +1,368 @@
+package de.bundestag.service;
+
+import de.bundestag.factory.PortalFactory;
+import de.bundestag.model.Abgeordneter;
+import de.bundestag.model.Fraktion;
+import de.bundestag.model.Rede;
+import de.bundestag.model.Sitzung;
+import de.bundestag.sketch.HyperLogLog;
+import de.bundestag.sketch.QuantilSketch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * verteilungen statt nur durchschnitten: p50/p90/p99 der redelänge und der kommentare pro rede
+ * pro abgeordneten, fraktion und sitzung, dazu die anzahl verschiedener redner (HyperLogLog).
+ *
+ * jede sitzung (eine protokolldatei) bekommt parallel ihre eigenen skizzen, danach werden alle
+ * zusammengeführt. die teilergebnisse werden mit einer signatur der sitzung gespeichert, beim nächsten
+ * lauf werden nur neue oder geänderte sitzungen neu berechnet. wie die datenbank sammelt die datei
+ * auch sitzungen aus früheren läufen.
+ *
+ * die fraktion ist hier die fraktion zum zeitpunkt der rede, damit die teilergebnisse einer sitzung
+ * unabhängig von späteren fraktionswechseln gültig bleiben.
+ */
+public class VerteilungsStatistik {
+
+    private static final Path STANDARD_DATEI = Paths.get("data/sketches/verteilungen.bin");
+    private static final int MAGIC = 0x56455254; // "VERT"
+    private static final int FORMAT = 2; // 2: signatur aus den einzelnen reden
+
+    //die tabellen zeigen nur die ersten einträge
+    private static final int TOP_N = 10;
+    //abgeordnete mit weniger reden haben keine aussagekräftigen quantile
+    private static final int MIN_REDEN = 5;
+
+    private final Map<String, Verteilung> proAbgeordneter = new HashMap<>();
+    private final Map<String, Verteilung> proFraktion = new HashMap<>();
+    private final Map<String, Verteilung> proSitzung = new HashMap<>();
+    private final Map<String, HyperLogLog> rednerProFraktion = new HashMap<>();
+    private final Map<String, HyperLogLog> rednerProSitzung = new HashMap<>();
+    private final Verteilung gesamt = new Verteilung();
+    private final HyperLogLog redner = new HyperLogLog();
+    private final Map<String, String> namen = new HashMap<>(); // id -> name von abgeordneten und fraktionen
+    private final Map<String, String> sitzungDatum = new HashMap<>();
+    private int neuBerechnet;
+
+    private VerteilungsStatistik() {
+    }
+
+    public static VerteilungsStatistik berechne(PortalFactory factory) {
+        return berechne(factory, STANDARD_DATEI);
+    }
+
+    /**
+     * berechnet die verteilungen über alle sitzungen der factory und die gespeicherten sitzungen.
+     * @param datei datei der teilergebnisse oder null ohne persistenz
+     */
+    public static VerteilungsStatistik berechne(PortalFactory factory, Path datei) {
+        Map<String, Teil> teile = datei != null ? lade(datei) : new HashMap<>();
+
+        //nur sitzungen ohne gültiges teilergebnis werden neu berechnet, parallel pro sitzung
+        Map<String, Teil> neu = new ConcurrentHashMap<>();
+        factory.getAllSitzungen().parallelStream()
+                .filter(s -> !s.getAlleReden().isEmpty())
+                .forEach(s -> {
+                    String signatur = signatur(s, factory);
+                    Teil gespeichert = teile.get(s.getId());
+                    if (gespeichert == null || !gespeichert.signatur.equals(signatur)) {
+                        neu.put(s.getId(), Teil.aus(s, signatur, factory));
+                    }
+                });
+        teile.putAll(neu);
+
+        VerteilungsStatistik statistik = new VerteilungsStatistik();
+        statistik.neuBerechnet = neu.size();
+        for (Teil teil : teile.values()) {
+            statistik.fuegeHinzu(teil);
+        }
+        if (datei != null && !neu.isEmpty()) {
+            speichere(datei, teile);
+        }
+        return statistik;
+    }
+
+    private void fuegeHinzu(Teil teil) {
+        mergeAlle(proAbgeordneter, teil.proAbgeordneter);
+        mergeAlle(proFraktion, teil.proFraktion);
+        proSitzung.computeIfAbsent(teil.sitzungId, k -> new Verteilung()).merge(teil.sitzung);
+        gesamt.merge(teil.sitzung);
+        teil.rednerProFraktion.forEach((id, hll) -> rednerProFraktion.computeIfAbsent(id, k -> new HyperLogLog()).merge(hll));
+        rednerProSitzung.computeIfAbsent(teil.sitzungId, k -> new HyperLogLog()).merge(teil.redner);
+        redner.merge(teil.redner);
+        namen.putAll(teil.namen);
+        sitzungDatum.put(teil.sitzungId, teil.datum);
+    }
+
+    private static void mergeAlle(Map<String, Verteilung> ziel, Map<String, Verteilung> quelle) {
+        quelle.forEach((id, v) -> ziel.computeIfAbsent(id, k -> new Verteilung()).merge(v));
+    }
+
+    //signatur über genau die werte, die in das teilergebnis eingehen (wie TermStatistik.signatur),
+    //ein fraktionswechsel oder eine geänderte rede macht das teilergebnis ungültig
+    private static String signatur(Sitzung sitzung, PortalFactory factory) {
+        long summe = sitzung.getAlleReden().stream().mapToLong(r -> {
+            Abgeordneter a = r.getRednerPerson();
+            Fraktion f = r.getFraktionId() != null ? factory.getFraktionById(r.getFraktionId()) : null;
+            return HyperLogLog.hash64(r.getId() + "|" + (a != null ? a.getId() + "|" + a.getName() : null)
+                    + "|" + r.getFraktionId() + "|" + (f != null ? f.getName() : null)
+                    + "|" + r.getTextLength() + "|" + r.getKommentare().size());
+        }).sum() + sitzung.getAlleReden().size();
+        return Long.toHexString(summe) + "|" + sitzung.getDatum();
+    }
+
+    public Map<String, Verteilung> getProAbgeordneter() { return proAbgeordneter; }
+    public Map<String, Verteilung> getProFraktion() { return proFraktion; }
+    public Map<String, Verteilung> getProSitzung() { return proSitzung; }
+    public Verteilung getGesamt() { return gesamt; }
+    public long getRednerSchaetzung() { return redner.schaetzung(); }
+    public long getRednerSchaetzungFraktion(String fraktionId) {
+        HyperLogLog hll = rednerProFraktion.get(fraktionId);
+        return hll != null ? hll.schaetzung() : 0;
+    }
+    public long getRednerSchaetzungSitzung(String sitzungId) {
+        HyperLogLog hll = rednerProSitzung.get(sitzungId);
+        return hll != null ? hll.schaetzung() : 0;
+    }
+    public String getName(String id) { return namen.getOrDefault(id, id); }
+
+    //gibt die verteilungen pro fraktion, die top abgeordneten und die top sitzungen aus
+    public void printBericht() {
+        System.out.println("\n verteilungen redelänge und kommentare pro rede (p50/p90/p99)");
+        System.out.printf("sitzungen: %d (davon neu berechnet: %d), reden: %d, verschiedene redner (geschätzt): %d\n",
+                proSitzung.size(), neuBerechnet, gesamt.getLaenge().getAnzahl(), getRednerSchaetzung());
+        System.out.printf("gesamt: länge %s ! kommentare %s\n", gesamt.laengeText(), gesamt.kommentareText());
+
+        System.out.printf("\n%-22s ! %6s ! %-20s ! %-12s ! %s\n", "fraktion", "reden", "länge p50/p90/p99", "kom. p50/90/99", "redner");
+        System.out.println("-----------------------!--------!----------------------!--------------!-------");
+        sortiert(proFraktion, v -> (double) v.getLaenge().getAnzahl()).forEach(e ->
+                System.out.printf("%-22s ! %6d ! %-20s ! %-12s ! %6d\n", getName(e.getKey()), e.getValue().getLaenge().getAnzahl(),
+                        e.getValue().laengeText(), e.getValue().kommentareText(), getRednerSchaetzungFraktion(e.getKey())));
+
+        System.out.println("\n abgeordnete mit dem höchsten median der redelänge (mindestens " + MIN_REDEN + " reden)");
+        System.out.printf("%-25s ! %6s ! %-20s ! %s\n", "name", "reden", "länge p50/p90/p99", "kom. p50/90/99");
+        System.out.println("--------------------------!--------!----------------------!--------------");
+        Map<String, Verteilung> genug = new HashMap<>();
+        proAbgeordneter.forEach((id, v) -> {
+            if (v.getLaenge().getAnzahl() >= MIN_REDEN) genug.put(id, v);
+        });
+        sortiert(genug, v -> v.getLaenge().getQuantil(0.5)).stream().limit(TOP_N).forEach(e ->
+                System.out.printf("%-25s ! %6d ! %-20s ! %s\n", getName(e.getKey()), e.getValue().getLaenge().getAnzahl(),
+                        e.getValue().laengeText(), e.getValue().kommentareText()));
+
+        System.out.println("\n sitzungen mit dem höchsten p90 der redelänge");
+        System.out.printf("%-12s ! %-10s ! %6s ! %-20s ! %s\n", "sitzung", "datum", "reden", "länge p50/p90/p99", "redner");
+        System.out.println("-------------!------------!--------!----------------------!-------");
+        sortiert(proSitzung, v -> v.getLaenge().getQuantil(0.9)).stream().limit(TOP_N).forEach(e ->
+                System.out.printf("%-12s ! %-10s ! %6d ! %-20s ! %6d\n", e.getKey(), sitzungDatum.get(e.getKey()),
+                        e.getValue().getLaenge().getAnzahl(), e.getValue().laengeText(), getRednerSchaetzungSitzung(e.getKey())));
+    }
+
+    private static List<Map.Entry<String, Verteilung>> sortiert(Map<String, Verteilung> werte, Function<Verteilung, Double> kennwert) {
+        List<Map.Entry<String, Verteilung>> liste = new ArrayList<>(werte.entrySet());
+        liste.sort(Comparator.comparing((Map.Entry<String, Verteilung> e) -> kennwert.apply(e.getValue())).reversed()
+                .thenComparing(Map.Entry::getKey));
+        return liste;
+    }
+
+    // --- persistenz der teilergebnisse ---
+
+    private static Map<String, Teil> lade(Path datei) {
+        Map<String, Teil> teile = new HashMap<>();
+        if (!Files.exists(datei)) {
+            return teile;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(datei)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                System.err.println("Unbekanntes Format der Verteilungsdatei, wird neu berechnet: " + datei);
+                return teile;
+            }
+            int anzahl = in.readInt();
+            for (int i = 0; i < anzahl; i++) {
+                Teil teil = Teil.lese(in);
+                teile.put(teil.sitzungId, teil);
+            }
+        } catch (IOException e) {
+            System.err.println("Verteilungsdatei konnte nicht gelesen werden, wird neu berechnet: " + e.getMessage());
+            teile.clear();
+        }
+        return teile;
+    }
+
+    private static void speichere(Path datei, Map<String, Teil> teile) {
+        try {
+            Files.createDirectories(datei.toAbsolutePath().getParent());
+            Path temp = datei.resolveSibling(datei.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeInt(teile.size());
+                for (Teil teil : new TreeMap<>(teile).values()) {
+                    teil.schreibe(out);
+                }
+            }
+            Files.move(temp, datei, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Verteilungsdatei konnte nicht gespeichert werden: " + e.getMessage());
+        }
+    }
+
+    /**
+     * skizzen der redelänge (zeichen) und der kommentare pro rede einer gruppe.
+     */
+    public static class Verteilung {
+        private final QuantilSketch laenge;
+        private final QuantilSketch kommentare;
+
+        Verteilung() {
+            this(new QuantilSketch(), new QuantilSketch());
+        }
+
+        private Verteilung(QuantilSketch laenge, QuantilSketch kommentare) {
+            this.laenge = laenge;
+            this.kommentare = kommentare;
+        }
+
+        void add(Rede rede) {
+            laenge.add(rede.getTextLength());
+            kommentare.add(rede.getKommentare().size());
+        }
+
+        void merge(Verteilung andere) {
+            laenge.merge(andere.laenge);
+            kommentare.merge(andere.kommentare);
+        }
+
+        public QuantilSketch getLaenge() { return laenge; }
+        public QuantilSketch getKommentare() { return kommentare; }
+
+        String laengeText() {
+            return String.format("%.0f/%.0f/%.0f", laenge.getQuantil(0.5), laenge.getQuantil(0.9), laenge.getQuantil(0.99));
+        }
+
+        String kommentareText() {
+            return String.format("%.0f/%.0f/%.0f", kommentare.getQuantil(0.5), kommentare.getQuantil(0.9), kommentare.getQuantil(0.99));
+        }
+
+        void schreibe(DataOutputStream out) throws IOException {
+            laenge.schreibe(out);
+            kommentare.schreibe(out);
+        }
+
+        static Verteilung lese(DataInputStream in) throws IOException {
+            return new Verteilung(QuantilSketch.lese(in), QuantilSketch.lese(in));
+        }
+    }
+
+    //teilergebnis einer sitzung, wird unabhängig von allen anderen berechnet
+    private static final class Teil {
+        String sitzungId;
+        String signatur;
+        String datum;
+        final Verteilung sitzung = new Verteilung();
+        final Map<String, Verteilung> proAbgeordneter = new HashMap<>();
+        final Map<String, Verteilung> proFraktion = new HashMap<>();
+        final Map<String, HyperLogLog> rednerProFraktion = new HashMap<>();
+        HyperLogLog redner = new HyperLogLog();
+        final Map<String, String> namen = new HashMap<>();
+
+        static Teil aus(Sitzung s, String signatur, PortalFactory factory) {
+            Teil teil = new Teil();
+            teil.sitzungId = s.getId();
+            teil.signatur = signatur;
+            teil.datum = s.getDatum() != null ? s.getDatum().toString() : "NULL";
+            for (Rede rede : s.getAlleReden()) {
+                teil.sitzung.add(rede);
+                Abgeordneter a = rede.getRednerPerson();
+                if (a != null) {
+                    teil.proAbgeordneter.computeIfAbsent(a.getId(), k -> new Verteilung()).add(rede);
+                    teil.redner.add(a.getId());
+                    teil.namen.put(a.getId(), a.getName());
+                }
+                String fraktionId = rede.getFraktionId();
+                if (fraktionId != null) {
+                    teil.proFraktion.computeIfAbsent(fraktionId, k -> new Verteilung()).add(rede);
+                    if (a != null) {
+                        teil.rednerProFraktion.computeIfAbsent(fraktionId, k -> new HyperLogLog()).add(a.getId());
+                    }
+                    Fraktion f = factory.getFraktionById(fraktionId);
+                    if (f != null && f.getName() != null) {
+                        teil.namen.put(fraktionId, f.getName());
+                    }
+                }
+            }
+            return teil;
+        }
+
+        void schreibe(DataOutputStream out) throws IOException {
+            out.writeUTF(sitzungId);
+            out.writeUTF(signatur);
+            out.writeUTF(datum);
+            sitzung.schreibe(out);
+            schreibeVerteilungen(out, proAbgeordneter);
+            schreibeVerteilungen(out, proFraktion);
+            out.writeInt(rednerProFraktion.size());
+            for (Map.Entry<String, HyperLogLog> e : rednerProFraktion.entrySet()) {
+                out.writeUTF(e.getKey());
+                e.getValue().schreibe(out);
+            }
+            redner.schreibe(out);
+            out.writeInt(namen.size());
+            for (Map.Entry<String, String> e : namen.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeUTF(e.getValue());
+            }
+        }
+
+        static Teil lese(DataInputStream in) throws IOException {
+            Teil teil = new Teil();
+            teil.sitzungId = in.readUTF();
+            teil.signatur = in.readUTF();
+            teil.datum = in.readUTF();
+            teil.sitzung.merge(Verteilung.lese(in));
+            leseVerteilungen(in, teil.proAbgeordneter);
+            leseVerteilungen(in, teil.proFraktion);
+            int fraktionen = in.readInt();
+            for (int i = 0; i < fraktionen; i++) {
+                teil.rednerProFraktion.put(in.readUTF(), HyperLogLog.lese(in));
+            }
+            teil.redner = HyperLogLog.lese(in);
+            int namen = in.readInt();
+            for (int i = 0; i < namen; i++) {
+                teil.namen.put(in.readUTF(), in.readUTF());
+            }
+            return teil;
+        }
+
+        private static void schreibeVerteilungen(DataOutputStream out, Map<String, Verteilung> verteilungen) throws IOException {
+            out.writeInt(verteilungen.size());
+            for (Map.Entry<String, Verteilung> e : verteilungen.entrySet()) {
+                out.writeUTF(e.getKey());
+                e.getValue().schreibe(out);
+            }
+        }
+
+        private static void leseVerteilungen(DataInputStream in, Map<String, Verteilung> ziel) throws IOException {
+            int anzahl = in.readInt();
+            for (int i = 0; i < anzahl; i++) {
+                ziel.put(in.readUTF(), Verteilung.lese(in));
+            }
+        }
+    }
+}
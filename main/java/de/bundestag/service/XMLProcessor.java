@@ -1,6 +1,10 @@
 package de.bundestag.service;
 
 import de.bundestag.factory.PortalFactory;
+import de.bundestag.metrics.Counter;
+import de.bundestag.metrics.Histogram;
+import de.bundestag.metrics.MetricsRegistry;
+import de.bundestag.metrics.ParseEvent;
 import de.bundestag.model.*;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -20,6 +24,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 //die klasse xmlprocessor ist für das einlesen und verarbeiten von bundestags xmlprotokollen zuständig
@@ -31,6 +37,19 @@ public class XMLProcessor {
     // eine map zum normalisieren von fraktionsnamen
     private Map<String, String> fraktionMapping = new HashMap<>();
 
+    // drucksachennummern wie "20/6500" in "Drucksachen 20/4675, 20/6521"
+    private static final Pattern DRUCKSACHE = Pattern.compile("\\d+/\\d+");
+
+    // kennzahlen für den parse lauf
+    private final Counter dateienGeparst = MetricsRegistry.getInstance()
+            .counter("xml_files_parsed_total", "Anzahl erfolgreich geparster XML Dateien");
+    private final Counter dateienFehler = MetricsRegistry.getInstance()
+            .counter("xml_files_failed_total", "Anzahl XML Dateien mit Fehler beim Parsen");
+    private final Counter bytesGeparst = MetricsRegistry.getInstance()
+            .counter("xml_bytes_parsed_total", "Summe der Dateigrößen aller geparsten XML Dateien in Bytes");
+    private final Histogram dateiLatenz = MetricsRegistry.getInstance()
+            .histogram("xml_file_parse_seconds", "Parse Dauer pro XML Datei in Sekunden");
+
     //konstruktor, der die factory initialisiert und das fraktions mapping aufbaut
     public XMLProcessor(PortalFactory factory) {
         this.factory = factory;
@@ -46,6 +65,9 @@ public class XMLProcessor {
         fraktionMapping.put("BUNDNIS90DIEGRUNEN", "BÜNDNIS 90/DIE GRÜNEN");
         fraktionMapping.put("BUNDNIS90DIEGRUENEN", "BÜNDNIS 90/DIE GRÜNEN");
         fraktionMapping.put("GRUNEN", "BÜNDNIS 90/DIE GRÜNEN");
+        //der schlüssel ersetzt Ü durch UE, ohne diese einträge landeten die grünen über die länge bei fraktionslos
+        fraktionMapping.put("BUENDNIS90DIEGRUENEN", "BÜNDNIS 90/DIE GRÜNEN");
+        fraktionMapping.put("GRUENEN", "BÜNDNIS 90/DIE GRÜNEN");
         fraktionMapping.put("SPD", "SPD");
         fraktionMapping.put("FDP", "FDP");
         fraktionMapping.put("AFD", "AfD");
@@ -68,9 +90,15 @@ public class XMLProcessor {
 
             if (files != null) { //prüft, ob dateien gefunden wurden
                 System.out.println("found " + files.length + " xml files");
+                long start = System.nanoTime();
                 for (File file : files) { // iteriert über die gefundenen dateien
                     parseXMLFile(file); //verarbeitet jede datei einzeln
                 }
+                //durchsatz des gesamten laufs in dateien pro sekunde
+                double sekunden = (System.nanoTime() - start) / 1e9;
+                MetricsRegistry.getInstance()
+                        .gauge("xml_files_per_second", "Durchsatz des letzten Parse Laufs in Dateien pro Sekunde")
+                        .set(sekunden > 0 ? files.length / sekunden : 0);
             }
         } catch (Exception e) {
             System.out.println("error reading files: " + e.getMessage());
@@ -79,7 +107,14 @@ public class XMLProcessor {
     }
 
     // verarbeitet eine einzelne xml-datei
-    private void parseXMLFile(File xmlFile) {
+    public void parseXMLFile(File xmlFile) {
+        long start = System.nanoTime();
+        //jfr ereignis mit den in dieser datei neu erstellten entitäten
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        int redenVorher = factory.getAllReden().size();
+        int kommentareVorher = factory.getAllKommentare().size();
+        int abgeordneteVorher = factory.getAllAbgeordnete().size();
         try {
             System.out.println("processing: " + xmlFile.getName());
 
@@ -94,18 +129,35 @@ public class XMLProcessor {
             parseFraktionen(doc); // parst alle fraktionen
             parseAbgeordnete(doc); //parst alle abgeordneten
             parseSitzungen(doc); //parst die sitzungsmetadaten
+            parseTagesordnungspunkte(doc); //parst die tagesordnungspunkte der sitzung
             parseRedner(doc); //parst die redner-metadaten (thema, redezeit)
             parseReden(doc); //parst die eigentlichen reden und kommentare
             // parsekommentare(doc); //logik ist in parsereden verschoben,methode ist redundant
 
+            dateienGeparst.inc();
+            bytesGeparst.add(xmlFile.length());
+            dateiLatenz.observeSince(start);
+            event.erfolgreich = true;
         } catch (Exception e) {
+            dateienFehler.inc();
             System.out.println("error with file " + xmlFile.getName() + ": " + e.getMessage());
             e.printStackTrace(); //gibt den stack-trace bei einem fehler aus
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.datei = xmlFile.getName();
+                event.bytes = xmlFile.length();
+                event.reden = factory.getAllReden().size() - redenVorher;
+                event.kommentare = factory.getAllKommentare().size() - kommentareVorher;
+                event.abgeordnete = factory.getAllAbgeordnete().size() - abgeordneteVorher;
+                event.commit();
+            }
         }
     }
 
     //normalisiert einen fraktionsnamen in einen standardisierten namen
-    private String normalizeFraktion(String fraktionName) {
+    //paket sichtbar für den benchmark in jmh/java
+    String normalizeFraktion(String fraktionName) {
         if (fraktionName == null || fraktionName.isEmpty()) { // prüft auf null oder leerstring
             return "";
         }
@@ -256,6 +308,69 @@ public class XMLProcessor {
         }
     }
 
+    //parst die <tagesordnungspunkt> blöcke der sitzung. titel sind die T_ absätze vor der ersten rede
+    //(ohne drucksachen und überweisungsvorschlag), fehlen sie, der eintrag aus dem inhaltsverzeichnis
+    private void parseTagesordnungspunkte(Document doc) {
+        Element root = doc.getDocumentElement();
+        Sitzung sitzung = factory.getSitzungById("WP" + getAttribute(root, "wahlperiode") + "_S" + getAttribute(root, "sitzung-nr"));
+        if (sitzung == null) {
+            return;
+        }
+        Map<String, String> verzeichnis = parseInhaltsverzeichnis(doc);
+
+        getElementStream(doc.getElementsByTagName("tagesordnungspunkt"))
+                .forEach(topElement -> {
+                    String bezeichnung = einfacheLeerzeichen(getAttribute(topElement, "top-id"));
+                    if (bezeichnung.isEmpty()) return;
+
+                    StringBuilder titel = new StringBuilder();
+                    List<String> drucksachen = new ArrayList<>();
+                    NodeList childNodes = topElement.getChildNodes();
+                    for (int i = 0; i < childNodes.getLength(); i++) {
+                        Node node = childNodes.item(i);
+                        if (node.getNodeName().equals("rede")) break; //danach kommt die debatte
+                        if (!node.getNodeName().equals("p")) continue;
+                        String klasse = ((Element) node).getAttribute("klasse");
+                        String inhalt = einfacheLeerzeichen(node.getTextContent());
+                        if (klasse.equals("T_Drs")) {
+                            Matcher m = DRUCKSACHE.matcher(inhalt);
+                            while (m.find()) drucksachen.add(m.group());
+                        } else if (klasse.startsWith("T_") && !klasse.equals("T_Ueberweisung") && !inhalt.isEmpty()) {
+                            if (titel.length() > 0) titel.append(' ');
+                            titel.append(inhalt);
+                        }
+                    }
+                    if (titel.length() == 0) {
+                        titel.append(verzeichnis.getOrDefault(bezeichnung, bezeichnung));
+                    }
+
+                    factory.createTagesordnungspunkt(Tagesordnungspunkt.id(sitzung.getId(), bezeichnung),
+                            bezeichnung, titel.toString(), drucksachen, sitzung);
+                });
+    }
+
+    //bezeichnung ("Tagesordnungspunkt 6") -> erster eintrag des blocks im inhaltsverzeichnis
+    private Map<String, String> parseInhaltsverzeichnis(Document doc) {
+        Map<String, String> verzeichnis = new HashMap<>();
+        getElementStream(doc.getElementsByTagName("ivz-block"))
+                .forEach(block -> {
+                    String bezeichnung = einfacheLeerzeichen(getElementText(block, "ivz-block-titel"));
+                    if (bezeichnung.endsWith(":")) {
+                        bezeichnung = bezeichnung.substring(0, bezeichnung.length() - 1).trim();
+                    }
+                    String eintrag = einfacheLeerzeichen(getElementText(block, "ivz-eintrag-inhalt"));
+                    if (!bezeichnung.isEmpty() && !eintrag.isEmpty()) {
+                        verzeichnis.putIfAbsent(bezeichnung, eintrag);
+                    }
+                });
+        return verzeichnis;
+    }
+
+    //tabulatoren und geschützte leerzeichen aus dem satz werden zu einfachen leerzeichen
+    private String einfacheLeerzeichen(String text) {
+        return text.replace('\u00A0', ' ').replaceAll("\\s+", " ").trim();
+    }
+
     //behebt den fehler der falschen idextraktion und der fehlenden textaggregation
     //diese methode verarbeitet die eigentlichen reden und die darin verschachtelten kommentare
 
@@ -296,8 +411,9 @@ public class XMLProcessor {
 
                         String titel = getElementText(redeElement, "thema"); // extrahiert das thema
 
-                        // fix:aggregiert den gesamten text aus <p> tags innerhalb der <rede> node
-                        String text = extractSpeechText(redeElement); //ruft den vollständigen redetext ab
+                        // fix:aggregiert den gesamten text aus <p> tags innerhalb der <rede> node, mit gliederung
+                        RedeSegmente.Bauer segmente = segmentiere(redeElement, rednerId);
+                        String text = segmente.getText(); //ruft den vollständigen redetext ab
 
                         //fallback für titel, falls 'thema' fehlt
                         if (titel.isEmpty()) {
@@ -307,8 +423,9 @@ public class XMLProcessor {
                         //rede objekt erstellen oder abrufen
                         Rede rede = factory.getRedeById(currentRedeId);
                         if (rede == null) {
-                            // nutzt die rede id und den aggregierten text
-                            rede = factory.createRede(currentRedeId, docDatum, titel, abgeordneter, text);
+                            // nutzt die rede id und den aggregierten text, die sitzung ist schon bekannt
+                            rede = factory.createRede(currentRedeId, docDatum, titel, abgeordneter, text, sitzung);
+                            rede.setSegmente(segmente.baue());
                         }
 
                         //assoziation zur sitzung hinzufügen
@@ -347,29 +464,65 @@ public class XMLProcessor {
                                         finalRede.addKommentar(k); //fügt den kommentar zur rede hinzu
                                     }
                                 });
+
+                        //tagesordnungspunkt über den umgebenden block, nach den kommentaren damit sie mitzählen
+                        Node block = redeElement.getParentNode();
+                        if (sitzung != null && finalRede.getTagesordnungspunkt() == null && block.getNodeName().equals("tagesordnungspunkt")) {
+                            String bezeichnung = getAttribute((Element) block, "top-id").trim();
+                            Tagesordnungspunkt top = factory.getTagesordnungspunktById(Tagesordnungspunkt.id(sitzung.getId(), bezeichnung));
+                            if (top != null) {
+                                finalRede.setTagesordnungspunkt(top);
+                                top.addRede(finalRede);
+                            }
+                        }
                     }
                 });
     }
 
-    //neue hilfsmethode: aggregiert den tatsächlichen redetext aus allen <p>elementen innerhalb einer <rede>node
-    //param redeelement das <rede>element
-    //return der gesamte redetext
+    //gliedert die <rede> node in absätze (<p> mit klasse), redebeiträge und kommentarpositionen.
+    //der text sind wie bisher alle <p> inhalte mit zeilenumbruch, inklusive kopfzeilen und sitzungsleitung,
+    //die gliederung sagt, welcher teil zu wem gehört
+    //param redeelement das <rede>element, rednerId der redner der rede
+    //return der bauer mit text und gliederung
 
-    private String extractSpeechText(Element redeElement) {
-        StringBuilder fullText = new StringBuilder(); // verwendet stringbuilder für effiziente textaggregation
+    private RedeSegmente.Bauer segmentiere(Element redeElement, String rednerId) {
+        RedeSegmente.Bauer bauer = new RedeSegmente.Bauer();
         NodeList childNodes = redeElement.getChildNodes(); //alle kind nodes des <rede> elements
 
         for (int i = 0; i < childNodes.getLength(); i++) {
             Node node = childNodes.item(i); // holt die aktuelle node
-
-            // wir suchen nur nach <p>tags
-            if (node.getNodeType() == Node.ELEMENT_NODE && node.getNodeName().equals("p")) {
-                //den textinhalt des absatzes hinzufügen,gefolgt von einem zeilenumbruch
-                fullText.append(node.getTextContent().trim()).append("\n");
+            if (node.getNodeType() != Node.ELEMENT_NODE) {
+                continue;
+            }
+            Element element = (Element) node;
+            switch (node.getNodeName()) {
+                case "p":
+                    String klasse = element.getAttribute("klasse");
+                    //kopfzeile "Name (Fraktion):" beginnt einen redebeitrag, z.b. auch bei zwischenfragen
+                    if (RedeSegmente.KLASSE_REDNER.equals(klasse)) {
+                        Element redner = (Element) element.getElementsByTagName("redner").item(0);
+                        String id = (redner != null) ? redner.getAttribute("id") : "";
+                        bauer.beitrag(id.equals(rednerId) ? RedeSegmente.Rolle.REDNER : RedeSegmente.Rolle.ANDERER, id);
+                    }
+                    bauer.absatz(klasse, node.getTextContent());
+                    break;
+                case "name":
+                    //<name> steht vor den worten der sitzungsleitung, z.b. "Präsidentin Bärbel Bas:"
+                    String name = node.getTextContent().trim();
+                    if (name.endsWith(":")) {
+                        name = name.substring(0, name.length() - 1).trim();
+                    }
+                    bauer.beitrag(RedeSegmente.Rolle.SITZUNGSLEITUNG, name);
+                    break;
+                case "kommentar":
+                    bauer.kommentar();
+                    break;
+                default:
+                    break;
             }
         }
 
-        return fullText.toString().trim(); //gibt den gesammelten text zurück und entfernt überflüssige leerzeichen
+        return bauer;
     }
 
 
@@ -0,0 +1,396 @@
+package de.bundestag.service;
+
+import de.bundestag.factory.PortalFactory;
+import de.bundestag.factory.PortalFactoryListener;
+import de.bundestag.metrics.Histogram;
+import de.bundestag.metrics.MetricsRegistry;
+import de.bundestag.model.Abgeordneter;
+import de.bundestag.model.Kommentar;
+import de.bundestag.model.Rede;
+import de.bundestag.model.Sitzung;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * vorberechneter würfel für zeitreihen: zeitraster (tag, monat, jahr, wahlperiode) x fraktion x
+ * abgeordneter mit zählern für reden, zeichen und kommentare.
+ *
+ * der würfel wird wie die OnlineStatistik als listener der PortalFactory beim einlesen gefüllt, jede
+ * rede schreibt pro raster in genau eine basiszelle (fraktion, abgeordneter, zeit). die ebenen
+ * fraktion und alle sind keine eigenen zellen, sondern werden beim lesen aus den basiszellen
+ * zusammengefasst (roll up). dadurch passen die ebenen immer zueinander und eine fraktion lässt sich
+ * auf ihre abgeordneten aufteilen (drill down). zeitlich gehen drill down (monat -> tage) und
+ * gleitende fenster über die raster.
+ *
+ * die fraktion ist die fraktion zum zeitpunkt der rede. reden ohne datum zählen nur in der
+ * wahlperiode, die aus der sitzungs id (WP20_S137) kommt.
+ */
+public class ZeitWuerfel implements PortalFactoryListener {
+
+    private static final Pattern WAHLPERIODE = Pattern.compile("^WP(\\d+)_");
+    //schlüssel der ebene ALLE
+    public static final String ALLE = "alle";
+    //fraktion bzw. abgeordneter einer basiszelle ist unbekannt
+    private static final String KEINE = "";
+
+    public enum Zeitraster {
+        TAG, MONAT, JAHR, WAHLPERIODE;
+
+        //ordnungszahl eines datums, aufeinanderfolgende abschnitte haben aufeinanderfolgende zahlen
+        long zeit(LocalDate datum) {
+            switch (this) {
+                case TAG: return datum.toEpochDay();
+                case MONAT: return datum.getYear() * 12L + datum.getMonthValue() - 1;
+                case JAHR: return datum.getYear();
+                default: throw new IllegalStateException("Wahlperiode kommt nicht aus dem Datum");
+            }
+        }
+
+        public String text(long zeit) {
+            switch (this) {
+                case TAG: return LocalDate.ofEpochDay(zeit).toString();
+                case MONAT: return String.format("%d-%02d", Math.floorDiv(zeit, 12), Math.floorMod(zeit, 12) + 1);
+                case JAHR: return String.valueOf(zeit);
+                default: return "WP" + zeit;
+            }
+        }
+    }
+
+    public enum Ebene { ALLE, FRAKTION, ABGEORDNETER }
+
+    // raster -> (fraktion, abgeordneter) -> zeit -> zähler
+    private final Map<Zeitraster, Map<Zuordnung, ConcurrentSkipListMap<Long, RedeZaehler>>> zellen = new EnumMap<>(Zeitraster.class);
+    //alle zuordnungen und die zuordnungen jeder fraktion bzw. jedes abgeordneten für den roll up
+    private final Set<Zuordnung> zuordnungen = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<Zuordnung>> proFraktion = new ConcurrentHashMap<>();
+    private final Map<String, Set<Zuordnung>> proAbgeordneter = new ConcurrentHashMap<>();
+    //tage jeder wahlperiode für den drill down, eine wahlperiode teilt sich ein jahr mit der vorherigen
+    private final Map<Long, Set<Long>> tageProWahlperiode = new ConcurrentHashMap<>();
+    private final LongAdder anzahlZellen = new LongAdder();
+    private final Histogram abfrageDauer;
+
+    /**
+     * legt den würfel an und meldet ihn bei der factory an. zählt nur was danach erstellt wird.
+     */
+    public static ZeitWuerfel anmelden(PortalFactory factory) {
+        ZeitWuerfel wuerfel = new ZeitWuerfel();
+        factory.addListener(wuerfel);
+        return wuerfel;
+    }
+
+    public ZeitWuerfel() {
+        for (Zeitraster raster : Zeitraster.values()) {
+            zellen.put(raster, new ConcurrentHashMap<>());
+        }
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.gauge("wuerfel_zellen", "Belegte Zellen im Zeitwürfel", anzahlZellen::sum);
+        abfrageDauer = metrics.histogram("wuerfel_query_seconds", "Dauer der Abfragen auf den Zeitwürfel");
+    }
+
+    @Override
+    public void redeErstellt(Rede rede) {
+        int laenge = rede.getTextLength();
+        long kommentare = rede.getKommentare().size();
+        for (RedeZaehler w : werteFuer(rede)) {
+            w.addRede(laenge, kommentare);
+        }
+    }
+
+    @Override
+    public void kommentarErstellt(Kommentar kommentar) {
+        Rede rede = kommentar.getRede();
+        if (rede == null) {
+            return;
+        }
+        for (RedeZaehler w : werteFuer(rede)) {
+            w.kommentare.increment();
+        }
+    }
+
+    //die basiszellen einer rede, eine pro raster
+    private List<RedeZaehler> werteFuer(Rede rede) {
+        List<RedeZaehler> werte = new ArrayList<>(4);
+        Abgeordneter redner = rede.getRednerPerson();
+        Zuordnung zuordnung = zuordnung(rede.getFraktionId(), redner != null ? redner.getId() : null);
+        LocalDate datum = rede.getDatum();
+        Sitzung sitzung = rede.getSitzung();
+        if (datum == null && sitzung != null) {
+            datum = sitzung.getDatum();
+        }
+        long wahlperiode = wahlperiode(sitzung);
+
+        for (Zeitraster raster : Zeitraster.values()) {
+            long zeit;
+            if (raster == Zeitraster.WAHLPERIODE) {
+                if (wahlperiode < 0) continue;
+                zeit = wahlperiode;
+            } else {
+                if (datum == null) continue;
+                zeit = raster.zeit(datum);
+            }
+            werte.add(zelle(raster, zuordnung, zeit));
+        }
+        if (wahlperiode >= 0 && datum != null) {
+            tageProWahlperiode.computeIfAbsent(wahlperiode, k -> ConcurrentHashMap.newKeySet()).add(datum.toEpochDay());
+        }
+        return werte;
+    }
+
+    private Zuordnung zuordnung(String fraktionId, String abgeordneterId) {
+        Zuordnung zuordnung = new Zuordnung(fraktionId != null ? fraktionId : KEINE, abgeordneterId != null ? abgeordneterId : KEINE);
+        if (zuordnungen.add(zuordnung)) {
+            proFraktion.computeIfAbsent(zuordnung.fraktionId, k -> ConcurrentHashMap.newKeySet()).add(zuordnung);
+            proAbgeordneter.computeIfAbsent(zuordnung.abgeordneterId, k -> ConcurrentHashMap.newKeySet()).add(zuordnung);
+        }
+        return zuordnung;
+    }
+
+    private RedeZaehler zelle(Zeitraster raster, Zuordnung zuordnung, long zeit) {
+        ConcurrentSkipListMap<Long, RedeZaehler> reihe = zellen.get(raster)
+                .computeIfAbsent(zuordnung, k -> new ConcurrentSkipListMap<>());
+        RedeZaehler w = reihe.get(zeit);
+        if (w == null) {
+            RedeZaehler neu = new RedeZaehler();
+            w = reihe.putIfAbsent(zeit, neu);
+            if (w == null) {
+                anzahlZellen.increment();
+                w = neu;
+            }
+        }
+        return w;
+    }
+
+    private static long wahlperiode(Sitzung sitzung) {
+        if (sitzung == null) {
+            return -1;
+        }
+        Matcher m = WAHLPERIODE.matcher(sitzung.getId());
+        return m.find() ? Long.parseLong(m.group(1)) : -1;
+    }
+
+    // --- abfragen ---
+
+    /**
+     * zeitreihe einer fraktion, eines abgeordneten oder aller reden (id = ALLE), nach zeit sortiert.
+     */
+    public List<Zelle> reihe(Zeitraster raster, Ebene ebene, String id) {
+        long start = System.nanoTime();
+        List<Zelle> ergebnis = new ArrayList<>();
+        reiheVon(raster, ebene, id).forEach((zeit, summe) -> ergebnis.add(new Zelle(raster, zeit, id, summe)));
+        abfrageDauer.observeSince(start);
+        return ergebnis;
+    }
+
+    /**
+     * roll up: die basiszellen eines zeitabschnitts zusammengefasst nach fraktion bzw. abgeordnetem,
+     * z.b. alle fraktionen im monat 2023-11. reden ohne fraktion bzw. redner fehlen in der ebene.
+     */
+    public List<Zelle> schnitt(Zeitraster raster, long zeit, Ebene ebene) {
+        long start = System.nanoTime();
+        List<Zelle> ergebnis = zusammenfassen(raster, zeit, zuordnungen, ebene);
+        abfrageDauer.observeSince(start);
+        return ergebnis;
+    }
+
+    /**
+     * drill down von einer fraktion auf die abgeordneten, die in dem zeitabschnitt für sie geredet
+     * haben. die summe der abgeordneten ergibt die zelle der fraktion.
+     */
+    public List<Zelle> abgeordneteDerFraktion(Zeitraster raster, long zeit, String fraktionId) {
+        long start = System.nanoTime();
+        List<Zelle> ergebnis = zusammenfassen(raster, zeit, proFraktion.getOrDefault(fraktionId, Set.of()), Ebene.ABGEORDNETER);
+        abfrageDauer.observeSince(start);
+        return ergebnis;
+    }
+
+    /**
+     * drill down in das nächstfeinere raster: jahr -> monate, monat -> tage, wahlperiode -> sitzungstage.
+     * tage haben kein feineres raster, dann ist die liste leer.
+     */
+    public List<Zelle> drillDown(Zeitraster raster, long zeit, Ebene ebene, String id) {
+        long start = System.nanoTime();
+        List<Zelle> ergebnis = new ArrayList<>();
+        switch (raster) {
+            case JAHR:
+                reiheVon(Zeitraster.MONAT, ebene, id).subMap(zeit * 12, true, zeit * 12 + 11, true)
+                        .forEach((t, summe) -> ergebnis.add(new Zelle(Zeitraster.MONAT, t, id, summe)));
+                break;
+            case MONAT:
+                LocalDate erster = LocalDate.of((int) Math.floorDiv(zeit, 12), Math.floorMod(zeit, 12) + 1, 1);
+                reiheVon(Zeitraster.TAG, ebene, id)
+                        .subMap(erster.toEpochDay(), true, erster.plusMonths(1).toEpochDay(), false)
+                        .forEach((t, summe) -> ergebnis.add(new Zelle(Zeitraster.TAG, t, id, summe)));
+                break;
+            case WAHLPERIODE:
+                NavigableMap<Long, RedeSumme> tage = reiheVon(Zeitraster.TAG, ebene, id);
+                tageProWahlperiode.getOrDefault(zeit, Set.of()).stream().sorted().forEach(t -> {
+                    RedeSumme summe = tage.get(t);
+                    if (summe != null) {
+                        ergebnis.add(new Zelle(Zeitraster.TAG, t, id, summe));
+                    }
+                });
+                break;
+            default:
+                break;
+        }
+        abfrageDauer.observeSince(start);
+        return ergebnis;
+    }
+
+    /**
+     * gleitendes fenster: für jeden zeitabschnitt der reihe die summe der letzten {@code fenster}
+     * abschnitte des rasters (kalendarisch, abschnitte ohne reden zählen als leer mit).
+     */
+    public List<Zelle> gleitend(Zeitraster raster, Ebene ebene, String id, int fenster) {
+        if (fenster < 1) {
+            throw new IllegalArgumentException("Fenster muss mindestens 1 sein: " + fenster);
+        }
+        long start = System.nanoTime();
+        NavigableMap<Long, RedeSumme> reihe = reiheVon(raster, ebene, id);
+        List<Zelle> ergebnis = new ArrayList<>();
+        for (Long zeit : reihe.keySet()) {
+            RedeSumme summe = new RedeSumme();
+            reihe.subMap(zeit - fenster, false, zeit, true).values().forEach(summe::merge);
+            ergebnis.add(new Zelle(raster, zeit, id, summe));
+        }
+        abfrageDauer.observeSince(start);
+        return ergebnis;
+    }
+
+    //roll up der basiszellen einer ebene über die zeit, nur die zuordnungen der fraktion bzw. des abgeordneten
+    private NavigableMap<Long, RedeSumme> reiheVon(Zeitraster raster, Ebene ebene, String id) {
+        Set<Zuordnung> auswahl;
+        switch (ebene) {
+            case FRAKTION: auswahl = proFraktion.getOrDefault(id, Set.of()); break;
+            case ABGEORDNETER: auswahl = proAbgeordneter.getOrDefault(id, Set.of()); break;
+            default: auswahl = zuordnungen;
+        }
+        NavigableMap<Long, RedeSumme> reihe = new TreeMap<>();
+        Map<Zuordnung, ConcurrentSkipListMap<Long, RedeZaehler>> basis = zellen.get(raster);
+        for (Zuordnung zuordnung : auswahl) {
+            ConcurrentSkipListMap<Long, RedeZaehler> zeiten = basis.get(zuordnung);
+            if (zeiten != null) {
+                zeiten.forEach((zeit, w) -> reihe.computeIfAbsent(zeit, k -> new RedeSumme()).merge(w.stand()));
+            }
+        }
+        return reihe;
+    }
+
+    //roll up der basiszellen eines zeitabschnitts auf die ids der ebene, nach id sortiert
+    private List<Zelle> zusammenfassen(Zeitraster raster, long zeit, Set<Zuordnung> auswahl, Ebene ebene) {
+        Map<String, RedeSumme> proId = new TreeMap<>();
+        Map<Zuordnung, ConcurrentSkipListMap<Long, RedeZaehler>> basis = zellen.get(raster);
+        for (Zuordnung zuordnung : auswahl) {
+            String id = zuordnung.id(ebene);
+            ConcurrentSkipListMap<Long, RedeZaehler> zeiten = basis.get(zuordnung);
+            RedeZaehler w = zeiten != null ? zeiten.get(zeit) : null;
+            if (w != null && !id.equals(KEINE)) {
+                proId.computeIfAbsent(id, k -> new RedeSumme()).merge(w.stand());
+            }
+        }
+        List<Zelle> ergebnis = new ArrayList<>();
+        proId.forEach((id, summe) -> ergebnis.add(new Zelle(raster, zeit, id, summe)));
+        return ergebnis;
+    }
+
+    //monatliche entwicklung aller reden mit gleitendem drei monats fenster und die wahlperioden pro fraktion
+    public void printTrends(PortalFactory factory) {
+        System.out.println("\n entwicklung pro monat (alle reden, gleitend über 3 monate)");
+        System.out.printf("%-8s ! %6s ! %10s ! %9s ! %12s ! %s\n", "monat", "reden", "ø länge", "ø komm.", "ø länge (3m)", "ø komm. (3m)");
+        System.out.println("---------!--------!------------!-----------!--------------!-------------");
+        List<Zelle> monate = reihe(Zeitraster.MONAT, Ebene.ALLE, ALLE);
+        List<Zelle> gleitend = gleitend(Zeitraster.MONAT, Ebene.ALLE, ALLE, 3);
+        for (int i = 0; i < monate.size(); i++) {
+            Zelle m = monate.get(i);
+            Zelle g = gleitend.get(i);
+            System.out.printf("%-8s ! %6d ! %10.2f ! %9.2f ! %12.2f ! %.2f\n", m.getZeitText(), m.getReden(),
+                    m.getDurchschnittLaenge(), m.getKommentareProRede(), g.getDurchschnittLaenge(), g.getKommentareProRede());
+        }
+
+        for (Zelle wp : reihe(Zeitraster.WAHLPERIODE, Ebene.ALLE, ALLE)) {
+            System.out.println("\n fraktionen in " + wp.getZeitText() + " (" + wp.getReden() + " reden)");
+            System.out.printf("%-25s ! %6s ! %10s ! %s\n", "fraktion", "reden", "ø länge", "ø komm.");
+            System.out.println("--------------------------!--------!------------!--------");
+            for (Zelle f : schnitt(Zeitraster.WAHLPERIODE, wp.getZeit(), Ebene.FRAKTION)) {
+                String name = factory.getFraktionById(f.getId()) != null ? factory.getFraktionById(f.getId()).getName() : f.getId();
+                System.out.printf("%-25s ! %6d ! %10.2f ! %.2f\n", name, f.getReden(), f.getDurchschnittLaenge(), f.getKommentareProRede());
+            }
+        }
+    }
+
+    //koordinaten einer basiszelle ohne die zeit
+    private static final class Zuordnung {
+        final String fraktionId;
+        final String abgeordneterId;
+
+        Zuordnung(String fraktionId, String abgeordneterId) {
+            this.fraktionId = fraktionId;
+            this.abgeordneterId = abgeordneterId;
+        }
+
+        String id(Ebene ebene) {
+            switch (ebene) {
+                case FRAKTION: return fraktionId;
+                case ABGEORDNETER: return abgeordneterId;
+                default: return ALLE;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Zuordnung)) return false;
+            Zuordnung andere = (Zuordnung) o;
+            return fraktionId.equals(andere.fraktionId) && abgeordneterId.equals(andere.abgeordneterId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * fraktionId.hashCode() + abgeordneterId.hashCode();
+        }
+    }
+
+    /**
+     * eine zelle des würfels als momentaufnahme.
+     */
+    public static final class Zelle {
+        private final Zeitraster raster;
+        private final long zeit;
+        private final String id;
+        private final RedeSumme summe;
+
+        Zelle(Zeitraster raster, long zeit, String id, RedeSumme summe) {
+            this.raster = raster;
+            this.zeit = zeit;
+            this.id = id;
+            this.summe = summe;
+        }
+
+        public Zeitraster getRaster() { return raster; }
+        public long getZeit() { return zeit; }
+        public String getZeitText() { return raster.text(zeit); }
+        public String getId() { return id; }
+        public long getReden() { return summe.reden; }
+        public long getZeichen() { return summe.textLaenge; }
+        public long getKommentare() { return summe.kommentare; }
+        public double getDurchschnittLaenge() { return summe.redenMitText > 0 ? summe.durchschnittLaenge() : 0; }
+        public double getKommentareProRede() { return summe.reden > 0 ? summe.kommentareProRede() : 0; }
+
+        @Override
+        public String toString() {
+            return getZeitText() + " " + id + ": reden=" + summe.reden + ", zeichen=" + summe.textLaenge
+                    + ", kommentare=" + summe.kommentare;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package de.bundestag.sketch;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * mischbare quantil skizze nach dem ddsketch verfahren für nicht negative werte.
+ * jeder wert landet in einem logarithmischen bucket mit index ceil(log_gamma(x)), dadurch ist jedes
+ * quantil bis auf den relativen fehler alpha genau, unabhängig von der anzahl der werte.
+ * zwei skizzen mit demselben alpha werden durch addieren der buckets zusammengeführt, das ergebnis
+ * ist dasselbe wie eine skizze über alle werte. nullen werden extra gezählt.
+ */
+public class QuantilSketch {
+
+    public static final double STANDARD_ALPHA = 0.01;
+
+    private final double alpha;
+    private final double gamma;
+    private final double logGamma;
+
+    private long[] zaehler = new long[0]; // zaehler[i] gehört zum bucket index offset + i
+    private int offset;
+    private long nullen;
+    private long anzahl;
+    private double minimum = Double.POSITIVE_INFINITY;
+    private double maximum = Double.NEGATIVE_INFINITY;
+
+    public QuantilSketch() {
+        this(STANDARD_ALPHA);
+    }
+
+    /**
+     * @param alpha relativer fehler der quantile, z.b. 0.01 für 1%
+     */
+    public QuantilSketch(double alpha) {
+        if (alpha <= 0 || alpha >= 1) {
+            throw new IllegalArgumentException("alpha muss zwischen 0 und 1 liegen: " + alpha);
+        }
+        this.alpha = alpha;
+        this.gamma = (1 + alpha) / (1 - alpha);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public void add(double wert) {
+        if (wert < 0 || Double.isNaN(wert)) {
+            throw new IllegalArgumentException("Nur nicht negative Werte: " + wert);
+        }
+        anzahl++;
+        minimum = Math.min(minimum, wert);
+        maximum = Math.max(maximum, wert);
+        if (wert == 0) {
+            nullen++;
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(wert) / logGamma);
+        platzFuer(index, index);
+        zaehler[index - offset]++;
+    }
+
+    //führt eine andere skizze in diese zusammen
+    public void merge(QuantilSketch andere) {
+        if (andere.alpha != alpha) {
+            throw new IllegalArgumentException("Skizzen mit verschiedenem alpha: " + alpha + " / " + andere.alpha);
+        }
+        if (andere.anzahl == 0) {
+            return;
+        }
+        if (andere.zaehler.length > 0) {
+            platzFuer(andere.offset, andere.offset + andere.zaehler.length - 1);
+            for (int i = 0; i < andere.zaehler.length; i++) {
+                zaehler[andere.offset + i - offset] += andere.zaehler[i];
+            }
+        }
+        nullen += andere.nullen;
+        anzahl += andere.anzahl;
+        minimum = Math.min(minimum, andere.minimum);
+        maximum = Math.max(maximum, andere.maximum);
+    }
+
+    /**
+     * @param q quantil zwischen 0 und 1, z.b. 0.5 für den median
+     * @return der geschätzte wert, NaN wenn die skizze leer ist
+     */
+    public double getQuantil(double q) {
+        if (anzahl == 0) {
+            return Double.NaN;
+        }
+        if (q <= 0) return minimum;
+        if (q >= 1) return maximum;
+
+        long rang = (long) (q * (anzahl - 1));
+        if (rang < nullen) {
+            return 0;
+        }
+        long gezaehlt = nullen;
+        for (int i = 0; i < zaehler.length; i++) {
+            gezaehlt += zaehler[i];
+            if (gezaehlt > rang) {
+                //mitte des buckets im relativen sinn, innerhalb von min/max
+                double wert = 2 * Math.pow(gamma, offset + i) / (gamma + 1);
+                return Math.max(minimum, Math.min(maximum, wert));
+            }
+        }
+        return maximum;
+    }
+
+    public long getAnzahl() { return anzahl; }
+    public double getMinimum() { return anzahl == 0 ? Double.NaN : minimum; }
+    public double getMaximum() { return anzahl == 0 ? Double.NaN : maximum; }
+    public double getAlpha() { return alpha; }
+
+    //vergrößert das bucket array so dass die indizes von..bis hineinpassen
+    private void platzFuer(int von, int bis) {
+        if (zaehler.length == 0) {
+            offset = von;
+            zaehler = new long[bis - von + 1];
+            return;
+        }
+        int neuerOffset = Math.min(offset, von);
+        int neuesEnde = Math.max(offset + zaehler.length - 1, bis);
+        if (neuerOffset == offset && neuesEnde == offset + zaehler.length - 1) {
+            return;
+        }
+        long[] neu = new long[neuesEnde - neuerOffset + 1];
+        System.arraycopy(zaehler, 0, neu, offset - neuerOffset, zaehler.length);
+        zaehler = neu;
+        offset = neuerOffset;
+    }
+
+    public void schreibe(DataOutputStream out) throws IOException {
+        out.writeDouble(alpha);
+        out.writeLong(anzahl);
+        out.writeLong(nullen);
+        out.writeDouble(minimum);
+        out.writeDouble(maximum);
+        out.writeInt(offset);
+        out.writeInt(zaehler.length);
+        for (long z : zaehler) {
+            out.writeLong(z);
+        }
+    }
+
+    public static QuantilSketch lese(DataInputStream in) throws IOException {
+        QuantilSketch sketch = new QuantilSketch(in.readDouble());
+        sketch.anzahl = in.readLong();
+        sketch.nullen = in.readLong();
+        sketch.minimum = in.readDouble();
+        sketch.maximum = in.readDouble();
+        sketch.offset = in.readInt();
+        sketch.zaehler = new long[in.readInt()];
+        for (int i = 0; i < sketch.zaehler.length; i++) {
+            sketch.zaehler[i] = in.readLong();
+        }
+        return sketch;
+    }
+
+    @Override
+    public String toString() {
+        return "QuantilSketch{n=" + anzahl + ", buckets=" + zaehler.length + ", alpha=" + alpha
+                + ", p50=" + getQuantil(0.5) + "}";
+    }
+}
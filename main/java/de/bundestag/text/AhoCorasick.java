@@ -0,0 +1,174 @@
+package de.bundestag.text;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * sucht viele feste muster gleichzeitig in einem durchlauf über den text (aho-corasick automat).
+ * der automat wird einmal aus allen mustern gebaut und ist danach unveränderlich und threadsicher.
+ *
+ * geliefert werden nur treffer an wortgrenzen, bei überlappenden treffern gewinnt der am weitesten
+ * links beginnende und davon der längste ("BÜNDNIS 90/DIE GRÜNEN" statt "GRÜNEN").
+ */
+public final class AhoCorasick<T> {
+
+    //pro zustand die übergänge als sortierte zeichen mit zielzustand (binäre suche)
+    private final char[][] zeichen;
+    private final int[][] ziele;
+    private final int[] fehler;
+    //muster, das in diesem zustand endet (-1 wenn keins), und nächster zustand über fehlerlinks mit muster
+    private final int[] muster;
+    private final int[] ausgabe;
+    private final int[] laengen;
+    private final List<T> werte;
+
+    private AhoCorasick(List<String> texte, List<T> werte) {
+        this.werte = werte;
+        this.laengen = texte.stream().mapToInt(String::length).toArray();
+
+        List<TreeMap<Character, Integer>> kanten = new ArrayList<>();
+        List<Integer> endmuster = new ArrayList<>();
+        kanten.add(new TreeMap<>());
+        endmuster.add(-1);
+        for (int m = 0; m < texte.size(); m++) {
+            int zustand = 0;
+            for (char c : texte.get(m).toCharArray()) {
+                Integer naechster = kanten.get(zustand).get(c);
+                if (naechster == null) {
+                    naechster = kanten.size();
+                    kanten.add(new TreeMap<>());
+                    endmuster.add(-1);
+                    kanten.get(zustand).put(c, naechster);
+                }
+                zustand = naechster;
+            }
+            endmuster.set(zustand, m);
+        }
+
+        int n = kanten.size();
+        zeichen = new char[n][];
+        ziele = new int[n][];
+        muster = new int[n];
+        for (int s = 0; s < n; s++) {
+            zeichen[s] = new char[kanten.get(s).size()];
+            ziele[s] = new int[kanten.get(s).size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> kante : kanten.get(s).entrySet()) {
+                zeichen[s][i] = kante.getKey();
+                ziele[s][i++] = kante.getValue();
+            }
+            muster[s] = endmuster.get(s);
+        }
+
+        //fehlerlinks in breitensuche, der wurzel folgen ihre kinder
+        fehler = new int[n];
+        ausgabe = new int[n];
+        Arrays.fill(ausgabe, -1);
+        Deque<Integer> warteschlange = new ArrayDeque<>();
+        for (int kind : ziele[0]) {
+            warteschlange.add(kind);
+        }
+        while (!warteschlange.isEmpty()) {
+            int s = warteschlange.poll();
+            for (int i = 0; i < zeichen[s].length; i++) {
+                int kind = ziele[s][i];
+                int f = fehler[s];
+                while (f != 0 && schritt(f, zeichen[s][i]) < 0) {
+                    f = fehler[f];
+                }
+                int ziel = schritt(f, zeichen[s][i]);
+                fehler[kind] = (ziel >= 0 && ziel != kind) ? ziel : 0;
+                ausgabe[kind] = muster[fehler[kind]] >= 0 ? fehler[kind] : ausgabe[fehler[kind]];
+                warteschlange.add(kind);
+            }
+        }
+    }
+
+    /**
+     * baut den automaten, die reihenfolge der map bestimmt bei gleichen mustern nichts,
+     * jedes muster kommt nur einmal vor.
+     */
+    public static <T> AhoCorasick<T> aus(Map<String, T> muster) {
+        List<String> texte = new ArrayList<>();
+        List<T> werte = new ArrayList<>();
+        for (Map.Entry<String, T> e : muster.entrySet()) {
+            if (e.getKey() == null || e.getKey().isEmpty()) continue;
+            texte.add(e.getKey());
+            werte.add(e.getValue());
+        }
+        return new AhoCorasick<>(texte, werte);
+    }
+
+    public int size() {
+        return werte.size();
+    }
+
+    /**
+     * alle nicht überlappenden treffer an wortgrenzen in text[von, bis), nach position sortiert.
+     */
+    public List<Treffer<T>> finde(CharSequence text, int von, int bis) {
+        List<int[]> roh = new ArrayList<>();
+        int zustand = 0;
+        for (int i = von; i < bis; i++) {
+            char c = text.charAt(i);
+            int ziel;
+            while ((ziel = schritt(zustand, c)) < 0 && zustand != 0) {
+                zustand = fehler[zustand];
+            }
+            zustand = Math.max(ziel, 0);
+            for (int s = muster[zustand] >= 0 ? zustand : ausgabe[zustand]; s >= 0; s = ausgabe[s]) {
+                int m = muster[s];
+                int start = i + 1 - laengen[m];
+                if (wortgrenze(text, start - 1, von, bis) && wortgrenze(text, i + 1, von, bis)) {
+                    roh.add(new int[]{start, i + 1, m});
+                }
+            }
+        }
+
+        //links zuerst, bei gleichem anfang der längste
+        roh.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(b[1], a[1]));
+        List<Treffer<T>> treffer = new ArrayList<>();
+        int belegtBis = von;
+        for (int[] t : roh) {
+            if (t[0] >= belegtBis) {
+                treffer.add(new Treffer<>(t[0], t[1], werte.get(t[2])));
+                belegtBis = t[1];
+            }
+        }
+        return treffer;
+    }
+
+    public List<Treffer<T>> finde(CharSequence text) {
+        return finde(text, 0, text.length());
+    }
+
+    private int schritt(int zustand, char c) {
+        int i = Arrays.binarySearch(zeichen[zustand], c);
+        return i >= 0 ? ziele[zustand][i] : -1;
+    }
+
+    //außerhalb des bereichs oder kein buchstabe/ziffer
+    private static boolean wortgrenze(CharSequence text, int i, int von, int bis) {
+        return i < von || i >= bis || !Character.isLetterOrDigit(text.charAt(i));
+    }
+
+    /**
+     * ein treffer text[start, ende) mit dem wert des musters.
+     */
+    public static final class Treffer<T> {
+        public final int start;
+        public final int ende;
+        public final T wert;
+
+        Treffer(int start, int ende, T wert) {
+            this.start = start;
+            this.ende = ende;
+            this.wert = wert;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package de.bundestag.text;
+
+import de.bundestag.database.GraphStore;
+import de.bundestag.model.CypherQuery;
+import de.bundestag.model.Kommentar;
+import de.bundestag.model.Rede;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * findet fast gleiche reden (erneut gehaltene reden mit kleinen änderungen, wiederholte textblöcke)
+ * und fast gleiche kommentare. pro text wird parallel eine minhash signatur berechnet, der LshIndex
+ * liefert kandidaten, bestätigt werden paare ab der schwelle der geschätzten jaccard ähnlichkeit.
+ *
+ * für reden können die gefundenen paare als AEHNLICH_ZU beziehung mit der ähnlichkeit gespeichert werden.
+ */
+public class DuplikatSuche {
+
+    public static final double STANDARD_SCHWELLE = 0.8;
+    private static final int HASHES = 128;
+    private static final int BATCH_SIZE = 1000;
+
+    //reden: shingles aus 5 wörtern, sehr kurze reden (z.b. nur eine zwischenfrage) zählen nicht
+    private static final int REDE_SHINGLE = 5;
+    private static final int REDE_MIN_SHINGLES = 30;
+    //kommentare sind kurz: 3 wörter, mindestens 3 shingles
+    private static final int KOMMENTAR_SHINGLE = 3;
+    private static final int KOMMENTAR_MIN_SHINGLES = 3;
+
+    private DuplikatSuche() {
+    }
+
+    public static Ergebnis<Rede> reden(Collection<Rede> reden, double schwelle) {
+        return suche(new ArrayList<>(reden), Rede::getText, REDE_SHINGLE, REDE_MIN_SHINGLES, schwelle);
+    }
+
+    public static Ergebnis<Kommentar> kommentare(Collection<Kommentar> kommentare, double schwelle) {
+        return suche(new ArrayList<>(kommentare), Kommentar::getText, KOMMENTAR_SHINGLE, KOMMENTAR_MIN_SHINGLES, schwelle);
+    }
+
+    static <T> Ergebnis<T> suche(List<T> alle, Function<T, String> text, int shingleLaenge, int minShingles, double schwelle) {
+        MinHash minHash = new MinHash(HASHES, shingleLaenge);
+        int[][] signaturen = IntStream.range(0, alle.size()).parallel()
+                .mapToObj(i -> minHash.signatur(text.apply(alle.get(i)), minShingles))
+                .toArray(int[][]::new);
+
+        //nur texte mit signatur kommen in den index, index i gehört zu elemente.get(i)
+        LshIndex index = LshIndex.fuerSchwelle(HASHES, schwelle);
+        List<T> elemente = new ArrayList<>();
+        for (int i = 0; i < signaturen.length; i++) {
+            if (signaturen[i] != null) {
+                index.add(signaturen[i]);
+                elemente.add(alle.get(i));
+            }
+        }
+        List<LshIndex.Paar> paare = index.aehnlichePaare(schwelle);
+        return new Ergebnis<>(elemente, paare, LshIndex.cluster(elemente.size(), paare), index);
+    }
+
+    /**
+     * gefundene paare und cluster, die indizes beziehen sich auf getElemente().
+     */
+    public static final class Ergebnis<T> {
+        private final List<T> elemente;
+        private final List<LshIndex.Paar> paare;
+        private final List<int[]> cluster;
+        private final LshIndex index;
+
+        Ergebnis(List<T> elemente, List<LshIndex.Paar> paare, List<int[]> cluster, LshIndex index) {
+            this.elemente = elemente;
+            this.paare = paare;
+            this.cluster = cluster;
+            this.index = index;
+        }
+
+        public List<T> getElemente() { return elemente; }
+        public List<LshIndex.Paar> getPaare() { return paare; }
+        public List<int[]> getCluster() { return cluster; }
+
+        //die größten cluster mit je bis zu fünf beispielen
+        public void print(String titel, Function<T, String> beschreibung, int n) {
+            int inClustern = cluster.stream().mapToInt(c -> c.length).sum();
+            System.out.printf("\n %s: %d texte geprüft (lsh %d bänder x %d zeilen), %d cluster mit %d texten\n",
+                    titel, elemente.size(), index.getBaender(), index.getZeilen(), cluster.size(), inClustern);
+            Map<Integer, Double> aehnlichkeit = new HashMap<>();
+            for (LshIndex.Paar p : paare) {
+                aehnlichkeit.merge(p.b, p.aehnlichkeit, Math::min);
+            }
+            for (int[] c : cluster.subList(0, Math.min(n, cluster.size()))) {
+                double min = 1.0;
+                for (int i : c) min = Math.min(min, aehnlichkeit.getOrDefault(i, 1.0));
+                System.out.printf("%4d texte, ähnlichkeit ab %.2f\n", c.length, min);
+                for (int k = 0; k < Math.min(5, c.length); k++) {
+                    System.out.println("      " + beschreibung.apply(elemente.get(c[k])));
+                }
+            }
+        }
+    }
+
+    /**
+     * speichert die paare fast gleicher reden als (a)-[:AEHNLICH_ZU {aehnlichkeit}]->(b).
+     * die AEHNLICH_ZU beziehungen aller untersuchten reden werden vorher gelöscht, damit paare aus einem
+     * früheren lauf, die jetzt unter der schwelle liegen, nicht stehen bleiben.
+     * @return anzahl der geschriebenen beziehungen
+     */
+    public static int speichereBeziehungen(GraphStore store, Ergebnis<Rede> ergebnis) {
+        List<CypherQuery> queries = new ArrayList<>();
+        //die batches laufen nacheinander, alle löschungen kommen vor dem ersten MERGE
+        for (Rede rede : ergebnis.getElemente()) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("id", rede.getId());
+            queries.add(new CypherQuery("MATCH (r:Rede {id: $id})-[d:AEHNLICH_ZU]-() DELETE d", params)
+                    .knoten("Rede").nurMatch()
+                    .entferneEingehende("AEHNLICH_ZU")
+                    .entferneAusgehende("AEHNLICH_ZU"));
+        }
+        int entfernen = queries.size();
+        for (LshIndex.Paar p : ergebnis.getPaare()) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("id", ergebnis.getElemente().get(p.a).getId());
+            params.put("zielId", ergebnis.getElemente().get(p.b).getId());
+            params.put("aehnlichkeit", p.aehnlichkeit);
+            queries.add(new CypherQuery(
+                    "MATCH (a:Rede {id: $id}) MATCH (b:Rede {id: $zielId}) " +
+                    "MERGE (a)-[r:AEHNLICH_ZU]->(b) SET r.aehnlichkeit = $aehnlichkeit", params)
+                    .knoten("Rede").nurMatch()
+                    .relation("AEHNLICH_ZU", "Rede", "zielId", "aehnlichkeit"));
+        }
+        for (int i = 0; i < queries.size(); i += BATCH_SIZE) {
+            store.executeWriteBatch(queries.subList(i, Math.min(i + BATCH_SIZE, queries.size())));
+        }
+        return queries.size() - entfernen;
+    }
+}
@@ -0,0 +1,106 @@
+package de.bundestag.text;
+
+import java.util.Arrays;
+
+/**
+ * zähler int -> int mit offener adressierung auf primitiven arrays, ohne Integer objekte pro eintrag.
+ * schlüssel sind wort ids (>= 0). nicht threadsicher, jeder thread füllt seine eigenen zähler und
+ * die teilergebnisse werden mit merge zusammengeführt.
+ */
+public final class IntZaehler {
+
+    private static final int LEER = -1;
+
+    private int[] schluessel;
+    private int[] werte;
+    private int groesse;
+    private long summe;
+
+    public IntZaehler() {
+        this(16);
+    }
+
+    public IntZaehler(int kapazitaet) {
+        int n = Integer.highestOneBit(Math.max(4, kapazitaet) * 2 - 1);
+        schluessel = new int[n];
+        werte = new int[n];
+        Arrays.fill(schluessel, LEER);
+    }
+
+    public void add(int key, int anzahl) {
+        int i = platz(key);
+        if (schluessel[i] == LEER) {
+            schluessel[i] = key;
+            groesse++;
+            if (groesse * 4 > schluessel.length * 3) {
+                werte[i] = anzahl;
+                summe += anzahl;
+                wachse();
+                return;
+            }
+        }
+        werte[i] += anzahl;
+        summe += anzahl;
+    }
+
+    public int get(int key) {
+        int i = platz(key);
+        return schluessel[i] == LEER ? 0 : werte[i];
+    }
+
+    public void merge(IntZaehler andere) {
+        for (int i = 0; i < andere.schluessel.length; i++) {
+            if (andere.schluessel[i] != LEER) {
+                add(andere.schluessel[i], andere.werte[i]);
+            }
+        }
+    }
+
+    public void forEach(Besucher besucher) {
+        for (int i = 0; i < schluessel.length; i++) {
+            if (schluessel[i] != LEER) {
+                besucher.besuche(schluessel[i], werte[i]);
+            }
+        }
+    }
+
+    //anzahl verschiedener schlüssel
+    public int size() {
+        return groesse;
+    }
+
+    //summe aller werte
+    public long getSumme() {
+        return summe;
+    }
+
+    //lineares sondieren ab dem gemischten hash
+    private int platz(int key) {
+        int maske = schluessel.length - 1;
+        int h = key * 0x9E3779B9;
+        int i = (h ^ (h >>> 16)) & maske;
+        while (schluessel[i] != LEER && schluessel[i] != key) {
+            i = (i + 1) & maske;
+        }
+        return i;
+    }
+
+    private void wachse() {
+        int[] alteSchluessel = schluessel;
+        int[] alteWerte = werte;
+        schluessel = new int[alteSchluessel.length * 2];
+        werte = new int[alteSchluessel.length * 2];
+        Arrays.fill(schluessel, LEER);
+        for (int i = 0; i < alteSchluessel.length; i++) {
+            if (alteSchluessel[i] != LEER) {
+                int j = platz(alteSchluessel[i]);
+                schluessel[j] = alteSchluessel[i];
+                werte[j] = alteWerte[i];
+            }
+        }
+    }
+
+    public interface Besucher {
+        void besuche(int key, int anzahl);
+    }
+}
@@ -0,0 +1,313 @@
+package de.bundestag.text;
+
+import de.bundestag.factory.PortalFactory;
+import de.bundestag.metrics.MetricsRegistry;
+import de.bundestag.model.Abgeordneter;
+import de.bundestag.model.CypherQuery;
+import de.bundestag.model.Fraktion;
+import de.bundestag.model.Kommentar;
+import de.bundestag.model.Rede;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * zerlegt die kommentare einer rede in ereignisse: wer (fraktion oder abgeordneter) reagiert wie
+ * (beifall, zwischenruf, heiterkeit, widerspruch, lachen). ein kommentar besteht aus abschnitten,
+ * die mit "–" getrennt sind, z.b. "(Beifall bei der SPD – Dr. Bernd Baumann [AfD]: Das stimmt nicht!)".
+ *
+ * gesucht wird nur im kopf eines abschnitts (vor dem ersten ":"), der zitierte zwischenruf selbst wird
+ * nicht ausgewertet. schlüsselwörter, fraktionsnamen und die namen aller bekannten abgeordneten stehen
+ * in einem AhoCorasick automaten, ein abschnitt wird in einem durchlauf gelesen. die fraktion in eckigen
+ * klammern hinter einem erkannten namen gehört zur person, ohne erkannten namen zählt sie als akteur.
+ *
+ * die ereignisse werden pro akteur, typ und rede zusammengezählt und als beziehung
+ * (Fraktion|Abgeordneter)-[:BEIFALL {anzahl}]->(Rede) usw. gespeichert.
+ */
+public class KommentarAnalyse {
+
+    public enum Typ { BEIFALL, ZWISCHENRUF, HEITERKEIT, WIDERSPRUCH, LACHEN }
+
+    private static final Map<String, Typ> SCHLUESSELWOERTER = new LinkedHashMap<>();
+    //schreibweisen in den protokollen -> fraktions id wie in XMLProcessor.normalizeFraktion
+    private static final Map<String, String> FRAKTIONEN = new LinkedHashMap<>();
+
+    static {
+        SCHLUESSELWOERTER.put("Beifall", Typ.BEIFALL);
+        SCHLUESSELWOERTER.put("Zuruf", Typ.ZWISCHENRUF);
+        SCHLUESSELWOERTER.put("Zurufe", Typ.ZWISCHENRUF);
+        SCHLUESSELWOERTER.put("Gegenruf", Typ.ZWISCHENRUF);
+        SCHLUESSELWOERTER.put("Gegenrufe", Typ.ZWISCHENRUF);
+        SCHLUESSELWOERTER.put("Heiterkeit", Typ.HEITERKEIT);
+        SCHLUESSELWOERTER.put("Widerspruch", Typ.WIDERSPRUCH);
+        SCHLUESSELWOERTER.put("Lachen", Typ.LACHEN);
+
+        FRAKTIONEN.put("CDU/CSU", "CDU/CSU");
+        FRAKTIONEN.put("SPD", "SPD");
+        FRAKTIONEN.put("FDP", "FDP");
+        FRAKTIONEN.put("AfD", "AfD");
+        FRAKTIONEN.put("BSW", "BSW");
+        FRAKTIONEN.put("BÜNDNIS 90/DIE GRÜNEN", "BÜNDNIS 90/DIE GRÜNEN");
+        FRAKTIONEN.put("BÜNDNISSES 90/DIE GRÜNEN", "BÜNDNIS 90/DIE GRÜNEN");
+        FRAKTIONEN.put("GRÜNEN", "BÜNDNIS 90/DIE GRÜNEN");
+        FRAKTIONEN.put("DIE LINKE", "DIE LINKE");
+        FRAKTIONEN.put("Die Linke", "DIE LINKE");
+        FRAKTIONEN.put("LINKEN", "DIE LINKE");
+        FRAKTIONEN.put("Linken", "DIE LINKE");
+        FRAKTIONEN.put("fraktionslos", "Fraktionslos");
+        FRAKTIONEN.put("fraktionslosen", "Fraktionslos");
+        FRAKTIONEN.put("Fraktionslos", "Fraktionslos");
+    }
+
+    //akteur label und typ werden eingesetzt
+    private static final String BEZIEHUNG_CYPHER =
+            "MATCH (a:%s {id: $id}) MATCH (r:Rede {id: $zielId}) MERGE (a)-[b:%s]->(r) SET b.anzahl = $anzahl";
+    private static final String ENTFERNEN_CYPHER = "MATCH ()-[b:" +
+            Arrays.stream(Typ.values()).map(Typ::name).collect(Collectors.joining("|")) + "]->(r:Rede {id: $id}) DELETE b";
+
+    //muster -> Typ, Fraktion oder Abgeordneter
+    private final AhoCorasick<Object> automat;
+
+    private KommentarAnalyse(AhoCorasick<Object> automat) {
+        this.automat = automat;
+    }
+
+    /**
+     * baut den automaten aus den fraktionen und abgeordneten der factory, nach dem einlesen aufrufen.
+     * abgeordnete mit gleichem namen werden dem zuerst gefundenen zugeordnet.
+     */
+    public static KommentarAnalyse fuer(PortalFactory factory) {
+        Map<String, Object> muster = new HashMap<>(SCHLUESSELWOERTER);
+        for (Map.Entry<String, String> e : FRAKTIONEN.entrySet()) {
+            Fraktion f = factory.getFraktionById(e.getValue());
+            if (f != null) {
+                muster.put(e.getKey(), f);
+            }
+        }
+        factory.getAllAbgeordnete().stream()
+                .sorted((a, b) -> a.getId().compareTo(b.getId()))
+                .filter(a -> a.getVorname() != null && !a.getVorname().isEmpty() && a.getNachname() != null)
+                .forEach(a -> muster.putIfAbsent(a.getVorname() + " " + a.getNachname(), a));
+        return new KommentarAnalyse(AhoCorasick.aus(muster));
+    }
+
+    /**
+     * zerlegt einen kommentar in seine ereignisse, abschnitte ohne erkannten akteur (z.b. "(Beifall)")
+     * liefern keine ereignisse.
+     */
+    public List<Ereignis> zerlege(Kommentar kommentar) {
+        String text = kommentar.getText();
+        List<Ereignis> ereignisse = new ArrayList<>();
+        if (text == null) {
+            return ereignisse;
+        }
+        int von = text.startsWith("(") ? 1 : 0;
+        int ende = text.endsWith(")") ? text.length() - 1 : text.length();
+        while (von < ende) {
+            int bis = naechsterAbschnitt(text, von, ende);
+            abschnitt(kommentar, text, von, bis, ereignisse);
+            von = bis + 1;
+        }
+        return ereignisse;
+    }
+
+    //alle ereignisse der kommentare, parallel zerlegt
+    public List<Ereignis> zerlegeAlle(Collection<Kommentar> kommentare) {
+        List<Ereignis> ereignisse = kommentare.parallelStream()
+                .flatMap(k -> zerlege(k).stream())
+                .collect(Collectors.toList());
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        Map<Typ, Long> proTyp = new EnumMap<>(Typ.class);
+        for (Ereignis e : ereignisse) proTyp.merge(e.typ, 1L, Long::sum);
+        proTyp.forEach((typ, anzahl) -> metrics
+                .counter("kommentar_ereignisse_total", "Aus Kommentaren erkannte Reaktionen und Zwischenrufe", "typ", typ.name())
+                .add(anzahl));
+        return ereignisse;
+    }
+
+    private void abschnitt(Kommentar kommentar, String text, int von, int bis, List<Ereignis> ereignisse) {
+        int doppelpunkt = text.indexOf(':', von);
+        int kopfEnde = doppelpunkt >= 0 && doppelpunkt < bis ? doppelpunkt : bis;
+
+        Set<Typ> typen = EnumSet.noneOf(Typ.class);
+        Set<Object> akteure = new LinkedHashSet<>();
+        int nameEnde = -1;
+        for (AhoCorasick.Treffer<Object> t : automat.finde(text, von, kopfEnde)) {
+            if (t.wert instanceof Typ) {
+                typen.add((Typ) t.wert);
+            } else if (t.wert instanceof Abgeordneter) {
+                akteure.add(t.wert);
+                nameEnde = t.ende;
+            } else {
+                int klammer = text.lastIndexOf('[', t.start);
+                boolean inKlammern = klammer >= von && text.lastIndexOf(']', t.start) < klammer;
+                //"Name [Fraktion]" mit erkanntem namen: die fraktion gehört zur person
+                if (inKlammern && nameEnde >= 0 && nameEnde <= klammer && text.substring(nameEnde, klammer).isBlank()) {
+                    continue;
+                }
+                akteure.add(t.wert);
+            }
+        }
+        //"Name [Fraktion]: text" ohne schlüsselwort ist ein zwischenruf
+        if (typen.isEmpty() && kopfEnde < bis) {
+            typen.add(Typ.ZWISCHENRUF);
+        }
+        for (Typ typ : typen) {
+            for (Object akteur : akteure) {
+                ereignisse.add(new Ereignis(typ, kommentar, akteur));
+            }
+        }
+    }
+
+    //abschnitte sind mit gedankenstrich getrennt, bindestriche in namen bleiben erhalten
+    private static int naechsterAbschnitt(String text, int von, int ende) {
+        for (int i = von; i < ende; i++) {
+            char c = text.charAt(i);
+            if (c == '–' || c == '—') {
+                return i;
+            }
+        }
+        return ende;
+    }
+
+    /**
+     * eine reaktion: genau einer von fraktion und abgeordneter ist gesetzt.
+     */
+    public static final class Ereignis {
+        public final Typ typ;
+        public final Kommentar kommentar;
+        public final Fraktion fraktion;
+        public final Abgeordneter abgeordneter;
+
+        Ereignis(Typ typ, Kommentar kommentar, Object akteur) {
+            this.typ = typ;
+            this.kommentar = kommentar;
+            this.fraktion = akteur instanceof Fraktion ? (Fraktion) akteur : null;
+            this.abgeordneter = akteur instanceof Abgeordneter ? (Abgeordneter) akteur : null;
+        }
+
+        public String getAkteurId() {
+            return fraktion != null ? fraktion.getId() : abgeordneter.getId();
+        }
+
+        public String getAkteurLabel() {
+            return fraktion != null ? "Fraktion" : "Abgeordneter";
+        }
+
+        @Override
+        public String toString() {
+            return typ + " " + (fraktion != null ? fraktion.getId() : abgeordneter.getName());
+        }
+    }
+
+    /**
+     * fasst die ereignisse pro akteur, typ und rede zusammen und erzeugt je eine beziehung
+     * (akteur)-[:TYP {anzahl}]->(Rede). die anzahl wird gesetzt, nicht addiert, erneutes schreiben ist harmlos.
+     */
+    public static List<CypherQuery> beziehungen(Collection<Ereignis> ereignisse) {
+        Map<String, Long> anzahl = new LinkedHashMap<>();
+        Map<String, Ereignis> beispiel = new HashMap<>();
+        for (Ereignis e : ereignisse) {
+            Rede rede = e.kommentar.getRede();
+            if (rede == null) continue;
+            String schluessel = e.getAkteurLabel() + "\u0000" + e.getAkteurId() + "\u0000" + e.typ + "\u0000" + rede.getId();
+            anzahl.merge(schluessel, 1L, Long::sum);
+            beispiel.putIfAbsent(schluessel, e);
+        }
+
+        List<CypherQuery> queries = new ArrayList<>(anzahl.size());
+        for (Map.Entry<String, Long> eintrag : anzahl.entrySet()) {
+            Ereignis e = beispiel.get(eintrag.getKey());
+            Map<String, Object> params = new HashMap<>();
+            params.put("id", e.getAkteurId());
+            params.put("zielId", e.kommentar.getRede().getId());
+            params.put("anzahl", eintrag.getValue());
+            queries.add(new CypherQuery(String.format(BEZIEHUNG_CYPHER, e.getAkteurLabel(), e.typ), params)
+                    .knoten(e.getAkteurLabel()).nurMatch()
+                    .relation(e.typ.name(), "Rede", "zielId", "anzahl"));
+        }
+        return queries;
+    }
+
+    /**
+     * löscht die bestehenden reaktionen der reden, vor beziehungen() ausführen. sonst bleiben beziehungen
+     * stehen, die es nach einer änderung der kommentare oder der auswertung nicht mehr gibt.
+     */
+    public static List<CypherQuery> entferneBeziehungen(Collection<String> redeIds) {
+        String[] typen = Arrays.stream(Typ.values()).map(Typ::name).toArray(String[]::new);
+        List<CypherQuery> queries = new ArrayList<>(redeIds.size());
+        for (String redeId : redeIds) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("id", redeId);
+            queries.add(new CypherQuery(ENTFERNEN_CYPHER, params)
+                    .knoten("Rede").nurMatch()
+                    .entferneEingehende(typen));
+        }
+        return queries;
+    }
+
+    /**
+     * version der auswertung aus schlüsselwörtern, fraktionsnamen und cypher. ändert sie sich, müssen
+     * die reaktionen aller reden einmal neu geschrieben werden.
+     */
+    public static String version() {
+        return CypherQuery.hashHex("SHA-1", SCHLUESSELWOERTER + "\u0000" + FRAKTIONEN + "\u0000"
+                + BEZIEHUNG_CYPHER + "\u0000" + ENTFERNEN_CYPHER);
+    }
+
+    /**
+     * übersicht: ereignisse pro typ, wer wem beifall gibt (fraktion zum zeitpunkt der rede) und die
+     * häufigsten zwischenrufer.
+     */
+    public void printReaktionen(PortalFactory factory) {
+        long start = System.nanoTime();
+        List<Ereignis> ereignisse = zerlegeAlle(factory.getAllKommentare());
+        System.out.printf("\n reaktionen aus %d kommentaren: %d ereignisse in %.2f s (%d muster)\n",
+                factory.getAllKommentare().size(), ereignisse.size(), (System.nanoTime() - start) / 1e9, automat.size());
+
+        Map<Typ, Long> proTyp = new EnumMap<>(Typ.class);
+        Map<String, Map<String, Long>> beifall = new TreeMap<>();
+        Map<Abgeordneter, Long> zwischenrufer = new HashMap<>();
+        for (Ereignis e : ereignisse) {
+            proTyp.merge(e.typ, 1L, Long::sum);
+            Rede rede = e.kommentar.getRede();
+            if (e.typ == Typ.BEIFALL && e.fraktion != null && rede != null && rede.getFraktionId() != null) {
+                beifall.computeIfAbsent(e.fraktion.getId(), k -> new TreeMap<>()).merge(rede.getFraktionId(), 1L, Long::sum);
+            }
+            if (e.typ == Typ.ZWISCHENRUF && e.abgeordneter != null) {
+                zwischenrufer.merge(e.abgeordneter, 1L, Long::sum);
+            }
+        }
+        proTyp.forEach((typ, n) -> System.out.printf("  %-12s %8d\n", typ, n));
+
+        System.out.println("\n beifall von (zeile) für reden von (spalte)");
+        List<String> spalten = beifall.values().stream().flatMap(m -> m.keySet().stream())
+                .distinct().sorted().collect(Collectors.toList());
+        StringBuilder kopf = new StringBuilder(String.format("  %-22s", ""));
+        for (String s : spalten) kopf.append(String.format(" %9.9s", s));
+        System.out.println(kopf);
+        beifall.forEach((von, fuer) -> {
+            StringBuilder zeile = new StringBuilder(String.format("  %-22.22s", von));
+            for (String s : spalten) zeile.append(String.format(" %9d", fuer.getOrDefault(s, 0L)));
+            System.out.println(zeile);
+        });
+
+        System.out.println("\n häufigste zwischenrufer");
+        zwischenrufer.entrySet().stream()
+                .sorted(Map.Entry.<Abgeordneter, Long>comparingByValue().reversed())
+                .limit(10)
+                .forEach(e -> System.out.printf("  %-30s %-22s %6d\n", e.getKey().getName(),
+                        e.getKey().getFraktion() != null ? e.getKey().getFraktion().getId() : "", e.getValue()));
+    }
+}
@@ -0,0 +1,153 @@
+package de.bundestag.text;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * locality sensitive hashing über minhash signaturen: die signatur wird in bänder zu je
+ * {@code zeilen} werten zerlegt, texte mit einem gleichen band landen im selben eimer und sind
+ * kandidaten. nur kandidaten werden verglichen, der aufwand wächst damit etwa linear statt
+ * quadratisch mit der anzahl texte.
+ *
+ * in einem eimer wird jeder eintrag nur mit dem ersten verglichen (stern), sonst würden große
+ * eimer (z.b. hunderte gleiche zwischenrufe) wieder quadratisch. einträge, die schon im selben
+ * cluster sind, werden übersprungen.
+ */
+public final class LshIndex {
+
+    private final int baender;
+    private final int zeilen;
+    private final List<int[]> signaturen = new ArrayList<>();
+
+    public LshIndex(int baender, int zeilen) {
+        this.baender = baender;
+        this.zeilen = zeilen;
+    }
+
+    /**
+     * wählt bänder und zeilen so, dass die lsh schwelle (1/b)^(1/r) mindestens 0.1 unter der
+     * gewünschten ähnlichkeit liegt, paare an der schwelle werden so fast immer kandidaten.
+     */
+    public static LshIndex fuerSchwelle(int anzahlHashes, double schwelle) {
+        int besteZeilen = 1;
+        for (int r = 1; r <= anzahlHashes; r++) {
+            if (anzahlHashes % r != 0) continue;
+            double lshSchwelle = Math.pow(1.0 / (anzahlHashes / r), 1.0 / r);
+            if (lshSchwelle <= schwelle - 0.1) {
+                besteZeilen = r;
+            }
+        }
+        return new LshIndex(anzahlHashes / besteZeilen, besteZeilen);
+    }
+
+    //fügt eine signatur hinzu und liefert ihren index
+    public int add(int[] signatur) {
+        if (signatur.length != baender * zeilen) {
+            throw new IllegalArgumentException("Signatur hat " + signatur.length + " Werte, erwartet " + baender * zeilen);
+        }
+        signaturen.add(signatur);
+        return signaturen.size() - 1;
+    }
+
+    public int size() {
+        return signaturen.size();
+    }
+
+    public int getBaender() { return baender; }
+    public int getZeilen() { return zeilen; }
+
+    /**
+     * alle bestätigten paare mit geschätzter ähnlichkeit ab der schwelle, die zusammen die
+     * cluster bilden (höchstens ein paar weniger als einträge pro cluster).
+     */
+    public List<Paar> aehnlichePaare(double schwelle) {
+        int[] eltern = new int[signaturen.size()];
+        for (int i = 0; i < eltern.length; i++) eltern[i] = i;
+
+        List<Paar> paare = new ArrayList<>();
+        for (int band = 0; band < baender; band++) {
+            Map<Long, List<Integer>> eimer = new HashMap<>();
+            for (int i = 0; i < signaturen.size(); i++) {
+                eimer.computeIfAbsent(bandSchluessel(signaturen.get(i), band), k -> new ArrayList<>(1)).add(i);
+            }
+            for (List<Integer> kandidaten : eimer.values()) {
+                if (kandidaten.size() < 2) continue;
+                int erster = kandidaten.get(0);
+                for (int k = 1; k < kandidaten.size(); k++) {
+                    int anderer = kandidaten.get(k);
+                    if (finde(eltern, erster) == finde(eltern, anderer)) continue;
+                    double aehnlichkeit = MinHash.aehnlichkeit(signaturen.get(erster), signaturen.get(anderer));
+                    if (aehnlichkeit >= schwelle) {
+                        eltern[finde(eltern, anderer)] = finde(eltern, erster);
+                        paare.add(new Paar(erster, anderer, aehnlichkeit));
+                    }
+                }
+            }
+        }
+        return paare;
+    }
+
+    /**
+     * fasst die paare zu clustern zusammen, größte zuerst, jedes cluster aufsteigend sortiert.
+     */
+    public static List<int[]> cluster(int anzahl, List<Paar> paare) {
+        int[] eltern = new int[anzahl];
+        for (int i = 0; i < anzahl; i++) eltern[i] = i;
+        for (Paar p : paare) {
+            eltern[finde(eltern, p.b)] = finde(eltern, p.a);
+        }
+        Map<Integer, List<Integer>> gruppen = new HashMap<>();
+        for (Paar p : paare) {
+            gruppen.computeIfAbsent(finde(eltern, p.a), k -> new ArrayList<>());
+        }
+        for (int i = 0; i < anzahl; i++) {
+            List<Integer> gruppe = gruppen.get(finde(eltern, i));
+            if (gruppe != null) gruppe.add(i);
+        }
+        List<int[]> cluster = new ArrayList<>();
+        for (List<Integer> gruppe : gruppen.values()) {
+            cluster.add(gruppe.stream().mapToInt(Integer::intValue).sorted().toArray());
+        }
+        cluster.sort((x, y) -> x.length != y.length ? Integer.compare(y.length, x.length) : Integer.compare(x[0], y[0]));
+        return cluster;
+    }
+
+    private long bandSchluessel(int[] signatur, int band) {
+        long h = band;
+        for (int i = band * zeilen; i < (band + 1) * zeilen; i++) {
+            h = h * 0x9E3779B97F4A7C15L + signatur[i];
+        }
+        return h ^ (h >>> 29);
+    }
+
+    //wurzel mit pfadhalbierung
+    private static int finde(int[] eltern, int i) {
+        while (eltern[i] != i) {
+            eltern[i] = eltern[eltern[i]];
+            i = eltern[i];
+        }
+        return i;
+    }
+
+    /**
+     * zwei einträge mit geschätzter jaccard ähnlichkeit.
+     */
+    public static final class Paar {
+        public final int a;
+        public final int b;
+        public final double aehnlichkeit;
+
+        Paar(int a, int b, double aehnlichkeit) {
+            this.a = a;
+            this.b = b;
+            this.aehnlichkeit = aehnlichkeit;
+        }
+
+        @Override
+        public String toString() {
+            return a + "~" + b + " (" + String.format("%.2f", aehnlichkeit) + ")";
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package de.bundestag.text;
+
+import java.util.Arrays;
+
+/**
+ * minhash signaturen über wort shingles eines textes. der anteil gleicher stellen zweier signaturen
+ * schätzt die jaccard ähnlichkeit der shingle mengen. anders als der Tokenizer behält die zerlegung
+ * stoppwörter, sonst würden kurze wiederholte formulierungen nicht erkannt.
+ */
+public final class MinHash {
+
+    private final int anzahlHashes;
+    private final int shingleLaenge;
+    private final long[] seeds;
+
+    /**
+     * @param anzahlHashes länge der signatur, der fehler der schätzung ist etwa 1 / sqrt(anzahlHashes)
+     * @param shingleLaenge wörter pro shingle
+     */
+    public MinHash(int anzahlHashes, int shingleLaenge) {
+        this.anzahlHashes = anzahlHashes;
+        this.shingleLaenge = shingleLaenge;
+        this.seeds = new long[anzahlHashes];
+        long s = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < anzahlHashes; i++) {
+            s += 0x9E3779B97F4A7C15L;
+            seeds[i] = mische(s);
+        }
+    }
+
+    public int getAnzahlHashes() {
+        return anzahlHashes;
+    }
+
+    /**
+     * signatur des textes oder null, wenn er weniger als minShingles shingles hat.
+     */
+    public int[] signatur(String text, int minShingles) {
+        long[] shingles = shingles(text);
+        if (shingles.length < minShingles) {
+            return null;
+        }
+        int[] signatur = new int[anzahlHashes];
+        Arrays.fill(signatur, Integer.MAX_VALUE);
+        for (long shingle : shingles) {
+            for (int i = 0; i < anzahlHashes; i++) {
+                int h = (int) (mische(shingle ^ seeds[i]) >>> 33);
+                if (h < signatur[i]) {
+                    signatur[i] = h;
+                }
+            }
+        }
+        return signatur;
+    }
+
+    //geschätzte jaccard ähnlichkeit zweier signaturen
+    public static double aehnlichkeit(int[] a, int[] b) {
+        int gleich = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) gleich++;
+        }
+        return (double) gleich / a.length;
+    }
+
+    //hashes aller shingles aus shingleLaenge aufeinanderfolgenden wörtern, doppelte werden entfernt
+    long[] shingles(String text) {
+        if (text == null || text.isEmpty()) {
+            return new long[0];
+        }
+        long[] woerter = new long[64];
+        int n = 0;
+        long h = 0;
+        boolean imWort = false;
+        for (int i = 0, laenge = text.length(); i <= laenge; i++) {
+            char c = i < laenge ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (!imWort) {
+                    h = 0xcbf29ce484222325L;
+                    imWort = true;
+                }
+                h = (h ^ Character.toLowerCase(c)) * 0x100000001b3L;
+            } else if (imWort) {
+                if (n == woerter.length) {
+                    woerter = Arrays.copyOf(woerter, n * 2);
+                }
+                woerter[n++] = h;
+                imWort = false;
+            }
+        }
+        if (n < shingleLaenge) {
+            return new long[0];
+        }
+        long[] shingles = new long[n - shingleLaenge + 1];
+        for (int i = 0; i < shingles.length; i++) {
+            long s = woerter[i];
+            for (int j = 1; j < shingleLaenge; j++) {
+                s = s * 0x9E3779B97F4A7C15L + woerter[i + j];
+            }
+            shingles[i] = s;
+        }
+        return Arrays.stream(shingles).distinct().toArray();
+    }
+
+    //murmur3 finalizer
+    private static long mische(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,417 @@
+package de.bundestag.text;
+
+import de.bundestag.factory.PortalFactory;
+import de.bundestag.model.Fraktion;
+import de.bundestag.model.Rede;
+import de.bundestag.sketch.HyperLogLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * worthäufigkeiten der reden pro abgeordneten, fraktion (zum zeitpunkt der rede), sitzung und monat,
+ * dazu die typischen wörter einer gruppe im vergleich zum rest des korpus.
+ *
+ * berechnet wird als map-reduce über einen parallelen stream: jeder teil zählt seine reden in eigene
+ * IntZaehler pro gruppe, die teile werden danach zusammengeführt. die wörter bekommen ids aus einem
+ * gemeinsamen wörterbuch. das ergebnis wird mit einer signatur des korpus gespeichert, solange sich
+ * die reden nicht ändern, wird beim nächsten lauf nur die datei gelesen.
+ *
+ * typische wörter: log-odds mit informativem dirichlet prior (monroe, colaresi, quinn 2008) als z-wert,
+ * oder tf-idf mit den gruppen derselben dimension als dokumente.
+ */
+public class TermStatistik {
+
+    private static final Path STANDARD_DATEI = Paths.get("data/terme/termstatistik.bin.gz");
+    private static final int MAGIC = 0x5445524D; // "TERM"
+    private static final int FORMAT = 1;
+
+    //seltenere wörter einer gruppe werden bei den typischen wörtern übersprungen
+    private static final int MIN_ANZAHL = 5;
+    //stärke des priors in pseudo wörtern, verteilt nach der häufigkeit im ganzen korpus
+    private static final double PRIOR = 1000;
+
+    public enum Dimension { ABGEORDNETER, FRAKTION, SITZUNG, MONAT }
+
+    private final String[] woerter;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final IntZaehler gesamt;
+    private final Map<Dimension, Map<String, IntZaehler>> gruppen;
+    private final long signatur;
+    private final Map<Dimension, IntZaehler> dokumentHaeufigkeit = new EnumMap<>(Dimension.class);
+
+    private TermStatistik(String[] woerter, IntZaehler gesamt, Map<Dimension, Map<String, IntZaehler>> gruppen, long signatur) {
+        this.woerter = woerter;
+        this.gesamt = gesamt;
+        this.gruppen = gruppen;
+        this.signatur = signatur;
+        for (int i = 0; i < woerter.length; i++) {
+            ids.put(woerter[i], i);
+        }
+    }
+
+    public static TermStatistik berechne(PortalFactory factory) {
+        return berechne(factory, STANDARD_DATEI);
+    }
+
+    /**
+     * liest das gespeicherte ergebnis, wenn es zu den reden der factory passt, sonst wird neu gezählt
+     * und gespeichert.
+     * @param datei gespeichertes ergebnis oder null ohne persistenz
+     */
+    public static TermStatistik berechne(PortalFactory factory, Path datei) {
+        Collection<Rede> reden = factory.getAllReden();
+        long signatur = signatur(reden);
+        if (datei != null && Files.exists(datei)) {
+            TermStatistik gespeichert = lade(datei);
+            if (gespeichert != null && gespeichert.signatur == signatur) {
+                return gespeichert;
+            }
+        }
+
+        Woerterbuch woerterbuch = new Woerterbuch();
+        Teil teil = reden.parallelStream().collect(() -> new Teil(woerterbuch), Teil::add, Teil::merge);
+        TermStatistik statistik = new TermStatistik(woerterbuch.alsArray(), teil.gesamt, teil.gruppen, signatur);
+        if (datei != null) {
+            statistik.speichere(datei);
+        }
+        return statistik;
+    }
+
+    //ändert sich bei jeder geänderten, neuen oder gelöschten rede und bei geänderter zuordnung
+    private static long signatur(Collection<Rede> reden) {
+        return reden.parallelStream().mapToLong(r -> HyperLogLog.hash64(r.getId() + "|" + r.getTextHash()
+                + "|" + gruppe(r, Dimension.ABGEORDNETER) + "|" + gruppe(r, Dimension.FRAKTION)
+                + "|" + gruppe(r, Dimension.SITZUNG) + "|" + gruppe(r, Dimension.MONAT))).sum() + reden.size();
+    }
+
+    private static String gruppe(Rede rede, Dimension dimension) {
+        switch (dimension) {
+            case ABGEORDNETER:
+                return rede.getRednerPerson() != null ? rede.getRednerPerson().getId() : null;
+            case FRAKTION:
+                return rede.getFraktionId();
+            case SITZUNG:
+                return rede.getSitzung() != null ? rede.getSitzung().getId() : null;
+            default:
+                LocalDate datum = rede.getDatum() != null ? rede.getDatum()
+                        : rede.getSitzung() != null ? rede.getSitzung().getDatum() : null;
+                return datum != null ? String.format("%d-%02d", datum.getYear(), datum.getMonthValue()) : null;
+        }
+    }
+
+    // --- abfragen ---
+
+    public Set<String> getGruppen(Dimension dimension) {
+        return gruppen.get(dimension).keySet();
+    }
+
+    public long getWortAnzahl() {
+        return gesamt.getSumme();
+    }
+
+    public int getVokabular() {
+        return woerter.length;
+    }
+
+    //wie oft ein wort im ganzen korpus vorkommt
+    public int anzahl(String wort) {
+        Integer id = ids.get(Tokenizer.normalisiere(wort));
+        return id != null ? gesamt.get(id) : 0;
+    }
+
+    //die häufigsten wörter einer gruppe
+    public List<Term> haeufigste(Dimension dimension, String gruppe, int n) {
+        IntZaehler zaehler = gruppen.get(dimension).get(gruppe);
+        if (zaehler == null) {
+            return List.of();
+        }
+        return beste(zaehler, n, 0, (id, anzahl) -> anzahl);
+    }
+
+    /**
+     * typische wörter nach log-odds mit informativem dirichlet prior. der wert ist der z-wert des
+     * unterschieds zwischen der gruppe und dem rest des korpus.
+     */
+    public List<Term> typischLogOdds(Dimension dimension, String gruppe, int n) {
+        IntZaehler zaehler = gruppen.get(dimension).get(gruppe);
+        if (zaehler == null) {
+            return List.of();
+        }
+        double gesamtSumme = gesamt.getSumme();
+        double nGruppe = zaehler.getSumme();
+        double nRest = gesamtSumme - nGruppe;
+        return beste(zaehler, n, MIN_ANZAHL, (id, yGruppe) -> {
+            double alpha = PRIOR * gesamt.get(id) / gesamtSumme;
+            double yRest = gesamt.get(id) - yGruppe;
+            double delta = Math.log((yGruppe + alpha) / (nGruppe + PRIOR - yGruppe - alpha))
+                    - Math.log((yRest + alpha) / (nRest + PRIOR - yRest - alpha));
+            double varianz = 1 / (yGruppe + alpha) + 1 / (yRest + alpha);
+            return delta / Math.sqrt(varianz);
+        });
+    }
+
+    /**
+     * typische wörter nach tf-idf, jede gruppe der dimension ist ein dokument.
+     */
+    public List<Term> typischTfIdf(Dimension dimension, String gruppe, int n) {
+        IntZaehler zaehler = gruppen.get(dimension).get(gruppe);
+        if (zaehler == null) {
+            return List.of();
+        }
+        IntZaehler df = dokumentHaeufigkeit(dimension);
+        double dokumente = gruppen.get(dimension).size();
+        double summe = zaehler.getSumme();
+        return beste(zaehler, n, MIN_ANZAHL, (id, anzahl) -> anzahl / summe * Math.log(dokumente / df.get(id)));
+    }
+
+    private synchronized IntZaehler dokumentHaeufigkeit(Dimension dimension) {
+        return dokumentHaeufigkeit.computeIfAbsent(dimension, d -> {
+            IntZaehler df = new IntZaehler(woerter.length);
+            for (IntZaehler zaehler : gruppen.get(d).values()) {
+                zaehler.forEach((id, anzahl) -> df.add(id, 1));
+            }
+            return df;
+        });
+    }
+
+    private interface Bewertung {
+        double wert(int id, int anzahl);
+    }
+
+    //die n wörter mit dem höchsten wert, gleichstand nach dem wort
+    private List<Term> beste(IntZaehler zaehler, int n, int minAnzahl, Bewertung bewertung) {
+        Comparator<Term> ordnung = Comparator.comparingDouble(Term::getWert).thenComparing(Term::getWort, Comparator.reverseOrder());
+        PriorityQueue<Term> top = new PriorityQueue<>(ordnung);
+        zaehler.forEach((id, anzahl) -> {
+            if (anzahl < minAnzahl) {
+                return;
+            }
+            Term term = new Term(woerter[id], anzahl, bewertung.wert(id, anzahl));
+            if (top.size() < n) {
+                top.add(term);
+            } else if (ordnung.compare(term, top.peek()) > 0) {
+                top.poll();
+                top.add(term);
+            }
+        });
+        List<Term> ergebnis = new ArrayList<>(top);
+        ergebnis.sort(ordnung.reversed());
+        return ergebnis;
+    }
+
+    //typische wörter jeder fraktion
+    public void printFraktionen(PortalFactory factory) {
+        System.out.println("\n typische wörter pro fraktion (log-odds gegen den rest, " + getWortAnzahl() + " wörter, "
+                + getVokabular() + " verschiedene)");
+        for (String id : new TreeMap<>(gruppen.get(Dimension.FRAKTION)).keySet()) {
+            Fraktion f = factory.getFraktionById(id);
+            StringBuilder zeile = new StringBuilder();
+            for (Term t : typischLogOdds(Dimension.FRAKTION, id, 12)) {
+                if (zeile.length() > 0) zeile.append(", ");
+                zeile.append(t.getWort());
+            }
+            System.out.printf("%-22s ! %s\n", f != null && f.getName() != null ? f.getName() : id, zeile);
+        }
+    }
+
+    // --- persistenz ---
+
+    private void speichere(Path datei) {
+        try {
+            Files.createDirectories(datei.toAbsolutePath().getParent());
+            Path temp = datei.resolveSibling(datei.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(temp), 1 << 16)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeLong(signatur);
+                out.writeInt(woerter.length);
+                for (String w : woerter) {
+                    out.writeUTF(w);
+                }
+                schreibe(out, gesamt);
+                for (Dimension d : Dimension.values()) {
+                    Map<String, IntZaehler> proGruppe = gruppen.get(d);
+                    out.writeInt(proGruppe.size());
+                    for (Map.Entry<String, IntZaehler> e : proGruppe.entrySet()) {
+                        out.writeUTF(e.getKey());
+                        schreibe(out, e.getValue());
+                    }
+                }
+            }
+            Files.move(temp, datei, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Termstatistik konnte nicht gespeichert werden: " + e.getMessage());
+        }
+    }
+
+    /**
+     * liest ein gespeichertes ergebnis ohne die reden, z.b. für abfragen ohne neues einlesen.
+     * @return null wenn die datei fehlt oder nicht lesbar ist
+     */
+    public static TermStatistik lade(Path datei) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(datei), 1 << 16)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                System.err.println("Unbekanntes Format der Termstatistik: " + datei);
+                return null;
+            }
+            long signatur = in.readLong();
+            String[] woerter = new String[in.readInt()];
+            for (int i = 0; i < woerter.length; i++) {
+                woerter[i] = in.readUTF();
+            }
+            IntZaehler gesamt = lese(in);
+            Map<Dimension, Map<String, IntZaehler>> gruppen = new EnumMap<>(Dimension.class);
+            for (Dimension d : Dimension.values()) {
+                Map<String, IntZaehler> proGruppe = new HashMap<>();
+                int anzahl = in.readInt();
+                for (int i = 0; i < anzahl; i++) {
+                    proGruppe.put(in.readUTF(), lese(in));
+                }
+                gruppen.put(d, proGruppe);
+            }
+            return new TermStatistik(woerter, gesamt, gruppen, signatur);
+        } catch (IOException e) {
+            System.err.println("Termstatistik konnte nicht gelesen werden: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void schreibe(DataOutputStream out, IntZaehler zaehler) throws IOException {
+        out.writeInt(zaehler.size());
+        try {
+            zaehler.forEach((id, anzahl) -> {
+                try {
+                    out.writeInt(id);
+                    out.writeInt(anzahl);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static IntZaehler lese(DataInputStream in) throws IOException {
+        int anzahl = in.readInt();
+        IntZaehler zaehler = new IntZaehler(anzahl);
+        for (int i = 0; i < anzahl; i++) {
+            zaehler.add(in.readInt(), in.readInt());
+        }
+        return zaehler;
+    }
+
+    /**
+     * ein wort mit seiner anzahl in der gruppe und dem wert der jeweiligen abfrage.
+     */
+    public static final class Term {
+        private final String wort;
+        private final int anzahl;
+        private final double wert;
+
+        Term(String wort, int anzahl, double wert) {
+            this.wort = wort;
+            this.anzahl = anzahl;
+            this.wert = wert;
+        }
+
+        public String getWort() { return wort; }
+        public int getAnzahl() { return anzahl; }
+        public double getWert() { return wert; }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%d, %.2f)", wort, anzahl, wert);
+        }
+    }
+
+    //gemeinsames wörterbuch wort -> id für alle threads
+    private static final class Woerterbuch {
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        private final AtomicInteger naechste = new AtomicInteger();
+
+        int id(String wort) {
+            Integer id = ids.get(wort);
+            return id != null ? id : ids.computeIfAbsent(wort, w -> naechste.getAndIncrement());
+        }
+
+        String[] alsArray() {
+            String[] woerter = new String[naechste.get()];
+            ids.forEach((w, id) -> woerter[id] = w);
+            return woerter;
+        }
+    }
+
+    //zählungen eines teils der reden, pro thread gefüllt
+    private static final class Teil {
+        final Woerterbuch woerterbuch;
+        final IntZaehler gesamt = new IntZaehler(1 << 12);
+        final Map<Dimension, Map<String, IntZaehler>> gruppen = new EnumMap<>(Dimension.class);
+
+        Teil(Woerterbuch woerterbuch) {
+            this.woerterbuch = woerterbuch;
+            for (Dimension d : Dimension.values()) {
+                gruppen.put(d, new HashMap<>());
+            }
+        }
+
+        void add(Rede rede) {
+            IntZaehler woerter = new IntZaehler(256);
+            Tokenizer.zerlege(rede.getText(), w -> woerter.add(woerterbuch.id(w), 1));
+            if (woerter.size() == 0) {
+                return;
+            }
+            gesamt.merge(woerter);
+            for (Dimension d : Dimension.values()) {
+                String gruppe = gruppe(rede, d);
+                if (gruppe != null) {
+                    gruppen.get(d).computeIfAbsent(gruppe, k -> new IntZaehler()).merge(woerter);
+                }
+            }
+        }
+
+        void merge(Teil andere) {
+            gesamt.merge(andere.gesamt);
+            for (Dimension d : Dimension.values()) {
+                Map<String, IntZaehler> ziel = gruppen.get(d);
+                andere.gruppen.get(d).forEach((gruppe, zaehler) -> {
+                    IntZaehler vorhanden = ziel.get(gruppe);
+                    if (vorhanden == null) {
+                        ziel.put(gruppe, zaehler);
+                    } else if (vorhanden.size() >= zaehler.size()) {
+                        vorhanden.merge(zaehler);
+                    } else {
+                        zaehler.merge(vorhanden);
+                        ziel.put(gruppe, zaehler);
+                    }
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package de.bundestag.text;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * invertierter index wort -> ids über kurze titel, z.b. die der tagesordnungspunkte. die wörter kommen
+ * aus dem Tokenizer. die schlüssel sind sortiert, damit ein suchwort auch als präfix trifft: "klima"
+ * findet "klimaschutzgesetz", was bei deutschen komposita meistens gewollt ist. mehrere suchwörter
+ * werden mit UND verknüpft.
+ */
+public final class TitelIndex {
+
+    private final NavigableMap<String, Set<String>> index = new ConcurrentSkipListMap<>();
+
+    public void add(String id, String titel) {
+        Tokenizer.zerlege(titel, wort -> index.computeIfAbsent(wort, w -> ConcurrentHashMap.newKeySet()).add(id));
+    }
+
+    /**
+     * ids, deren titel zu jedem wort der anfrage ein wort mit diesem präfix enthält.
+     * eine anfrage nur aus stoppwörtern oder zu kurzen wörtern findet nichts.
+     */
+    public Set<String> suche(String anfrage) {
+        Set<String> ergebnis = null;
+        Set<String> woerter = new HashSet<>();
+        Tokenizer.zerlege(anfrage, woerter::add);
+        for (String wort : woerter) {
+            Set<String> treffer = new HashSet<>();
+            for (Set<String> ids : index.subMap(wort, true, wort + Character.MAX_VALUE, false).values()) {
+                treffer.addAll(ids);
+            }
+            if (ergebnis == null) {
+                ergebnis = treffer;
+            } else {
+                ergebnis.retainAll(treffer);
+            }
+            if (ergebnis.isEmpty()) {
+                break;
+            }
+        }
+        return (ergebnis != null) ? ergebnis : Collections.emptySet();
+    }
+
+    public int getWortAnzahl() {
+        return index.size();
+    }
+}
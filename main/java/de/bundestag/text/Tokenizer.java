@@ -0,0 +1,98 @@
+package de.bundestag.text;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * zerlegt redetexte in normalisierte wörter: kleinschreibung, ß -> ss, weiche trennstriche
+ * entfernt. wörter mit weniger als drei buchstaben, zahlen und stoppwörter (artikel, pronomen,
+ * hilfsverben, anreden im plenum) werden übersprungen.
+ */
+public final class Tokenizer {
+
+    private static final int MIN_LAENGE = 3;
+
+    private static final Set<String> STOPPWOERTER = new HashSet<>();
+
+    private static final String[] STOPPWORT_LISTE = {
+            "aber", "alle", "allem", "allen", "aller", "alles", "als", "also", "am", "an", "ander", "andere", "anderen",
+            "anderer", "anderes", "auch", "auf", "aus", "bei", "beim", "bereits", "bin", "bis", "bisher", "bist", "bitte",
+            "da", "dabei", "dadurch", "dafür", "dagegen", "daher", "damit", "danach", "dann", "daran", "darauf", "darin",
+            "darum", "darüber", "das", "dass", "davon", "dazu", "dem", "den", "denen", "denn", "der", "deren", "des",
+            "deshalb", "dessen", "die", "dies", "diese", "diesem", "diesen", "dieser", "dieses", "doch", "dort", "du",
+            "durch", "eben", "ein", "eine", "einem", "einen", "einer", "eines", "einfach", "einmal", "er", "es", "etwa",
+            "etwas", "euch", "euer", "eure", "für", "ganz", "gar", "gegen", "genau", "gerade", "gesagt", "gibt", "gleich",
+            "habe", "haben", "hat", "hatte", "hatten", "hier", "hin", "hinter", "ich", "ihm", "ihn", "ihnen", "ihr",
+            "ihre", "ihrem", "ihren", "ihrer", "ihres", "im", "immer", "in", "ins", "ist", "ja", "jede", "jedem", "jeden",
+            "jeder", "jedes", "jetzt", "kann", "kein", "keine", "keinem", "keinen", "keiner", "können", "könnte", "man",
+            "manche", "mehr", "mein", "meine", "meinem", "meinen", "meiner", "mich", "mir", "mit", "muss", "müssen",
+            "nach", "nicht", "nichts", "noch", "nun", "nur", "ob", "oder", "ohne", "schon", "sehr", "sein", "seine",
+            "seinem", "seinen", "seiner", "seit", "selbst", "sich", "sie", "sind", "so", "sollen", "sollte", "sondern",
+            "sowie", "um", "und", "uns", "unser", "unsere", "unserem", "unseren", "unserer", "unter", "viel", "viele",
+            "vom", "von", "vor", "war", "waren", "was", "weil", "weiter", "welche", "welchem", "welchen", "welcher",
+            "wenn", "wer", "werde", "werden", "wie", "wieder", "will", "wir", "wird", "wirklich", "wo", "wollen", "worden",
+            "wurde", "wurden", "würde", "würden", "zu", "zum", "zur", "zwar", "zwischen", "über",
+            //anreden und floskeln im plenum
+            "herr", "herren", "frau", "damen", "präsident", "präsidentin", "vizepräsident", "vizepräsidentin",
+            "kollege", "kollegen", "kollegin", "kolleginnen", "liebe", "lieber", "geehrte", "geehrten",
+            "vielen", "dank", "danke", "heute", "deswegen", "natürlich", "brauchen", "geht", "gehen",
+            "machen", "sagen", "hätte", "hätten", "wäre", "wären", "darf", "dürfen", "soll"};
+
+    static {
+        //die liste wird wie die texte normalisiert (z.b. daß -> dass)
+        for (String wort : STOPPWORT_LISTE) {
+            STOPPWOERTER.add(normalisiere(wort));
+        }
+    }
+
+    private Tokenizer() {
+    }
+
+    /**
+     * gibt jedes normalisierte wort des textes an das ziel.
+     */
+    public static void zerlege(String text, Consumer<String> ziel) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        StringBuilder wort = new StringBuilder(32);
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            char c = i < n ? text.charAt(i) : ' ';
+            if (c == '\u00AD') {
+                continue; // weicher trennstrich gehört zum wort
+            }
+            if (Character.isLetter(c)) {
+                if (c == 'ß') {
+                    wort.append("ss");
+                } else {
+                    wort.append(Character.toLowerCase(c));
+                }
+            } else if (wort.length() > 0) {
+                gib(wort, ziel);
+                wort.setLength(0);
+            }
+        }
+    }
+
+    private static void gib(StringBuilder wort, Consumer<String> ziel) {
+        if (wort.length() < MIN_LAENGE) {
+            return;
+        }
+        String w = wort.toString();
+        if (!istStoppwort(w)) {
+            ziel.accept(w);
+        }
+    }
+
+    //erwartet ein normalisiertes wort
+    public static boolean istStoppwort(String wort) {
+        return STOPPWOERTER.contains(wort);
+    }
+
+    //normalisiert ein einzelnes wort wie zerlege(), z.b. für suchanfragen
+    public static String normalisiere(String wort) {
+        return wort.toLowerCase(Locale.GERMAN).replace("ß", "ss").replace("\u00AD", "");
+    }
+}
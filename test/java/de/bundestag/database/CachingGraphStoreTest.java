@@ -0,0 +1,85 @@
+package de.bundestag.database;
+
+import de.bundestag.model.CypherQuery;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachingGraphStoreTest {
+
+    private static List<CypherQuery> reden(int anzahl, String sitzungId) {
+        List<CypherQuery> queries = new ArrayList<>();
+        for (int i = 0; i < anzahl; i++) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("id", sitzungId + "-" + i);
+            params.put("sitzungId", sitzungId);
+            queries.add(new CypherQuery("MERGE (r:Rede {id: $id}) SET r.sitzungId = $sitzungId", params)
+                    .knoten("Rede", "sitzungId"));
+        }
+        return queries;
+    }
+
+    @Test
+    void verdraengtNachZeilenUndNichtNurNachEintraegen() {
+        InMemoryGraphStore speicher = new InMemoryGraphStore();
+        speicher.executeWriteBatch(reden(30, "S1"));
+        speicher.executeWriteBatch(reden(30, "S2"));
+        CachingGraphStore cache = new CachingGraphStore(speicher, null, 100, 50);
+
+        cache.findNodes("Rede", "sitzungId", "S1", "id");
+        assertEquals(30, cache.getZeilen());
+        //zusammen 60 zeilen, der ältere eintrag muss weichen
+        cache.findNodes("Rede", "sitzungId", "S2", "id");
+        assertEquals(1, cache.groesse());
+        assertEquals(30, cache.getZeilen());
+        //60 zeilen in einem eintrag passen nie, der cache bleibt unverändert
+        cache.scanNodes("Rede", "id");
+        assertEquals(1, cache.groesse());
+        assertTrue(cache.getZeilen() <= 50);
+    }
+
+    @Test
+    void speichertOhneVersionUndLaedtWieder() throws IOException {
+        Path datei = Files.createTempDirectory("cache").resolve("abfrage-cache.bin");
+        InMemoryGraphStore speicher = new InMemoryGraphStore();
+        CachingGraphStore cache = new CachingGraphStore(speicher, datei);
+        cache.executeWriteBatch(reden(3, "S1"));
+        assertEquals(1, cache.getKorpusVersion());
+        cache.findNodes("Rede", "sitzungId", "S1", "id");
+        cache.countNodes("Rede");
+        cache.shutdown();
+        assertTrue(Files.exists(datei));
+
+        CachingGraphStore neu = new CachingGraphStore(new InMemoryGraphStore(), datei);
+        assertEquals(0, neu.getKorpusVersion());
+        assertEquals(2, neu.groesse());
+        //die geladenen einträge gelten für diesen lauf, ohne den (leeren) speicher zu fragen
+        assertEquals(3, neu.countNodes("Rede"));
+        assertEquals(3, neu.findNodes("Rede", "sitzungId", "S1", "id").size());
+    }
+
+    @Test
+    void laedtKeineFremdenKlassen() throws IOException {
+        Path datei = Files.createTempDirectory("cache").resolve("abfrage-cache.bin");
+        try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(datei))) {
+            out.writeInt(2);
+            out.writeInt(1);
+            out.writeUTF("countNodes|Rede|||");
+            out.writeObject(new java.util.TreeMap<String, Object>());
+        }
+        CachingGraphStore cache = new CachingGraphStore(new InMemoryGraphStore(), datei);
+        assertEquals(0, cache.groesse());
+        assertFalse(cache.getZeilen() > 0);
+    }
+}
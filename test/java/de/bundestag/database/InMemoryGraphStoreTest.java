@@ -0,0 +1,190 @@
+package de.bundestag.database;
+
+import de.bundestag.model.Abgeordneter;
+import de.bundestag.model.CypherQuery;
+import de.bundestag.model.Fraktion;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryGraphStoreTest {
+
+    private static Map<String, Object> params(Object... werte) {
+        Map<String, Object> params = new HashMap<>();
+        for (int i = 0; i < werte.length; i += 2) {
+            params.put((String) werte[i], werte[i + 1]);
+        }
+        return params;
+    }
+
+    private static CypherQuery fraktion(String id) {
+        return new CypherQuery("MERGE (f:Fraktion {id: $id})", params("id", id)).knoten("Fraktion");
+    }
+
+    private static CypherQuery abgeordneter(String id, String name, Object geburtsjahr, String fraktionId) {
+        return new CypherQuery("MERGE (a:Abgeordneter {id: $id}) SET a.name = $name, a.jahr = $geburtsjahr",
+                params("id", id, "name", name, "geburtsjahr", geburtsjahr, "fraktionId", fraktionId))
+                .knoten("Abgeordneter", "name", "jahr=geburtsjahr")
+                .relation("IST_MITGLIED_VON", "Fraktion", "fraktionId");
+    }
+
+    private static CypherQuery rede(String id, String sitzungId) {
+        return new CypherQuery("MERGE (r:Rede {id: $id}) SET r.sitzungId = $sitzungId", params("id", id, "sitzungId", sitzungId))
+                .knoten("Rede", "sitzungId");
+    }
+
+    @Test
+    void schreibtUndLiestKnotenUndRelationen() {
+        InMemoryGraphStore store = new InMemoryGraphStore();
+        store.executeWriteBatch(List.of(fraktion("SPD"),
+                abgeordneter("1", "Anna", 1970, "SPD"),
+                abgeordneter("2", "Bernd", 1980, "FDP"))); // FDP fehlt, keine relation
+
+        assertEquals(1, store.countNodes("Fraktion"));
+        assertEquals(2, store.countNodes("Abgeordneter"));
+        assertEquals(1, store.countRelationships("IST_MITGLIED_VON"));
+
+        List<Map<String, Object>> anna = store.findNodes("Abgeordneter", "name", "Anna", "id", "jahr", "fehlt");
+        assertEquals(1, anna.size());
+        assertEquals("1", anna.get(0).get("id"));
+        assertEquals(1970L, anna.get(0).get("jahr")); // ganze zahlen wie bei Neo4j als long
+        assertNull(anna.get(0).get("fehlt"));
+        //ein Integer als suchwert trifft den gespeicherten long
+        assertEquals(1, store.findNodes("Abgeordneter", "jahr", 1980, "id").size());
+        assertEquals(2, store.scanNodes("Abgeordneter", "id").size());
+    }
+
+    @Test
+    void mergeFuehrtZusammenUndNullEntferntEigenschaft() {
+        InMemoryGraphStore store = new InMemoryGraphStore();
+        store.executeWriteBatch(List.of(abgeordneter("1", "Anna", 1970, null)));
+        store.executeWriteBatch(List.of(abgeordneter("1", "Anna", null, null)));
+
+        assertEquals(1, store.countNodes("Abgeordneter"));
+        assertNull(store.findNodes("Abgeordneter", "id", "1", "jahr").get(0).get("jahr"));
+    }
+
+    @Test
+    void fehlerhafterBatchSchreibtNichts() {
+        InMemoryGraphStore store = new InMemoryGraphStore();
+        CypherQuery ohneBeschreibung = new CypherQuery("MERGE (x:X {id: $id})", params("id", "x"));
+        assertThrows(RuntimeException.class, () -> store.executeWriteBatch(List.of(fraktion("SPD"), ohneBeschreibung)));
+        assertEquals(0, store.countNodes("Fraktion"));
+    }
+
+    @Test
+    void nurMatchLegtKeinenKnotenAn() {
+        InMemoryGraphStore store = new InMemoryGraphStore();
+        store.executeWriteBatch(List.of(fraktion("SPD"), rede("R1", "S1")));
+
+        store.executeWriteBatch(List.of(
+                new CypherQuery("MATCH", params("id", "SPD", "zielId", "R1", "anzahl", 3))
+                        .knoten("Fraktion").nurMatch().relation("BEIFALL", "Rede", "zielId", "anzahl"),
+                new CypherQuery("MATCH", params("id", "AfD", "zielId", "R1", "anzahl", 1))
+                        .knoten("Fraktion").nurMatch().relation("BEIFALL", "Rede", "zielId", "anzahl"),
+                new CypherQuery("MATCH", params("id", "R2", "pagerank", 0.5))
+                        .knoten("Rede", "pagerank").nurMatch()));
+
+        assertEquals(1, store.countNodes("Fraktion"));
+        assertEquals(1, store.countNodes("Rede"));
+        assertEquals(1, store.countRelationships("BEIFALL"));
+        assertEquals(Map.of("anzahl", 3L), store.getRelation("BEIFALL", "Fraktion", "SPD", "Rede", "R1"));
+        assertNull(store.getRelation("BEIFALL", "Fraktion", "AfD", "Rede", "R1"));
+    }
+
+    @Test
+    void entferntEingehendeRelationenVorDemNeuenMerge() {
+        InMemoryGraphStore store = new InMemoryGraphStore();
+        store.executeWriteBatch(List.of(fraktion("SPD"), fraktion("FDP"), rede("R1", "S1"), rede("R2", "S1")));
+        store.executeWriteBatch(List.of(
+                beifall("SPD", "R1", 2), beifall("FDP", "R1", 1), beifall("SPD", "R2", 4)));
+
+        store.executeWriteBatch(List.of(
+                new CypherQuery("MATCH ()-[b:BEIFALL]->(r:Rede {id: $id}) DELETE b", params("id", "R1"))
+                        .knoten("Rede").nurMatch().entferneEingehende("BEIFALL"),
+                beifall("SPD", "R1", 5)));
+
+        assertEquals(2, store.countRelationships("BEIFALL"));
+        assertEquals(Map.of("anzahl", 5L), store.getRelation("BEIFALL", "Fraktion", "SPD", "Rede", "R1"));
+        assertNull(store.getRelation("BEIFALL", "Fraktion", "FDP", "Rede", "R1"));
+        assertEquals(Map.of("anzahl", 4L), store.getRelation("BEIFALL", "Fraktion", "SPD", "Rede", "R2"));
+    }
+
+    @Test
+    void fraktionswechselErsetztDieMitgliedschaft() {
+        InMemoryGraphStore store = new InMemoryGraphStore();
+        Fraktion fraktionslos = new Fraktion("Fraktionslos", "Fraktionslos", null);
+        Fraktion gruene = new Fraktion("BÜNDNIS 90/DIE GRÜNEN", "BÜNDNIS 90/DIE GRÜNEN", null);
+        Abgeordneter a = new Abgeordneter("1", "Anna", "Muster", null, null, null);
+        a.setFraktion(fraktionslos);
+        store.executeWriteBatch(List.of(fraktionslos.toParameterizedNode(), gruene.toParameterizedNode(), a.toParameterizedNode()));
+        assertEquals(Map.of(), store.getRelation("IST_MITGLIED_VON", "Abgeordneter", "1", "Fraktion", "Fraktionslos"));
+
+        a.setFraktion(gruene);
+        store.executeWriteBatch(List.of(a.toParameterizedNode()));
+        assertEquals(1, store.countRelationships("IST_MITGLIED_VON"));
+        assertNull(store.getRelation("IST_MITGLIED_VON", "Abgeordneter", "1", "Fraktion", "Fraktionslos"));
+        assertEquals(Map.of(), store.getRelation("IST_MITGLIED_VON", "Abgeordneter", "1", "Fraktion", "BÜNDNIS 90/DIE GRÜNEN"));
+
+        //ohne fraktion bleibt keine mitgliedschaft stehen
+        a.setFraktion(null);
+        store.executeWriteBatch(List.of(a.toParameterizedNode()));
+        assertEquals(0, store.countRelationships("IST_MITGLIED_VON"));
+    }
+
+    @Test
+    void findetTitelNachTeiltext() {
+        InMemoryGraphStore store = new InMemoryGraphStore();
+        List<CypherQuery> queries = new ArrayList<>();
+        String[] titel = {"Haushaltsgesetz 2024", "Bundeswehr Einsatz", "Haushaltsbegleitgesetz", null};
+        for (int i = 0; i < titel.length; i++) {
+            queries.add(new CypherQuery("MERGE (t:Tagesordnungspunkt {id: $id}) SET t.titel = $titel",
+                    params("id", "T" + (3 - i), "titel", titel[i])).knoten("Tagesordnungspunkt", "titel"));
+        }
+        store.executeWriteBatch(queries);
+
+        List<Map<String, Object>> treffer = store.findNodesEnthaelt("Tagesordnungspunkt", "titel", "Haushalt", 10, "id");
+        assertEquals(List.of(Map.of("id", "T1"), Map.of("id", "T3")), treffer);
+        assertEquals(1, store.findNodesEnthaelt("Tagesordnungspunkt", "titel", "Haushalt", 1, "id").size());
+        assertTrue(store.findNodesEnthaelt("Tagesordnungspunkt", "titel", "haushalt", 10, "id").isEmpty());
+    }
+
+    private static CypherQuery beifall(String fraktionId, String redeId, long anzahl) {
+        return new CypherQuery("MATCH", params("id", fraktionId, "zielId", redeId, "anzahl", anzahl))
+                .knoten("Fraktion").nurMatch().relation("BEIFALL", "Rede", "zielId", "anzahl");
+    }
+
+    @Test
+    void seitenNachIdOhneLueckenUndDoppelte() {
+        InMemoryGraphStore store = new InMemoryGraphStore();
+        List<CypherQuery> queries = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            queries.add(rede(String.format("R%03d", 24 - i), i % 3 == 0 ? "S1" : "S2"));
+        }
+        store.executeWriteBatch(queries);
+
+        List<String> gelesen = new ArrayList<>();
+        String nach = null;
+        while (true) {
+            List<Map<String, Object>> seite = store.findNodesNach("Rede", "sitzungId", "S1", nach, 4, "id");
+            seite.forEach(r -> gelesen.add((String) r.get("id")));
+            if (seite.size() < 4) break;
+            nach = (String) seite.get(seite.size() - 1).get("id");
+        }
+
+        List<String> erwartet = new ArrayList<>();
+        for (Map<String, Object> r : store.findNodes("Rede", "sitzungId", "S1", "id")) erwartet.add((String) r.get("id"));
+        erwartet.sort(null);
+        assertEquals(erwartet, gelesen);
+        assertEquals(9, gelesen.size());
+        assertTrue(store.findNodesNach("Rede", "sitzungId", "S1", "R999", 4, "id").isEmpty());
+    }
+}
@@ -0,0 +1,96 @@
+package de.bundestag.graph;
+
+import de.bundestag.database.InMemoryGraphStore;
+import de.bundestag.model.CypherQuery;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraphAlgorithmenTest {
+
+    /*
+     * SPD - a1, a2 (mitglieder), r1, r2 von a1 und r3 von a2 in sitzung S1.
+     * FDP - a3 mit r4 in sitzung S2, davon getrennt. a4 ohne fraktion und ohne reden.
+     */
+    private static GraphProjektion graph() {
+        InMemoryGraphStore store = new InMemoryGraphStore();
+        List<CypherQuery> queries = new ArrayList<>();
+        for (String f : new String[]{"SPD", "FDP"}) queries.add(knoten("Fraktion", "id", f));
+        queries.add(knoten("Sitzung", "id", "S1"));
+        queries.add(knoten("Sitzung", "id", "S2"));
+        queries.add(knoten("Abgeordneter", "id", "a1", "fraktionId", "SPD"));
+        queries.add(knoten("Abgeordneter", "id", "a2", "fraktionId", "SPD"));
+        queries.add(knoten("Abgeordneter", "id", "a3", "fraktionId", "FDP"));
+        queries.add(knoten("Abgeordneter", "id", "a4"));
+        queries.add(knoten("Rede", "id", "r1", "rednerId", "a1", "sitzungId", "S1"));
+        queries.add(knoten("Rede", "id", "r2", "rednerId", "a1", "sitzungId", "S1"));
+        queries.add(knoten("Rede", "id", "r3", "rednerId", "a2", "sitzungId", "S1"));
+        queries.add(knoten("Rede", "id", "r4", "rednerId", "a3", "sitzungId", "S2"));
+        store.executeWriteBatch(queries);
+        return GraphProjektion.ausStore(store);
+    }
+
+    private static CypherQuery knoten(String label, String... werte) {
+        Map<String, Object> params = new HashMap<>();
+        List<String> eigenschaften = new ArrayList<>();
+        for (int i = 0; i < werte.length; i += 2) {
+            params.put(werte[i], werte[i + 1]);
+            if (!werte[i].equals("id")) eigenschaften.add(werte[i]);
+        }
+        return new CypherQuery("MERGE", params).knoten(label, eigenschaften.toArray(new String[0]));
+    }
+
+    @Test
+    void projektionAusDemSpeicher() {
+        GraphProjektion g = graph();
+        assertEquals(12, g.getKnotenAnzahl());
+        //3 mitgliedschaften, 4 redner und 4 sitzungskanten
+        assertEquals(11, g.getKantenAnzahl());
+        int[] grad = GraphAlgorithmen.grad(g);
+        assertEquals(3, grad[g.knoten("Abgeordneter", "a1")]); // SPD, r1, r2
+        assertEquals(3, grad[g.knoten("Sitzung", "S1")]);
+        assertEquals(0, grad[g.knoten("Abgeordneter", "a4")]);
+    }
+
+    @Test
+    void komponentenMitKleinsterKnotennummer() {
+        GraphProjektion g = graph();
+        int[] komponente = GraphAlgorithmen.komponenten(g);
+        int spd = komponente[g.knoten("Fraktion", "SPD")];
+        for (String rede : new String[]{"r1", "r2", "r3"}) {
+            assertEquals(spd, komponente[g.knoten("Rede", rede)]);
+        }
+        assertEquals(spd, komponente[g.knoten("Sitzung", "S1")]);
+        int fdp = komponente[g.knoten("Fraktion", "FDP")];
+        assertEquals(fdp, komponente[g.knoten("Rede", "r4")]);
+        assertNotEquals(spd, fdp);
+        int a4 = g.knoten("Abgeordneter", "a4");
+        assertEquals(a4, komponente[a4]);
+        for (int v = 0; v < komponente.length; v++) {
+            assertTrue(komponente[v] <= v);
+            assertEquals(komponente[v], komponente[komponente[v]]);
+        }
+    }
+
+    @Test
+    void pageRankSummeEinsUndSymmetrie() {
+        GraphProjektion g = graph();
+        double[] rang = GraphAlgorithmen.pageRank(g);
+        double summe = 0;
+        for (double r : rang) summe += r;
+        assertEquals(1.0, summe, 1e-6);
+        //r1 und r2 hängen an denselben knoten
+        assertEquals(rang[g.knoten("Rede", "r1")], rang[g.knoten("Rede", "r2")], 1e-12);
+        //a1 mit zwei reden liegt vor a2 mit einer
+        assertTrue(rang[g.knoten("Abgeordneter", "a1")] > rang[g.knoten("Abgeordneter", "a2")]);
+        //ohne kanten bleibt nur der grundanteil
+        assertTrue(rang[g.knoten("Abgeordneter", "a4")] < rang[g.knoten("Rede", "r4")]);
+    }
+}
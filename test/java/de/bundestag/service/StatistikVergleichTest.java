@@ -0,0 +1,62 @@
+package de.bundestag.service;
+
+import de.bundestag.factory.PortalFactory;
+import de.bundestag.model.CypherQuery;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * die mitgezählten werte (ModellStatistik, OnlineStatistik) und die auswertungen über den
+ * gespeicherten graphen (GraphStatistik, EinPassStatistik) müssen für dieselben protokolle gleich sein.
+ */
+class StatistikVergleichTest {
+
+    private static final String[] PROTOKOLLE = {"main/resources/xml_files/1.xml", "main/resources/xml_files/2.xml"};
+
+    private static PortalFactory geladen(OnlineStatistik[] online) {
+        PortalFactory factory = PortalFactory.createInMemory();
+        online[0] = OnlineStatistik.anmelden(factory);
+        for (String protokoll : PROTOKOLLE) {
+            factory.getXMLProcessor().parseXMLFile(new File(protokoll));
+        }
+        factory.getDatabaseService().saveAllEntitiesToDatabase();
+        return factory;
+    }
+
+    @Test
+    void modellUndGraphStimmenUeberein() {
+        OnlineStatistik[] online = new OnlineStatistik[1];
+        PortalFactory factory = geladen(online);
+        ModellStatistik modell = new ModellStatistik(factory);
+
+        assertTrue(modell.anzahl("Rede") > 0);
+        assertEquals(List.of(), StatistikVergleich.vergleiche(modell, online[0]));
+        assertEquals(List.of(), StatistikVergleich.vergleiche(modell, new GraphStatistik(factory.getGraphStore())));
+        assertEquals(List.of(), StatistikVergleich.vergleiche(modell, new EinPassStatistik(factory.getGraphStore())));
+    }
+
+    @Test
+    void findetAbweichungImSpeicher() {
+        OnlineStatistik[] online = new OnlineStatistik[1];
+        PortalFactory factory = geladen(online);
+
+        //eine rede nur im speicher, nicht im modell
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", "nur-im-speicher");
+        params.put("textLaenge", 100);
+        factory.getGraphStore().executeWriteBatch(List.of(
+                new CypherQuery("MERGE (r:Rede {id: $id}) SET r.textLaenge = $textLaenge", params).knoten("Rede", "textLaenge")));
+
+        List<String> abweichungen = StatistikVergleich.vergleiche(new ModellStatistik(factory), new GraphStatistik(factory.getGraphStore()));
+        assertFalse(abweichungen.isEmpty());
+        assertTrue(abweichungen.get(0).startsWith("anzahl Rede"));
+    }
+}
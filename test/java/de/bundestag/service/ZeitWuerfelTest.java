@@ -0,0 +1,61 @@
+package de.bundestag.service;
+
+import de.bundestag.factory.PortalFactory;
+import de.bundestag.service.ZeitWuerfel.Ebene;
+import de.bundestag.service.ZeitWuerfel.Zeitraster;
+import de.bundestag.service.ZeitWuerfel.Zelle;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZeitWuerfelTest {
+
+    private static ZeitWuerfel geladen() {
+        PortalFactory factory = PortalFactory.createInMemory();
+        ZeitWuerfel wuerfel = ZeitWuerfel.anmelden(factory);
+        factory.getXMLProcessor().parseXMLFile(new File("main/resources/xml_files/1.xml"));
+        factory.getXMLProcessor().parseXMLFile(new File("main/resources/xml_files/2.xml"));
+        return wuerfel;
+    }
+
+    private static long reden(List<Zelle> zellen) {
+        return zellen.stream().mapToLong(Zelle::getReden).sum();
+    }
+
+    @Test
+    void fraktionenUndAbgeordneteErgebenDieSummeIhrerBasiszellen() {
+        ZeitWuerfel wuerfel = geladen();
+        List<Zelle> wahlperioden = wuerfel.reihe(Zeitraster.WAHLPERIODE, Ebene.ALLE, ZeitWuerfel.ALLE);
+        assertFalse(wahlperioden.isEmpty());
+
+        for (Zelle wp : wahlperioden) {
+            List<Zelle> fraktionen = wuerfel.schnitt(Zeitraster.WAHLPERIODE, wp.getZeit(), Ebene.FRAKTION);
+            assertFalse(fraktionen.isEmpty());
+            assertTrue(reden(fraktionen) <= wp.getReden());
+            for (Zelle fraktion : fraktionen) {
+                //drill down auf die abgeordneten und zurück
+                List<Zelle> abgeordnete = wuerfel.abgeordneteDerFraktion(Zeitraster.WAHLPERIODE, wp.getZeit(), fraktion.getId());
+                assertFalse(abgeordnete.isEmpty());
+                assertTrue(reden(abgeordnete) <= fraktion.getReden());
+                //die zeitreihe der fraktion enthält dieselbe zelle
+                assertTrue(wuerfel.reihe(Zeitraster.WAHLPERIODE, Ebene.FRAKTION, fraktion.getId()).stream()
+                        .anyMatch(z -> z.getZeit() == wp.getZeit() && z.getReden() == fraktion.getReden()));
+            }
+        }
+    }
+
+    @Test
+    void drillDownInDerZeitErgibtDieGroebereZelle() {
+        ZeitWuerfel wuerfel = geladen();
+        for (Zelle monat : wuerfel.reihe(Zeitraster.MONAT, Ebene.ALLE, ZeitWuerfel.ALLE)) {
+            List<Zelle> tage = wuerfel.drillDown(Zeitraster.MONAT, monat.getZeit(), Ebene.ALLE, ZeitWuerfel.ALLE);
+            assertEquals(monat.getReden(), reden(tage));
+            assertEquals(monat.getKommentare(), tage.stream().mapToLong(Zelle::getKommentare).sum());
+        }
+    }
+}
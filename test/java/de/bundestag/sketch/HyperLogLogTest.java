@@ -0,0 +1,54 @@
+package de.bundestag.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    //drei standardfehler, 1.04 / sqrt(2^praezision)
+    private static void assertNahe(long exakt, long geschaetzt, int praezision) {
+        double grenze = 3 * 1.04 / Math.sqrt(1 << praezision);
+        double fehler = Math.abs(geschaetzt - exakt) / (double) exakt;
+        assertTrue(fehler <= grenze, geschaetzt + " statt " + exakt + " (fehler " + fehler + ", grenze " + grenze + ")");
+    }
+
+    @Test
+    void schaetzungInnerhalbDerFehlergrenze() {
+        for (int anzahl : new int[]{100, 1_000, 10_000, 200_000}) {
+            HyperLogLog hll = new HyperLogLog();
+            for (int i = 0; i < anzahl; i++) {
+                hll.add("redner-" + i);
+            }
+            assertNahe(anzahl, hll.schaetzung(), HyperLogLog.STANDARD_PRAEZISION);
+        }
+    }
+
+    @Test
+    void doppelteWerteZaehlenEinmal() {
+        HyperLogLog hll = new HyperLogLog();
+        for (int runde = 0; runde < 5; runde++) {
+            for (int i = 0; i < 3_000; i++) {
+                hll.add("redner-" + i);
+            }
+        }
+        assertNahe(3_000, hll.schaetzung(), HyperLogLog.STANDARD_PRAEZISION);
+    }
+
+    @Test
+    void mergeGleichSkizzeUeberDieVereinigung() {
+        HyperLogLog a = new HyperLogLog();
+        HyperLogLog b = new HyperLogLog();
+        HyperLogLog alle = new HyperLogLog();
+        //überlappende mengen 0..59999 und 40000..99999
+        for (int i = 0; i < 60_000; i++) { a.add("x" + i); alle.add("x" + i); }
+        for (int i = 40_000; i < 100_000; i++) { b.add("x" + i); alle.add("x" + i); }
+
+        a.merge(b);
+        assertEquals(alle.schaetzung(), a.schaetzung());
+        assertNahe(100_000, a.schaetzung(), HyperLogLog.STANDARD_PRAEZISION);
+        assertThrows(IllegalArgumentException.class, () -> a.merge(new HyperLogLog(10)));
+    }
+}
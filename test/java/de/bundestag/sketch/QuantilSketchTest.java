@@ -0,0 +1,70 @@
+package de.bundestag.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantilSketchTest {
+
+    private static final double[] QUANTILE = {0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99};
+
+    //redelängen ähnlich: schief verteilt über mehrere größenordnungen, mit einigen nullen
+    private static double[] werte(long seed, int anzahl) {
+        Random random = new Random(seed);
+        double[] werte = new double[anzahl];
+        for (int i = 0; i < anzahl; i++) {
+            werte[i] = random.nextInt(50) == 0 ? 0 : Math.exp(random.nextGaussian() * 1.5 + 8);
+        }
+        return werte;
+    }
+
+    @Test
+    void quantileInnerhalbDesRelativenFehlers() {
+        double[] werte = werte(1, 20_000);
+        QuantilSketch sketch = new QuantilSketch();
+        for (double w : werte) sketch.add(w);
+
+        double[] sortiert = werte.clone();
+        Arrays.sort(sortiert);
+        for (double q : QUANTILE) {
+            double exakt = sortiert[(int) (q * (sortiert.length - 1))];
+            double geschaetzt = sketch.getQuantil(q);
+            assertTrue(Math.abs(geschaetzt - exakt) <= QuantilSketch.STANDARD_ALPHA * exakt + 1e-9,
+                    "quantil " + q + ": " + geschaetzt + " statt " + exakt);
+        }
+        assertEquals(sortiert[0], sketch.getMinimum());
+        assertEquals(sortiert[sortiert.length - 1], sketch.getMaximum());
+    }
+
+    @Test
+    void mergeGleichSkizzeUeberDieVereinigung() {
+        double[] a = werte(2, 5_000);
+        double[] b = werte(3, 7_000);
+        QuantilSketch links = new QuantilSketch();
+        QuantilSketch rechts = new QuantilSketch();
+        QuantilSketch alle = new QuantilSketch();
+        for (double w : a) { links.add(w); alle.add(w); }
+        for (double w : b) { rechts.add(w); alle.add(w); }
+
+        links.merge(rechts);
+        assertEquals(alle.getAnzahl(), links.getAnzahl());
+        assertEquals(alle.getMinimum(), links.getMinimum());
+        assertEquals(alle.getMaximum(), links.getMaximum());
+        for (double q : QUANTILE) {
+            assertEquals(alle.getQuantil(q), links.getQuantil(q), "quantil " + q);
+        }
+    }
+
+    @Test
+    void leereSkizzeUndUngueltigeWerte() {
+        QuantilSketch sketch = new QuantilSketch();
+        assertTrue(Double.isNaN(sketch.getQuantil(0.5)));
+        assertThrows(IllegalArgumentException.class, () -> sketch.add(-1));
+        assertThrows(IllegalArgumentException.class, () -> sketch.merge(new QuantilSketch(0.05)));
+    }
+}
@@ -0,0 +1,68 @@
+package de.bundestag.text;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AhoCorasickTest {
+
+    private static AhoCorasick<String> automat(String... muster) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (String m : muster) map.put(m, m);
+        return AhoCorasick.aus(map);
+    }
+
+    private static List<String> treffer(AhoCorasick<String> automat, String text) {
+        List<String> werte = new ArrayList<>();
+        for (AhoCorasick.Treffer<String> t : automat.finde(text)) {
+            assertEquals(t.wert, text.substring(t.start, t.ende));
+            werte.add(t.wert);
+        }
+        return werte;
+    }
+
+    @Test
+    void linksterUndLaengsterTreffer() {
+        AhoCorasick<String> automat = automat("GRÜNEN", "BÜNDNIS 90/DIE GRÜNEN", "DIE", "Zuruf", "Zurufe");
+        assertEquals(List.of("BÜNDNIS 90/DIE GRÜNEN"), treffer(automat, "Beifall beim BÜNDNIS 90/DIE GRÜNEN"));
+        assertEquals(List.of("Zurufe", "GRÜNEN"), treffer(automat, "Zurufe von den GRÜNEN"));
+        assertEquals(List.of("DIE", "GRÜNEN"), treffer(automat, "DIE GRÜNEN"));
+    }
+
+    @Test
+    void nurAnWortgrenzen() {
+        AhoCorasick<String> automat = automat("SPD", "Linke", "Lachen");
+        assertEquals(List.of(), treffer(automat, "SPDler und Linken"));
+        assertEquals(List.of("SPD", "Linke"), treffer(automat, "(SPD, Linke)"));
+        assertEquals(List.of("Lachen"), treffer(automat, "Lachen bei der AfD – Auslachen"));
+    }
+
+    @Test
+    void suchtNurImBereich() {
+        AhoCorasick<String> automat = automat("Beifall", "SPD", "be");
+        String text = "Beifall bei der SPD";
+        assertEquals(List.of("Beifall", "SPD"), treffer(automat, text));
+        List<AhoCorasick.Treffer<String>> kopf = automat.finde(text, 0, 11);
+        assertEquals(1, kopf.size());
+        assertEquals("Beifall", kopf.get(0).wert);
+        //das ende des bereichs gilt als wortgrenze
+        List<AhoCorasick.Treffer<String>> teil = automat.finde(text, 8, 10);
+        assertEquals(1, teil.size());
+        assertEquals(8, teil.get(0).start);
+        assertEquals("be", teil.get(0).wert);
+    }
+
+    @Test
+    void ueberlappendeMusterMitGemeinsamemSuffix() {
+        //"he" über den fehlerlink von "she", "hers" beginnt später
+        AhoCorasick<String> automat = automat("he", "she", "his", "hers");
+        assertEquals(List.of("she"), treffer(automat, "she"));
+        assertEquals(List.of("hers", "his"), treffer(automat, "ushers hers his"));
+        assertEquals(4, automat.size());
+    }
+}
@@ -0,0 +1,58 @@
+package de.bundestag.text;
+
+import de.bundestag.database.InMemoryGraphStore;
+import de.bundestag.factory.PortalFactory;
+import de.bundestag.model.CypherQuery;
+import de.bundestag.model.Rede;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DuplikatSucheTest {
+
+    private static CypherQuery aehnlich(String id, String zielId, double aehnlichkeit) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", id);
+        params.put("zielId", zielId);
+        params.put("aehnlichkeit", aehnlichkeit);
+        return new CypherQuery("MATCH", params).knoten("Rede").nurMatch()
+                .relation("AEHNLICH_ZU", "Rede", "zielId", "aehnlichkeit");
+    }
+
+    @Test
+    void ersetztDiePaareEinesFrueherenLaufs() {
+        PortalFactory factory = PortalFactory.createInMemory();
+        factory.getXMLProcessor().parseXMLFile(new File("main/resources/xml_files/1.xml"));
+        List<Rede> reden = new ArrayList<>(factory.getAllReden());
+
+        InMemoryGraphStore store = new InMemoryGraphStore();
+        List<CypherQuery> knoten = new ArrayList<>();
+        for (Rede rede : reden) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("id", rede.getId());
+            knoten.add(new CypherQuery("MERGE (r:Rede {id: $id})", params).knoten("Rede"));
+        }
+        store.executeWriteBatch(knoten);
+        //ein paar aus einem früheren lauf, das diesmal nicht mehr gefunden wird
+        String a = reden.get(0).getId();
+        String b = reden.get(reden.size() - 1).getId();
+        store.executeWriteBatch(List.of(aehnlich(a, b, 0.9), aehnlich(b, a, 0.9)));
+
+        DuplikatSuche.Ergebnis<Rede> ergebnis = DuplikatSuche.reden(reden, 0.99);
+        int geschrieben = DuplikatSuche.speichereBeziehungen(store, ergebnis);
+
+        assertEquals(ergebnis.getPaare().size(), geschrieben);
+        assertEquals(geschrieben, store.countRelationships("AEHNLICH_ZU"));
+        if (ergebnis.getPaare().stream().noneMatch(p -> p.a == 0 && p.b == reden.size() - 1)) {
+            assertNull(store.getRelation("AEHNLICH_ZU", "Rede", a, "Rede", b));
+        }
+        assertNull(store.getRelation("AEHNLICH_ZU", "Rede", b, "Rede", a));
+    }
+}
@@ -0,0 +1,53 @@
+package de.bundestag.text;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IntZaehlerTest {
+
+    @Test
+    void zaehltWieEineHashMap() {
+        Random random = new Random(7);
+        IntZaehler zaehler = new IntZaehler(4); // wächst mehrmals
+        Map<Integer, Integer> erwartet = new HashMap<>();
+        long summe = 0;
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(5_000);
+            int anzahl = 1 + random.nextInt(3);
+            zaehler.add(key, anzahl);
+            erwartet.merge(key, anzahl, Integer::sum);
+            summe += anzahl;
+        }
+        assertEquals(erwartet.size(), zaehler.size());
+        assertEquals(summe, zaehler.getSumme());
+        for (Map.Entry<Integer, Integer> e : erwartet.entrySet()) {
+            assertEquals(e.getValue().intValue(), zaehler.get(e.getKey()));
+        }
+        assertEquals(0, zaehler.get(5_001));
+
+        Map<Integer, Integer> besucht = new HashMap<>();
+        zaehler.forEach(besucht::put);
+        assertEquals(erwartet, besucht);
+    }
+
+    @Test
+    void mergeAddiertDieTeilergebnisse() {
+        IntZaehler a = new IntZaehler();
+        IntZaehler b = new IntZaehler();
+        for (int i = 0; i < 100; i++) {
+            a.add(i, 1);
+            b.add(i + 50, 2);
+        }
+        a.merge(b);
+        assertEquals(150, a.size());
+        assertEquals(300, a.getSumme());
+        assertEquals(1, a.get(0));
+        assertEquals(3, a.get(60));
+        assertEquals(2, a.get(149));
+    }
+}
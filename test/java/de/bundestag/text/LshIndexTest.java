@@ -0,0 +1,68 @@
+package de.bundestag.text;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LshIndexTest {
+
+    private static final MinHash MIN_HASH = new MinHash(128, 3);
+
+    private static String text(Random random, int woerter) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < woerter; i++) {
+            sb.append("wort").append(random.nextInt(2_000)).append(' ');
+        }
+        return sb.toString();
+    }
+
+    //exakte jaccard ähnlichkeit der shingle mengen
+    private static double jaccard(String a, String b) {
+        long[] x = MIN_HASH.shingles(a);
+        long[] y = MIN_HASH.shingles(b);
+        long gemeinsam = Arrays.stream(x).filter(s -> Arrays.stream(y).anyMatch(t -> t == s)).count();
+        return (double) gemeinsam / (x.length + y.length - gemeinsam);
+    }
+
+    @Test
+    void minHashSchaetztJaccard() {
+        Random random = new Random(11);
+        String a = text(random, 300);
+        String b = a.substring(0, a.length() / 2) + text(random, 150);
+        double exakt = jaccard(a, b);
+        double geschaetzt = MinHash.aehnlichkeit(MIN_HASH.signatur(a, 5), MIN_HASH.signatur(b, 5));
+        //drei standardfehler bei 128 hashes
+        assertTrue(Math.abs(geschaetzt - exakt) < 3 / Math.sqrt(128), geschaetzt + " statt " + exakt);
+        assertEquals(1.0, MinHash.aehnlichkeit(MIN_HASH.signatur(a, 5), MIN_HASH.signatur(a, 5)));
+        assertNull(MIN_HASH.signatur("zu kurz", 5));
+    }
+
+    @Test
+    void findetFastGleicheTexteUndKeineFremden() {
+        Random random = new Random(13);
+        String original = text(random, 400);
+        String kopie = original.replaceFirst("wort\\d+", "anders"); // ein wort geändert
+        String[] texte = {text(random, 400), original, text(random, 400), kopie, text(random, 400)};
+
+        LshIndex index = LshIndex.fuerSchwelle(MIN_HASH.getAnzahlHashes(), 0.8);
+        assertEquals(128, index.getBaender() * index.getZeilen());
+        for (String t : texte) {
+            index.add(MIN_HASH.signatur(t, 5));
+        }
+        List<LshIndex.Paar> paare = index.aehnlichePaare(0.8);
+        assertEquals(1, paare.size());
+        assertEquals(1, paare.get(0).a);
+        assertEquals(3, paare.get(0).b);
+        assertTrue(paare.get(0).aehnlichkeit >= 0.8);
+
+        List<int[]> cluster = LshIndex.cluster(texte.length, paare);
+        assertArrayEquals(new int[]{1, 3}, cluster.get(0));
+    }
+}